@@ -0,0 +1,90 @@
+package com.udaan.leadmanagement.benchmark;
+
+import com.udaan.leadmanagement.enums.ContactValidationError;
+import com.udaan.leadmanagement.model.Contact;
+import com.udaan.leadmanagement.validation.ContactValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Contact validation over a batch of 1000 contacts, one in ten invalid: the regex-based checks
+ * {@code ContactService} used before {@link ContactValidator} against the validator with and
+ * without phone normalization. Run with {@code -prof gc} to compare allocation per contact.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ContactValidationBenchmark {
+    private static final int BATCH_SIZE = 1000;
+
+    private final ContactValidator validator = new ContactValidator("91");
+    private Contact[] contacts;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        contacts = new Contact[BATCH_SIZE];
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            Contact contact = new Contact();
+            contact.setName("Contact " + i);
+            contact.setRole("Manager");
+            contact.setEmail(i % 10 == 3 ? "contact" + i + ".example.com" : "contact" + i + "@example.com");
+            contact.setPhone(i % 10 == 7 ? "12345" : "9" + (100_000_000 + random.nextInt(900_000_000)));
+            contacts[i] = contact;
+        }
+    }
+
+    @Benchmark
+    public void regex(Blackhole blackhole) {
+        for (Contact contact : contacts) {
+            blackhole.consume(regexValidate(contact));
+        }
+    }
+
+    @Benchmark
+    public void scanner(Blackhole blackhole) {
+        for (Contact contact : contacts) {
+            blackhole.consume(validator.validate(contact));
+        }
+    }
+
+    @Benchmark
+    public void scannerWithNormalization(Blackhole blackhole) {
+        for (Contact contact : contacts) {
+            ContactValidationError error = validator.validate(contact);
+            blackhole.consume(error == null ? validator.normalizePhone(contact.getPhone()) : error);
+        }
+    }
+
+    // ContactService.validateContactDetails as it was before ContactValidator
+    private static ContactValidationError regexValidate(Contact contact) {
+        if (contact.getName() == null || contact.getName().trim().isEmpty()) {
+            return ContactValidationError.NAME_REQUIRED;
+        }
+        if (contact.getEmail() == null || !contact.getEmail().matches("^[A-Za-z0-9+_.-]+@(.+)$")) {
+            return ContactValidationError.INVALID_EMAIL;
+        }
+        if (contact.getPhone() == null || !contact.getPhone().matches("^\\+?[0-9]{10,15}$")) {
+            return ContactValidationError.INVALID_PHONE;
+        }
+        if (contact.getRole() == null || contact.getRole().trim().isEmpty()) {
+            return ContactValidationError.ROLE_REQUIRED;
+        }
+        return null;
+    }
+}
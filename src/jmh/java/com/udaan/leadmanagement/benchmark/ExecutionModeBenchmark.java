@@ -0,0 +1,87 @@
+package com.udaan.leadmanagement.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end HTTP throughput and latency of the platform-thread and virtual-thread execution
+ * modes ({@code spring.threads.virtual.enabled}). 64 client threads call read endpoints that block
+ * on JDBC; throughput mode gives requests per second, sample mode the latency percentiles (p0.99).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@Threads(64)
+public class ExecutionModeBenchmark {
+    private static final int LEAD_COUNT = 100_000;
+
+    @Param({"platform", "virtual"})
+    public String threadMode;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private String baseUri;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = SeededApplication.boot(WebApplicationType.SERVLET, LEAD_COUNT,
+                "--server.port=0",
+                "--spring.threads.virtual.enabled=" + threadMode.equals("virtual"));
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        baseUri = "http://localhost:" + port;
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        client.close();
+        context.close();
+    }
+
+    @Benchmark
+    public int kamLeadSummaries() throws IOException, InterruptedException {
+        long kamId = ThreadLocalRandom.current().nextLong(1, SeededApplication.KAM_COUNT + 1);
+        return get("/api/kams/" + kamId + "/leads?summary=true");
+    }
+
+    @Benchmark
+    public int leadsPage() throws IOException, InterruptedException {
+        long after = ThreadLocalRandom.current().nextLong(LEAD_COUNT);
+        return get("/api/leads?after=" + after + "&limit=100");
+    }
+
+    private int get(String path) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUri + path)).GET().build();
+        HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException(path + " returned " + response.statusCode());
+        }
+        return response.body().length;
+    }
+}
@@ -0,0 +1,47 @@
+package com.udaan.leadmanagement.benchmark;
+
+import com.udaan.leadmanagement.DTO.KAMPerformanceDTO;
+import com.udaan.leadmanagement.service.KAMService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * KAM-side hot paths: reassigning a block of leads and reading the performance rankings.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class KAMServiceBenchmark {
+    private static final int ASSIGNMENT_SIZE = 1000;
+
+    @Benchmark
+    public int assignLeadsToKAM(SeededApplication app) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<Long> leadIds = new ArrayList<>(ASSIGNMENT_SIZE);
+        for (int i = 0; i < ASSIGNMENT_SIZE; i++) {
+            leadIds.add(random.nextLong(1, app.leadCount + 1));
+        }
+        long kamId = random.nextLong(1, SeededApplication.KAM_COUNT + 1);
+        return app.bean(KAMService.class).assignLeadsToKAM(kamId, leadIds, KAMService.DEFAULT_ASSIGNMENT_BATCH_SIZE);
+    }
+
+    @Benchmark
+    public List<KAMPerformanceDTO> getTopPerformingKAMs(SeededApplication app) {
+        return app.bean(KAMService.class).getTopPerformingKAMs(10);
+    }
+}
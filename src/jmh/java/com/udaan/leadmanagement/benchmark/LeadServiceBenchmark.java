@@ -0,0 +1,74 @@
+package com.udaan.leadmanagement.benchmark;
+
+import com.udaan.leadmanagement.DTO.LeadPageDTO;
+import com.udaan.leadmanagement.enums.InteractionType;
+import com.udaan.leadmanagement.model.Contact;
+import com.udaan.leadmanagement.model.Interaction;
+import com.udaan.leadmanagement.model.RestaurantLead;
+import com.udaan.leadmanagement.service.ContactService;
+import com.udaan.leadmanagement.service.RestaurantLeadManagementService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lead-side hot paths: listing, the daily call list, recording an interaction and adding a contact.
+ * {@code getAllLeads} is kept next to the keyset page so the two listing paths can be compared
+ * directly at each data size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class LeadServiceBenchmark {
+
+    @Benchmark
+    public List<RestaurantLead> getAllLeads(SeededApplication app) {
+        return app.bean(RestaurantLeadManagementService.class).getAllLeads();
+    }
+
+    @Benchmark
+    public LeadPageDTO getLeadsPage(SeededApplication app) {
+        long after = ThreadLocalRandom.current().nextLong(app.leadCount);
+        return app.bean(RestaurantLeadManagementService.class).getLeadsPage(after, 100, null, null);
+    }
+
+    @Benchmark
+    public List<RestaurantLead> getTodayCalls(SeededApplication app) {
+        return app.bean(RestaurantLeadManagementService.class).getTodayCalls();
+    }
+
+    @Benchmark
+    public Interaction recordInteraction(SeededApplication app) {
+        Interaction interaction = new Interaction();
+        interaction.setType(InteractionType.CALL);
+        interaction.setNotes("benchmark call");
+        return app.bean(RestaurantLeadManagementService.class).recordInteraction(randomLeadId(app), interaction);
+    }
+
+    @Benchmark
+    public Contact addContact(SeededApplication app) {
+        Contact contact = new Contact();
+        contact.setName("Manager");
+        contact.setRole("Manager");
+        contact.setEmail("manager@example.com");
+        contact.setPhone("9876543210");
+        return app.bean(ContactService.class).addContact(randomLeadId(app), contact);
+    }
+
+    private static long randomLeadId(SeededApplication app) {
+        return ThreadLocalRandom.current().nextLong(1, app.leadCount + 1);
+    }
+}
@@ -0,0 +1,117 @@
+package com.udaan.leadmanagement.benchmark;
+
+import com.udaan.leadmanagement.LeadManagementApplication;
+import com.udaan.leadmanagement.enums.LeadStatus;
+import com.udaan.leadmanagement.service.KAMScoreboard;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * The application booted against an in-memory H2 database and seeded with {@code leadCount}
+ * leads spread over {@link #KAM_COUNT} KAMs, one contact per lead. Rows are written with plain
+ * JDBC batches so that seeding a million leads takes seconds rather than minutes; next call dates
+ * are spread over a two week window around today so roughly one lead in fourteen is due today.
+ * <p>
+ * One instance is shared by all threads of a trial and rebuilt for every {@code leadCount}.
+ * {@link #boot} is also used by benchmarks that need a running web server.
+ */
+@State(Scope.Benchmark)
+public class SeededApplication {
+    static final int KAM_COUNT = 100;
+    private static final int SEED_BATCH_SIZE = 10_000;
+    private static final LeadStatus[] STATUSES = LeadStatus.values();
+
+    @Param({"10000", "100000", "1000000"})
+    public int leadCount;
+
+    private ConfigurableApplicationContext context;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = boot(WebApplicationType.NONE, leadCount);
+    }
+
+    /**
+     * Boots the application on a fresh in-memory database and seeds it; {@code extraArgs} are
+     * passed as command line arguments and win over application.properties.
+     */
+    static ConfigurableApplicationContext boot(WebApplicationType webApplicationType, int leadCount, String... extraArgs) {
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.jpa.show-sql=false",
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=WARN"));
+        args.addAll(List.of(extraArgs));
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(LeadManagementApplication.class)
+                .web(webApplicationType)
+                .run(args.toArray(String[]::new));
+        seed(context.getBean(JdbcTemplate.class), leadCount);
+        // The scoreboard is built when the context starts, before any rows exist
+        context.getBean(KAMScoreboard.class).reseed();
+        return context;
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    public <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    private static void seed(JdbcTemplate jdbc, int leadCount) {
+        SplittableRandom random = new SplittableRandom(42);
+
+        List<Object[]> kams = new ArrayList<>(KAM_COUNT);
+        for (long id = 1; id <= KAM_COUNT; id++) {
+            kams.add(new Object[]{id, "KAM " + id, "kam" + id + "@example.com", "90000" + id});
+        }
+        jdbc.batchUpdate("INSERT INTO kam (id, name, email, phone) VALUES (?, ?, ?, ?)", kams);
+
+        LocalDateTime today = LocalDate.now().atStartOfDay();
+        List<Object[]> leads = new ArrayList<>(SEED_BATCH_SIZE);
+        List<Object[]> contacts = new ArrayList<>(SEED_BATCH_SIZE);
+        for (long id = 1; id <= leadCount; id++) {
+            LocalDateTime nextCall = today.plusMinutes(random.nextLong(-7 * 24 * 60, 7 * 24 * 60));
+            leads.add(new Object[]{id, "Restaurant " + id, id + " Market Road",
+                    STATUSES[random.nextInt(STATUSES.length)].name(), random.nextLong(1, KAM_COUNT + 1),
+                    Timestamp.valueOf(nextCall), 7, Timestamp.valueOf(nextCall.minusDays(7)), 1, id, 0});
+            contacts.add(new Object[]{id, "Owner " + id, "Owner", "owner" + id + "@example.com",
+                    "98" + String.format("%08d", id), id});
+            if (leads.size() == SEED_BATCH_SIZE || id == leadCount) {
+                jdbc.batchUpdate("INSERT INTO restaurant_lead (id, name, address, status, kam_id, next_call_date, " +
+                        "call_frequency, last_call_date, contact_count, primary_contact_id, interaction_count) " +
+                        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", leads);
+                jdbc.batchUpdate("INSERT INTO contact (id, name, role, email, phone, restaurant_lead_id) " +
+                        "VALUES (?, ?, ?, ?, ?, ?)", contacts);
+                leads.clear();
+                contacts.clear();
+            }
+        }
+
+        // Explicit ids bypass the id generators; move them past the seeded rows. Lead and contact
+        // sequences hand out blocks of 100 ids ending at the returned value.
+        jdbc.execute("ALTER TABLE kam ALTER COLUMN id RESTART WITH " + (KAM_COUNT + 1));
+        jdbc.execute("ALTER SEQUENCE restaurant_lead_seq RESTART WITH " + (leadCount + 100));
+        jdbc.execute("ALTER SEQUENCE contact_seq RESTART WITH " + (leadCount + 100));
+    }
+}
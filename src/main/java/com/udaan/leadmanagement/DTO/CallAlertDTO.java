@@ -0,0 +1,19 @@
+package com.udaan.leadmanagement.DTO;
+
+import com.udaan.leadmanagement.enums.CallAlertType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CallAlertDTO {
+    private CallAlertType type;
+    private Long leadId;
+    private String leadName;
+    private Long kamId;
+    private LocalDateTime nextCallDate;
+}
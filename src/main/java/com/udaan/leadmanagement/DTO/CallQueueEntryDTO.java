@@ -0,0 +1,26 @@
+package com.udaan.leadmanagement.DTO;
+
+import com.udaan.leadmanagement.enums.LeadStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CallQueueEntryDTO {
+    private Long leadId;
+    private String name;
+    private String address;
+    private LeadStatus status;
+    private LocalDateTime nextCallDate;
+    private LocalDateTime lastCallDate;
+    private boolean overdue; // due before the start of the KAM's current day
+
+    public CallQueueEntryDTO(Long leadId, String name, String address, LeadStatus status,
+                             LocalDateTime nextCallDate, LocalDateTime lastCallDate) {
+        this(leadId, name, address, status, nextCallDate, lastCallDate, false);
+    }
+}
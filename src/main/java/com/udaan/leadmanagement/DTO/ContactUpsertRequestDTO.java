@@ -0,0 +1,16 @@
+package com.udaan.leadmanagement.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ContactUpsertRequestDTO {
+    private Long leadId;
+    private String name;
+    private String role;
+    private String email;
+    private String phone;
+}
@@ -0,0 +1,24 @@
+package com.udaan.leadmanagement.DTO;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ContactUpsertResponseDTO {
+    private int created;
+    private int updated;
+    private int unchanged;
+    private int rejected;
+    private int notProcessed;
+    // Why the upsert stopped early; null when every contact was processed
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String error;
+    // One result per submitted contact, in request order
+    private List<ContactUpsertResultDTO> results;
+}
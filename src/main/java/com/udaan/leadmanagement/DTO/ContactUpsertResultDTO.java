@@ -0,0 +1,20 @@
+package com.udaan.leadmanagement.DTO;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.udaan.leadmanagement.enums.ContactUpsertStatus;
+import com.udaan.leadmanagement.enums.ContactValidationError;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ContactUpsertResultDTO {
+    private ContactUpsertStatus status;
+    // Null when the item was rejected
+    private Long contactId;
+    // Only for INVALID items
+    private ContactValidationError error;
+}
@@ -0,0 +1,21 @@
+package com.udaan.leadmanagement.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FunnelReportDTO {
+    // set when the report covers one KAM's leads only
+    private Long kamId;
+    // Monday of the week the report covers, set in a weekly breakdown
+    private LocalDate weekStart;
+    // highest id among the lead events the aggregates include
+    private long lastEventId;
+    private List<FunnelStageDTO> stages;
+}
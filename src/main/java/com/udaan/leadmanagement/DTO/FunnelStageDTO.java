@@ -0,0 +1,27 @@
+package com.udaan.leadmanagement.DTO;
+
+import com.udaan.leadmanagement.enums.LeadStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FunnelStageDTO {
+    private LeadStatus status;
+    // leads in this status now; null in a weekly breakdown
+    private Long leads;
+    // leads that entered this status, by creation or by a status change
+    private long entered;
+    // status changes out of this status, by target status, and their share of all of them in percent
+    private long exited;
+    private Map<LeadStatus, Long> transitions;
+    private Map<LeadStatus, Double> conversionRates;
+    // time spent in this status by the leads that left it, where the entry is in the event log
+    private long measuredStays;
+    private Long medianSecondsInStage;
+    private Long p90SecondsInStage;
+}
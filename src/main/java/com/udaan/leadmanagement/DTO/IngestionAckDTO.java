@@ -0,0 +1,13 @@
+package com.udaan.leadmanagement.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IngestionAckDTO {
+    private int accepted;
+    private int queuedInteractions;
+}
@@ -0,0 +1,18 @@
+package com.udaan.leadmanagement.DTO;
+
+import com.udaan.leadmanagement.enums.InteractionType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InteractionDTO {
+    private Long id;
+    private InteractionType type;
+    private LocalDateTime interactionDate;
+    private String notes;
+}
@@ -0,0 +1,17 @@
+package com.udaan.leadmanagement.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InteractionPageDTO {
+    // Newest first
+    private List<InteractionDTO> interactions;
+    // Value to pass as "before" for the next (older) page, null when this is the last page
+    private String nextCursor;
+}
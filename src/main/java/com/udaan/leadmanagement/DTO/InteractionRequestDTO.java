@@ -0,0 +1,15 @@
+package com.udaan.leadmanagement.DTO;
+
+import com.udaan.leadmanagement.enums.InteractionType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InteractionRequestDTO {
+    private Long leadId;
+    private InteractionType type;
+    private String notes;
+}
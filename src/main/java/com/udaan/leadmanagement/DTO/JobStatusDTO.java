@@ -0,0 +1,20 @@
+package com.udaan.leadmanagement.DTO;
+
+import com.udaan.leadmanagement.enums.JobStatus;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+public class JobStatusDTO {
+    private String jobId;
+    private String type;
+    private JobStatus status;
+    private long totalItems;
+    private long processedItems;
+    private String message;
+    private List<String> errors;
+    private LocalDateTime submittedAt;
+    private LocalDateTime finishedAt;
+}
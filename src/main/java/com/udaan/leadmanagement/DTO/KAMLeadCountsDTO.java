@@ -0,0 +1,15 @@
+package com.udaan.leadmanagement.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class KAMLeadCountsDTO {
+    private Long kamId;
+    private int totalLeads;
+    private int convertedLeads;
+    private double conversionRate;
+}
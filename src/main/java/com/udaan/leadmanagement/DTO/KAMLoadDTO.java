@@ -0,0 +1,17 @@
+package com.udaan.leadmanagement.DTO;
+
+import lombok.Data;
+
+@Data
+public class KAMLoadDTO {
+    private Long kamId;
+    private String kamName;
+    // leads still being worked, and the calls they need per day on average
+    private Integer activeLeads;
+    private Double dailyCalls;
+    private Integer totalLeads;
+    private Double conversionRate;
+    // centre of the active leads that have a position; null when none has
+    private Double territoryLatitude;
+    private Double territoryLongitude;
+}
@@ -0,0 +1,28 @@
+package com.udaan.leadmanagement.DTO;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class KAMRecentPerformanceDTO {
+    private Long kamId;
+    private String kamName;
+    // length of the window, ending today
+    private Integer days;
+    private Integer conversions;
+    private Integer losses;
+    // conversions among the leads closed in the window, in percent; null when none were closed
+    private Double conversionRate;
+    private Integer interactions;
+    private Integer totalLeads;
+    // interactions in the window per lead the KAM has now; null when it has none
+    private Double interactionsPerLead;
+    // calls that came due: those made while due plus those that went overdue in the window and are still not made
+    // (missedCalls), how many were made by the due day, and that share in percent (null when none came due)
+    private Integer scheduledCalls;
+    private Integer onScheduleCalls;
+    private Integer missedCalls;
+    private Double callAdherence;
+    private LocalDateTime lastUpdated;
+}
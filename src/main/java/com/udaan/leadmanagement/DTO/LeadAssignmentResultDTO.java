@@ -0,0 +1,14 @@
+package com.udaan.leadmanagement.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LeadAssignmentResultDTO {
+    private Long kamId;
+    private int requestedLeads;
+    private int assignedLeads;
+}
@@ -0,0 +1,25 @@
+package com.udaan.leadmanagement.DTO;
+
+import com.udaan.leadmanagement.enums.InteractionType;
+import com.udaan.leadmanagement.enums.LeadEventType;
+import com.udaan.leadmanagement.enums.LeadStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LeadChangeDTO {
+    private Long eventId;
+    private LeadEventType type;
+    private Long leadId;
+    private Long kamId;
+    private Long previousKamId; // reassignments only
+    private LeadStatus status;
+    private InteractionType interactionType;
+    private Long contactId;
+    private LocalDateTime occurredAt;
+}
@@ -0,0 +1,19 @@
+package com.udaan.leadmanagement.DTO;
+
+import com.udaan.leadmanagement.enums.LeadStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LeadFunnelDTO {
+    // id of the last event the funnel was built from
+    private long lastEventId;
+    private Map<LeadStatus, Long> leadsByStatus;
+    // number of status changes from one status (outer key) to another (inner key)
+    private Map<LeadStatus, Map<LeadStatus, Long>> transitions;
+}
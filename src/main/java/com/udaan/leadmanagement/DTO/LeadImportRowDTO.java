@@ -0,0 +1,22 @@
+package com.udaan.leadmanagement.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One row of a lead import file: CSV columns or NDJSON properties carry these names. The contact
+ * columns are optional; when any is present the row also creates the lead's primary contact.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LeadImportRowDTO {
+    private String name;
+    private String address;
+    private Integer callFrequency;
+    private String contactName;
+    private String contactRole;
+    private String contactEmail;
+    private String contactPhone;
+}
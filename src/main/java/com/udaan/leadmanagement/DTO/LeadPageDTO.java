@@ -0,0 +1,16 @@
+package com.udaan.leadmanagement.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LeadPageDTO {
+    private List<LeadSummaryDTO> leads;
+    // id to pass as "after" for the next page, null when this is the last page
+    private Long nextCursor;
+}
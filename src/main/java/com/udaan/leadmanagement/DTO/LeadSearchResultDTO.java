@@ -0,0 +1,16 @@
+package com.udaan.leadmanagement.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LeadSearchResultDTO {
+    private Long id;
+    private String name;
+    private String address;
+    // higher is better; only meaningful relative to the other results of the same query
+    private double score;
+}
@@ -0,0 +1,22 @@
+package com.udaan.leadmanagement.DTO;
+
+import com.udaan.leadmanagement.enums.LeadStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LeadSummaryDTO {
+    private Long id;
+    private String name;
+    private String address;
+    private LeadStatus status;
+    private Long kamId;
+    private LocalDateTime nextCallDate;
+    private Integer callFrequency;
+    private LocalDateTime lastCallDate;
+}
@@ -0,0 +1,16 @@
+package com.udaan.leadmanagement.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LeadsInAreaDTO {
+    // every lead in the area, including those beyond the page of leads returned
+    private int total;
+    private List<NearbyLeadDTO> leads;
+}
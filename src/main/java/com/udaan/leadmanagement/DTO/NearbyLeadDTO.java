@@ -0,0 +1,21 @@
+package com.udaan.leadmanagement.DTO;
+
+import com.udaan.leadmanagement.enums.LeadStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NearbyLeadDTO {
+    private Long id;
+    private String name;
+    private String address;
+    private LeadStatus status;
+    private Long kamId;
+    private double latitude;
+    private double longitude;
+    // from the query point, or from the centre of the queried box
+    private double distanceKm;
+}
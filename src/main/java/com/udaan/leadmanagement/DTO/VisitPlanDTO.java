@@ -0,0 +1,15 @@
+package com.udaan.leadmanagement.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VisitPlanDTO {
+    private List<VisitStopDTO> stops;
+    private double totalKm;
+}
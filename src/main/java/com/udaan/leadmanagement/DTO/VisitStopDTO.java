@@ -0,0 +1,25 @@
+package com.udaan.leadmanagement.DTO;
+
+import com.udaan.leadmanagement.enums.LeadStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VisitStopDTO {
+    private Long leadId;
+    private String name;
+    private String address;
+    private LeadStatus status;
+    private LocalDateTime nextCallDate;
+    private boolean overdue;
+    // null for leads without a known position, which come last in call queue order
+    private Double latitude;
+    private Double longitude;
+    // from the previous stop, or from the start for the first one
+    private Double legKm;
+}
@@ -0,0 +1,82 @@
+package com.udaan.leadmanagement.analytics;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+/**
+ * Daily counters of one KAM for the last {@value #DAYS} days, in a ring indexed by epoch day. A
+ * slot is reused, and cleared, when a later day maps onto it, so nothing needs to expire them.
+ */
+final class ActivityRing {
+    static final int DAYS = 90;
+
+    static final int CONVERSIONS = 0;
+    static final int LOSSES = 1;
+    static final int INTERACTIONS = 2;
+    static final int SCHEDULED_CALLS = 3;
+    static final int ON_SCHEDULE_CALLS = 4;
+    static final int MISSED_CALLS = 5;
+    private static final int METRICS = 6;
+
+    private final long[] days = new long[DAYS];
+    private final int[][] counts = new int[METRICS][DAYS];
+    private LocalDateTime lastEventAt;
+
+    ActivityRing() {
+        Arrays.fill(days, Long.MIN_VALUE);
+    }
+
+    void touch(LocalDateTime at) {
+        if (lastEventAt == null || at.isAfter(lastEventAt)) {
+            lastEventAt = at;
+        }
+    }
+
+    /**
+     * @return time of the latest event seen for the KAM, counted or not
+     */
+    LocalDateTime getLastEventAt() {
+        return lastEventAt;
+    }
+
+    /**
+     * Counts one occurrence of the metric on the day; days that have left the ring are ignored.
+     */
+    void add(int metric, long epochDay) {
+        int slot = (int) Math.floorMod(epochDay, DAYS);
+        if (days[slot] != epochDay) {
+            if (days[slot] > epochDay) {
+                return;
+            }
+            days[slot] = epochDay;
+            for (int[] metricCounts : counts) {
+                metricCounts[slot] = 0;
+            }
+        }
+        counts[metric][slot]++;
+    }
+
+    /**
+     * Takes back one occurrence counted by {@link #add}; days that have left the ring are ignored.
+     */
+    void remove(int metric, long epochDay) {
+        int slot = (int) Math.floorMod(epochDay, DAYS);
+        if (days[slot] == epochDay) {
+            counts[metric][slot]--;
+        }
+    }
+
+    /**
+     * @return the metric summed over the {@code windowDays} days ending with {@code today}
+     */
+    int sum(int metric, long today, int windowDays) {
+        long first = today - Math.min(windowDays, DAYS) + 1;
+        int sum = 0;
+        for (int slot = 0; slot < DAYS; slot++) {
+            if (days[slot] >= first && days[slot] <= today) {
+                sum += counts[metric][slot];
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,95 @@
+package com.udaan.leadmanagement.analytics;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Which of the last {@code window} event ids up to the highest one applied have been applied, one
+ * bit an id in a ring. Event ids are handed out before commit, so events can arrive out of id
+ * order and an id below the highest is not necessarily a repeat; this tells the two apart exactly.
+ * Ids further back than the window are taken as applied, as the startup replay never reaches
+ * further back than that.
+ */
+final class AppliedEventIds {
+    private final long[] words;
+    private final int window;
+    private long highest;
+
+    AppliedEventIds(long window) {
+        int words = (int) Math.max(1, Math.min(Integer.MAX_VALUE / 64, (window + 63) / 64));
+        this.words = new long[words];
+        this.window = words * 64;
+    }
+
+    long highest() {
+        return highest;
+    }
+
+    /**
+     * Records the id as applied.
+     *
+     * @return {@code false} when it already was, or is too far back to tell
+     */
+    boolean add(long id) {
+        if (id > highest) {
+            // The bits of the ids the window slides past are reused for the ids it now takes in
+            if (id - highest >= window) {
+                Arrays.fill(words, 0);
+            } else {
+                for (long cleared = highest + 1; cleared < id; cleared++) {
+                    words[word(cleared)] &= ~bit(cleared);
+                }
+            }
+            highest = id;
+        } else if (id <= highest - window || (words[word(id)] & bit(id)) != 0) {
+            return false;
+        }
+        words[word(id)] |= bit(id);
+        return true;
+    }
+
+    /**
+     * Writes the applied ids in the window, oldest first; {@link #read} adds them back in that order.
+     */
+    void write(DataOutputStream out) throws IOException {
+        long from = Math.max(1, highest - window + 1);
+        int count = 0;
+        for (long id = from; id <= highest; id++) {
+            if ((words[word(id)] & bit(id)) != 0) {
+                count++;
+            }
+        }
+        out.writeInt(count);
+        for (long id = from; id <= highest; id++) {
+            if ((words[word(id)] & bit(id)) != 0) {
+                out.writeLong(id);
+            }
+        }
+    }
+
+    static AppliedEventIds read(DataInputStream in, long window) throws IOException {
+        AppliedEventIds applied = new AppliedEventIds(window);
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            applied.add(in.readLong());
+        }
+        return applied;
+    }
+
+    AppliedEventIds copy() {
+        AppliedEventIds copy = new AppliedEventIds(window);
+        System.arraycopy(words, 0, copy.words, 0, words.length);
+        copy.highest = highest;
+        return copy;
+    }
+
+    private int word(long id) {
+        return (int) ((id % window) >>> 6);
+    }
+
+    private static long bit(long id) {
+        return 1L << id;
+    }
+}
@@ -0,0 +1,116 @@
+package com.udaan.leadmanagement.analytics;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Counts of durations in seconds, in log-linear buckets: exact below 16 seconds, then eight
+ * buckets per power of two, so a quantile read back is within about 6% of the true value.
+ * Durations of 2^41 seconds (70,000 years) and more share the last bucket.
+ */
+final class DurationHistogram {
+    private static final int SUB_BUCKETS = 8;
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int MAX_EXPONENT = 40;
+    static final int BUCKETS = (MAX_EXPONENT - 1) * SUB_BUCKETS;
+
+    private final long[] counts = new long[BUCKETS];
+    private long total;
+
+    void record(long seconds) {
+        counts[bucket(seconds)]++;
+        total++;
+    }
+
+    long count() {
+        return total;
+    }
+
+    /**
+     * @return the duration in seconds below which the fraction {@code q} of the recorded ones lie,
+     * or {@code null} when nothing was recorded
+     */
+    Long quantile(double q) {
+        if (total == 0) {
+            return null;
+        }
+        long rank = Math.max(1, (long) Math.ceil(q * total));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += counts[bucket];
+            if (seen >= rank) {
+                return midpoint(bucket);
+            }
+        }
+        return midpoint(BUCKETS - 1);
+    }
+
+    static int bucket(long seconds) {
+        if (seconds < 2 * SUB_BUCKETS) {
+            return (int) Math.max(0, seconds);
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(seconds);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKETS - 1;
+        }
+        int subBucket = (int) (seconds >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long lowerBound(int bucket) {
+        if (bucket < 2 * SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        return (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << (exponent - SUB_BUCKET_BITS);
+    }
+
+    private static long midpoint(int bucket) {
+        long lower = lowerBound(bucket);
+        long width = bucket < 2 * SUB_BUCKETS ? 1 : lowerBound(bucket + 1) - lower;
+        return lower + (width - 1) / 2;
+    }
+
+    void addAll(DurationHistogram other) {
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            counts[bucket] += other.counts[bucket];
+        }
+        total += other.total;
+    }
+
+    DurationHistogram copy() {
+        DurationHistogram copy = new DurationHistogram();
+        copy.addAll(this);
+        return copy;
+    }
+
+    // Sparse: most durations fall into a few dozen buckets
+    void write(DataOutputStream out) throws IOException {
+        int used = 0;
+        for (long count : counts) {
+            if (count > 0) {
+                used++;
+            }
+        }
+        out.writeShort(used);
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            if (counts[bucket] > 0) {
+                out.writeShort(bucket);
+                out.writeLong(counts[bucket]);
+            }
+        }
+    }
+
+    static DurationHistogram read(DataInputStream in) throws IOException {
+        DurationHistogram histogram = new DurationHistogram();
+        int used = in.readUnsignedShort();
+        for (int i = 0; i < used; i++) {
+            int bucket = in.readUnsignedShort();
+            long count = in.readLong();
+            histogram.counts[bucket] = count;
+            histogram.total += count;
+        }
+        return histogram;
+    }
+}
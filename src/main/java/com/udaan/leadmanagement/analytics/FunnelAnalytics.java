@@ -0,0 +1,356 @@
+package com.udaan.leadmanagement.analytics;
+
+import com.udaan.leadmanagement.DTO.FunnelReportDTO;
+import com.udaan.leadmanagement.enums.LeadEventType;
+import com.udaan.leadmanagement.enums.LeadStatus;
+import com.udaan.leadmanagement.event.LeadEventListener;
+import com.udaan.leadmanagement.event.LeadEventLog;
+import com.udaan.leadmanagement.model.LeadEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversion funnel kept up to date from the lead event log: leads per status, entries into each
+ * status, moves between statuses and time-in-status quantiles, overall, per KAM and per week.
+ * Committed events arrive through {@link LeadEventListener}; queries read the in-memory aggregates
+ * and never touch the database.
+ * <p>
+ * A move counts toward the KAM the lead had when it moved and toward the week (Monday to Sunday)
+ * it happened in; entries from lead creation count toward the week the lead was created. A stay
+ * is timed when the lead leaves the status, so stays still going are not in the quantiles, nor
+ * are stays whose start predates the log.
+ * <p>
+ * The state is written to {@code leadmanagement.analytics.checkpoint-file} periodically and at
+ * shutdown, and startup replays only the log after it instead of all of it; a blank file name
+ * turns this off. Since event ids are handed out before commit, events can commit out of id order
+ * and the replay starts {@code leadmanagement.analytics.replay-overlap} ids before the checkpoint.
+ * The ids applied within that many of the highest are remembered exactly, so events seen twice
+ * count once and an event that committed after one with a higher id still counts.
+ */
+@Slf4j
+@Component
+public class FunnelAnalytics implements LeadEventListener {
+    private static final int CHECKPOINT_MAGIC = 0x4C464E32; // "LFN2"
+    private static final LeadStatus[] STATUSES = LeadStatus.values();
+
+    private final LeadEventLog leadEventLog;
+    private final Path checkpointFile;
+    private final long checkpointIntervalMinutes;
+    private final long replayOverlap;
+    private final int weeksRetained;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "funnel-checkpoint");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // All state below is guarded by this
+    private LeadStateTable leads = new LeadStateTable();
+    private FunnelStats overall = new FunnelStats();
+    private Map<Long, FunnelStats> byKam = new HashMap<>();
+    private TreeMap<LocalDate, FunnelStats> byWeek = new TreeMap<>();
+    private AppliedEventIds applied;
+    // Live events that arrived before the startup replay finished
+    private List<LeadEvent> pending = new ArrayList<>();
+    private boolean loaded;
+
+    public FunnelAnalytics(LeadEventLog leadEventLog,
+                           @Value("${leadmanagement.analytics.checkpoint-file:data/funnel-checkpoint.bin}") String checkpointFile,
+                           @Value("${leadmanagement.analytics.checkpoint-interval-minutes:10}") long checkpointIntervalMinutes,
+                           @Value("${leadmanagement.analytics.replay-overlap:10000}") long replayOverlap,
+                           @Value("${leadmanagement.analytics.weeks-retained:104}") int weeksRetained) {
+        this.leadEventLog = leadEventLog;
+        this.checkpointFile = checkpointFile.isBlank() ? null : Path.of(checkpointFile);
+        this.checkpointIntervalMinutes = checkpointIntervalMinutes;
+        this.replayOverlap = replayOverlap;
+        this.weeksRetained = weeksRetained;
+        this.applied = new AppliedEventIds(replayOverlap);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        long started = System.nanoTime();
+        long from = 0;
+        if (checkpointFile != null && Files.exists(checkpointFile)) {
+            try {
+                from = loadCheckpoint();
+            } catch (IOException | RuntimeException e) {
+                log.warn("Ignoring unreadable funnel checkpoint {}, replaying the whole event log", checkpointFile, e);
+                clear();
+            }
+        }
+        leadEventLog.replay(from, event -> {
+            synchronized (this) {
+                apply(event);
+            }
+        });
+        synchronized (this) {
+            pending.forEach(this::apply);
+            pending = null;
+            loaded = true;
+            log.info("Funnel analytics loaded {} leads up to event {} in {} ms", leads.size(), applied.highest(),
+                    (System.nanoTime() - started) / 1_000_000);
+        }
+        if (checkpointFile != null) {
+            scheduler.scheduleWithFixedDelay(this::checkpointQuietly, checkpointIntervalMinutes,
+                    checkpointIntervalMinutes, TimeUnit.MINUTES);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+        if (checkpointFile != null && isLoaded()) {
+            checkpointQuietly();
+        }
+    }
+
+    @Override
+    public synchronized void onLeadEvents(List<LeadEvent> events) {
+        if (!loaded) {
+            pending.addAll(events);
+            return;
+        }
+        events.forEach(this::apply);
+    }
+
+    public synchronized boolean isLoaded() {
+        return loaded;
+    }
+
+    public synchronized FunnelReportDTO getFunnel() {
+        return new FunnelReportDTO(null, null, applied.highest(), overall.toStageDTOs(true));
+    }
+
+    /**
+     * @return the funnel of the KAM's current leads and of the moves made while the KAM had them
+     */
+    public synchronized FunnelReportDTO getKamFunnel(Long kamId) {
+        FunnelStats stats = byKam.getOrDefault(kamId, new FunnelStats());
+        return new FunnelReportDTO(kamId, null, applied.highest(), stats.toStageDTOs(true));
+    }
+
+    /**
+     * @return one report per week for the last {@code weeks} weeks up to the current one, oldest
+     * first; weeks without activity have all counts 0
+     */
+    public synchronized List<FunnelReportDTO> getWeeklyFunnels(int weeks, LocalDate today) {
+        LocalDate week = weekOf(today).minusWeeks(weeks - 1L);
+        List<FunnelReportDTO> reports = new ArrayList<>(weeks);
+        for (int i = 0; i < weeks; i++, week = week.plusWeeks(1)) {
+            FunnelStats stats = byWeek.getOrDefault(week, new FunnelStats());
+            reports.add(new FunnelReportDTO(null, week, applied.highest(), stats.toStageDTOs(false)));
+        }
+        return reports;
+    }
+
+    /**
+     * Writes the current state to the checkpoint file, through a temporary file so a crash never
+     * leaves a partial one behind. The state is copied under the lock and written outside it.
+     */
+    public void checkpoint() throws IOException {
+        LeadStateTable leadsCopy;
+        AppliedEventIds appliedCopy;
+        FunnelStats overallCopy;
+        Map<Long, FunnelStats> byKamCopy = new HashMap<>();
+        TreeMap<LocalDate, FunnelStats> byWeekCopy = new TreeMap<>();
+        synchronized (this) {
+            leadsCopy = leads.copy();
+            appliedCopy = applied.copy();
+            overallCopy = overall.copy();
+            byKam.forEach((kamId, stats) -> byKamCopy.put(kamId, stats.copy()));
+            byWeek.forEach((week, stats) -> byWeekCopy.put(week, stats.copy()));
+        }
+        Path directory = checkpointFile.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, checkpointFile.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(temporary), 64 * 1024))) {
+                out.writeInt(CHECKPOINT_MAGIC);
+                out.writeInt(STATUSES.length);
+                appliedCopy.write(out);
+                leadsCopy.write(out);
+                overallCopy.write(out);
+                out.writeInt(byKamCopy.size());
+                for (Map.Entry<Long, FunnelStats> entry : byKamCopy.entrySet()) {
+                    out.writeLong(entry.getKey());
+                    entry.getValue().write(out);
+                }
+                out.writeInt(byWeekCopy.size());
+                for (Map.Entry<LocalDate, FunnelStats> entry : byWeekCopy.entrySet()) {
+                    out.writeLong(entry.getKey().toEpochDay());
+                    entry.getValue().write(out);
+                }
+            }
+            Files.move(temporary, checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+        log.info("Wrote funnel checkpoint at event {} with {} leads", appliedCopy.highest(), leadsCopy.size());
+    }
+
+    private void checkpointQuietly() {
+        try {
+            checkpoint();
+        } catch (IOException | RuntimeException e) {
+            log.error("Writing funnel checkpoint {} failed", checkpointFile, e);
+        }
+    }
+
+    /**
+     * @return the id to replay the log from
+     */
+    private synchronized long loadCheckpoint() throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                Files.newInputStream(checkpointFile), 64 * 1024))) {
+            if (in.readInt() != CHECKPOINT_MAGIC) {
+                throw new IOException("Not a funnel checkpoint");
+            }
+            if (in.readInt() != STATUSES.length) {
+                throw new IOException("Checkpoint was written for a different set of lead statuses");
+            }
+            applied = AppliedEventIds.read(in, replayOverlap);
+            leads = LeadStateTable.read(in);
+            overall = FunnelStats.read(in);
+            int kams = in.readInt();
+            for (int i = 0; i < kams; i++) {
+                byKam.put(in.readLong(), FunnelStats.read(in));
+            }
+            int weeks = in.readInt();
+            for (int i = 0; i < weeks; i++) {
+                byWeek.put(LocalDate.ofEpochDay(in.readLong()), FunnelStats.read(in));
+            }
+        }
+        log.info("Loaded funnel checkpoint at event {} with {} leads", applied.highest(), leads.size());
+        return Math.max(0, applied.highest() - replayOverlap);
+    }
+
+    private synchronized void clear() {
+        leads = new LeadStateTable();
+        overall = new FunnelStats();
+        byKam = new HashMap<>();
+        byWeek = new TreeMap<>();
+        applied = new AppliedEventIds(replayOverlap);
+    }
+
+    // Callers hold the lock
+    private void apply(LeadEvent event) {
+        if (event.getStatus() == null) {
+            return;
+        }
+        switch (event.getType()) {
+            case LEAD_CREATED, STATUS_CHANGED, KAM_ASSIGNED -> {
+            }
+            default -> {
+                return;
+            }
+        }
+        if (!applied.add(event.getId())) {
+            return;
+        }
+        int stage = event.getStatus().ordinal();
+        long kamId = event.getKamId() == null ? LeadStateTable.NO_KAM : event.getKamId();
+        long at = event.getOccurredAt().toEpochSecond(ZoneOffset.UTC);
+        int slot = leads.slot(event.getLeadId());
+
+        if (slot < 0) {
+            // A created lead starts its first stay now; one older than the log joins without a known start
+            boolean created = event.getType() == LeadEventType.LEAD_CREATED;
+            leads.add(event.getLeadId(), stage, kamId, created ? at : LeadStateTable.UNKNOWN_TIME);
+            addCurrent(kamId, stage, 1);
+            if (created) {
+                overall.entered(stage);
+                if (kamId != LeadStateTable.NO_KAM) {
+                    kamStats(kamId).entered(stage);
+                }
+                weekStats(event.getOccurredAt()).entered(stage);
+            }
+            return;
+        }
+        int previousStage = leads.stage(slot);
+        long previousKam = leads.kamId(slot);
+        switch (event.getType()) {
+            case STATUS_CHANGED -> {
+                if (previousStage == stage) {
+                    return;
+                }
+                long enteredAt = leads.enteredAt(slot);
+                long seconds = enteredAt == LeadStateTable.UNKNOWN_TIME ? -1 : Math.max(0, at - enteredAt);
+                addCurrent(previousKam, previousStage, -1);
+                addCurrent(previousKam, stage, 1);
+                overall.moved(previousStage, stage, seconds);
+                if (previousKam != LeadStateTable.NO_KAM) {
+                    kamStats(previousKam).moved(previousStage, stage, seconds);
+                }
+                weekStats(event.getOccurredAt()).moved(previousStage, stage, seconds);
+                leads.setStage(slot, stage, at);
+            }
+            case KAM_ASSIGNED -> {
+                if (previousKam == kamId) {
+                    return;
+                }
+                addCurrent(previousKam, previousStage, -1);
+                addCurrent(kamId, previousStage, 1);
+                leads.setKamId(slot, kamId);
+            }
+            default -> {
+                // LEAD_CREATED for a lead already known, e.g. seeded rows replayed: nothing moved
+            }
+        }
+    }
+
+    private void addCurrent(long kamId, int stage, int delta) {
+        overall.addCurrent(stage, delta);
+        if (kamId != LeadStateTable.NO_KAM) {
+            kamStats(kamId).addCurrent(stage, delta);
+        }
+    }
+
+    private FunnelStats kamStats(long kamId) {
+        return byKam.computeIfAbsent(kamId, id -> new FunnelStats());
+    }
+
+    private FunnelStats weekStats(LocalDateTime at) {
+        LocalDate week = weekOf(at.toLocalDate());
+        FunnelStats stats = byWeek.get(week);
+        if (stats == null) {
+            stats = new FunnelStats();
+            byWeek.put(week, stats);
+            while (byWeek.size() > weeksRetained) {
+                byWeek.pollFirstEntry();
+            }
+        }
+        return stats;
+    }
+
+    private static LocalDate weekOf(LocalDate date) {
+        return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    }
+}
@@ -0,0 +1,127 @@
+package com.udaan.leadmanagement.analytics;
+
+import com.udaan.leadmanagement.DTO.FunnelStageDTO;
+import com.udaan.leadmanagement.enums.LeadStatus;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Funnel aggregates of one slice of the leads (all of them, one KAM's, or one week's moves),
+ * indexed by {@link LeadStatus} ordinal. Time-in-stage histograms are allocated on the first stay
+ * that ends in their stage.
+ */
+final class FunnelStats {
+    private static final LeadStatus[] STATUSES = LeadStatus.values();
+
+    private final long[] current = new long[STATUSES.length];
+    private final long[] entered = new long[STATUSES.length];
+    private final long[][] transitions = new long[STATUSES.length][STATUSES.length];
+    private final DurationHistogram[] timeInStage = new DurationHistogram[STATUSES.length];
+
+    void addCurrent(int stage, int delta) {
+        current[stage] += delta;
+    }
+
+    void entered(int stage) {
+        entered[stage]++;
+    }
+
+    /**
+     * A lead moved between stages after {@code secondsInStage} in the old one; negative when its
+     * entry into the old stage is not known.
+     */
+    void moved(int from, int to, long secondsInStage) {
+        transitions[from][to]++;
+        entered[to]++;
+        if (secondsInStage >= 0) {
+            if (timeInStage[from] == null) {
+                timeInStage[from] = new DurationHistogram();
+            }
+            timeInStage[from].record(secondsInStage);
+        }
+    }
+
+    long getCurrent(LeadStatus status) {
+        return current[status.ordinal()];
+    }
+
+    long getEntered(LeadStatus status) {
+        return entered[status.ordinal()];
+    }
+
+    long getTransitions(LeadStatus from, LeadStatus to) {
+        return transitions[from.ordinal()][to.ordinal()];
+    }
+
+    List<FunnelStageDTO> toStageDTOs(boolean withCurrent) {
+        List<FunnelStageDTO> stages = new ArrayList<>(STATUSES.length);
+        for (LeadStatus from : STATUSES) {
+            int i = from.ordinal();
+            long exited = 0;
+            for (long count : transitions[i]) {
+                exited += count;
+            }
+            Map<LeadStatus, Long> moves = new EnumMap<>(LeadStatus.class);
+            Map<LeadStatus, Double> rates = new EnumMap<>(LeadStatus.class);
+            for (LeadStatus to : STATUSES) {
+                long count = transitions[i][to.ordinal()];
+                if (count > 0) {
+                    moves.put(to, count);
+                    rates.put(to, (double) count / exited * 100);
+                }
+            }
+            DurationHistogram stays = timeInStage[i];
+            stages.add(new FunnelStageDTO(from, withCurrent ? current[i] : null, entered[i], exited, moves, rates,
+                    stays == null ? 0 : stays.count(),
+                    stays == null ? null : stays.quantile(0.5),
+                    stays == null ? null : stays.quantile(0.9)));
+        }
+        return stages;
+    }
+
+    FunnelStats copy() {
+        FunnelStats copy = new FunnelStats();
+        for (int i = 0; i < STATUSES.length; i++) {
+            copy.current[i] = current[i];
+            copy.entered[i] = entered[i];
+            System.arraycopy(transitions[i], 0, copy.transitions[i], 0, STATUSES.length);
+            copy.timeInStage[i] = timeInStage[i] == null ? null : timeInStage[i].copy();
+        }
+        return copy;
+    }
+
+    void write(DataOutputStream out) throws IOException {
+        for (int i = 0; i < STATUSES.length; i++) {
+            out.writeLong(current[i]);
+            out.writeLong(entered[i]);
+            for (long count : transitions[i]) {
+                out.writeLong(count);
+            }
+            out.writeBoolean(timeInStage[i] != null);
+            if (timeInStage[i] != null) {
+                timeInStage[i].write(out);
+            }
+        }
+    }
+
+    static FunnelStats read(DataInputStream in) throws IOException {
+        FunnelStats stats = new FunnelStats();
+        for (int i = 0; i < STATUSES.length; i++) {
+            stats.current[i] = in.readLong();
+            stats.entered[i] = in.readLong();
+            for (int j = 0; j < STATUSES.length; j++) {
+                stats.transitions[i][j] = in.readLong();
+            }
+            if (in.readBoolean()) {
+                stats.timeInStage[i] = DurationHistogram.read(in);
+            }
+        }
+        return stats;
+    }
+}
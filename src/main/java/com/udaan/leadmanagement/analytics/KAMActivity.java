@@ -0,0 +1,24 @@
+package com.udaan.leadmanagement.analytics;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * One KAM's activity over the last {@code days} days, as counted by {@link KAMActivityWindows}.
+ */
+@Value
+public class KAMActivity {
+    long kamId;
+    int days;
+    int conversions;
+    int losses;
+    int interactions;
+    // Calls made while one was due, and those of them made by the due day
+    int scheduledCalls;
+    int onScheduleCalls;
+    // Calls that came due in the window, went overdue and are still not made
+    int missedCalls;
+    // Time of the KAM's latest lead event; null when it has none since startup's replay window
+    LocalDateTime lastEventAt;
+}
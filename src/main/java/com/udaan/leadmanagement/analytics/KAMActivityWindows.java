@@ -0,0 +1,268 @@
+package com.udaan.leadmanagement.analytics;
+
+import com.udaan.leadmanagement.enums.InteractionType;
+import com.udaan.leadmanagement.enums.LeadEventType;
+import com.udaan.leadmanagement.enums.LeadStatus;
+import com.udaan.leadmanagement.event.LeadEventListener;
+import com.udaan.leadmanagement.event.LeadEventLog;
+import com.udaan.leadmanagement.model.LeadEvent;
+import com.udaan.leadmanagement.repository.KAMRepository;
+import com.udaan.leadmanagement.service.CallPlanningService;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Per-KAM activity over sliding windows of up to {@value ActivityRing#DAYS} days: conversions,
+ * losses, interactions, how many of the calls made while due were made by the due day, and the
+ * calls that went overdue and are still not made. Each KAM has an {@link ActivityRing} of daily
+ * counters, fed from the lead event log as changes commit; a window query sums at most
+ * {@value ActivityRing#DAYS} slots. Activity counts toward the KAM the event names, i.e. the one
+ * that had the lead at the time, on the day it happened in the KAM's timezone.
+ * <p>
+ * Missed calls come from the call scheduler's overdue alerts, through {@link #onCallOverdue}; the
+ * scheduler reports the ones already overdue when it starts. One counts on the day the call came
+ * due, toward the lead's KAM, until a call is made or the lead is closed; a reassignment takes it
+ * to the new KAM. Only changes after the call came due settle it, so replaying older events does not.
+ * <p>
+ * At startup the last {@value ActivityRing#DAYS} days of the log are replayed. Live events that
+ * commit meanwhile are held back and applied afterwards, except for those the replay already
+ * counted; events written more than {@link #REPLAY_OVERLAP} before startup are assumed to have
+ * been committed by then.
+ */
+@Slf4j
+@Component
+public class KAMActivityWindows implements LeadEventListener {
+    public static final int DAYS = ActivityRing.DAYS;
+    private static final Duration REPLAY_OVERLAP = Duration.ofMinutes(10);
+
+    private final LeadEventLog leadEventLog;
+    private final KAMRepository kamRepository;
+
+    // All state below is guarded by this
+    private final Map<Long, ActivityRing> rings = new HashMap<>();
+    // KAMs with a timezone of their own; the others use the server's
+    private final Map<Long, ZoneId> zones = new HashMap<>();
+    // Overdue calls not made yet, by lead id
+    private final Map<Long, MissedCall> missedCalls = new HashMap<>();
+    private List<LeadEvent> pending = new ArrayList<>();
+    private Set<Long> replayedRecently = new HashSet<>();
+    private boolean loaded;
+
+    public KAMActivityWindows(LeadEventLog leadEventLog, KAMRepository kamRepository) {
+        this.leadEventLog = leadEventLog;
+        this.kamRepository = kamRepository;
+    }
+
+    // Before any event is counted, so that each lands on the right day
+    @PostConstruct
+    public synchronized void loadTimezones() {
+        for (Object[] row : kamRepository.findTimezones()) {
+            zones.put((Long) row[0], ZoneId.of((String) row[1]));
+        }
+    }
+
+    /**
+     * For a KAM added after startup; {@code timezone} may be null or blank for the server's.
+     */
+    public synchronized void addKAM(long kamId, String timezone) {
+        if (timezone != null && !timezone.isBlank()) {
+            zones.put(kamId, ZoneId.of(timezone));
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        long started = System.nanoTime();
+        LocalDateTime recent = LocalDateTime.now().minus(REPLAY_OVERLAP);
+        leadEventLog.replaySince(LocalDate.now().minusDays(ActivityRing.DAYS - 1).atStartOfDay(), event -> {
+            synchronized (this) {
+                apply(event);
+                if (!event.getOccurredAt().isBefore(recent)) {
+                    replayedRecently.add(event.getId());
+                }
+            }
+        });
+        synchronized (this) {
+            for (LeadEvent event : pending) {
+                if (!replayedRecently.contains(event.getId())) {
+                    apply(event);
+                }
+            }
+            pending = null;
+            replayedRecently = null;
+            loaded = true;
+            log.info("KAM activity windows loaded for {} KAMs in {} ms", rings.size(),
+                    (System.nanoTime() - started) / 1_000_000);
+        }
+    }
+
+    @Override
+    public synchronized void onLeadEvents(List<LeadEvent> events) {
+        if (!loaded) {
+            pending.addAll(events);
+            return;
+        }
+        events.forEach(this::apply);
+    }
+
+    public synchronized boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * The call of the lead that came due at {@code dueAt} went overdue without being made; it
+     * replaces any earlier one of the lead.
+     */
+    public synchronized void onCallOverdue(long leadId, long kamId, LocalDateTime dueAt) {
+        MissedCall previous = missedCalls.remove(leadId);
+        if (previous != null) {
+            settle(previous);
+        }
+        MissedCall missed = new MissedCall(kamId, dueAt, day(kamId, dueAt));
+        missedCalls.put(leadId, missed);
+        rings.computeIfAbsent(kamId, id -> new ActivityRing()).add(ActivityRing.MISSED_CALLS, missed.epochDay);
+    }
+
+    /**
+     * @param days window length, 1 to {@value ActivityRing#DAYS}, ending with the KAM's day at {@code now}
+     * @param now  server time
+     * @throws IllegalStateException while the startup replay is still running
+     */
+    public synchronized KAMActivity getActivity(long kamId, int days, LocalDateTime now) {
+        checkLoaded();
+        return activity(kamId, rings.get(kamId), days, day(kamId, now));
+    }
+
+    /**
+     * @return the activity of every KAM that has had any since the replay window began
+     * @throws IllegalStateException while the startup replay is still running
+     */
+    public synchronized List<KAMActivity> getAllActivity(int days, LocalDateTime now) {
+        checkLoaded();
+        List<KAMActivity> activity = new ArrayList<>(rings.size());
+        rings.forEach((kamId, ring) -> activity.add(activity(kamId, ring, days, day(kamId, now))));
+        return activity;
+    }
+
+    private void checkLoaded() {
+        if (!loaded) {
+            throw new IllegalStateException("KAM activity is still loading from the lead event log");
+        }
+    }
+
+    private static KAMActivity activity(long kamId, ActivityRing ring, int days, long today) {
+        if (ring == null) {
+            return new KAMActivity(kamId, days, 0, 0, 0, 0, 0, 0, null);
+        }
+        return new KAMActivity(kamId, days,
+                ring.sum(ActivityRing.CONVERSIONS, today, days),
+                ring.sum(ActivityRing.LOSSES, today, days),
+                ring.sum(ActivityRing.INTERACTIONS, today, days),
+                ring.sum(ActivityRing.SCHEDULED_CALLS, today, days),
+                ring.sum(ActivityRing.ON_SCHEDULE_CALLS, today, days),
+                ring.sum(ActivityRing.MISSED_CALLS, today, days),
+                ring.getLastEventAt());
+    }
+
+    // Callers hold the lock
+    private void apply(LeadEvent event) {
+        settleMissedCall(event);
+        if (event.getKamId() == null) {
+            return;
+        }
+        long day = day(event.getKamId(), event.getOccurredAt());
+        switch (event.getType()) {
+            case STATUS_CHANGED -> {
+                ActivityRing ring = ring(event);
+                if (event.getStatus() == LeadStatus.CONVERTED) {
+                    ring.add(ActivityRing.CONVERSIONS, day);
+                } else if (event.getStatus() == LeadStatus.LOST) {
+                    ring.add(ActivityRing.LOSSES, day);
+                }
+            }
+            case INTERACTION_RECORDED -> {
+                ActivityRing ring = ring(event);
+                ring.add(ActivityRing.INTERACTIONS, day);
+                if (event.getOnSchedule() != null) {
+                    ring.add(ActivityRing.SCHEDULED_CALLS, day);
+                    if (event.getOnSchedule()) {
+                        ring.add(ActivityRing.ON_SCHEDULE_CALLS, day);
+                    }
+                }
+            }
+            case LEAD_CREATED, KAM_ASSIGNED -> ring(event);
+            default -> {
+            }
+        }
+    }
+
+    private void settleMissedCall(LeadEvent event) {
+        MissedCall missed = missedCalls.get(event.getLeadId());
+        if (missed == null || event.getOccurredAt().isBefore(missed.dueAt)) {
+            return;
+        }
+        boolean settled = switch (event.getType()) {
+            case INTERACTION_RECORDED -> event.getInteractionType() == InteractionType.CALL;
+            case STATUS_CHANGED -> !CallPlanningService.ACTIVE_STATUSES.contains(event.getStatus());
+            case KAM_ASSIGNED -> !Objects.equals(event.getKamId(), missed.kamId);
+            default -> false;
+        };
+        if (!settled) {
+            return;
+        }
+        missedCalls.remove(event.getLeadId());
+        settle(missed);
+        if (event.getType() == LeadEventType.KAM_ASSIGNED && event.getKamId() != null
+                && CallPlanningService.ACTIVE_STATUSES.contains(event.getStatus())) {
+            onCallOverdue(event.getLeadId(), event.getKamId(), missed.dueAt);
+        }
+    }
+
+    private void settle(MissedCall missed) {
+        ActivityRing ring = rings.get(missed.kamId);
+        if (ring != null) {
+            ring.remove(ActivityRing.MISSED_CALLS, missed.epochDay);
+        }
+    }
+
+    // Epoch day of the server time in the KAM's timezone
+    private long day(long kamId, LocalDateTime serverTime) {
+        ZoneId zone = zones.get(kamId);
+        LocalDate date = zone == null ? serverTime.toLocalDate()
+                : serverTime.atZone(ZoneId.systemDefault()).withZoneSameInstant(zone).toLocalDate();
+        return date.toEpochDay();
+    }
+
+    private ActivityRing ring(LeadEvent event) {
+        ActivityRing ring = rings.computeIfAbsent(event.getKamId(), kamId -> new ActivityRing());
+        ring.touch(event.getOccurredAt());
+        return ring;
+    }
+
+    private static final class MissedCall {
+        final long kamId;
+        final LocalDateTime dueAt;
+        final long epochDay;
+
+        MissedCall(long kamId, LocalDateTime dueAt, long epochDay) {
+            this.kamId = kamId;
+            this.dueAt = dueAt;
+            this.epochDay = epochDay;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.udaan.leadmanagement.analytics;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Per-lead state of the funnel engine in parallel primitive arrays with open addressing: 25 bytes
+ * a slot and at most 2.7 slots a lead, against some 150 bytes a lead for a map of boxed entries.
+ * Leads are never removed. Callers address a lead by the slot {@link #slot} returns.
+ */
+final class LeadStateTable {
+    static final long NO_KAM = Long.MIN_VALUE;
+    // Stage entry time not known: the lead is older than the event log
+    static final long UNKNOWN_TIME = Long.MIN_VALUE;
+
+    private static final long EMPTY = Long.MIN_VALUE;
+    private static final float MAX_LOAD = 0.75f;
+
+    private long[] leadIds;
+    private byte[] stages;
+    private long[] kamIds;
+    private long[] enteredAt;
+    private int size;
+
+    LeadStateTable() {
+        this(1024);
+    }
+
+    private LeadStateTable(int capacity) {
+        leadIds = new long[capacity];
+        Arrays.fill(leadIds, EMPTY);
+        stages = new byte[capacity];
+        kamIds = new long[capacity];
+        enteredAt = new long[capacity];
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return the lead's slot, or {@code -1} when it is not in the table
+     */
+    int slot(long leadId) {
+        int mask = leadIds.length - 1;
+        for (int i = hash(leadId) & mask; ; i = (i + 1) & mask) {
+            if (leadIds[i] == leadId) {
+                return i;
+            }
+            if (leadIds[i] == EMPTY) {
+                return -1;
+            }
+        }
+    }
+
+    /**
+     * Adds a lead that is not in the table yet.
+     *
+     * @return its slot
+     */
+    int add(long leadId, int stage, long kamId, long stageEnteredAt) {
+        if (size + 1 > leadIds.length * MAX_LOAD) {
+            grow();
+        }
+        int mask = leadIds.length - 1;
+        int i = hash(leadId) & mask;
+        while (leadIds[i] != EMPTY) {
+            i = (i + 1) & mask;
+        }
+        leadIds[i] = leadId;
+        stages[i] = (byte) stage;
+        kamIds[i] = kamId;
+        enteredAt[i] = stageEnteredAt;
+        size++;
+        return i;
+    }
+
+    int stage(int slot) {
+        return stages[slot];
+    }
+
+    long kamId(int slot) {
+        return kamIds[slot];
+    }
+
+    long enteredAt(int slot) {
+        return enteredAt[slot];
+    }
+
+    void setStage(int slot, int stage, long stageEnteredAt) {
+        stages[slot] = (byte) stage;
+        enteredAt[slot] = stageEnteredAt;
+    }
+
+    void setKamId(int slot, long kamId) {
+        kamIds[slot] = kamId;
+    }
+
+    private void grow() {
+        LeadStateTable bigger = new LeadStateTable(leadIds.length * 2);
+        copyInto(bigger);
+        leadIds = bigger.leadIds;
+        stages = bigger.stages;
+        kamIds = bigger.kamIds;
+        enteredAt = bigger.enteredAt;
+    }
+
+    private void copyInto(LeadStateTable target) {
+        for (int i = 0; i < leadIds.length; i++) {
+            if (leadIds[i] != EMPTY) {
+                target.add(leadIds[i], stages[i], kamIds[i], enteredAt[i]);
+            }
+        }
+    }
+
+    LeadStateTable copy() {
+        LeadStateTable copy = new LeadStateTable(leadIds.length);
+        copy.leadIds = leadIds.clone();
+        copy.stages = stages.clone();
+        copy.kamIds = kamIds.clone();
+        copy.enteredAt = enteredAt.clone();
+        copy.size = size;
+        return copy;
+    }
+
+    void write(DataOutputStream out) throws IOException {
+        out.writeInt(size);
+        for (int i = 0; i < leadIds.length; i++) {
+            if (leadIds[i] != EMPTY) {
+                out.writeLong(leadIds[i]);
+                out.writeByte(stages[i]);
+                out.writeLong(kamIds[i]);
+                out.writeLong(enteredAt[i]);
+            }
+        }
+    }
+
+    static LeadStateTable read(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        LeadStateTable table = new LeadStateTable(Math.max(1024, Integer.highestOneBit((int) (size / MAX_LOAD)) * 2));
+        for (int i = 0; i < size; i++) {
+            table.add(in.readLong(), in.readByte(), in.readLong(), in.readLong());
+        }
+        return table;
+    }
+
+    // Lead ids are sequential, so spread them before masking
+    private static int hash(long leadId) {
+        long h = leadId * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,23 @@
+package com.udaan.leadmanagement.assignment;
+
+/**
+ * Decides which KAM gets the next lead. {@link KAMLoadBalancer} keeps the KAMs ordered by
+ * {@link #cost} and hands each lead to the cheapest, so the cost must depend on the load alone.
+ * Policies are beans; {@code leadmanagement.assignment.policy} picks one by {@link #getName}.
+ */
+public interface AssignmentPolicy {
+    String getName();
+
+    /**
+     * How busy the KAM is; lower gets the next lead, ties go to the lower KAM id.
+     */
+    double cost(KAMLoad load);
+
+    /**
+     * Whether a lead with a position should go to the cheapest KAM working near it, ahead of any
+     * cheaper KAM elsewhere.
+     */
+    default boolean isTerritorial() {
+        return false;
+    }
+}
@@ -0,0 +1,55 @@
+package com.udaan.leadmanagement.assignment;
+
+import com.udaan.leadmanagement.enums.LeadStatus;
+import com.udaan.leadmanagement.geo.GeoPoint;
+import lombok.Value;
+
+/**
+ * Immutable snapshot of one KAM's workload, as held by {@link KAMLoadBalancer}.
+ */
+@Value
+public class KAMLoad {
+    Long kamId;
+    int totalLeads;
+    int convertedLeads;
+    // Leads still being worked: NEW, IN_PROGRESS or FOLLOW_UP
+    int activeLeads;
+    // Calls the active leads need per day on average, each one 1 / its call frequency
+    double dailyCalls;
+    // Active leads with a position, and the sums of their coordinates
+    int locatedLeads;
+    double latitudeSum;
+    double longitudeSum;
+
+    static KAMLoad empty(long kamId) {
+        return new KAMLoad(kamId, 0, 0, 0, 0, 0, 0, 0);
+    }
+
+    public double getConversionRate() {
+        return totalLeads == 0 ? 0.0 : (double) convertedLeads / totalLeads * 100;
+    }
+
+    /**
+     * Where the KAM works: the centre of their active leads that have a position, or null when
+     * none has.
+     */
+    public GeoPoint getTerritory() {
+        return locatedLeads == 0 ? null : new GeoPoint(latitudeSum / locatedLeads, longitudeSum / locatedLeads);
+    }
+
+    /**
+     * This load with {@code count} leads in the status added, or taken off when negative.
+     */
+    KAMLoad plus(LeadStatus status, LeadLoad lead, int count) {
+        boolean active = status != LeadStatus.CONVERTED && status != LeadStatus.LOST;
+        boolean located = active && lead.isLocated();
+        return new KAMLoad(kamId,
+                totalLeads + count,
+                convertedLeads + (status == LeadStatus.CONVERTED ? count : 0),
+                activeLeads + (active ? count : 0),
+                active ? dailyCalls + count * lead.getDailyCalls() : dailyCalls,
+                locatedLeads + (located ? count : 0),
+                located ? latitudeSum + count * lead.getLatitude() : latitudeSum,
+                located ? longitudeSum + count * lead.getLongitude() : longitudeSum);
+    }
+}
@@ -0,0 +1,295 @@
+package com.udaan.leadmanagement.assignment;
+
+import com.udaan.leadmanagement.enums.LeadStatus;
+import com.udaan.leadmanagement.geo.GeoPoint;
+import com.udaan.leadmanagement.repository.KAMRepository;
+import com.udaan.leadmanagement.util.AfterCommit;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Assigns new leads to KAMs. Every KAM's load is held in memory, kept in step by the same write
+ * paths that keep the {@code KAMScoreboard} up to date, in a tree ordered by the configured
+ * {@link AssignmentPolicy}; picking a KAM and charging them the lead is O(log k) for k KAMs and
+ * never queries the database. The loads are aggregated from the leads table at startup.
+ * <p>
+ * Status changes read the lead under a row lock, but reassignments charge a change from the lead
+ * as they read it, and the sums of call rates and coordinates pick up rounding with every step,
+ * so the loads are aggregated again every {@code reseed-minutes}. Changes charged while that query runs are applied again on
+ * top of its result; only those of transactions in flight right as it starts can be off, until
+ * the next time.
+ * <p>
+ * For territorial policies KAMs are also bucketed by the grid cell, {@code territory-km} on a
+ * side, that the centre of their active leads falls in. A lead then goes to the cheapest KAM in
+ * its own or a neighbouring cell: every KAM centred within {@code territory-km} of it, and some
+ * up to about three times as far.
+ */
+@Slf4j
+@Component
+public class KAMLoadBalancer {
+    private static final double KM_PER_DEGREE = 111.2;
+
+    private final KAMRepository kamRepository;
+    private final AssignmentPolicy policy;
+    private final boolean autoAssign;
+    private final double territoryDegrees;
+    private final Comparator<KAMLoad> cheapestFirst;
+    private final long reseedMinutes;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "kam-load-reseed");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // All state below is guarded by this
+    private final Map<Long, KAMLoad> loads = new HashMap<>();
+    private final TreeSet<KAMLoad> ranking;
+    private final Map<Long, TreeSet<KAMLoad>> territories = new HashMap<>();
+    // Changes charged since a reseed query started, to apply again on top of its result; null otherwise
+    private List<Runnable> journal;
+
+    public KAMLoadBalancer(KAMRepository kamRepository,
+                           List<AssignmentPolicy> policies,
+                           @Value("${leadmanagement.assignment.policy:" + LeastLoadedPolicy.NAME + "}") String policyName,
+                           @Value("${leadmanagement.assignment.auto-assign:true}") boolean autoAssign,
+                           @Value("${leadmanagement.assignment.territory-km:25}") double territoryKm,
+                           @Value("${leadmanagement.assignment.reseed-minutes:15}") long reseedMinutes) {
+        this.kamRepository = kamRepository;
+        this.policy = policies.stream()
+                .filter(candidate -> candidate.getName().equals(policyName))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown lead assignment policy " + policyName
+                        + "; known are " + policies.stream().map(AssignmentPolicy::getName).toList()));
+        this.autoAssign = autoAssign;
+        this.territoryDegrees = territoryKm / KM_PER_DEGREE;
+        this.cheapestFirst = Comparator.comparingDouble(policy::cost).thenComparing(KAMLoad::getKamId);
+        this.ranking = new TreeSet<>(cheapestFirst);
+        this.reseedMinutes = reseedMinutes;
+    }
+
+    @PostConstruct
+    public void initialize() {
+        seed(kamRepository.findKAMLoads());
+        log.info("Lead assignment loaded {} KAMs; new leads are {}", loads.size(),
+                autoAssign ? "assigned by the " + policy.getName() + " policy" : "left unassigned");
+        if (reseedMinutes > 0) {
+            scheduler.scheduleWithFixedDelay(this::reseedQuietly, reseedMinutes, reseedMinutes, TimeUnit.MINUTES);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Aggregates the loads from the leads table again and replaces the ones kept up to date in
+     * memory, keeping the changes charged while the query ran.
+     */
+    public void reseed() {
+        synchronized (this) {
+            journal = new ArrayList<>();
+        }
+        List<Object[]> rows;
+        try {
+            rows = kamRepository.findKAMLoads();
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                journal = null;
+            }
+            throw e;
+        }
+        synchronized (this) {
+            List<Runnable> changes = journal;
+            journal = null;
+            seed(rows);
+            changes.forEach(Runnable::run);
+        }
+    }
+
+    private void reseedQuietly() {
+        try {
+            reseed();
+        } catch (RuntimeException e) {
+            log.error("Reloading the KAM loads failed; keeping the ones in memory", e);
+        }
+    }
+
+    /**
+     * Replaces all loads with rows shaped like {@code KAMRepository.findKAMLoads()}.
+     */
+    public synchronized void seed(List<Object[]> rows) {
+        loads.clear();
+        ranking.clear();
+        territories.clear();
+        for (Object[] row : rows) {
+            put(new KAMLoad((Long) row[0],
+                    intValue(row[1]),
+                    intValue(row[2]),
+                    intValue(row[3]),
+                    doubleValue(row[4]),
+                    intValue(row[5]),
+                    doubleValue(row[6]),
+                    doubleValue(row[7])));
+        }
+    }
+
+    public synchronized void addKAM(long kamId) {
+        if (journal != null) {
+            journal.add(() -> addKAM(kamId));
+        }
+        if (!loads.containsKey(kamId)) {
+            put(KAMLoad.empty(kamId));
+        }
+    }
+
+    /**
+     * Picks the KAM for a new lead and adds the lead to their load. Should the surrounding
+     * transaction roll back, the lead is taken off their load again.
+     *
+     * @return the KAM's id, or null when automatic assignment is off or there are no KAMs
+     */
+    public Long assign(LeadLoad lead) {
+        Long kamId;
+        synchronized (this) {
+            if (!autoAssign) {
+                return null;
+            }
+            KAMLoad chosen = choose(lead);
+            if (chosen == null) {
+                return null;
+            }
+            kamId = chosen.getKamId();
+            adjust(kamId, LeadStatus.NEW, lead, 1);
+        }
+        AfterCommit.onRollback(() -> onLeadAssigned(kamId, null, LeadStatus.NEW, lead));
+        return kamId;
+    }
+
+    public synchronized void onLeadAssigned(Long oldKamId, Long newKamId, LeadStatus status, LeadLoad lead) {
+        if (Objects.equals(oldKamId, newKamId)) {
+            return;
+        }
+        if (oldKamId != null) {
+            adjust(oldKamId, status, lead, -1);
+        }
+        if (newKamId != null) {
+            adjust(newKamId, status, lead, 1);
+        }
+    }
+
+    public synchronized void onLeadStatusChanged(Long kamId, LeadStatus oldStatus, LeadStatus newStatus, LeadLoad lead) {
+        if (kamId == null || oldStatus == newStatus) {
+            return;
+        }
+        adjust(kamId, oldStatus, lead, -1);
+        adjust(kamId, newStatus, lead, 1);
+    }
+
+    public synchronized Optional<KAMLoad> get(long kamId) {
+        return Optional.ofNullable(loads.get(kamId));
+    }
+
+    /**
+     * Every KAM's load, the one the policy would give the next lead without a position first.
+     */
+    public synchronized List<KAMLoad> getLoads() {
+        return new ArrayList<>(ranking);
+    }
+
+    private KAMLoad choose(LeadLoad lead) {
+        if (policy.isTerritorial() && lead.isLocated()) {
+            int row = cell(lead.getLatitude());
+            int column = cell(lead.getLongitude());
+            KAMLoad nearby = null;
+            for (int r = row - 1; r <= row + 1; r++) {
+                for (int c = column - 1; c <= column + 1; c++) {
+                    TreeSet<KAMLoad> territory = territories.get(key(r, c));
+                    if (territory != null && (nearby == null || cheapestFirst.compare(territory.first(), nearby) < 0)) {
+                        nearby = territory.first();
+                    }
+                }
+            }
+            if (nearby != null) {
+                return nearby;
+            }
+        }
+        return ranking.isEmpty() ? null : ranking.first();
+    }
+
+    private void adjust(long kamId, LeadStatus status, LeadLoad lead, int count) {
+        if (journal != null) {
+            journal.add(() -> adjust(kamId, status, lead, count));
+        }
+        KAMLoad current = loads.get(kamId);
+        if (current != null) {
+            replace(current, current.plus(status, lead, count));
+        }
+    }
+
+    private void replace(KAMLoad current, KAMLoad next) {
+        remove(current);
+        put(next);
+    }
+
+    private void put(KAMLoad load) {
+        loads.put(load.getKamId(), load);
+        ranking.add(load);
+        Long territory = territoryKey(load);
+        if (territory != null) {
+            territories.computeIfAbsent(territory, key -> new TreeSet<>(cheapestFirst)).add(load);
+        }
+    }
+
+    private void remove(KAMLoad load) {
+        ranking.remove(load);
+        Long territory = territoryKey(load);
+        if (territory != null) {
+            TreeSet<KAMLoad> kams = territories.get(territory);
+            kams.remove(load);
+            if (kams.isEmpty()) {
+                territories.remove(territory);
+            }
+        }
+    }
+
+    private Long territoryKey(KAMLoad load) {
+        if (!policy.isTerritorial()) {
+            return null;
+        }
+        GeoPoint territory = load.getTerritory();
+        return territory == null ? null : key(cell(territory.getLatitude()), cell(territory.getLongitude()));
+    }
+
+    private int cell(double degrees) {
+        return (int) Math.floor(degrees / territoryDegrees);
+    }
+
+    private static long key(int row, int column) {
+        return (long) row << 32 | (column & 0xFFFFFFFFL);
+    }
+
+    private static int intValue(Object value) {
+        return value == null ? 0 : ((Number) value).intValue();
+    }
+
+    // Sums over a KAM without leads come back null
+    private static double doubleValue(Object value) {
+        return value == null ? 0 : ((Number) value).doubleValue();
+    }
+}
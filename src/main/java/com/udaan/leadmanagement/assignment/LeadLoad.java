@@ -0,0 +1,27 @@
+package com.udaan.leadmanagement.assignment;
+
+import com.udaan.leadmanagement.model.RestaurantLead;
+import lombok.Value;
+
+/**
+ * What one lead adds to its KAM's load while it is active: its share of their calls per day and,
+ * when it has a position, its pull on their territory.
+ */
+@Value
+public class LeadLoad {
+    Integer callFrequency;
+    Double latitude;
+    Double longitude;
+
+    public static LeadLoad of(RestaurantLead lead) {
+        return new LeadLoad(lead.getCallFrequency(), lead.getLatitude(), lead.getLongitude());
+    }
+
+    double getDailyCalls() {
+        return callFrequency == null || callFrequency < 1 ? 0 : 1.0 / callFrequency;
+    }
+
+    boolean isLocated() {
+        return latitude != null && longitude != null;
+    }
+}
@@ -0,0 +1,21 @@
+package com.udaan.leadmanagement.assignment;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Each lead goes to the KAM with the fewest calls to make per day.
+ */
+@Component
+public class LeastLoadedPolicy implements AssignmentPolicy {
+    public static final String NAME = "least-loaded";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public double cost(KAMLoad load) {
+        return load.getDailyCalls();
+    }
+}
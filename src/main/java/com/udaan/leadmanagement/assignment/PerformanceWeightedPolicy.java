@@ -0,0 +1,24 @@
+package com.udaan.leadmanagement.assignment;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Calls per day weighed against conversion rate: a KAM who converts every lead is given up to
+ * three times the calls of one who converts none before they are as busy.
+ */
+@Component
+public class PerformanceWeightedPolicy implements AssignmentPolicy {
+    public static final String NAME = "performance-weighted";
+    // Extra capacity, in multiples of the base, of a KAM converting 100% of their leads
+    private static final double MAX_EXTRA_CAPACITY = 2;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public double cost(KAMLoad load) {
+        return load.getDailyCalls() / (1 + MAX_EXTRA_CAPACITY * load.getConversionRate() / 100);
+    }
+}
@@ -0,0 +1,28 @@
+package com.udaan.leadmanagement.assignment;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Each lead goes to the least-loaded KAM working near it, and only when no KAM does to the
+ * least-loaded KAM overall. See {@code leadmanagement.assignment.territory-km} for what counts as
+ * near.
+ */
+@Component
+public class TerritoryPolicy implements AssignmentPolicy {
+    public static final String NAME = "territory";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public double cost(KAMLoad load) {
+        return load.getDailyCalls();
+    }
+
+    @Override
+    public boolean isTerritorial() {
+        return true;
+    }
+}
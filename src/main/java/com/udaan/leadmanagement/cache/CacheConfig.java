@@ -0,0 +1,48 @@
+package com.udaan.leadmanagement.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * One Caffeine cache per {@link LeadCaches} name, each configured by its own
+ * {@code leadmanagement.cache.<name>} Caffeine spec (size or weight bound, TTL). Caffeine's
+ * W-TinyLFU eviction keeps the frequently read leads when the bound is reached.
+ * <p>
+ * Caches bounded by {@code maximumWeight} weigh collection values by their size, so a lead with
+ * thousands of interactions counts for thousands of entries. Statistics are always recorded and
+ * published as the {@code cache.*} meters.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+    static final String DEFAULT_SPEC = "maximumSize=10000,expireAfterWrite=10m";
+
+    @Bean
+    public CacheManager cacheManager(Environment environment) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        // Only the caches registered below; a misspelt cache name fails instead of creating an unbounded cache
+        cacheManager.setCacheNames(List.of());
+        for (String name : LeadCaches.NAMES) {
+            cacheManager.registerCustomCache(name,
+                    builder(environment.getProperty("leadmanagement.cache." + name, DEFAULT_SPEC)).build());
+        }
+        return cacheManager;
+    }
+
+    static Caffeine<Object, Object> builder(String spec) {
+        Caffeine<Object, Object> builder = Caffeine.from(spec).recordStats();
+        if (spec.contains("maximumWeight")) {
+            return builder.weigher((Object key, Object value) ->
+                    value instanceof Collection<?> collection ? Math.max(1, collection.size()) : 1);
+        }
+        return builder;
+    }
+}
@@ -0,0 +1,55 @@
+package com.udaan.leadmanagement.cache;
+
+import com.udaan.leadmanagement.util.AfterCommit;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Names of the read-through caches and the evictions the write paths perform on them. Every
+ * per-lead cache is keyed by lead id.
+ * <p>
+ * Evictions run after the writing transaction commits. Loads are atomic per key, so an eviction
+ * that arrives while a load of the old state is in flight waits for it and removes its result;
+ * a read after the commit therefore never sees the cache hand back the pre-write value.
+ */
+@Component
+@RequiredArgsConstructor
+public class LeadCaches {
+    // Only existing ids are cached; leads and KAMs are never deleted, so these need no eviction
+    public static final String LEAD_EXISTS = "leadExists";
+    public static final String KAM_EXISTS = "kamExists";
+    public static final String LEAD_CONTACTS = "leadContacts";
+    public static final String PRIMARY_CONTACT = "primaryContact";
+    public static final String LEAD_INTERACTIONS = "leadInteractions";
+
+    public static final List<String> NAMES = List.of(LEAD_EXISTS, KAM_EXISTS, LEAD_CONTACTS, PRIMARY_CONTACT,
+            LEAD_INTERACTIONS);
+
+    private final CacheManager cacheManager;
+
+    /**
+     * A contact of the lead was added, changed or removed, or its primary contact moved.
+     */
+    public void evictContacts(Long leadId) {
+        AfterCommit.run(() -> {
+            evict(LEAD_CONTACTS, leadId);
+            evict(PRIMARY_CONTACT, leadId);
+        });
+    }
+
+    public void evictInteractions(Collection<Long> leadIds) {
+        AfterCommit.run(() -> leadIds.forEach(leadId -> evict(LEAD_INTERACTIONS, leadId)));
+    }
+
+    private void evict(String cacheName, Long leadId) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) {
+            cache.evict(leadId);
+        }
+    }
+}
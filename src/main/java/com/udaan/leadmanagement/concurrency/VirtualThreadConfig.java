@@ -0,0 +1,44 @@
+package com.udaan.leadmanagement.concurrency;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Extra wiring for the virtual-thread execution mode ({@code spring.threads.virtual.enabled=true}).
+ * Spring Boot itself moves Tomcat request handling and the application task executor onto
+ * virtual threads; this bounds concurrent database work and watches for pinned carriers.
+ */
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadConfig {
+
+    @Bean
+    public static BeanPostProcessor boundedDataSourcePostProcessor(
+            @Value("${leadmanagement.db.max-concurrency}") int maxConcurrency,
+            @Value("${leadmanagement.db.acquire-timeout-ms}") long acquireTimeoutMillis) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof BoundedDataSource)) {
+                    return new BoundedDataSource(dataSource, maxConcurrency, acquireTimeoutMillis);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public VirtualThreadPinningMonitor virtualThreadPinningMonitor(
+            MeterRegistry meterRegistry,
+            @Value("${leadmanagement.virtual-threads.pinned-threshold-ms}") long thresholdMillis) {
+        return new VirtualThreadPinningMonitor(meterRegistry, Duration.ofMillis(thresholdMillis));
+    }
+}
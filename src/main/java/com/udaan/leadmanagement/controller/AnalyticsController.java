@@ -0,0 +1,52 @@
+package com.udaan.leadmanagement.controller;
+
+import com.udaan.leadmanagement.analytics.FunnelAnalytics;
+import com.udaan.leadmanagement.exception.ErrorResponse;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/api/analytics")
+@RequiredArgsConstructor
+@Validated
+public class AnalyticsController {
+    private final FunnelAnalytics funnelAnalytics;
+
+    @GetMapping("/funnel")
+    public ResponseEntity<?> getFunnel(@RequestParam(required = false) Long kamId) {
+        try {
+            if (!funnelAnalytics.isLoaded()) {
+                return notLoaded();
+            }
+            return ResponseEntity.ok(kamId == null ? funnelAnalytics.getFunnel() : funnelAnalytics.getKamFunnel(kamId));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ErrorResponse("Error retrieving funnel: " + e.getMessage()));
+        }
+    }
+
+    @GetMapping("/funnel/weekly")
+    public ResponseEntity<?> getWeeklyFunnels(@RequestParam(defaultValue = "12") @Min(1) @Max(520) int weeks) {
+        try {
+            if (!funnelAnalytics.isLoaded()) {
+                return notLoaded();
+            }
+            return ResponseEntity.ok(funnelAnalytics.getWeeklyFunnels(weeks, LocalDate.now()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ErrorResponse("Error retrieving weekly funnels: " + e.getMessage()));
+        }
+    }
+
+    private static ResponseEntity<?> notLoaded() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(new ErrorResponse("Funnel analytics are still loading the lead event log"));
+    }
+}
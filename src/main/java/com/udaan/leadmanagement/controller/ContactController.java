@@ -1,9 +1,13 @@
 package com.udaan.leadmanagement.controller;
 
+import com.udaan.leadmanagement.DTO.ContactUpsertRequestDTO;
+import com.udaan.leadmanagement.DTO.ContactUpsertResponseDTO;
 import com.udaan.leadmanagement.exception.ErrorResponse;
 import com.udaan.leadmanagement.model.Contact;
 import com.udaan.leadmanagement.service.ContactService;
+import com.udaan.leadmanagement.service.ContactUpsertService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -16,6 +20,10 @@ import java.util.List;
 public class ContactController {
 
     private final ContactService contactService;
+    private final ContactUpsertService contactUpsertService;
+
+    @Value("${leadmanagement.contact-upsert.max-items:200000}")
+    private int maxUpsertItems;
 
     @PostMapping("/lead/{leadId}")
     public ResponseEntity<?> addContact(
@@ -34,6 +42,25 @@ public class ContactController {
         }
     }
 
+    @PostMapping("/bulk")
+    public ResponseEntity<?> upsertContacts(@RequestBody List<ContactUpsertRequestDTO> contacts) {
+        if (contacts.size() > maxUpsertItems) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+                    .body(new ErrorResponse("At most " + maxUpsertItems + " contacts per request"));
+        }
+        try {
+            ContactUpsertResponseDTO response = contactUpsertService.upsertContacts(contacts);
+            if (response.getError() != null) {
+                // Still the per-contact results: what was committed before the failure stays committed
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+            }
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ErrorResponse("Error upserting contacts: " + e.getMessage()));
+        }
+    }
+
     @GetMapping("/lead/{leadId}")
     public ResponseEntity<?> getContactsByLead(@PathVariable Long leadId) {
         try {
@@ -0,0 +1,29 @@
+package com.udaan.leadmanagement.controller;
+
+import com.udaan.leadmanagement.exception.ErrorResponse;
+import com.udaan.leadmanagement.exception.JobNotFoundException;
+import com.udaan.leadmanagement.service.BackgroundJobService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/jobs")
+@RequiredArgsConstructor
+public class JobController {
+    private final BackgroundJobService jobService;
+
+    @GetMapping("/{jobId}")
+    public ResponseEntity<?> getJob(@PathVariable String jobId) {
+        try {
+            return ResponseEntity.ok(jobService.getJob(jobId).toDTO());
+        } catch (JobNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(new ErrorResponse(e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ErrorResponse("Error retrieving job: " + e.getMessage()));
+        }
+    }
+}
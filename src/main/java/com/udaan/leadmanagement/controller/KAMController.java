@@ -1,17 +1,25 @@
 package com.udaan.leadmanagement.controller;
 
+import com.udaan.leadmanagement.DTO.LeadAssignmentResultDTO;
 import com.udaan.leadmanagement.exception.ErrorResponse;
 import com.udaan.leadmanagement.exception.KAMNotFoundException;
 import com.udaan.leadmanagement.exception.KAMPerformanceException;
+import com.udaan.leadmanagement.exception.LeadNotFoundException;
+import com.udaan.leadmanagement.feed.LeadChangeFeed;
 import com.udaan.leadmanagement.model.KAM;
-import com.udaan.leadmanagement.model.RestaurantLead;
+import com.udaan.leadmanagement.service.BackgroundJob;
+import com.udaan.leadmanagement.service.BackgroundJobService;
 import com.udaan.leadmanagement.service.KAMService;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 
@@ -21,6 +29,11 @@ import java.util.List;
 @Validated
 public class KAMController {
     private final KAMService kamService;
+    private final BackgroundJobService jobService;
+    private final LeadChangeFeed leadChangeFeed;
+
+    @Value("${leadmanagement.assignment.async-threshold:10000}")
+    private int asyncAssignmentThreshold;
 
     @PostMapping()
     public ResponseEntity<?> addKAM(@RequestBody KAM kam) {
@@ -31,6 +44,9 @@ public class KAMController {
                         .body(new ErrorResponse("Failed to create kam"));
             }
             return ResponseEntity.status(HttpStatus.CREATED).body(createdKam);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new ErrorResponse(e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(new ErrorResponse("Error creating kam: " + e.getMessage()));
@@ -52,13 +68,24 @@ public class KAMController {
     }
 
     @PostMapping("/{kamId}/leads")
-    public ResponseEntity<?> addLeadUnderKAM(@PathVariable int kamId, @RequestBody List<Long> leadIds) {
+    public ResponseEntity<?> addLeadUnderKAM(
+            @PathVariable long kamId,
+            @RequestBody List<Long> leadIds,
+            @RequestParam(defaultValue = "1000") @Min(1) int batchSize,
+            @RequestParam(required = false) Boolean async) {
         try {
-            KAM kam = kamService.assignLeadsToKAM(kamId, leadIds);
-            if (kam == null) {
-                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ErrorResponse("Not able to assign leads to kam"));
+            boolean runAsync = async != null ? async : leadIds.size() > asyncAssignmentThreshold;
+            if (runAsync) {
+                BackgroundJob job = jobService.submit("LEAD_ASSIGNMENT", leadIds.size(),
+                        progress -> kamService.assignLeadsToKAM(kamId, leadIds, batchSize, progress::addProcessed));
+                return ResponseEntity.status(HttpStatus.ACCEPTED).body(job.toDTO());
             }
-            return ResponseEntity.ok(kam);
+
+            int assigned = kamService.assignLeadsToKAM(kamId, leadIds, batchSize);
+            return ResponseEntity.ok(new LeadAssignmentResultDTO(kamId, leadIds.size(), assigned));
+        } catch (KAMNotFoundException | LeadNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(new ErrorResponse(e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(new ErrorResponse("Error assigning leads to this kam: " + e.getMessage()));
@@ -66,9 +93,10 @@ public class KAMController {
     }
 
     @GetMapping("/{kamId}/leads")
-    public ResponseEntity<?> getLeadsByKamId(@PathVariable("kamId") long kamId) {
+    public ResponseEntity<?> getLeadsByKamId(@PathVariable("kamId") long kamId,
+                                             @RequestParam(value = "summary", defaultValue = "false") boolean summary) {
         try {
-            List<RestaurantLead> leads = kamService.getLeadsByKAMId(kamId);
+            List<?> leads = summary ? kamService.getLeadSummariesByKAMId(kamId) : kamService.getLeadsByKAMId(kamId);
             if (leads == null || leads.isEmpty()) {
                 return ResponseEntity.status(HttpStatus.NO_CONTENT).body(new ErrorResponse("No leads under this KAM"));
             }
@@ -79,6 +107,19 @@ public class KAMController {
         }
     }
 
+    /**
+     * Server-sent events for the changes of the KAM's leads as they commit. The stream has no error
+     * body, so an unknown KAM is a bare 404.
+     */
+    @GetMapping(value = "/{kamId}/feed", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamLeadChanges(@PathVariable("kamId") long kamId) {
+        try {
+            return ResponseEntity.ok(leadChangeFeed.subscribe(kamId));
+        } catch (KAMNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+    }
+
     @GetMapping("/{kamId}/performance")
     public ResponseEntity<Object> getPerformanceByKamId(@PathVariable long kamId) {
         try {
@@ -92,6 +133,41 @@ public class KAMController {
         }
     }
 
+    @GetMapping("/{kamId}/performance/recent")
+    public ResponseEntity<Object> getRecentPerformanceByKamId(
+            @PathVariable long kamId,
+            @RequestParam(defaultValue = "30") @Min(1) @Max(90) int days) {
+        try {
+            return ResponseEntity.ok(kamService.getRecentPerformance(kamId, days));
+        } catch (KAMNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(new ErrorResponse(e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(new ErrorResponse(e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ErrorResponse("Error retrieving recent KAM performance: " + e.getMessage()));
+        }
+    }
+
+    @GetMapping("/top-performing/recent")
+    public ResponseEntity<Object> getTopRecentPerformers(@RequestParam(defaultValue = "3") @Min(1) int count,
+                                                         @RequestParam(defaultValue = "30") @Min(1) @Max(90) int days) {
+        try {
+            return ResponseEntity.ok(kamService.getTopRecentPerformers(count, days));
+        } catch (KAMPerformanceException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(new ErrorResponse(e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(new ErrorResponse(e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ErrorResponse("Error retrieving top recent performers: " + e.getMessage()));
+        }
+    }
+
     @GetMapping("/top-performing")
     public ResponseEntity<Object> getTopPerformingKAMs(@RequestParam(defaultValue = "3") @Min(1) int count) {
         try {
@@ -117,4 +193,20 @@ public class KAMController {
                     .body(new ErrorResponse("Error retrieving under performing KAMs: " + e.getMessage()));
         }
     }
+
+    /**
+     * Every KAM's workload, the KAM that would get the next new lead first.
+     */
+    @GetMapping("/load")
+    public ResponseEntity<Object> getKAMLoads() {
+        try {
+            return ResponseEntity.ok(kamService.getKAMLoads());
+        } catch (KAMNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(new ErrorResponse(e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ErrorResponse("Error retrieving KAM loads: " + e.getMessage()));
+        }
+    }
 }
@@ -0,0 +1,67 @@
+package com.udaan.leadmanagement.controller;
+
+import com.udaan.leadmanagement.event.FunnelProjection;
+import com.udaan.leadmanagement.event.KAMLeadCountsProjection;
+import com.udaan.leadmanagement.event.LeadEventLog;
+import com.udaan.leadmanagement.exception.ErrorResponse;
+import com.udaan.leadmanagement.feed.LeadChangeFeed;
+import jakarta.validation.constraints.Min;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+@RestController
+@RequestMapping("/api/events")
+@RequiredArgsConstructor
+@Validated
+public class LeadEventController {
+    private final LeadEventLog leadEventLog;
+    private final LeadChangeFeed leadChangeFeed;
+
+    /**
+     * Streams the events after {@code after} in the binary format described in {@code LeadEventCodec}.
+     */
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportEvents(@RequestParam(defaultValue = "0") @Min(0) long after) {
+        StreamingResponseBody body = outputStream -> leadEventLog.export(after, outputStream);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_OCTET_STREAM).body(body);
+    }
+
+    /**
+     * Server-sent events for every lead change as it commits; {@code GET /api/kams/{kamId}/feed}
+     * has one KAM's.
+     */
+    @GetMapping(value = "/feed", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamLeadChanges() {
+        return leadChangeFeed.subscribe(null);
+    }
+
+    @GetMapping("/replay/funnel")
+    public ResponseEntity<?> replayFunnel() {
+        try {
+            FunnelProjection funnel = new FunnelProjection();
+            long lastEventId = leadEventLog.replay(0, funnel::apply);
+            return ResponseEntity.ok(funnel.toDTO(lastEventId));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ErrorResponse("Error replaying lead events: " + e.getMessage()));
+        }
+    }
+
+    @GetMapping("/replay/kams")
+    public ResponseEntity<?> replayKAMLeadCounts() {
+        try {
+            KAMLeadCountsProjection counts = new KAMLeadCountsProjection();
+            leadEventLog.replay(0, counts::apply);
+            return ResponseEntity.ok(counts.toDTOs());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ErrorResponse("Error replaying lead events: " + e.getMessage()));
+        }
+    }
+}
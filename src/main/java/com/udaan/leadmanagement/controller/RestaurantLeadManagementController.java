@@ -1,22 +1,60 @@
 package com.udaan.leadmanagement.controller;
 
+import com.udaan.leadmanagement.DTO.CallQueueEntryDTO;
+import com.udaan.leadmanagement.DTO.InteractionRequestDTO;
+import com.udaan.leadmanagement.DTO.LeadPageDTO;
+import com.udaan.leadmanagement.enums.ImportFormat;
 import com.udaan.leadmanagement.enums.LeadStatus;
 import com.udaan.leadmanagement.exception.ErrorResponse;
+import com.udaan.leadmanagement.exception.IngestionQueueFullException;
+import com.udaan.leadmanagement.exception.KAMNotFoundException;
+import com.udaan.leadmanagement.exception.LeadNotFoundException;
+import com.udaan.leadmanagement.geo.GeoPoint;
+import com.udaan.leadmanagement.geo.LeadGeoIndex;
 import com.udaan.leadmanagement.model.Interaction;
 import com.udaan.leadmanagement.model.RestaurantLead;
+import com.udaan.leadmanagement.schedule.CallAlertFeed;
+import com.udaan.leadmanagement.search.LeadSearchIndex;
+import com.udaan.leadmanagement.service.BackgroundJob;
+import com.udaan.leadmanagement.service.CallPlanningService;
+import com.udaan.leadmanagement.service.InteractionIngestionService;
+import com.udaan.leadmanagement.service.LeadExportService;
+import com.udaan.leadmanagement.service.LeadImportService;
 import com.udaan.leadmanagement.service.RestaurantLeadManagementService;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/leads")
 @RequiredArgsConstructor
+@Validated
 public class RestaurantLeadManagementController {
+    private static final String NDJSON = "application/x-ndjson";
+
     private final RestaurantLeadManagementService leadService;
+    private final LeadExportService leadExportService;
+    private final CallPlanningService callPlanningService;
+    private final InteractionIngestionService ingestionService;
+    private final LeadImportService leadImportService;
+    private final LeadSearchIndex leadSearchIndex;
+    private final CallAlertFeed callAlertFeed;
 
     @PostMapping
     public ResponseEntity<?> createLead(@RequestBody RestaurantLead lead) {
@@ -27,40 +65,221 @@ public class RestaurantLeadManagementController {
                         .body(new ErrorResponse("Failed to create lead"));
             }
             return ResponseEntity.status(HttpStatus.CREATED).body(createdLead);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new ErrorResponse(e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(new ErrorResponse("Error creating lead: " + e.getMessage()));
         }
     }
 
+    /**
+     * Imports a CSV or NDJSON file of leads in the background; poll the returned job for progress
+     * and per-row errors. The format comes from the {@code format} parameter or the file extension.
+     */
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> importLeads(@RequestParam("file") MultipartFile file,
+                                         @RequestParam(required = false) ImportFormat format) {
+        try {
+            ImportFormat importFormat = format != null ? format : formatOf(file.getOriginalFilename());
+            BackgroundJob job = leadImportService.startImport(file, importFormat);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job.toDTO());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new ErrorResponse(e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ErrorResponse("Error importing leads: " + e.getMessage()));
+        }
+    }
+
     @GetMapping()
-    public ResponseEntity<?> getLeads() {
+    public ResponseEntity<?> getLeads(
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "50") @Min(1) @Max(500) int limit,
+            @RequestParam(required = false) LeadStatus status,
+            @RequestParam(required = false) Long kamId) {
         try {
-            List<RestaurantLead> leads = leadService.getAllLeads();
-            if (leads == null || leads.isEmpty()) {
+            LeadPageDTO page = leadService.getLeadsPage(after, limit, status, kamId);
+            if (page.getLeads().isEmpty()) {
                 return ResponseEntity.status(HttpStatus.NO_CONTENT).body(new ErrorResponse("No leads found"));
             }
-            return ResponseEntity.ok(leads);
+            return ResponseEntity.ok(page);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(new ErrorResponse("Error retrieving leads: " + e.getMessage()));
         }
     }
 
+    /**
+     * Type-ahead search over lead names and addresses and contact names, phones and emails.
+     * Every word of the query must match; the last may be a prefix still being typed.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<?> searchLeads(
+            @RequestParam @NotBlank String q,
+            @RequestParam(defaultValue = "20") @Min(1) @Max(LeadSearchIndex.MAX_RESULTS) int limit) {
+        try {
+            return ResponseEntity.ok(leadSearchIndex.search(q, limit));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(new ErrorResponse(e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ErrorResponse("Error searching leads: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Leads within {@code radiusKm} of a point, closest first, with the number of leads in the circle.
+     */
+    @GetMapping("/nearby")
+    public ResponseEntity<?> getLeadsNearby(
+            @RequestParam @DecimalMin("-90") @DecimalMax("90") double lat,
+            @RequestParam @DecimalMin("-180") @DecimalMax("180") double lng,
+            @RequestParam(defaultValue = "5") @DecimalMin("0") @DecimalMax("500") double radiusKm,
+            @RequestParam(defaultValue = "50") @Min(1) @Max(LeadGeoIndex.MAX_RESULTS) int limit) {
+        try {
+            return ResponseEntity.ok(leadService.getLeadsNear(new GeoPoint(lat, lng), radiusKm, limit));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(new ErrorResponse(e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ErrorResponse("Error retrieving nearby leads: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Leads inside a latitude/longitude box, closest to its centre first, with the number of leads
+     * in the box. The box may not cross the antimeridian.
+     */
+    @GetMapping("/within")
+    public ResponseEntity<?> getLeadsWithin(
+            @RequestParam @DecimalMin("-90") @DecimalMax("90") double minLat,
+            @RequestParam @DecimalMin("-180") @DecimalMax("180") double minLng,
+            @RequestParam @DecimalMin("-90") @DecimalMax("90") double maxLat,
+            @RequestParam @DecimalMin("-180") @DecimalMax("180") double maxLng,
+            @RequestParam(defaultValue = "50") @Min(1) @Max(LeadGeoIndex.MAX_RESULTS) int limit) {
+        try {
+            return ResponseEntity.ok(leadService.getLeadsWithin(
+                    new GeoPoint(minLat, minLng), new GeoPoint(maxLat, maxLng), limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new ErrorResponse(e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(new ErrorResponse(e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ErrorResponse("Error retrieving leads in area: " + e.getMessage()));
+        }
+    }
+
+    @GetMapping("/nearest")
+    public ResponseEntity<?> getNearestLeads(
+            @RequestParam @DecimalMin("-90") @DecimalMax("90") double lat,
+            @RequestParam @DecimalMin("-180") @DecimalMax("180") double lng,
+            @RequestParam(defaultValue = "10") @Min(1) @Max(LeadGeoIndex.MAX_RESULTS) int n) {
+        try {
+            return ResponseEntity.ok(leadService.getNearestLeads(new GeoPoint(lat, lng), n));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(new ErrorResponse(e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ErrorResponse("Error retrieving nearest leads: " + e.getMessage()));
+        }
+    }
+
+    @GetMapping(value = "/export", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> exportLeads(@RequestParam(defaultValue = "false") boolean gzip) {
+        StreamingResponseBody body = outputStream -> {
+            if (gzip) {
+                try (GZIPOutputStream gzipStream = new GZIPOutputStream(outputStream, 64 * 1024)) {
+                    leadExportService.exportLeads(gzipStream);
+                }
+            } else {
+                leadExportService.exportLeads(outputStream);
+            }
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON));
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
     @GetMapping("/today-calls")
-    public ResponseEntity<?> getTodayCalls() {
+    public ResponseEntity<?> getTodayCalls(
+            @RequestParam(required = false) Long kamId,
+            @RequestParam(defaultValue = "0") @Min(0) int page,
+            @RequestParam(defaultValue = "50") @Min(1) @Max(500) int size) {
         try {
+            if (kamId != null) {
+                List<CallQueueEntryDTO> queue = callPlanningService.getCallQueue(kamId, page, size);
+                if (queue.isEmpty()) {
+                    return ResponseEntity.status(HttpStatus.NO_CONTENT).body(new ErrorResponse("No calls due today"));
+                }
+                return ResponseEntity.ok(queue);
+            }
+
             List<RestaurantLead> leads = leadService.getTodayCalls();
             if (leads == null || leads.isEmpty()) {
                 return ResponseEntity.status(HttpStatus.NO_CONTENT).body(new ErrorResponse("No calls due today"));
             }
             return ResponseEntity.ok(leads);
+        } catch (KAMNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(new ErrorResponse(e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(new ErrorResponse("Error retrieving today's calls: " + e.getMessage()));
         }
     }
 
+    /**
+     * Server-sent events for the KAM's calls as they come due and become overdue. The stream has
+     * no error body, so an unknown KAM is a bare 404.
+     */
+    @GetMapping(value = "/today-calls/alerts", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamCallAlerts(@RequestParam Long kamId) {
+        try {
+            return ResponseEntity.ok(callAlertFeed.subscribe(kamId));
+        } catch (KAMNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+    }
+
+    /**
+     * The KAM's calls for today in visiting order, from the given starting point or else from the
+     * first call of their queue.
+     */
+    @GetMapping("/today-calls/route")
+    public ResponseEntity<?> getTodayRoute(
+            @RequestParam Long kamId,
+            @RequestParam(required = false) @DecimalMin("-90") @DecimalMax("90") Double lat,
+            @RequestParam(required = false) @DecimalMin("-180") @DecimalMax("180") Double lng) {
+        try {
+            if ((lat == null) != (lng == null)) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .body(new ErrorResponse("lat and lng must be given together"));
+            }
+            return ResponseEntity.ok(callPlanningService.planVisits(kamId, lat == null ? null : new GeoPoint(lat, lng)));
+        } catch (KAMNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(new ErrorResponse(e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(new ErrorResponse(e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ErrorResponse("Error planning today's route: " + e.getMessage()));
+        }
+    }
+
     @PatchMapping("/{leadId}/status")
     public ResponseEntity<?> updateLeadStatus(
             @PathVariable Long leadId,
@@ -81,32 +300,77 @@ public class RestaurantLeadManagementController {
     @PostMapping("/{leadId}/interactions")
     public ResponseEntity<?> recordInteraction(
             @PathVariable Long leadId,
-            @RequestBody Interaction interaction) {
+            @RequestBody Interaction interaction,
+            @RequestParam(defaultValue = "false") boolean async) {
         try {
+            if (async) {
+                return ResponseEntity.status(HttpStatus.ACCEPTED).body(ingestionService.submit(leadId, interaction));
+            }
             Interaction recordedInteraction = leadService.recordInteraction(leadId, interaction);
             if (recordedInteraction == null) {
                 return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                         .body(new ErrorResponse("Failed to record interaction"));
             }
             return ResponseEntity.status(HttpStatus.CREATED).body(recordedInteraction);
+        } catch (IngestionQueueFullException e) {
+            return queueFull(e);
+        } catch (LeadNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new ErrorResponse(e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(new ErrorResponse("Error recording interaction: " + e.getMessage()));
         }
     }
 
-    @GetMapping("/{leadId}/interactions")
-    public ResponseEntity<?> getInteractions(@PathVariable Long leadId) {
+    @PostMapping("/interactions/bulk")
+    public ResponseEntity<?> recordInteractions(@RequestBody List<InteractionRequestDTO> interactions) {
         try {
-            List<Interaction> fetchedInteractions = leadService.getInteractionsByLeadId(leadId);
-            if (fetchedInteractions == null || fetchedInteractions.isEmpty()) {
-                return ResponseEntity.status(HttpStatus.NO_CONTENT).body(new ErrorResponse("No interactions found for this lead"));
-            }
-            return ResponseEntity.ok(fetchedInteractions);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(ingestionService.submitAll(interactions));
+        } catch (IngestionQueueFullException e) {
+            return queueFull(e);
+        } catch (LeadNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new ErrorResponse(e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new ErrorResponse(e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ErrorResponse("Error recording interactions: " + e.getMessage()));
         }
-        catch (Exception e) {
+    }
+
+    @GetMapping("/{leadId}/interactions")
+    public ResponseEntity<?> getInteractions(
+            @PathVariable Long leadId,
+            @RequestParam(required = false) String before,
+            @RequestParam(defaultValue = "" + RestaurantLeadManagementService.DEFAULT_INTERACTION_PAGE_SIZE)
+            @Min(1) @Max(500) int limit) {
+        try {
+            return ResponseEntity.ok(leadService.getInteractionHistory(leadId, before, limit));
+        } catch (LeadNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new ErrorResponse(e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ErrorResponse(e.getMessage()));
+        } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(new ErrorResponse("Error retrieving interactions: " + e.getMessage()));
         }
     }
+
+    private static ImportFormat formatOf(String filename) {
+        String name = filename == null ? "" : filename.toLowerCase(Locale.ROOT);
+        if (name.endsWith(".csv")) {
+            return ImportFormat.CSV;
+        }
+        if (name.endsWith(".ndjson") || name.endsWith(".jsonl")) {
+            return ImportFormat.NDJSON;
+        }
+        throw new IllegalArgumentException("Cannot tell the import format from '" + filename + "', pass format=CSV or format=NDJSON");
+    }
+
+    private ResponseEntity<ErrorResponse> queueFull(IngestionQueueFullException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(new ErrorResponse(e.getMessage()));
+    }
 }
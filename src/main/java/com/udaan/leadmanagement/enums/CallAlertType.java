@@ -0,0 +1,6 @@
+package com.udaan.leadmanagement.enums;
+
+public enum CallAlertType {
+    CALL_DUE,      // the lead's next call date has come
+    CALL_OVERDUE   // still not called leadmanagement.calls.overdue-after-hours after that
+}
@@ -0,0 +1,11 @@
+package com.udaan.leadmanagement.enums;
+
+public enum ContactUpsertStatus {
+    CREATED,
+    UPDATED,
+    UNCHANGED,
+    INVALID,
+    LEAD_NOT_FOUND,
+    // In a batch that failed, or after it; nothing was written for it
+    NOT_PROCESSED
+}
@@ -0,0 +1,18 @@
+package com.udaan.leadmanagement.enums;
+
+public enum ContactValidationError {
+    NAME_REQUIRED("Contact name cannot be empty"),
+    INVALID_EMAIL("Invalid email format"),
+    INVALID_PHONE("Invalid phone number format"),
+    ROLE_REQUIRED("Contact role cannot be empty");
+
+    private final String message;
+
+    ContactValidationError(String message) {
+        this.message = message;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+}
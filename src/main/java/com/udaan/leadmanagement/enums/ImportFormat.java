@@ -0,0 +1,6 @@
+package com.udaan.leadmanagement.enums;
+
+public enum ImportFormat {
+    CSV,
+    NDJSON
+}
@@ -1,6 +1,7 @@
 package com.udaan.leadmanagement.enums;
 
 // InteractionType.java
+// Stored by ordinal in the lead event log: only ever append new constants
 public enum InteractionType {
     CALL,
     EMAIL,
@@ -0,0 +1,8 @@
+package com.udaan.leadmanagement.enums;
+
+public enum JobStatus {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
@@ -0,0 +1,13 @@
+package com.udaan.leadmanagement.enums;
+
+// Stored by ordinal in the lead event log: only ever append new constants
+public enum LeadEventType {
+    LEAD_CREATED,             // status and, if any, kamId of the new lead
+    STATUS_CHANGED,           // new status; kamId the lead was assigned to at the time
+    KAM_ASSIGNED,             // new kamId; status of the lead at the time
+    INTERACTION_RECORDED,     // interactionType; kamId the lead was assigned to at the time
+    CONTACT_ADDED,            // contactId
+    CONTACT_UPDATED,          // contactId
+    CONTACT_REMOVED,          // contactId
+    PRIMARY_CONTACT_CHANGED   // contactId of the new primary contact
+}
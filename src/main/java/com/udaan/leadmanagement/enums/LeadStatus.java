@@ -1,5 +1,6 @@
 package com.udaan.leadmanagement.enums;
 
+// Stored by ordinal in the lead event log: only ever append new constants
 public enum LeadStatus {
     NEW,             // Initial status when lead is created
     IN_PROGRESS,     // In discussion of deal
@@ -0,0 +1,77 @@
+package com.udaan.leadmanagement.event;
+
+import com.udaan.leadmanagement.DTO.LeadFunnelDTO;
+import com.udaan.leadmanagement.enums.LeadStatus;
+import com.udaan.leadmanagement.model.LeadEvent;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Leads per current status and the number of moves between each pair of statuses. A lead first
+ * seen through a status change or an assignment (a lead older than the log) enters the funnel at
+ * that status without counting a move.
+ */
+public class FunnelProjection implements LeadEventProjection {
+    private static final LeadStatus[] STATUSES = LeadStatus.values();
+
+    private final Map<Long, LeadStatus> statusByLead = new HashMap<>();
+    private final long[] leadsByStatus = new long[STATUSES.length];
+    private final long[][] transitions = new long[STATUSES.length][STATUSES.length];
+
+    @Override
+    public void apply(LeadEvent event) {
+        if (event.getStatus() == null) {
+            return;
+        }
+        switch (event.getType()) {
+            case LEAD_CREATED -> moveTo(event.getLeadId(), event.getStatus(), false);
+            case STATUS_CHANGED -> moveTo(event.getLeadId(), event.getStatus(), true);
+            case KAM_ASSIGNED -> {
+                if (!statusByLead.containsKey(event.getLeadId())) {
+                    moveTo(event.getLeadId(), event.getStatus(), false);
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    private void moveTo(Long leadId, LeadStatus status, boolean countTransition) {
+        LeadStatus previous = statusByLead.put(leadId, status);
+        if (previous != null) {
+            leadsByStatus[previous.ordinal()]--;
+            if (countTransition && previous != status) {
+                transitions[previous.ordinal()][status.ordinal()]++;
+            }
+        }
+        leadsByStatus[status.ordinal()]++;
+    }
+
+    public long getLeads(LeadStatus status) {
+        return leadsByStatus[status.ordinal()];
+    }
+
+    public long getTransitions(LeadStatus from, LeadStatus to) {
+        return transitions[from.ordinal()][to.ordinal()];
+    }
+
+    public LeadFunnelDTO toDTO(long lastEventId) {
+        Map<LeadStatus, Long> leads = new EnumMap<>(LeadStatus.class);
+        Map<LeadStatus, Map<LeadStatus, Long>> moves = new EnumMap<>(LeadStatus.class);
+        for (LeadStatus from : STATUSES) {
+            leads.put(from, leadsByStatus[from.ordinal()]);
+            Map<LeadStatus, Long> targets = new EnumMap<>(LeadStatus.class);
+            for (LeadStatus to : STATUSES) {
+                if (transitions[from.ordinal()][to.ordinal()] > 0) {
+                    targets.put(to, transitions[from.ordinal()][to.ordinal()]);
+                }
+            }
+            if (!targets.isEmpty()) {
+                moves.put(from, targets);
+            }
+        }
+        return new LeadFunnelDTO(lastEventId, leads, moves);
+    }
+}
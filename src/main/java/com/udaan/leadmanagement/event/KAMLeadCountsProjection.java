@@ -0,0 +1,75 @@
+package com.udaan.leadmanagement.event;
+
+import com.udaan.leadmanagement.DTO.KAMLeadCountsDTO;
+import com.udaan.leadmanagement.enums.LeadStatus;
+import com.udaan.leadmanagement.model.LeadEvent;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Per KAM, the number of leads assigned to them and how many of those are converted: the counts
+ * that {@code KAMRepository.findKAMsPerformanceMetrics} aggregates from the leads table.
+ */
+public class KAMLeadCountsProjection implements LeadEventProjection {
+    private final Map<Long, LeadState> leads = new HashMap<>();
+    // [total, converted] per KAM id
+    private final Map<Long, int[]> countsByKam = new TreeMap<>();
+
+    @Override
+    public void apply(LeadEvent event) {
+        LeadState current = leads.get(event.getLeadId());
+        switch (event.getType()) {
+            case LEAD_CREATED -> update(event.getLeadId(), current, event.getKamId(), event.getStatus());
+            case KAM_ASSIGNED -> update(event.getLeadId(), current, event.getKamId(),
+                    event.getStatus() != null || current == null ? event.getStatus() : current.getStatus());
+            // A lead older than the log is first seen here, with the KAM it had at the time
+            case STATUS_CHANGED -> update(event.getLeadId(), current,
+                    current == null ? event.getKamId() : current.getKamId(), event.getStatus());
+            default -> {
+            }
+        }
+    }
+
+    private void update(Long leadId, LeadState current, Long kamId, LeadStatus status) {
+        if (current != null) {
+            count(current, -1);
+        }
+        LeadState next = new LeadState(kamId, status);
+        leads.put(leadId, next);
+        count(next, 1);
+    }
+
+    private void count(LeadState lead, int delta) {
+        if (lead.getKamId() == null) {
+            return;
+        }
+        int[] counts = countsByKam.computeIfAbsent(lead.getKamId(), id -> new int[2]);
+        counts[0] += delta;
+        if (lead.getStatus() == LeadStatus.CONVERTED) {
+            counts[1] += delta;
+        }
+    }
+
+    /**
+     * One entry per KAM that has or had leads, in KAM id order.
+     */
+    public List<KAMLeadCountsDTO> toDTOs() {
+        List<KAMLeadCountsDTO> result = new ArrayList<>(countsByKam.size());
+        countsByKam.forEach((kamId, counts) -> result.add(new KAMLeadCountsDTO(kamId, counts[0], counts[1],
+                counts[0] == 0 ? 0.0 : (double) counts[1] / counts[0] * 100)));
+        return result;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static final class LeadState {
+        private final Long kamId;
+        private final LeadStatus status;
+    }
+}
@@ -0,0 +1,201 @@
+package com.udaan.leadmanagement.event;
+
+import com.udaan.leadmanagement.enums.InteractionType;
+import com.udaan.leadmanagement.enums.LeadEventType;
+import com.udaan.leadmanagement.enums.LeadStatus;
+import com.udaan.leadmanagement.model.LeadEvent;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Compact binary encoding of a stream of lead events, typically 10 to 15 bytes per event. The stream
+ * starts with the {@link #MAGIC} bytes; each event then is:
+ * <pre>
+ *   varint   id, as the difference to the previous event's id
+ *   zigzag   occurredAt in microseconds, as the difference to the previous event's
+ *   varint   leadId
+ *   byte     type ordinal
+ *   byte     which optional fields follow: 1 kamId, 2 status, 4 interactionType, 8 contactId;
+ *            16 when onSchedule is set, and 32 when it is true
+ *   varint   kamId, byte status ordinal, byte interactionType ordinal, varint contactId (if present)
+ * </pre>
+ * Varints are little-endian base-128 (seven bits per byte, high bit set on all but the last);
+ * differences that can be negative are zigzag-encoded first. Ids must be ascending, as
+ * {@link LeadEventLog#replay} returns them.
+ */
+public final class LeadEventCodec {
+    public static final byte[] MAGIC = {'L', 'E', 'V', 1};
+
+    private static final int HAS_KAM = 1;
+    private static final int HAS_STATUS = 2;
+    private static final int HAS_INTERACTION_TYPE = 4;
+    private static final int HAS_CONTACT = 8;
+    private static final int HAS_ON_SCHEDULE = 16;
+    private static final int ON_SCHEDULE = 32;
+
+    private LeadEventCodec() {
+    }
+
+    public static final class Encoder {
+        private final OutputStream out;
+        private boolean started;
+        private long previousId;
+        private long previousMicros;
+
+        public Encoder(OutputStream out) {
+            this.out = new BufferedOutputStream(out, 64 * 1024);
+        }
+
+        public void write(LeadEvent event) throws IOException {
+            if (!started) {
+                out.write(MAGIC);
+                started = true;
+            }
+            long micros = toMicros(event.getOccurredAt());
+            writeVarint(event.getId() - previousId);
+            writeVarint(zigzag(micros - previousMicros));
+            writeVarint(event.getLeadId());
+            out.write(event.getType().ordinal());
+            int fields = (event.getKamId() != null ? HAS_KAM : 0)
+                    | (event.getStatus() != null ? HAS_STATUS : 0)
+                    | (event.getInteractionType() != null ? HAS_INTERACTION_TYPE : 0)
+                    | (event.getContactId() != null ? HAS_CONTACT : 0)
+                    | (event.getOnSchedule() != null ? HAS_ON_SCHEDULE : 0)
+                    | (Boolean.TRUE.equals(event.getOnSchedule()) ? ON_SCHEDULE : 0);
+            out.write(fields);
+            if (event.getKamId() != null) {
+                writeVarint(event.getKamId());
+            }
+            if (event.getStatus() != null) {
+                out.write(event.getStatus().ordinal());
+            }
+            if (event.getInteractionType() != null) {
+                out.write(event.getInteractionType().ordinal());
+            }
+            if (event.getContactId() != null) {
+                writeVarint(event.getContactId());
+            }
+            previousId = event.getId();
+            previousMicros = micros;
+        }
+
+        /**
+         * Writes anything still buffered; an empty stream still gets its header.
+         */
+        public void flush() throws IOException {
+            if (!started) {
+                out.write(MAGIC);
+                started = true;
+            }
+            out.flush();
+        }
+
+        private void writeVarint(long value) throws IOException {
+            while ((value & ~0x7FL) != 0) {
+                out.write((int) (value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            out.write((int) value);
+        }
+    }
+
+    public static final class Decoder {
+        private final InputStream in;
+        private boolean started;
+        private long previousId;
+        private long previousMicros;
+
+        public Decoder(InputStream in) {
+            this.in = new BufferedInputStream(in, 64 * 1024);
+        }
+
+        /**
+         * @return the next event, or {@code null} at the end of the stream
+         * @throws IOException when the stream is not in this format or ends inside an event
+         */
+        public LeadEvent read() throws IOException {
+            if (!started) {
+                for (byte expected : MAGIC) {
+                    if (in.read() != (expected & 0xFF)) {
+                        throw new IOException("Not a lead event stream");
+                    }
+                }
+                started = true;
+            }
+            int first = in.read();
+            if (first < 0) {
+                return null;
+            }
+            LeadEvent event = new LeadEvent();
+            previousId += readVarint(first);
+            previousMicros += unzigzag(readVarint(readByte()));
+            event.setId(previousId);
+            event.setOccurredAt(fromMicros(previousMicros));
+            event.setLeadId(readVarint(readByte()));
+            event.setType(LeadEventType.values()[readByte()]);
+            int fields = readByte();
+            if ((fields & HAS_KAM) != 0) {
+                event.setKamId(readVarint(readByte()));
+            }
+            if ((fields & HAS_STATUS) != 0) {
+                event.setStatus(LeadStatus.values()[readByte()]);
+            }
+            if ((fields & HAS_INTERACTION_TYPE) != 0) {
+                event.setInteractionType(InteractionType.values()[readByte()]);
+            }
+            if ((fields & HAS_CONTACT) != 0) {
+                event.setContactId(readVarint(readByte()));
+            }
+            if ((fields & HAS_ON_SCHEDULE) != 0) {
+                event.setOnSchedule((fields & ON_SCHEDULE) != 0);
+            }
+            return event;
+        }
+
+        private long readVarint(int first) throws IOException {
+            long value = first & 0x7F;
+            int b = first;
+            for (int shift = 7; (b & 0x80) != 0; shift += 7) {
+                if (shift > 63) {
+                    throw new IOException("Malformed varint in lead event stream");
+                }
+                b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+            }
+            return value;
+        }
+
+        private int readByte() throws IOException {
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException("Lead event stream ends inside an event");
+            }
+            return b;
+        }
+    }
+
+    private static long toMicros(LocalDateTime time) {
+        return ChronoUnit.MICROS.between(LocalDateTime.ofEpochSecond(0, 0, ZoneOffset.UTC), time);
+    }
+
+    private static LocalDateTime fromMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1000, ZoneOffset.UTC);
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
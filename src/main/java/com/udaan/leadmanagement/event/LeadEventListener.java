@@ -0,0 +1,17 @@
+package com.udaan.leadmanagement.event;
+
+import com.udaan.leadmanagement.model.LeadEvent;
+
+import java.util.List;
+
+/**
+ * In-process subscriber to the lead event log. {@link LeadEventLog} calls every listener bean with
+ * the events of each append once the appending transaction has committed, on the committing
+ * thread; events of a rolled-back change are never delivered.
+ * <p>
+ * Concurrent transactions commit in any order, so a listener can see a higher event id before a
+ * lower one. Exceptions are logged and do not reach the writer.
+ */
+public interface LeadEventListener {
+    void onLeadEvents(List<LeadEvent> events);
+}
@@ -0,0 +1,240 @@
+package com.udaan.leadmanagement.event;
+
+import com.udaan.leadmanagement.enums.InteractionType;
+import com.udaan.leadmanagement.enums.LeadEventType;
+import com.udaan.leadmanagement.enums.LeadStatus;
+import com.udaan.leadmanagement.model.LeadEvent;
+import com.udaan.leadmanagement.util.AfterCommit;
+import com.udaan.leadmanagement.util.SequenceIdBlock;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Append-only log of lead changes. The write paths append their events with one JDBC batch in the
+ * same transaction as the change itself, so the log holds exactly the committed changes; rows are
+ * never updated or deleted.
+ * <p>
+ * {@link #replay} streams the log in id order to rebuild projections such as
+ * {@link FunnelProjection} without reading the lead tables. Ids are handed out before commit, so
+ * a transaction still in flight can commit events below the highest id already visible.
+ * <p>
+ * Committed appends are also pushed to the {@link LeadEventListener} beans, which keep in-memory
+ * views current without polling the table.
+ */
+@Slf4j
+@Component
+public class LeadEventLog {
+    // allocationSize of the lead_event_seq generator
+    private static final long ID_BLOCK_SIZE = 100;
+    private static final String COLUMNS =
+            "id, lead_id, type, occurred_at, kam_id, status, interaction_type, contact_id, on_schedule";
+
+    private final JdbcTemplate jdbcTemplate;
+    // Shared by all writers, so guarded by itself
+    private final SequenceIdBlock ids;
+    private final int fetchSize;
+    // Looked up on first delivery: listeners commonly depend on this log to replay it
+    private final ObjectProvider<LeadEventListener> listenerProvider;
+    private volatile List<LeadEventListener> listeners;
+
+    public LeadEventLog(JdbcTemplate jdbcTemplate,
+                        EntityManagerFactory entityManagerFactory,
+                        ObjectProvider<LeadEventListener> listenerProvider,
+                        @Value("${leadmanagement.events.replay-fetch-size:5000}") int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.listenerProvider = listenerProvider;
+        this.ids = new SequenceIdBlock(jdbcTemplate, entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices().getDialect().getSequenceSupport().getSequenceNextValString("lead_event_seq"),
+                ID_BLOCK_SIZE);
+        this.fetchSize = fetchSize;
+    }
+
+    public void append(LeadEvent event) {
+        append(List.of(event));
+    }
+
+    /**
+     * Writes the events in the caller's transaction and assigns their ids. The listeners get them
+     * after the commit.
+     *
+     * @throws IllegalStateException when called outside a transaction
+     */
+    public void append(List<LeadEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Lead events must be appended in the transaction of the change they record");
+        }
+        synchronized (ids) {
+            for (LeadEvent event : events) {
+                event.setId(ids.next());
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO lead_event (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        LeadEvent event = events.get(i);
+                        ps.setLong(1, event.getId());
+                        ps.setLong(2, event.getLeadId());
+                        ps.setInt(3, event.getType().ordinal());
+                        ps.setTimestamp(4, Timestamp.valueOf(event.getOccurredAt()));
+                        ps.setObject(5, event.getKamId(), Types.BIGINT);
+                        ps.setObject(6, event.getStatus() == null ? null : event.getStatus().ordinal(), Types.SMALLINT);
+                        ps.setObject(7, event.getInteractionType() == null ? null : event.getInteractionType().ordinal(), Types.SMALLINT);
+                        ps.setObject(8, event.getContactId(), Types.BIGINT);
+                        ps.setObject(9, event.getOnSchedule(), Types.BOOLEAN);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return events.size();
+                    }
+                });
+        AfterCommit.run(() -> publish(events));
+    }
+
+    private void publish(List<LeadEvent> events) {
+        List<LeadEventListener> current = listeners;
+        if (current == null) {
+            current = listenerProvider.orderedStream().toList();
+            listeners = current;
+        }
+        for (LeadEventListener listener : current) {
+            try {
+                listener.onLeadEvents(events);
+            } catch (RuntimeException e) {
+                log.error("Lead event listener {} failed", listener.getClass().getSimpleName(), e);
+            }
+        }
+    }
+
+    /**
+     * Feeds every event with an id above {@code afterId} to the consumer, in id order, from a
+     * forward-only cursor; heap use does not depend on the size of the log.
+     *
+     * @return id of the last event replayed, {@code afterId} when there was none
+     */
+    @Transactional(readOnly = true)
+    public long replay(long afterId, Consumer<LeadEvent> consumer) {
+        long[] lastId = {afterId};
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(
+                    "SELECT " + COLUMNS + " FROM lead_event WHERE id > ? ORDER BY id");
+            ps.setFetchSize(fetchSize);
+            ps.setLong(1, afterId);
+            return ps;
+        }, rs -> {
+            LeadEvent event = map(rs);
+            consumer.accept(event);
+            lastId[0] = event.getId();
+        });
+        return lastId[0];
+    }
+
+    /**
+     * Feeds the events that occurred at or after {@code since} to the consumer, in id order. The
+     * start is found on the occurred_at index, so a recent window is read without scanning the log.
+     *
+     * @return id of the last event replayed, 0 when there was none
+     */
+    @Transactional(readOnly = true)
+    public long replaySince(LocalDateTime since, Consumer<LeadEvent> consumer) {
+        Long firstId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM lead_event WHERE occurred_at >= ?",
+                Long.class, Timestamp.valueOf(since));
+        if (firstId == null) {
+            return 0;
+        }
+        // Writers take the time before the ids, so a later id can still carry an earlier time
+        return replay(firstId - 1, event -> {
+            if (!event.getOccurredAt().isBefore(since)) {
+                consumer.accept(event);
+            }
+        });
+    }
+
+    /**
+     * When a lead of each KAM was last created, assigned to it or changed status. Each KAM's latest
+     * event is read backwards from the top of its stretch of idx_lead_event_kam_occurred_at, so this
+     * costs a probe per KAM rather than a pass over the log.
+     */
+    public Map<Long, LocalDateTime> lastLeadChangeByKam() {
+        Map<Long, LocalDateTime> lastChange = new HashMap<>();
+        jdbcTemplate.query("SELECT k.id, (SELECT MAX(e.occurred_at) FROM lead_event e " +
+                        "WHERE e.kam_id = k.id AND e.type IN (?, ?, ?)) FROM kam k",
+                (RowCallbackHandler) rs -> {
+                    Timestamp last = rs.getTimestamp(2);
+                    if (last != null) {
+                        lastChange.put(rs.getLong(1), last.toLocalDateTime());
+                    }
+                },
+                LeadEventType.LEAD_CREATED.ordinal(), LeadEventType.STATUS_CHANGED.ordinal(),
+                LeadEventType.KAM_ASSIGNED.ordinal());
+        return lastChange;
+    }
+
+    /**
+     * Writes the events after {@code afterId} to the stream in the {@link LeadEventCodec} format.
+     *
+     * @return number of events written
+     */
+    @Transactional(readOnly = true)
+    public long export(long afterId, OutputStream outputStream) throws IOException {
+        LeadEventCodec.Encoder encoder = new LeadEventCodec.Encoder(outputStream);
+        long[] written = {0};
+        try {
+            replay(afterId, event -> {
+                try {
+                    encoder.write(event);
+                    written[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        encoder.flush();
+        return written[0];
+    }
+
+    private static LeadEvent map(ResultSet rs) throws SQLException {
+        LeadEvent event = new LeadEvent();
+        event.setId(rs.getLong(1));
+        event.setLeadId(rs.getLong(2));
+        event.setType(LeadEventType.values()[rs.getInt(3)]);
+        event.setOccurredAt(rs.getTimestamp(4).toLocalDateTime());
+        event.setKamId(rs.getObject(5, Long.class));
+        int status = rs.getInt(6);
+        event.setStatus(rs.wasNull() ? null : LeadStatus.values()[status]);
+        int interactionType = rs.getInt(7);
+        event.setInteractionType(rs.wasNull() ? null : InteractionType.values()[interactionType]);
+        event.setContactId(rs.getObject(8, Long.class));
+        event.setOnSchedule(rs.getObject(9, Boolean.class));
+        return event;
+    }
+}
@@ -0,0 +1,10 @@
+package com.udaan.leadmanagement.event;
+
+import com.udaan.leadmanagement.model.LeadEvent;
+
+/**
+ * State rebuilt by replaying the lead event log; see {@link LeadEventLog#replay}.
+ */
+public interface LeadEventProjection {
+    void apply(LeadEvent event);
+}
@@ -0,0 +1,7 @@
+package com.udaan.leadmanagement.exception;
+
+public class IngestionQueueFullException extends RuntimeException {
+    public IngestionQueueFullException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.udaan.leadmanagement.exception;
+
+public class JobNotFoundException extends RuntimeException {
+    public JobNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,170 @@
+package com.udaan.leadmanagement.feed;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.udaan.leadmanagement.DTO.LeadChangeDTO;
+import com.udaan.leadmanagement.enums.LeadEventType;
+import com.udaan.leadmanagement.event.LeadEventListener;
+import com.udaan.leadmanagement.exception.KAMNotFoundException;
+import com.udaan.leadmanagement.model.LeadEvent;
+import com.udaan.leadmanagement.repository.KAMRepository;
+import com.udaan.leadmanagement.repository.RestaurantLeadRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Live feed of committed lead changes for dashboards: one server-sent event stream per KAM with the
+ * changes of the KAM's leads, and a global one with all of them. Events are named after their
+ * {@link LeadEventType} and carry the event log id as the SSE id.
+ * <p>
+ * Changes arrive from the lead event log on the committing thread and are handed to a single
+ * dispatcher thread, which renders each one once and passes it to the {@link SseFanOut}. Contact
+ * events do not name a KAM, so the dispatcher looks their leads up in one query per batch.
+ * Reassignments go to the new and to the previous KAM; {@code KAMService} reports them through
+ * {@link #onLeadsReassigned}, since only it knows the previous KAM. When dispatch falls
+ * {@code leadmanagement.feed.queue-capacity} batches behind, the oldest are dropped.
+ * <p>
+ * The streams are ended when the context starts closing, before the web server's graceful
+ * shutdown, which would otherwise wait for these requests until its timeout.
+ */
+@Slf4j
+@Component
+public class LeadChangeFeed implements LeadEventListener {
+    private final RestaurantLeadRepository restaurantLeadRepository;
+    private final KAMRepository kamRepository;
+    private final ObjectMapper objectMapper;
+    private final SseFanOut fanOut;
+    private final ThreadPoolExecutor dispatcher;
+
+    public LeadChangeFeed(RestaurantLeadRepository restaurantLeadRepository,
+                          KAMRepository kamRepository,
+                          ObjectMapper objectMapper,
+                          @Value("${leadmanagement.feed.buffer-size:64}") int bufferSize,
+                          @Value("${leadmanagement.feed.queue-capacity:10000}") int queueCapacity,
+                          @Value("${leadmanagement.feed.heartbeat-seconds:15}") long heartbeatSeconds) {
+        this.restaurantLeadRepository = restaurantLeadRepository;
+        this.kamRepository = kamRepository;
+        this.objectMapper = objectMapper;
+        this.fanOut = new SseFanOut("lead-feed", bufferSize, Duration.ofSeconds(heartbeatSeconds));
+        this.dispatcher = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "lead-feed-dispatcher");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.DiscardOldestPolicy());
+    }
+
+    @EventListener(ContextClosedEvent.class)
+    public void stop() {
+        dispatcher.shutdownNow();
+        fanOut.close();
+    }
+
+    /**
+     * @param kamId the KAM whose leads to follow, or {@code null} for every lead
+     * @return an open stream, closed after the MVC async request timeout
+     * @throws KAMNotFoundException if the KAM does not exist
+     */
+    public SseEmitter subscribe(Long kamId) {
+        if (kamId != null && !kamRepository.existsById(kamId)) {
+            throw new KAMNotFoundException("KAM not found with id: " + kamId);
+        }
+        return fanOut.subscribe(kamId);
+    }
+
+    public long getSubscriberCount() {
+        return fanOut.getSubscriberCount();
+    }
+
+    @Override
+    public void onLeadEvents(List<LeadEvent> events) {
+        if (!fanOut.hasSubscribers()) {
+            return;
+        }
+        List<LeadEvent> changes = events.stream()
+                .filter(event -> event.getType() != LeadEventType.KAM_ASSIGNED)
+                .toList();
+        if (!changes.isEmpty()) {
+            dispatcher.execute(() -> dispatchQuietly(changes, Map.of()));
+        }
+    }
+
+    /**
+     * Publishes committed {@link LeadEventType#KAM_ASSIGNED} events.
+     *
+     * @param previousKamIds the KAM each lead had before, by lead id
+     */
+    public void onLeadsReassigned(List<LeadEvent> events, Map<Long, Long> previousKamIds) {
+        if (!fanOut.hasSubscribers() || events.isEmpty()) {
+            return;
+        }
+        dispatcher.execute(() -> dispatchQuietly(events, previousKamIds));
+    }
+
+    private void dispatchQuietly(List<LeadEvent> events, Map<Long, Long> previousKamIds) {
+        try {
+            dispatch(events, previousKamIds);
+        } catch (RuntimeException e) {
+            log.error("Dropping {} lead changes from the live feed", events.size(), e);
+        }
+    }
+
+    void dispatch(List<LeadEvent> events, Map<Long, Long> previousKamIds) {
+        Map<Long, Long> contactLeadKamIds = kamIdsOfContactLeads(events);
+        for (LeadEvent event : events) {
+            Long kamId = event.getKamId() != null ? event.getKamId() : contactLeadKamIds.get(event.getLeadId());
+            Long previousKamId = previousKamIds.get(event.getLeadId());
+            LeadChangeDTO change = new LeadChangeDTO(event.getId(), event.getType(), event.getLeadId(), kamId,
+                    previousKamId, event.getStatus(), event.getInteractionType(), event.getContactId(),
+                    event.getOccurredAt());
+            String data;
+            try {
+                data = objectMapper.writeValueAsString(change);
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Cannot serialize lead change", e);
+            }
+            String name = event.getType().name();
+            String id = String.valueOf(event.getId());
+            fanOut.publish(kamId, name, id, data);
+            if (previousKamId != null && !previousKamId.equals(kamId)) {
+                // Only to the previous KAM's streams: the global ones had it above
+                fanOut.publishToKey(previousKamId, name, id, data);
+            }
+        }
+    }
+
+    private Map<Long, Long> kamIdsOfContactLeads(List<LeadEvent> events) {
+        Set<Long> leadIds = new HashSet<>();
+        for (LeadEvent event : events) {
+            if (event.getKamId() == null && event.getContactId() != null) {
+                leadIds.add(event.getLeadId());
+            }
+        }
+        if (leadIds.isEmpty()) {
+            return Map.of();
+        }
+        Map<Long, Long> kamIds = new HashMap<>();
+        for (Object[] row : restaurantLeadRepository.findKamIdsByIdIn(leadIds)) {
+            if (row[1] != null) {
+                kamIds.put((Long) row[0], (Long) row[1]);
+            }
+        }
+        return kamIds;
+    }
+}
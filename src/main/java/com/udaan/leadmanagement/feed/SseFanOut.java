@@ -0,0 +1,284 @@
+package com.udaan.leadmanagement.feed;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Fan-out of server-sent events to many subscribers, each following the messages of one key (a
+ * KAM) or of all keys. Publishing never blocks and never writes to a connection: a message is
+ * rendered once, appended to each matching subscriber's buffer and sent by a per-subscriber sender
+ * on a virtual thread, so a slow client only holds up itself.
+ * <p>
+ * A buffer holds at most {@code bufferSize} messages; when a client falls further behind, the
+ * oldest ones are dropped and the next message it gets is preceded by a {@value #DROPPED_EVENT}
+ * event with the number lost. Buffers only exist while messages are waiting, so an idle
+ * subscriber costs its emitter and a few fields.
+ * <p>
+ * Every {@code heartbeat} each idle subscriber is sent an empty comment, which clients ignore, so
+ * a connection that has gone away is noticed and dropped without waiting for the next message.
+ */
+@Slf4j
+public final class SseFanOut {
+    public static final String DROPPED_EVENT = "DROPPED";
+    private static final Long ALL = Long.MIN_VALUE;
+    // How long clients wait before reconnecting after the stream ends
+    private static final long RECONNECT_MILLIS = 3000;
+
+    private final String name;
+    private final int bufferSize;
+    private final ExecutorService senders;
+    private final ScheduledExecutorService heartbeats;
+    private final Supplier<SseEmitter> emitters;
+    private final Map<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicLong subscriberCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private volatile boolean closed;
+
+    /**
+     * @param heartbeat how often idle subscribers are sent a comment; zero or less sends none
+     */
+    public SseFanOut(String name, int bufferSize, Duration heartbeat) {
+        this(name, bufferSize, heartbeat, SseEmitter::new);
+    }
+
+    SseFanOut(String name, int bufferSize, Duration heartbeat, Supplier<SseEmitter> emitters) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("Buffer size must be positive");
+        }
+        this.name = name;
+        this.bufferSize = bufferSize;
+        this.senders = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name + "-sender-", 0).factory());
+        this.emitters = emitters;
+        this.heartbeats = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, name + "-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (heartbeat.isPositive()) {
+            heartbeats.scheduleWithFixedDelay(this::heartbeat, heartbeat.toMillis(), heartbeat.toMillis(),
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * @param key the key to follow, or {@code null} for the messages of every key
+     * @return an open stream, closed after the MVC async request timeout, or at once after {@link #close}
+     */
+    public SseEmitter subscribe(Long key) {
+        Long topic = key == null ? ALL : key;
+        Subscriber subscriber = new Subscriber(emitters.get(), topic);
+        subscribers.compute(topic, (k, topicSubscribers) -> {
+            Set<Subscriber> set = topicSubscribers == null ? ConcurrentHashMap.newKeySet() : topicSubscribers;
+            set.add(subscriber);
+            return set;
+        });
+        subscriberCount.incrementAndGet();
+        subscriber.emitter.onCompletion(subscriber::unsubscribe);
+        subscriber.emitter.onTimeout(subscriber::unsubscribe);
+        subscriber.emitter.onError(error -> subscriber.unsubscribe());
+        try {
+            // Sent with the response headers, so the client sees the stream open before the first message
+            subscriber.emitter.send(SseEmitter.event().reconnectTime(RECONNECT_MILLIS));
+        } catch (IOException e) {
+            subscriber.unsubscribe();
+            subscriber.emitter.completeWithError(e);
+        }
+        // Checked after joining, so a concurrent close either completes it or is seen here
+        if (closed) {
+            subscriber.unsubscribe();
+            subscriber.emitter.complete();
+        }
+        return subscriber.emitter;
+    }
+
+    /**
+     * Queues the event for the subscribers of {@code key} and those following every key.
+     *
+     * @param id the SSE event id, or {@code null} for none
+     */
+    public void publish(Long key, String eventName, String id, String data) {
+        deliver(key == null ? null : subscribers.get(key), subscribers.get(ALL), eventName, id, data);
+    }
+
+    // Queues the event for the subscribers of key only
+    public void publishToKey(long key, String eventName, String id, String data) {
+        deliver(subscribers.get(key), null, eventName, id, data);
+    }
+
+    private void deliver(Set<Subscriber> keySubscribers, Set<Subscriber> allSubscribers,
+                         String eventName, String id, String data) {
+        if (keySubscribers == null && allSubscribers == null) {
+            return;
+        }
+        Frame frame = new Frame(eventName, id, data);
+        if (keySubscribers != null) {
+            keySubscribers.forEach(subscriber -> subscriber.offer(frame));
+        }
+        if (allSubscribers != null) {
+            allSubscribers.forEach(subscriber -> subscriber.offer(frame));
+        }
+    }
+
+    public boolean hasSubscribers() {
+        return subscriberCount.get() > 0;
+    }
+
+    public long getSubscriberCount() {
+        return subscriberCount.get();
+    }
+
+    // Messages dropped from full buffers since startup, over all subscribers
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    // Ends every stream; the clients see the connection close and reconnect elsewhere
+    public void close() {
+        closed = true;
+        heartbeats.shutdownNow();
+        senders.shutdownNow();
+        subscribers.values().forEach(set -> set.forEach(subscriber -> subscriber.emitter.complete()));
+    }
+
+    private void heartbeat() {
+        subscribers.values().forEach(set -> set.forEach(Subscriber::heartbeat));
+    }
+
+    // One per message, shared by all the buffers it goes to
+    private static final class Frame {
+        private static final Frame HEARTBEAT = new Frame(null, null, null);
+
+        private final String eventName;
+        private final String id;
+        private final String data;
+
+        private Frame(String eventName, String id, String data) {
+            this.eventName = eventName;
+            this.id = id;
+            this.data = data;
+        }
+
+        SseEmitter.SseEventBuilder toEvent() {
+            if (this == HEARTBEAT) {
+                return SseEmitter.event().comment("");
+            }
+            SseEmitter.SseEventBuilder event = SseEmitter.event().name(eventName);
+            return (id == null ? event : event.id(id)).data(data);
+        }
+    }
+
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private final Long topic;
+        // All below guarded by this; buffer is null while empty
+        private ArrayDeque<Frame> buffer;
+        private long dropped;
+        private boolean sending;
+        private boolean closed;
+
+        private Subscriber(SseEmitter emitter, Long topic) {
+            this.emitter = emitter;
+            this.topic = topic;
+        }
+
+        void offer(Frame frame) {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                if (buffer == null) {
+                    buffer = new ArrayDeque<>(Math.min(bufferSize, 16));
+                } else if (buffer.size() == bufferSize) {
+                    buffer.pollFirst();
+                    dropped++;
+                    droppedCount.incrementAndGet();
+                }
+                buffer.addLast(frame);
+                if (sending) {
+                    return;
+                }
+                sending = true;
+            }
+            startSending();
+        }
+
+        void heartbeat() {
+            synchronized (this) {
+                // Messages are waiting, and sending them will tell whether the client is still there
+                if (closed || buffer != null) {
+                    return;
+                }
+                buffer = new ArrayDeque<>(1);
+                buffer.addLast(Frame.HEARTBEAT);
+                sending = true;
+            }
+            startSending();
+        }
+
+        private void startSending() {
+            try {
+                senders.execute(this::send);
+            } catch (RejectedExecutionException e) {
+                // Shutting down: the stream is being completed anyway
+                unsubscribe();
+            }
+        }
+
+        private void send() {
+            while (true) {
+                Frame frame;
+                long gap;
+                synchronized (this) {
+                    frame = closed || buffer == null ? null : buffer.pollFirst();
+                    if (frame == null) {
+                        buffer = null;
+                        sending = false;
+                        return;
+                    }
+                    gap = dropped;
+                    dropped = 0;
+                }
+                try {
+                    if (gap > 0) {
+                        emitter.send(SseEmitter.event().name(DROPPED_EVENT).data(Long.toString(gap)));
+                    }
+                    emitter.send(frame.toEvent());
+                } catch (IOException | IllegalStateException e) {
+                    log.debug("Closing {} stream of {}: {}", name, ALL.equals(topic) ? "all" : topic, e.getMessage());
+                    unsubscribe();
+                    emitter.completeWithError(e);
+                    return;
+                }
+            }
+        }
+
+        void unsubscribe() {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                buffer = null;
+            }
+            subscribers.computeIfPresent(topic, (k, set) -> {
+                set.remove(this);
+                return set.isEmpty() ? null : set;
+            });
+            subscriberCount.decrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.udaan.leadmanagement.geo;
+
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Offline stand-in for a real geocoder: places an address in the last city of a built-in list of
+ * Indian cities that it names, at a pseudo-random spot up to {@value #SPREAD_KM} km from the city
+ * centre derived from the address text. The same address always lands on the same spot and
+ * different addresses spread over the city, which is enough for territory and route planning to
+ * behave sensibly until a real geocoder is plugged in as the {@link Geocoder} bean.
+ */
+@Component
+public class GazetteerGeocoder implements Geocoder {
+    static final double SPREAD_KM = 8;
+    private static final double KM_PER_DEGREE = Math.PI * GeoPoint.EARTH_RADIUS_KM / 180;
+
+    private static final Map<String, GeoPoint> CITIES = Map.ofEntries(
+            Map.entry("mumbai", new GeoPoint(19.0760, 72.8777)),
+            Map.entry("navi mumbai", new GeoPoint(19.0330, 73.0297)),
+            Map.entry("thane", new GeoPoint(19.2183, 72.9781)),
+            Map.entry("delhi", new GeoPoint(28.6139, 77.2090)),
+            Map.entry("new delhi", new GeoPoint(28.6139, 77.2090)),
+            Map.entry("gurgaon", new GeoPoint(28.4595, 77.0266)),
+            Map.entry("gurugram", new GeoPoint(28.4595, 77.0266)),
+            Map.entry("noida", new GeoPoint(28.5355, 77.3910)),
+            Map.entry("bengaluru", new GeoPoint(12.9716, 77.5946)),
+            Map.entry("bangalore", new GeoPoint(12.9716, 77.5946)),
+            Map.entry("mysuru", new GeoPoint(12.2958, 76.6394)),
+            Map.entry("mysore", new GeoPoint(12.2958, 76.6394)),
+            Map.entry("hyderabad", new GeoPoint(17.3850, 78.4867)),
+            Map.entry("chennai", new GeoPoint(13.0827, 80.2707)),
+            Map.entry("coimbatore", new GeoPoint(11.0168, 76.9558)),
+            Map.entry("kochi", new GeoPoint(9.9312, 76.2673)),
+            Map.entry("kolkata", new GeoPoint(22.5726, 88.3639)),
+            Map.entry("pune", new GeoPoint(18.5204, 73.8567)),
+            Map.entry("ahmedabad", new GeoPoint(23.0225, 72.5714)),
+            Map.entry("surat", new GeoPoint(21.1702, 72.8311)),
+            Map.entry("vadodara", new GeoPoint(22.3072, 73.1812)),
+            Map.entry("jaipur", new GeoPoint(26.9124, 75.7873)),
+            Map.entry("lucknow", new GeoPoint(26.8467, 80.9462)),
+            Map.entry("kanpur", new GeoPoint(26.4499, 80.3319)),
+            Map.entry("nagpur", new GeoPoint(21.1458, 79.0882)),
+            Map.entry("indore", new GeoPoint(22.7196, 75.8577)),
+            Map.entry("bhopal", new GeoPoint(23.2599, 77.4126)),
+            Map.entry("patna", new GeoPoint(25.5941, 85.1376)),
+            Map.entry("chandigarh", new GeoPoint(30.7333, 76.7794)),
+            Map.entry("visakhapatnam", new GeoPoint(17.6868, 83.2185)),
+            Map.entry("panaji", new GeoPoint(15.4909, 73.8278)));
+
+    @Override
+    public Optional<GeoPoint> geocode(String address) {
+        if (address == null || address.isBlank()) {
+            return Optional.empty();
+        }
+        String text = address.toLowerCase(Locale.ROOT).replaceAll("[^\\p{L}\\p{N}]+", " ").trim();
+        List<String> words = List.of(text.split(" "));
+        // Addresses end with the city, and "navi mumbai" must not be read as "mumbai"
+        for (int i = words.size() - 1; i >= 0; i--) {
+            GeoPoint city = i > 0 ? CITIES.get(words.get(i - 1) + " " + words.get(i)) : null;
+            if (city == null) {
+                city = CITIES.get(words.get(i));
+            }
+            if (city != null) {
+                return Optional.of(spread(city, text));
+            }
+        }
+        return Optional.empty();
+    }
+
+    // Uniform over a disc around the centre
+    private static GeoPoint spread(GeoPoint centre, String text) {
+        long hash = fnv1a(text);
+        double u = (hash >>> 32) / (double) (1L << 32);
+        double v = (hash & 0xFFFFFFFFL) / (double) (1L << 32);
+        double km = SPREAD_KM * Math.sqrt(u);
+        double angle = 2 * Math.PI * v;
+        double latitude = centre.getLatitude() + km * Math.cos(angle) / KM_PER_DEGREE;
+        double longitude = centre.getLongitude()
+                + km * Math.sin(angle) / (KM_PER_DEGREE * Math.cos(Math.toRadians(centre.getLatitude())));
+        return new GeoPoint(latitude, longitude);
+    }
+
+    private static long fnv1a(String text) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : text.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xFF;
+            hash *= 0x100000001b3L;
+        }
+        // Spread the low bits of short inputs
+        hash ^= hash >>> 29;
+        hash *= 0xbf58476d1ce4e5b9L;
+        return hash ^ (hash >>> 32);
+    }
+}
@@ -0,0 +1,15 @@
+package com.udaan.leadmanagement.geo;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * The leads found in an area: how many there are, and the ones closest to the query's reference
+ * point up to the query's limit, closest first.
+ */
+@Value
+public class GeoArea {
+    int total;
+    List<GeoMatch> matches;
+}
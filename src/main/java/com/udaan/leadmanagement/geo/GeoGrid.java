@@ -0,0 +1,356 @@
+package com.udaan.leadmanagement.geo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Lead positions bucketed into a grid of square cells of {@code cellDegrees} latitude by
+ * longitude. Not thread-safe: {@link LeadGeoIndex} guards it.
+ * <p>
+ * Queries read the cells that can hold matches closest first, and stop reading points once no
+ * remaining cell can be closer than the last lead kept. Cells wholly inside a radius or box are
+ * counted by their size alone. Nearest-n queries read rings of cells outwards from the point, or,
+ * when the leads are too far for that to be quick, every occupied cell by its distance. Only
+ * occupied cells are stored, so a fine grid costs nothing where there are no leads. Areas do not
+ * wrap around the antimeridian.
+ */
+final class GeoGrid {
+    private static final double KM_PER_DEGREE = Math.PI * GeoPoint.EARTH_RADIUS_KM / 180;
+    // Farthest latitude used to size areas in longitude, so they stay finite near the poles
+    private static final double MAX_SIZING_LATITUDE = 89;
+    // A cell's distance bounds come from its nearest edge point and farthest corner as if it
+    // were flat; widening them by this fraction keeps them bounds on the sphere
+    private static final double BOUND_SLACK = 1e-3;
+
+    private final double cellDegrees;
+    private final Map<Long, Cell> cells = new HashMap<>();
+    private final Map<Long, GeoPoint> positions = new HashMap<>();
+
+    GeoGrid(double cellDegrees) {
+        this.cellDegrees = cellDegrees;
+    }
+
+    int size() {
+        return positions.size();
+    }
+
+    GeoPoint get(long leadId) {
+        return positions.get(leadId);
+    }
+
+    void put(long leadId, GeoPoint position) {
+        GeoPoint old = positions.put(leadId, position);
+        if (old != null) {
+            long oldKey = key(row(old.getLatitude()), column(old.getLongitude()));
+            Cell cell = cells.get(oldKey);
+            cell.remove(leadId);
+            if (cell.size == 0) {
+                cells.remove(oldKey);
+            }
+        }
+        int row = row(position.getLatitude());
+        int column = column(position.getLongitude());
+        cells.computeIfAbsent(key(row, column), k -> new Cell(row, column))
+                .add(leadId, position.getLatitude(), position.getLongitude());
+    }
+
+    /**
+     * Leads inside the box, edges included, ranked by distance from its centre.
+     */
+    GeoArea within(double minLat, double minLng, double maxLat, double maxLng, int limit) {
+        double centreLat = (minLat + maxLat) / 2;
+        double centreLng = (minLng + maxLng) / 2;
+        ClosestMatches closest = new ClosestMatches(limit);
+        int total = 0;
+        for (CellDistance candidate : cellsByDistance(row(minLat), row(maxLat), column(minLng), column(maxLng),
+                centreLat, centreLng)) {
+            Cell cell = candidate.cell;
+            boolean ranked = !closest.isFull() || candidate.minKm <= closest.farthestKm();
+            if (south(cell) >= minLat && north(cell) <= maxLat && west(cell) >= minLng && east(cell) <= maxLng) {
+                total += cell.size;
+                if (ranked) {
+                    offerAll(cell, centreLat, centreLng, closest);
+                }
+                continue;
+            }
+            for (int i = 0; i < cell.size; i++) {
+                double lat = cell.latitudes[i];
+                double lng = cell.longitudes[i];
+                if (lat >= minLat && lat <= maxLat && lng >= minLng && lng <= maxLng) {
+                    total++;
+                    if (ranked) {
+                        closest.offer(cell.leadIds[i], lat, lng, GeoPoint.distanceKm(centreLat, centreLng, lat, lng));
+                    }
+                }
+            }
+        }
+        return new GeoArea(total, closest.closestFirst());
+    }
+
+    /**
+     * Leads within {@code radiusKm} of the point, closest first.
+     */
+    GeoArea near(double latitude, double longitude, double radiusKm, int limit) {
+        double latSpan = radiusKm / KM_PER_DEGREE;
+        double lngSpan = latSpan / Math.cos(Math.toRadians(Math.min(Math.abs(latitude) + latSpan, MAX_SIZING_LATITUDE)));
+        ClosestMatches closest = new ClosestMatches(limit);
+        int total = 0;
+        for (CellDistance candidate : cellsByDistance(
+                row(Math.max(latitude - latSpan, -90)), row(Math.min(latitude + latSpan, 90)),
+                column(Math.max(longitude - lngSpan, -180)), column(Math.min(longitude + lngSpan, 180)),
+                latitude, longitude)) {
+            if (candidate.minKm > radiusKm) {
+                break;
+            }
+            Cell cell = candidate.cell;
+            boolean ranked = !closest.isFull() || candidate.minKm <= closest.farthestKm();
+            if (maxKm(cell, latitude, longitude) <= radiusKm) {
+                total += cell.size;
+                if (ranked) {
+                    offerAll(cell, latitude, longitude, closest);
+                }
+                continue;
+            }
+            for (int i = 0; i < cell.size; i++) {
+                double distance = GeoPoint.distanceKm(latitude, longitude, cell.latitudes[i], cell.longitudes[i]);
+                if (distance <= radiusKm) {
+                    total++;
+                    if (ranked) {
+                        closest.offer(cell.leadIds[i], cell.latitudes[i], cell.longitudes[i], distance);
+                    }
+                }
+            }
+        }
+        return new GeoArea(total, closest.closestFirst());
+    }
+
+    /**
+     * The {@code n} leads closest to the point, closest first.
+     */
+    List<GeoMatch> nearest(double latitude, double longitude, int n) {
+        ClosestMatches closest = new ClosestMatches(n);
+        int centreRow = row(latitude);
+        int centreColumn = column(longitude);
+        long cellsRead = 0;
+        for (int ring = 0; ; ring++) {
+            // A lead in this ring is at least ring - 1 whole cells away in latitude or longitude
+            double ringKm = Math.max(ring - 1, 0) * cellDegrees * KM_PER_DEGREE
+                    * Math.cos(Math.toRadians(Math.min(Math.abs(latitude) + ring * cellDegrees, MAX_SIZING_LATITUDE)));
+            if (closest.isFull() && closest.farthestKm() <= ringKm) {
+                return closest.closestFirst();
+            }
+            cellsRead += ring == 0 ? 1 : 8L * ring;
+            if (cellsRead > cells.size() / 4) {
+                break;
+            }
+            for (int row = centreRow - ring; row <= centreRow + ring; row++) {
+                boolean edgeRow = row == centreRow - ring || row == centreRow + ring;
+                for (int column = centreColumn - ring; column <= centreColumn + ring;
+                     column += edgeRow || ring == 0 ? 1 : 2 * ring) {
+                    Cell cell = cells.get(key(row, column));
+                    if (cell != null) {
+                        offerAll(cell, latitude, longitude, closest);
+                    }
+                }
+            }
+        }
+        // The leads are far apart: going on ring by ring would look up many more empty cells than
+        // there are occupied ones. Only the closest few cells are taken off the heap.
+        closest = new ClosestMatches(n);
+        PriorityQueue<CellDistance> byDistance = new PriorityQueue<>(distances(cells.values(), latitude, longitude));
+        while (!byDistance.isEmpty()) {
+            CellDistance candidate = byDistance.poll();
+            if (closest.isFull() && candidate.minKm > closest.farthestKm()) {
+                break;
+            }
+            offerAll(candidate.cell, latitude, longitude, closest);
+        }
+        return closest.closestFirst();
+    }
+
+    private static void offerAll(Cell cell, double latitude, double longitude, ClosestMatches closest) {
+        for (int i = 0; i < cell.size; i++) {
+            closest.offer(cell.leadIds[i], cell.latitudes[i], cell.longitudes[i],
+                    GeoPoint.distanceKm(latitude, longitude, cell.latitudes[i], cell.longitudes[i]));
+        }
+    }
+
+    /**
+     * The occupied cells in the range of rows and columns, nearest to the point first.
+     */
+    private List<CellDistance> cellsByDistance(int minRow, int maxRow, int minColumn, int maxColumn,
+                                               double latitude, double longitude) {
+        List<Cell> inRange = new ArrayList<>();
+        if ((long) (maxRow - minRow + 1) * (maxColumn - minColumn + 1) > cells.size()) {
+            for (Cell cell : cells.values()) {
+                if (cell.row >= minRow && cell.row <= maxRow && cell.column >= minColumn && cell.column <= maxColumn) {
+                    inRange.add(cell);
+                }
+            }
+        } else {
+            for (int row = minRow; row <= maxRow; row++) {
+                for (int column = minColumn; column <= maxColumn; column++) {
+                    Cell cell = cells.get(key(row, column));
+                    if (cell != null) {
+                        inRange.add(cell);
+                    }
+                }
+            }
+        }
+        List<CellDistance> byDistance = distances(inRange, latitude, longitude);
+        byDistance.sort(null);
+        return byDistance;
+    }
+
+    private List<CellDistance> distances(Collection<Cell> candidates, double latitude, double longitude) {
+        List<CellDistance> byDistance = new ArrayList<>(candidates.size());
+        for (Cell cell : candidates) {
+            double nearestLat = Math.clamp(latitude, south(cell), north(cell));
+            double nearestLng = Math.clamp(longitude, west(cell), east(cell));
+            double minKm = GeoPoint.distanceKm(latitude, longitude, nearestLat, nearestLng) * (1 - BOUND_SLACK);
+            byDistance.add(new CellDistance(cell, minKm));
+        }
+        return byDistance;
+    }
+
+    private double maxKm(Cell cell, double latitude, double longitude) {
+        double farthestLat = latitude - south(cell) > north(cell) - latitude ? south(cell) : north(cell);
+        double farthestLng = longitude - west(cell) > east(cell) - longitude ? west(cell) : east(cell);
+        return GeoPoint.distanceKm(latitude, longitude, farthestLat, farthestLng) * (1 + BOUND_SLACK);
+    }
+
+    private int row(double latitude) {
+        return (int) Math.floor((latitude + 90) / cellDegrees);
+    }
+
+    private int column(double longitude) {
+        return (int) Math.floor((longitude + 180) / cellDegrees);
+    }
+
+    private double south(Cell cell) {
+        return cell.row * cellDegrees - 90;
+    }
+
+    private double north(Cell cell) {
+        return (cell.row + 1) * cellDegrees - 90;
+    }
+
+    private double west(Cell cell) {
+        return cell.column * cellDegrees - 180;
+    }
+
+    private double east(Cell cell) {
+        return (cell.column + 1) * cellDegrees - 180;
+    }
+
+    private static long key(int row, int column) {
+        return (long) row << 32 | (column & 0xFFFFFFFFL);
+    }
+
+    private static final class CellDistance implements Comparable<CellDistance> {
+        final Cell cell;
+        // No lead in the cell is closer than this
+        final double minKm;
+
+        CellDistance(Cell cell, double minKm) {
+            this.cell = cell;
+            this.minKm = minKm;
+        }
+
+        @Override
+        public int compareTo(CellDistance other) {
+            return Double.compare(minKm, other.minKm);
+        }
+    }
+
+    private static final class Cell {
+        final int row;
+        final int column;
+        long[] leadIds = new long[4];
+        double[] latitudes = new double[4];
+        double[] longitudes = new double[4];
+        int size;
+
+        Cell(int row, int column) {
+            this.row = row;
+            this.column = column;
+        }
+
+        void add(long leadId, double latitude, double longitude) {
+            if (size == leadIds.length) {
+                leadIds = Arrays.copyOf(leadIds, size * 2);
+                latitudes = Arrays.copyOf(latitudes, size * 2);
+                longitudes = Arrays.copyOf(longitudes, size * 2);
+            }
+            leadIds[size] = leadId;
+            latitudes[size] = latitude;
+            longitudes[size] = longitude;
+            size++;
+        }
+
+        void remove(long leadId) {
+            for (int i = 0; i < size; i++) {
+                if (leadIds[i] == leadId) {
+                    size--;
+                    leadIds[i] = leadIds[size];
+                    latitudes[i] = latitudes[size];
+                    longitudes[i] = longitudes[size];
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * The {@code limit} closest leads offered so far; ties go to the older lead.
+     */
+    private static final class ClosestMatches {
+        // Farther first, then higher id
+        private static final Comparator<GeoMatch> WORST_FIRST = Comparator.comparingDouble(GeoMatch::getDistanceKm)
+                .thenComparingLong(GeoMatch::getLeadId).reversed();
+
+        private final int limit;
+        private final PriorityQueue<GeoMatch> heap;
+
+        ClosestMatches(int limit) {
+            this.limit = limit;
+            this.heap = new PriorityQueue<>(limit + 1, WORST_FIRST);
+        }
+
+        boolean isFull() {
+            return heap.size() == limit;
+        }
+
+        double farthestKm() {
+            return heap.peek().getDistanceKm();
+        }
+
+        void offer(long leadId, double latitude, double longitude, double distanceKm) {
+            if (isFull()) {
+                GeoMatch worst = heap.peek();
+                if (distanceKm > worst.getDistanceKm()
+                        || (distanceKm == worst.getDistanceKm() && leadId > worst.getLeadId())) {
+                    return;
+                }
+            }
+            heap.add(new GeoMatch(leadId, latitude, longitude, distanceKm));
+            if (heap.size() > limit) {
+                heap.poll();
+            }
+        }
+
+        List<GeoMatch> closestFirst() {
+            List<GeoMatch> matches = new ArrayList<>(heap.size());
+            while (!heap.isEmpty()) {
+                matches.add(heap.poll());
+            }
+            return matches.reversed();
+        }
+    }
+}
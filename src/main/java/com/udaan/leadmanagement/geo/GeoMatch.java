@@ -0,0 +1,14 @@
+package com.udaan.leadmanagement.geo;
+
+import lombok.Value;
+
+/**
+ * A lead found by a {@link LeadGeoIndex} query, with its distance from the query's reference point.
+ */
+@Value
+public class GeoMatch {
+    long leadId;
+    double latitude;
+    double longitude;
+    double distanceKm;
+}
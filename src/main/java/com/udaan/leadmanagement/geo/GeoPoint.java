@@ -0,0 +1,41 @@
+package com.udaan.leadmanagement.geo;
+
+import lombok.Value;
+
+/**
+ * A WGS84 position in degrees.
+ */
+@Value
+public class GeoPoint {
+    // Mean earth radius
+    static final double EARTH_RADIUS_KM = 6371.0088;
+
+    double latitude;
+    double longitude;
+
+    /**
+     * @throws IllegalArgumentException when the coordinates are not a position on earth
+     */
+    public GeoPoint(double latitude, double longitude) {
+        if (!(latitude >= -90 && latitude <= 90) || !(longitude >= -180 && longitude <= 180)) {
+            throw new IllegalArgumentException("Not a valid position: " + latitude + ", " + longitude);
+        }
+        this.latitude = latitude;
+        this.longitude = longitude;
+    }
+
+    public double distanceKm(GeoPoint other) {
+        return distanceKm(latitude, longitude, other.latitude, other.longitude);
+    }
+
+    /**
+     * Great-circle (haversine) distance.
+     */
+    public static double distanceKm(double lat1, double lng1, double lat2, double lng2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLng = Math.toRadians(lng2 - lng1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLng / 2) * Math.sin(dLng / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+}
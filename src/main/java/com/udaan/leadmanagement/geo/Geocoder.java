@@ -0,0 +1,13 @@
+package com.udaan.leadmanagement.geo;
+
+import java.util.Optional;
+
+/**
+ * Turns a free-text lead address into a position.
+ */
+public interface Geocoder {
+    /**
+     * @return the position of the address, or empty when it cannot be placed
+     */
+    Optional<GeoPoint> geocode(String address);
+}
@@ -0,0 +1,215 @@
+package com.udaan.leadmanagement.geo;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Positions of all leads in memory, for radius, bounding-box and nearest-n queries and for
+ * routing. Leads saved without coordinates are placed by geocoding their address, here only:
+ * nothing is written back. Queries run concurrently under a read lock and updates take the write
+ * lock briefly.
+ * <p>
+ * Built from the lead table at startup; the write paths report each lead's position once it is
+ * committed. Updates committed while {@link #rebuild} runs are applied to the new index again
+ * before it is swapped in, as in {@link com.udaan.leadmanagement.search.LeadSearchIndex}.
+ */
+@Slf4j
+@Component
+public class LeadGeoIndex {
+    public static final int MAX_RESULTS = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Geocoder geocoder;
+    private final double cellDegrees;
+    private final int fetchSize;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Guarded by lock
+    private GeoGrid grid;
+    private List<Consumer<GeoGrid>> pending;
+    private volatile boolean loaded;
+
+    public LeadGeoIndex(JdbcTemplate jdbcTemplate,
+                        PlatformTransactionManager transactionManager,
+                        Geocoder geocoder,
+                        @Value("${leadmanagement.geo.cell-degrees:0.01}") double cellDegrees,
+                        @Value("${leadmanagement.geo.rebuild-fetch-size:5000}") int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.geocoder = geocoder;
+        this.cellDegrees = cellDegrees;
+        this.fetchSize = fetchSize;
+        this.grid = new GeoGrid(cellDegrees);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        rebuild();
+    }
+
+    /**
+     * Builds a new index from the lead table, read once through a forward-only cursor, and swaps
+     * it in.
+     */
+    public void rebuild() {
+        long started = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            if (pending != null) {
+                throw new IllegalStateException("The lead geo index is already being rebuilt");
+            }
+            pending = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        GeoGrid rebuilt = new GeoGrid(cellDegrees);
+        int[] geocoded = {0};
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+                PreparedStatement ps = connection.prepareStatement(
+                        "SELECT id, latitude, longitude, address FROM restaurant_lead");
+                ps.setFetchSize(fetchSize);
+                return ps;
+            }, rs -> {
+                double latitude = rs.getDouble(2);
+                boolean located = !rs.wasNull();
+                double longitude = rs.getDouble(3);
+                located &= !rs.wasNull();
+                if (located) {
+                    rebuilt.put(rs.getLong(1), new GeoPoint(latitude, longitude));
+                } else {
+                    long leadId = rs.getLong(1);
+                    geocoder.geocode(rs.getString(4)).ifPresent(position -> {
+                        rebuilt.put(leadId, position);
+                        geocoded[0]++;
+                    });
+                }
+            }));
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pending = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            pending.forEach(update -> update.accept(rebuilt));
+            pending = null;
+            grid = rebuilt;
+            loaded = true;
+            log.info("Lead geo index built over {} leads ({} placed from their address) in {} ms", rebuilt.size(),
+                    geocoded[0], (System.nanoTime() - started) / 1_000_000);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Leads within {@code radiusKm} of the point, closest first.
+     *
+     * @param limit at most {@value #MAX_RESULTS}
+     * @throws IllegalStateException until the index has been built
+     */
+    public GeoArea near(GeoPoint point, double radiusKm, int limit) {
+        return read(grid -> grid.near(point.getLatitude(), point.getLongitude(), radiusKm, clamp(limit)));
+    }
+
+    /**
+     * Leads inside the box, edges included, closest to its centre first.
+     *
+     * @param limit at most {@value #MAX_RESULTS}
+     * @throws IllegalStateException until the index has been built
+     */
+    public GeoArea within(GeoPoint southWest, GeoPoint northEast, int limit) {
+        return read(grid -> grid.within(southWest.getLatitude(), southWest.getLongitude(),
+                northEast.getLatitude(), northEast.getLongitude(), clamp(limit)));
+    }
+
+    /**
+     * @param n at most {@value #MAX_RESULTS}
+     * @throws IllegalStateException until the index has been built
+     */
+    public List<GeoMatch> nearest(GeoPoint point, int n) {
+        return read(grid -> grid.nearest(point.getLatitude(), point.getLongitude(), clamp(n)));
+    }
+
+    /**
+     * @return the positions of those of the leads that have one
+     * @throws IllegalStateException until the index has been built
+     */
+    public Map<Long, GeoPoint> positions(Collection<Long> leadIds) {
+        return read(grid -> {
+            Map<Long, GeoPoint> positions = new HashMap<>();
+            for (Long leadId : leadIds) {
+                GeoPoint position = grid.get(leadId);
+                if (position != null) {
+                    positions.put(leadId, position);
+                }
+            }
+            return positions;
+        });
+    }
+
+    /**
+     * Records a committed lead's position.
+     */
+    public void leadLocated(long leadId, GeoPoint position) {
+        update(grid -> grid.put(leadId, position));
+    }
+
+    private <T> T read(Function<GeoGrid, T> query) {
+        if (!loaded) {
+            throw new IllegalStateException("The lead geo index is still being built");
+        }
+        lock.readLock().lock();
+        try {
+            return query.apply(grid);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void update(Consumer<GeoGrid> update) {
+        lock.writeLock().lock();
+        try {
+            update.accept(grid);
+            if (pending != null) {
+                pending.add(update);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static int clamp(int limit) {
+        return Math.min(Math.max(limit, 1), MAX_RESULTS);
+    }
+}
@@ -0,0 +1,109 @@
+package com.udaan.leadmanagement.geo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Orders a day's visits to keep the distance travelled short: a nearest-neighbour route from the
+ * starting point, then improved by 2-opt (reversing any stretch of the route that makes it
+ * shorter) until no reversal helps. The route ends at its last visit; there is no way back to
+ * price in. For the few hundred visits of a call list this takes milliseconds and typically
+ * lands within a few percent of the shortest route.
+ */
+public final class VisitOrderOptimizer {
+    // Improvement passes over the whole route at most; each is quadratic in the visits
+    static final int MAX_PASSES = 50;
+    // Ignore reversals that save less than this, so rounding cannot keep the passes going
+    private static final double MIN_GAIN_KM = 1e-9;
+
+    private VisitOrderOptimizer() {
+    }
+
+    /**
+     * @param start where the day starts, or null to start at the first visit
+     * @return the indexes of {@code visits} in visiting order
+     */
+    public static List<Integer> order(GeoPoint start, List<GeoPoint> visits) {
+        if (visits.isEmpty()) {
+            return List.of();
+        }
+        // Node 0 is the fixed start: the given point or else the first visit
+        List<GeoPoint> nodes = new ArrayList<>(visits.size() + 1);
+        if (start != null) {
+            nodes.add(start);
+        }
+        nodes.addAll(visits);
+        int size = nodes.size();
+        double[][] distances = new double[size][size];
+        for (int i = 0; i < size; i++) {
+            for (int j = i + 1; j < size; j++) {
+                distances[i][j] = distances[j][i] = nodes.get(i).distanceKm(nodes.get(j));
+            }
+        }
+
+        int[] route = nearestNeighbour(distances);
+        improve(route, distances);
+
+        List<Integer> order = new ArrayList<>(visits.size());
+        for (int node : route) {
+            if (start == null) {
+                order.add(node);
+            } else if (node > 0) {
+                order.add(node - 1);
+            }
+        }
+        return order;
+    }
+
+    private static int[] nearestNeighbour(double[][] distances) {
+        int size = distances.length;
+        int[] route = new int[size];
+        boolean[] visited = new boolean[size];
+        visited[0] = true;
+        for (int i = 1; i < size; i++) {
+            int from = route[i - 1];
+            int next = -1;
+            for (int candidate = 1; candidate < size; candidate++) {
+                if (!visited[candidate] && (next < 0 || distances[from][candidate] < distances[from][next])) {
+                    next = candidate;
+                }
+            }
+            route[i] = next;
+            visited[next] = true;
+        }
+        return route;
+    }
+
+    // Reversing route[i..j] replaces the edges into route[i] and out of route[j], if any
+    private static void improve(int[] route, double[][] distances) {
+        int last = route.length - 1;
+        for (int pass = 0; pass < MAX_PASSES; pass++) {
+            boolean improved = false;
+            for (int i = 1; i < last; i++) {
+                for (int j = i + 1; j <= last; j++) {
+                    double before = distances[route[i - 1]][route[i]];
+                    double after = distances[route[i - 1]][route[j]];
+                    if (j < last) {
+                        before += distances[route[j]][route[j + 1]];
+                        after += distances[route[i]][route[j + 1]];
+                    }
+                    if (before - after > MIN_GAIN_KM) {
+                        reverse(route, i, j);
+                        improved = true;
+                    }
+                }
+            }
+            if (!improved) {
+                return;
+            }
+        }
+    }
+
+    private static void reverse(int[] route, int from, int to) {
+        for (; from < to; from++, to--) {
+            int node = route[from];
+            route[from] = route[to];
+            route[to] = node;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.udaan.leadmanagement.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency histograms for every public method of a {@code @Service} bean
+ * ({@code leadmanagement.service.method}) and every Spring Data repository call
+ * ({@code leadmanagement.repository.query}), plus the number of rows each repository call
+ * returned ({@code leadmanagement.repository.rows}).
+ * <p>
+ * Meters are created on the first call of a method and looked up by {@link Method} afterwards;
+ * a call costs two {@link System#nanoTime()} reads and a map lookup, with no tag or sample objects.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class MethodMetricsAspect {
+    private final MeterRegistry meterRegistry;
+
+    private final Map<Method, MethodMeters> serviceMeters = new ConcurrentHashMap<>();
+    // Inherited repository methods such as findById are the same Method on every repository,
+    // so they are keyed by the repository proxy class first
+    private final ClassValue<Map<Method, MethodMeters>> repositoryMeters = new ClassValue<>() {
+        @Override
+        protected Map<Method, MethodMeters> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    @Around("@within(org.springframework.stereotype.Service) && execution(public * *(..))")
+    public Object timeServiceMethod(ProceedingJoinPoint joinPoint) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        MethodMeters meters = serviceMeters.computeIfAbsent(method, m ->
+                new MethodMeters(meterRegistry, "leadmanagement.service.method", "class",
+                        m.getDeclaringClass().getSimpleName(), m.getName(), false));
+        return time(joinPoint, meters);
+    }
+
+    @Around("execution(* org.springframework.data.repository.Repository+.*(..))")
+    public Object timeRepositoryMethod(ProceedingJoinPoint joinPoint) throws Throwable {
+        Object repository = joinPoint.getThis();
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        MethodMeters meters = repositoryMeters.get(repository.getClass()).computeIfAbsent(method, m ->
+                new MethodMeters(meterRegistry, "leadmanagement.repository.query", "repository",
+                        repositoryName(repository), m.getName(), returnsRows(m)));
+        return time(joinPoint, meters);
+    }
+
+    private static Object time(ProceedingJoinPoint joinPoint, MethodMeters meters) throws Throwable {
+        long start = System.nanoTime();
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (Throwable e) {
+            meters.failure.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+        meters.success.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (meters.rows != null) {
+            recordRows(meters.rows, result);
+        }
+        return result;
+    }
+
+    // Only results with a known size are counted; streams are consumed after the call returns
+    private static void recordRows(DistributionSummary rows, Object result) {
+        if (result instanceof Collection<?> collection) {
+            rows.record(collection.size());
+        } else if (result instanceof Slice<?> slice) {
+            rows.record(slice.getNumberOfElements());
+        } else if (result instanceof Optional<?> optional) {
+            rows.record(optional.isPresent() ? 1 : 0);
+        }
+    }
+
+    private static boolean returnsRows(Method method) {
+        Class<?> type = method.getReturnType();
+        return Collection.class.isAssignableFrom(type) || Slice.class.isAssignableFrom(type)
+                || Optional.class.equals(type);
+    }
+
+    private static String repositoryName(Object repository) {
+        for (Class<?> type : AopProxyUtils.proxiedUserInterfaces(repository)) {
+            if (org.springframework.data.repository.Repository.class.isAssignableFrom(type)) {
+                return type.getSimpleName();
+            }
+        }
+        return repository.getClass().getSimpleName();
+    }
+
+    private static final class MethodMeters {
+        private final Timer success;
+        private final Timer failure;
+        private final DistributionSummary rows;
+
+        private MethodMeters(MeterRegistry registry, String name, String ownerTag, String owner,
+                             String method, boolean countRows) {
+            this.success = timer(registry, name, ownerTag, owner, method, "success");
+            this.failure = timer(registry, name, ownerTag, owner, method, "error");
+            this.rows = countRows
+                    ? DistributionSummary.builder("leadmanagement.repository.rows")
+                    .description("Rows returned by a repository call")
+                    .tag(ownerTag, owner)
+                    .tag("method", method)
+                    .publishPercentileHistogram()
+                    .register(registry)
+                    : null;
+        }
+
+        private static Timer timer(MeterRegistry registry, String name, String ownerTag, String owner,
+                                   String method, String outcome) {
+            return Timer.builder(name)
+                    .tag(ownerTag, owner)
+                    .tag("method", method)
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(registry);
+        }
+    }
+}
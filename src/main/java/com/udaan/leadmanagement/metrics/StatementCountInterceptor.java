@@ -0,0 +1,46 @@
+package com.udaan.leadmanagement.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records {@code leadmanagement.hibernate.statements}: the number of SQL statements issued while
+ * handling a request, tagged with the HTTP method and the matched URI pattern.
+ */
+@RequiredArgsConstructor
+public class StatementCountInterceptor implements HandlerInterceptor {
+    private static final String UNKNOWN_URI = "UNKNOWN";
+
+    private final MeterRegistry meterRegistry;
+    // uri pattern -> http method -> summary; both keys are strings the request already holds
+    private final Map<String, Map<String, DistributionSummary>> summaries = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        StatementCounter.reset();
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : UNKNOWN_URI;
+        summaries.computeIfAbsent(uri, u -> new ConcurrentHashMap<>())
+                .computeIfAbsent(request.getMethod(), method -> DistributionSummary
+                        .builder("leadmanagement.hibernate.statements")
+                        .description("SQL statements issued per request")
+                        .tag("uri", uri)
+                        .tag("method", method)
+                        .publishPercentileHistogram()
+                        .register(meterRegistry))
+                .record(StatementCounter.current());
+    }
+}
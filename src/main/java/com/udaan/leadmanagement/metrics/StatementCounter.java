@@ -0,0 +1,28 @@
+package com.udaan.leadmanagement.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts the SQL statements Hibernate prepares on the current thread. Registered as the session
+ * factory's statement inspector; {@link StatementCountInterceptor} resets the count when a request
+ * starts and records it when the request completes, which makes N+1 access patterns show up as
+ * a high statements-per-request figure for the endpoint.
+ */
+public class StatementCounter implements StatementInspector {
+    // One mutable slot per thread, so counting a statement never allocates
+    private static final ThreadLocal<int[]> COUNT = ThreadLocal.withInitial(() -> new int[1]);
+
+    @Override
+    public String inspect(String sql) {
+        COUNT.get()[0]++;
+        return sql;
+    }
+
+    public static void reset() {
+        COUNT.get()[0] = 0;
+    }
+
+    public static int current() {
+        return COUNT.get()[0];
+    }
+}
@@ -5,23 +5,29 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Formula;
 
 @Entity
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Contact {
+    // Sequence ids (see Interaction) so that bulk imports can batch their inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "contact_seq")
+    @SequenceGenerator(name = "contact_seq", sequenceName = "contact_seq", allocationSize = 100)
     private Long id;
 
     private String name;
     private String role;
     private String email;
     private String phone;
+    // Derived from the lead's primary_contact_id, which is the only place the primary contact is stored
+    @Formula("(SELECT CASE WHEN r.primary_contact_id = id THEN true ELSE false END " +
+            "FROM restaurant_lead r WHERE r.id = restaurant_lead_id)")
     private boolean isPrimaryContact;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "restaurant_lead_id")
     @JsonBackReference
     private RestaurantLead restaurantLead;
@@ -14,17 +14,21 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 public class Interaction {
+    // Sequence ids (handed out 100 at a time by Hibernate's pooled optimizer) let inserts be batched
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "interaction_seq")
+    @SequenceGenerator(name = "interaction_seq", sequenceName = "interaction_seq", allocationSize = 100)
     private Long id;
 
     @Enumerated(EnumType.STRING)
     private InteractionType type;
 
+    // Partition key of the interaction table on PostgreSQL (see InteractionPartitionManager)
+    @Column(nullable = false)
     private LocalDateTime interactionDate;
     private String notes;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "restaurant_lead_id")
     @JsonBackReference
     private RestaurantLead restaurantLead;
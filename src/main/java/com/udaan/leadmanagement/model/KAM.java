@@ -9,16 +9,20 @@ import lombok.NoArgsConstructor;
 import java.util.List;
 
 @Entity
+@NamedEntityGraph(name = KAM.WITH_LEADS, attributeNodes = @NamedAttributeNode("leads"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class KAM {
+    public static final String WITH_LEADS = "KAM.withLeads";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     private String name;
     private String email;
     private String phone;
+    private String timezone; // IANA zone id, e.g. Asia/Kolkata; server zone when empty
 
     @OneToMany(mappedBy = "assignedKam", cascade = CascadeType.ALL)
     @JsonManagedReference
@@ -0,0 +1,86 @@
+package com.udaan.leadmanagement.model;
+
+import com.udaan.leadmanagement.enums.InteractionType;
+import com.udaan.leadmanagement.enums.LeadEventType;
+import com.udaan.leadmanagement.enums.LeadStatus;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.time.LocalDateTime;
+
+/**
+ * One entry of the append-only lead event log, written by {@code LeadEventLog} in the transaction
+ * of the change it records. Only the ids of the lead, KAM and contact are kept, with no foreign
+ * keys, so the log can be replayed without reading the lead tables. Which of the optional columns
+ * are set depends on the {@link LeadEventType}.
+ */
+@Entity
+@Immutable
+// The first finds where a time window starts in the log, the second a KAM's latest events; appends only ever
+// add to the right edge of the one and of each KAM's stretch of the other
+@Table(indexes = {
+        @Index(name = "idx_lead_event_occurred_at", columnList = "occurred_at"),
+        @Index(name = "idx_lead_event_kam_occurred_at", columnList = "kam_id, occurred_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LeadEvent {
+    // Same pooled sequence scheme as the other entities; the log hands out ids from it itself
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "lead_event_seq")
+    @SequenceGenerator(name = "lead_event_seq", sequenceName = "lead_event_seq", allocationSize = 100)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long leadId;
+
+    // Enums are stored by ordinal to keep the rows narrow
+    @Enumerated(EnumType.ORDINAL)
+    @Column(nullable = false)
+    private LeadEventType type;
+
+    @Column(nullable = false)
+    private LocalDateTime occurredAt;
+
+    private Long kamId;
+
+    @Enumerated(EnumType.ORDINAL)
+    private LeadStatus status;
+
+    @Enumerated(EnumType.ORDINAL)
+    private InteractionType interactionType;
+
+    private Long contactId;
+
+    // Calls only: whether the call was made by the day it was due; null when none was due
+    private Boolean onSchedule;
+
+    public static LeadEvent leadCreated(Long leadId, Long kamId, LeadStatus status, LocalDateTime at) {
+        return new LeadEvent(null, leadId, LeadEventType.LEAD_CREATED, at, kamId, status, null, null, null);
+    }
+
+    public static LeadEvent statusChanged(Long leadId, Long kamId, LeadStatus status, LocalDateTime at) {
+        return new LeadEvent(null, leadId, LeadEventType.STATUS_CHANGED, at, kamId, status, null, null, null);
+    }
+
+    public static LeadEvent kamAssigned(Long leadId, Long kamId, LeadStatus status, LocalDateTime at) {
+        return new LeadEvent(null, leadId, LeadEventType.KAM_ASSIGNED, at, kamId, status, null, null, null);
+    }
+
+    public static LeadEvent interactionRecorded(Long leadId, Long kamId, InteractionType type, LocalDateTime at) {
+        return interactionRecorded(leadId, kamId, type, null, at);
+    }
+
+    public static LeadEvent interactionRecorded(Long leadId, Long kamId, InteractionType type, Boolean onSchedule,
+                                                LocalDateTime at) {
+        return new LeadEvent(null, leadId, LeadEventType.INTERACTION_RECORDED, at, kamId, null, type, null, onSchedule);
+    }
+
+    public static LeadEvent contactChanged(LeadEventType type, Long leadId, Long contactId, LocalDateTime at) {
+        return new LeadEvent(null, leadId, type, at, null, null, null, contactId, null);
+    }
+}
@@ -7,34 +7,58 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
+@NamedEntityGraphs({
+        @NamedEntityGraph(name = RestaurantLead.WITH_CONTACTS, attributeNodes = @NamedAttributeNode("contacts"))
+})
+@Table(indexes = {
+        // today's calls across all KAMs: status IN (...) AND next_call_date range
+        @Index(name = "idx_lead_status_next_call_kam", columnList = "status, next_call_date, kam_id"),
+        // one KAM's call queue, read in next_call_date order
+        @Index(name = "idx_lead_kam_next_call_status", columnList = "kam_id, next_call_date, status")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class RestaurantLead {
+    public static final String WITH_CONTACTS = "RestaurantLead.withContacts";
+
+    // Sequence ids (see Interaction) so that bulk imports can batch their inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "restaurant_lead_seq")
+    @SequenceGenerator(name = "restaurant_lead_seq", sequenceName = "restaurant_lead_seq", allocationSize = 100)
     private Long id;
 
     private String name;
     private String address;
 
+    // WGS84 degrees; both set or both null. Given on creation or geocoded from the address.
+    private Double latitude;
+    private Double longitude;
+
     @Enumerated(EnumType.STRING)
     private LeadStatus status;
 
+    // Collections not fetched by the query's entity graph are loaded for every lead of that query
+    // with one extra statement when first touched, instead of one statement per lead
     @OneToMany(mappedBy = "restaurantLead", cascade = CascadeType.ALL)
+    @Fetch(FetchMode.SUBSELECT)
     @JsonManagedReference
     private List<Contact> contacts;
 
     @OneToMany(mappedBy = "restaurantLead", cascade = CascadeType.ALL)
+    @Fetch(FetchMode.SUBSELECT)
     @JsonManagedReference
     private List<Interaction> interactions;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "kam_id")
     @JsonBackReference
     private KAM assignedKam;
@@ -42,4 +66,20 @@ public class RestaurantLead {
     private LocalDateTime nextCallDate;
     private Integer callFrequency; // in days
     private LocalDateTime lastCallDate;
+
+    // Maintained by the atomic UPDATEs in RestaurantLeadRepository only. Saving the entity never
+    // writes them, so a lead saved with stale values cannot undo a concurrent increment.
+    @Column(insertable = false, updatable = false)
+    @ColumnDefault("0")
+    private int contactCount;
+
+    @Column(insertable = false, updatable = false)
+    private Long primaryContactId;
+
+    @Column(insertable = false, updatable = false)
+    @ColumnDefault("0")
+    private int interactionCount;
+
+    @Column(insertable = false, updatable = false)
+    private LocalDateTime lastInteractionAt;
 }
\ No newline at end of file
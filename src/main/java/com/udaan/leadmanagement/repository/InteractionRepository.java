@@ -1,12 +1,31 @@
 package com.udaan.leadmanagement.repository;
 
+import com.udaan.leadmanagement.DTO.InteractionDTO;
 import com.udaan.leadmanagement.model.Interaction;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
 public interface InteractionRepository extends JpaRepository<Interaction, Long> {
-    List<Interaction> findAllByRestaurantLeadId(Long id);
-}
\ No newline at end of file
+    // Both history queries read idx_interaction_lead_history in order and stop after the limit;
+    // on PostgreSQL the index also covers the selected columns (see InteractionPartitionManager)
+    @Query("SELECT new com.udaan.leadmanagement.DTO.InteractionDTO(i.id, i.type, i.interactionDate, i.notes) " +
+            "FROM Interaction i WHERE i.restaurantLead.id = :leadId " +
+            "ORDER BY i.interactionDate DESC, i.id DESC")
+    List<InteractionDTO> findLatestHistory(@Param("leadId") Long leadId, Limit limit);
+
+    @Query("SELECT new com.udaan.leadmanagement.DTO.InteractionDTO(i.id, i.type, i.interactionDate, i.notes) " +
+            "FROM Interaction i WHERE i.restaurantLead.id = :leadId " +
+            "AND (i.interactionDate, i.id) < (:beforeDate, :beforeId) " +
+            "ORDER BY i.interactionDate DESC, i.id DESC")
+    List<InteractionDTO> findHistoryBefore(@Param("leadId") Long leadId,
+                                           @Param("beforeDate") LocalDateTime beforeDate,
+                                           @Param("beforeId") Long beforeId,
+                                           Limit limit);
+}
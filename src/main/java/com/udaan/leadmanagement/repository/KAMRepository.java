@@ -1,14 +1,33 @@
 package com.udaan.leadmanagement.repository;
 
+import com.udaan.leadmanagement.cache.LeadCaches;
 import com.udaan.leadmanagement.model.KAM;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface KAMRepository extends JpaRepository<KAM, Long> {
+    // JPQL fragments of findKAMLoads
+    String ACTIVE_STATUSES = "(com.udaan.leadmanagement.enums.LeadStatus.NEW, " +
+            "com.udaan.leadmanagement.enums.LeadStatus.IN_PROGRESS, " +
+            "com.udaan.leadmanagement.enums.LeadStatus.FOLLOW_UP)";
+    String HAS_POSITION = " AND r.latitude IS NOT NULL AND r.longitude IS NOT NULL";
+
+    @Override
+    @Cacheable(cacheNames = LeadCaches.KAM_EXISTS, key = "#p0", unless = "!#result")
+    boolean existsById(Long id);
+
+    // Leads come with their KAMs; their contacts and interactions follow in one subselect each
+    @EntityGraph(KAM.WITH_LEADS)
+    List<KAM> findAllWithLeadsBy();
+
     @Query("SELECT k.id as kamId, " +
             "k.name as kamName, " +
             "k.email as kamEmail, " +
@@ -22,5 +41,27 @@ public interface KAMRepository extends JpaRepository<KAM, Long> {
             "LEFT JOIN k.leads r " +
             "GROUP BY k.id, k.name, k.email, k.phone")
     List<Object[]> findKAMsPerformanceMetrics();
-}
 
+    // One row per KAM of [kam id, leads, converted leads, active leads, calls per day the active leads need,
+    // active leads with a position, sum of their latitudes, sum of their longitudes]; see KAMLoad
+    @Query("SELECT k.id, " +
+            "COUNT(r), " +
+            "SUM(CASE WHEN r.status = com.udaan.leadmanagement.enums.LeadStatus.CONVERTED THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN r.status IN " + ACTIVE_STATUSES + " THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN r.status IN " + ACTIVE_STATUSES + " AND r.callFrequency > 0 THEN 1.0 / r.callFrequency ELSE 0.0 END), " +
+            "SUM(CASE WHEN r.status IN " + ACTIVE_STATUSES + HAS_POSITION + " THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN r.status IN " + ACTIVE_STATUSES + HAS_POSITION + " THEN r.latitude ELSE 0.0 END), " +
+            "SUM(CASE WHEN r.status IN " + ACTIVE_STATUSES + HAS_POSITION + " THEN r.longitude ELSE 0.0 END) " +
+            "FROM KAM k " +
+            "LEFT JOIN k.leads r " +
+            "GROUP BY k.id")
+    List<Object[]> findKAMLoads();
+
+    // [kam id, timezone] of the KAMs that have a timezone of their own
+    @Query("SELECT k.id, k.timezone FROM KAM k WHERE k.timezone IS NOT NULL AND k.timezone <> ''")
+    List<Object[]> findTimezones();
+
+    // Empty string when the KAM exists but has no timezone, empty Optional when it does not exist
+    @Query("SELECT COALESCE(k.timezone, '') FROM KAM k WHERE k.id = :kamId")
+    Optional<String> findTimezoneById(@Param("kamId") Long kamId);
+}
@@ -1,21 +1,184 @@
 package com.udaan.leadmanagement.repository;
 
+import com.udaan.leadmanagement.DTO.CallQueueEntryDTO;
+import com.udaan.leadmanagement.DTO.LeadSummaryDTO;
+import com.udaan.leadmanagement.cache.LeadCaches;
 import com.udaan.leadmanagement.enums.LeadStatus;
+import com.udaan.leadmanagement.model.KAM;
 import com.udaan.leadmanagement.model.RestaurantLead;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface RestaurantLeadRepository extends JpaRepository<RestaurantLead, Long> {
+    @Override
+    @Cacheable(cacheNames = LeadCaches.LEAD_EXISTS, key = "#p0", unless = "!#result")
+    boolean existsById(Long id);
+
+    // For changes that derive counter deltas from the lead's current status: a concurrent change of the
+    // same lead waits, then reads the status this one left, so each delta is applied once
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM RestaurantLead r WHERE r.id = :leadId")
+    Optional<RestaurantLead> findByIdForUpdate(@Param("leadId") Long leadId);
+
+    // As findByIdForUpdate for a batch; locked in id order, so two batches cannot deadlock on each other
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM RestaurantLead r WHERE r.id IN :leadIds ORDER BY r.id")
+    List<RestaurantLead> findAllByIdForUpdate(@Param("leadIds") Collection<Long> leadIds);
+
+    // Contacts come with the leads; interactions follow in one subselect when serialized
+    @EntityGraph(RestaurantLead.WITH_CONTACTS)
+    List<RestaurantLead> findByAssignedKamIdOrderById(Long kamId);
+
+    @Query("SELECT new com.udaan.leadmanagement.DTO.LeadSummaryDTO(r.id, r.name, r.address, r.status, " +
+            "r.assignedKam.id, r.nextCallDate, r.callFrequency, r.lastCallDate) " +
+            "FROM RestaurantLead r WHERE r.assignedKam.id = :kamId ORDER BY r.id")
+    List<LeadSummaryDTO> findLeadSummariesByKamId(@Param("kamId") Long kamId);
+
+    @Query("SELECT new com.udaan.leadmanagement.DTO.LeadSummaryDTO(r.id, r.name, r.address, r.status, " +
+            "r.assignedKam.id, r.nextCallDate, r.callFrequency, r.lastCallDate) " +
+            "FROM RestaurantLead r WHERE r.id IN :ids")
+    List<LeadSummaryDTO> findLeadSummariesByIdIn(@Param("ids") Collection<Long> ids);
+
+    @EntityGraph(RestaurantLead.WITH_CONTACTS)
     @Query("SELECT r FROM RestaurantLead r WHERE r.nextCallDate BETWEEN :startOfDay AND :endOfDay " +
             "AND r.status IN :statuses")
     List<RestaurantLead> findTodayCalls(
             @Param("startOfDay") LocalDateTime startOfDay,
             @Param("endOfDay") LocalDateTime endOfDay,
             @Param("statuses") List<LeadStatus> statuses);
+
+    // Served by idx_lead_kam_next_call_status: rows come out of the index already in priority order
+    @Query("SELECT new com.udaan.leadmanagement.DTO.CallQueueEntryDTO(r.id, r.name, r.address, r.status, " +
+            "r.nextCallDate, r.lastCallDate) " +
+            "FROM RestaurantLead r " +
+            "WHERE r.assignedKam.id = :kamId " +
+            "AND r.nextCallDate < :dueBefore " +
+            "AND r.status IN :statuses " +
+            "ORDER BY r.nextCallDate, r.id")
+    List<CallQueueEntryDTO> findCallQueue(
+            @Param("kamId") Long kamId,
+            @Param("dueBefore") LocalDateTime dueBefore,
+            @Param("statuses") List<LeadStatus> statuses,
+            Pageable pageable);
+
+    // Assigned active leads whose call comes due in [from, until), as [id, name, kam id, next call date]; a range
+    // scan of idx_lead_status_next_call_kam per status
+    @Query("SELECT r.id, r.name, r.assignedKam.id, r.nextCallDate " +
+            "FROM RestaurantLead r " +
+            "WHERE r.status IN :statuses " +
+            "AND r.nextCallDate >= :from AND r.nextCallDate < :until " +
+            "AND r.assignedKam.id IS NOT NULL")
+    List<Object[]> findCallsDueBetween(
+            @Param("from") LocalDateTime from,
+            @Param("until") LocalDateTime until,
+            @Param("statuses") List<LeadStatus> statuses);
+
+    // One row of [id, name, kam id, status, next call date] per existing lead
+    @Query("SELECT r.id, r.name, r.assignedKam.id, r.status, r.nextCallDate " +
+            "FROM RestaurantLead r WHERE r.id IN :ids")
+    List<Object[]> findCallScheduleByIdIn(@Param("ids") Collection<Long> ids);
+
+    // One row of [id, kam id] per existing lead
+    @Query("SELECT r.id, r.assignedKam.id FROM RestaurantLead r WHERE r.id IN :ids")
+    List<Object[]> findKamIdsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Keyset page over the primary key: only scalar columns are read, so no lead entity,
+    // contact or interaction is ever loaded for a listing.
+    @Query("SELECT new com.udaan.leadmanagement.DTO.LeadSummaryDTO(r.id, r.name, r.address, r.status, " +
+            "r.assignedKam.id, r.nextCallDate, r.callFrequency, r.lastCallDate) " +
+            "FROM RestaurantLead r " +
+            "WHERE r.id > :after " +
+            "AND (:status IS NULL OR r.status = :status) " +
+            "AND (:kamId IS NULL OR r.assignedKam.id = :kamId) " +
+            "ORDER BY r.id")
+    List<LeadSummaryDTO> findLeadSummariesAfter(
+            @Param("after") long after,
+            @Param("status") LeadStatus status,
+            @Param("kamId") Long kamId,
+            Limit limit);
+
+    // Forward-only cursor for exports. Must be consumed inside a (read-only) transaction so the
+    // driver keeps the cursor open and fetches 1000 rows per round trip.
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.udaan.leadmanagement.DTO.LeadSummaryDTO(r.id, r.name, r.address, r.status, " +
+            "r.assignedKam.id, r.nextCallDate, r.callFrequency, r.lastCallDate) " +
+            "FROM RestaurantLead r ORDER BY r.id")
+    Stream<LeadSummaryDTO> streamAllLeadSummaries();
+
+    // One row of [id, current kam id, status, call frequency, latitude, longitude] per existing lead; ids that
+    // are missing simply do not appear
+    @Query("SELECT r.id, r.assignedKam.id, r.status, r.callFrequency, r.latitude, r.longitude " +
+            "FROM RestaurantLead r WHERE r.id IN :ids")
+    List<Object[]> findAssignmentStateByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE RestaurantLead r SET r.assignedKam = :kam WHERE r.id IN :ids")
+    int assignLeadsToKAM(@Param("kam") KAM kam, @Param("ids") Collection<Long> ids);
+
+    // Counter maintenance: each write is one UPDATE of the lead row and returns 0 when no row matched
+
+    @Modifying
+    @Query("UPDATE RestaurantLead r SET r.contactCount = r.contactCount + 1 " +
+            "WHERE r.id = :leadId AND r.primaryContactId IS NOT NULL")
+    int incrementContactCount(@Param("leadId") Long leadId);
+
+    // Only matches while the lead has no primary contact, so concurrent first contacts cannot both become primary
+    @Modifying
+    @Query("UPDATE RestaurantLead r SET r.contactCount = r.contactCount + 1, r.primaryContactId = :contactId " +
+            "WHERE r.id = :leadId AND r.primaryContactId IS NULL")
+    int addFirstContact(@Param("leadId") Long leadId, @Param("contactId") Long contactId);
+
+    // Locks the lead row in a statement of its own, so that the next statement starts after any writer it waited for
+    // committed and sees that writer's contacts
+    @Query(value = "SELECT id FROM restaurant_lead WHERE id = :leadId FOR UPDATE", nativeQuery = true)
+    Optional<Long> lockById(@Param("leadId") Long leadId);
+
+    // The primary contact moves to the lead's oldest remaining contact (or none) when it is the one removed. Call with
+    // the lead row locked by lockById: the subquery reads the statement's snapshot, which a wait for the row lock
+    // inside this UPDATE would not renew
+    @Modifying
+    @Query("UPDATE RestaurantLead r SET r.contactCount = r.contactCount - 1, " +
+            "r.primaryContactId = CASE WHEN r.primaryContactId = :contactId THEN " +
+            "(SELECT MIN(c.id) FROM Contact c WHERE c.restaurantLead.id = :leadId AND c.id <> :contactId) " +
+            "ELSE r.primaryContactId END " +
+            "WHERE r.id = :leadId")
+    int removeContact(@Param("leadId") Long leadId, @Param("contactId") Long contactId);
+
+    // Matches only when the contact belongs to the lead
+    @Modifying
+    @Query("UPDATE RestaurantLead r SET r.primaryContactId = :contactId " +
+            "WHERE r.id = :leadId AND EXISTS " +
+            "(SELECT 1 FROM Contact c WHERE c.id = :contactId AND c.restaurantLead.id = :leadId)")
+    int switchPrimaryContact(@Param("leadId") Long leadId, @Param("contactId") Long contactId);
+
+    @Modifying
+    @Query("UPDATE RestaurantLead r SET r.interactionCount = r.interactionCount + :count, " +
+            "r.lastInteractionAt = CASE WHEN r.lastInteractionAt IS NULL OR r.lastInteractionAt < :interactionDate " +
+            "THEN :interactionDate ELSE r.lastInteractionAt END " +
+            "WHERE r.id = :leadId")
+    int recordInteractions(@Param("leadId") Long leadId,
+                           @Param("count") int count,
+                           @Param("interactionDate") LocalDateTime interactionDate);
 }
@@ -0,0 +1,66 @@
+package com.udaan.leadmanagement.schedule;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.udaan.leadmanagement.DTO.CallAlertDTO;
+import com.udaan.leadmanagement.exception.KAMNotFoundException;
+import com.udaan.leadmanagement.feed.SseFanOut;
+import com.udaan.leadmanagement.repository.KAMRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+
+/**
+ * Server-sent event streams of call alerts, one per subscribing KAM. Each alert is sent as an event
+ * named after its {@link com.udaan.leadmanagement.enums.CallAlertType} to the streams of the KAM
+ * it is for, through a {@link SseFanOut}.
+ * <p>
+ * The streams are ended when the context starts closing, before the web server's graceful
+ * shutdown, which would otherwise wait for these requests until its timeout.
+ */
+@Component
+public class CallAlertFeed {
+    private final KAMRepository kamRepository;
+    private final ObjectMapper objectMapper;
+    private final SseFanOut fanOut;
+
+    public CallAlertFeed(KAMRepository kamRepository,
+                         ObjectMapper objectMapper,
+                         @Value("${leadmanagement.feed.buffer-size:64}") int bufferSize,
+                         @Value("${leadmanagement.feed.heartbeat-seconds:15}") long heartbeatSeconds) {
+        this.kamRepository = kamRepository;
+        this.objectMapper = objectMapper;
+        this.fanOut = new SseFanOut("call-alerts", bufferSize, Duration.ofSeconds(heartbeatSeconds));
+    }
+
+    @EventListener(ContextClosedEvent.class)
+    public void stop() {
+        fanOut.close();
+    }
+
+    /**
+     * @return an open stream of the KAM's call alerts, closed after the MVC async request timeout
+     * @throws KAMNotFoundException if the KAM does not exist
+     */
+    public SseEmitter subscribe(long kamId) {
+        if (!kamRepository.existsById(kamId)) {
+            throw new KAMNotFoundException("KAM not found with id: " + kamId);
+        }
+        return fanOut.subscribe(kamId);
+    }
+
+    public void publish(CallAlertDTO alert) {
+        if (!fanOut.hasSubscribers()) {
+            return;
+        }
+        try {
+            fanOut.publish(alert.getKamId(), alert.getType().name(), null, objectMapper.writeValueAsString(alert));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize call alert", e);
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package com.udaan.leadmanagement.schedule;
+
+import com.udaan.leadmanagement.DTO.CallAlertDTO;
+import com.udaan.leadmanagement.analytics.KAMActivityWindows;
+import com.udaan.leadmanagement.enums.CallAlertType;
+import com.udaan.leadmanagement.enums.InteractionType;
+import com.udaan.leadmanagement.enums.LeadStatus;
+import com.udaan.leadmanagement.event.LeadEventListener;
+import com.udaan.leadmanagement.model.LeadEvent;
+import com.udaan.leadmanagement.repository.RestaurantLeadRepository;
+import com.udaan.leadmanagement.service.CallPlanningService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pushes {@link CallAlertType#CALL_DUE} when an active lead's next call date comes and
+ * {@link CallAlertType#CALL_OVERDUE} when it has still not been called
+ * {@code leadmanagement.calls.overdue-after-hours} later, to the {@link CallAlertFeed} of the
+ * lead's KAM. Overdue calls are also reported to {@link KAMActivityWindows} as missed calls,
+ * those already overdue at startup included.
+ * <p>
+ * Only the alerts of the next {@code leadmanagement.calls.horizon-minutes} are held, in a
+ * {@link TimingWheel}; the rest stay in the lead table, whose call-date index is the time-ordered
+ * queue. Whenever half the horizon has gone by, the next stretch is read from it with an indexed
+ * range scan. Startup does the same from the current time, also picking up calls that came due
+ * while the server was down and are not overdue yet; those get their due alert right away and
+ * their overdue alert when it comes.
+ * <p>
+ * Committed lead creations, status changes, reassignments and calls mark the lead, and the next
+ * tick re-reads the call schedule of the marked leads and replaces their pending alerts, so a
+ * call pushes the alerts back and closing a lead drops them. Alerts already in the past are not
+ * sent.
+ */
+@Slf4j
+@Component
+public class CallScheduler implements LeadEventListener {
+    private static final int REFRESH_BATCH_SIZE = 1000;
+
+    private final RestaurantLeadRepository restaurantLeadRepository;
+    private final CallAlertFeed callAlertFeed;
+    private final KAMActivityWindows kamActivityWindows;
+    private final long tickMillis;
+    private final Duration horizon;
+    private final Duration overdueAfter;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "call-scheduler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Leads whose call schedule changed since the last tick
+    private final Set<Long> changed = ConcurrentHashMap.newKeySet();
+
+    // All state below is guarded by this
+    private TimingWheel<CallAlertDTO> wheel;
+    private final Map<Long, TimingWheel.Timer<CallAlertDTO>> dueTimers = new HashMap<>();
+    private final Map<Long, TimingWheel.Timer<CallAlertDTO>> overdueTimers = new HashMap<>();
+    // Alerts up to here are in the wheel
+    private LocalDateTime loadedUntil;
+    // The time the wheel was last advanced to
+    private LocalDateTime wheelTime;
+
+    public CallScheduler(RestaurantLeadRepository restaurantLeadRepository,
+                         CallAlertFeed callAlertFeed,
+                         KAMActivityWindows kamActivityWindows,
+                         @Value("${leadmanagement.calls.tick-ms:1000}") long tickMillis,
+                         @Value("${leadmanagement.calls.horizon-minutes:60}") long horizonMinutes,
+                         @Value("${leadmanagement.calls.overdue-after-hours:24}") long overdueAfterHours) {
+        this.restaurantLeadRepository = restaurantLeadRepository;
+        this.callAlertFeed = callAlertFeed;
+        this.kamActivityWindows = kamActivityWindows;
+        this.tickMillis = tickMillis;
+        this.horizon = Duration.ofMinutes(horizonMinutes);
+        this.overdueAfter = Duration.ofHours(overdueAfterHours);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        load(LocalDateTime.now());
+        scheduler.scheduleAtFixedRate(this::tickQuietly, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    @Override
+    public void onLeadEvents(List<LeadEvent> events) {
+        for (LeadEvent event : events) {
+            boolean reschedules = switch (event.getType()) {
+                case LEAD_CREATED, STATUS_CHANGED, KAM_ASSIGNED -> true;
+                case INTERACTION_RECORDED -> event.getInteractionType() == InteractionType.CALL;
+                default -> false;
+            };
+            if (reschedules) {
+                changed.add(event.getLeadId());
+            }
+        }
+    }
+
+    public synchronized int getPendingCount() {
+        return wheel == null ? 0 : wheel.size();
+    }
+
+    /**
+     * Starts over from {@code now}: drops every pending alert and reads those of the next horizon
+     * from the call-date index. Calls that came due less than the overdue delay ago get their due
+     * alert with the next tick, as it was missed, and their overdue alert when it comes. Those
+     * overdue already are reported as missed calls.
+     */
+    synchronized void load(LocalDateTime now) {
+        long started = System.nanoTime();
+        wheel = new TimingWheel<>(tickMillis, (int) (horizon.toMillis() / tickMillis) + 1, toMillis(now));
+        dueTimers.clear();
+        overdueTimers.clear();
+        wheelTime = now;
+        loadedUntil = now;
+        extend(now.plus(horizon));
+        for (Object[] row : restaurantLeadRepository.findCallsDueBetween(
+                now.minus(overdueAfter), now, CallPlanningService.ACTIVE_STATUSES)) {
+            CallAlertDTO alert = alert(CallAlertType.CALL_DUE, row[0], row[1], (Long) row[2], (LocalDateTime) row[3]);
+            schedule(dueTimers, alert, now);
+        }
+        for (Object[] row : restaurantLeadRepository.findCallsDueBetween(
+                now.minusDays(KAMActivityWindows.DAYS), now.minus(overdueAfter), CallPlanningService.ACTIVE_STATUSES)) {
+            kamActivityWindows.onCallOverdue((Long) row[0], (Long) row[2], (LocalDateTime) row[3]);
+        }
+        log.info("Call scheduler loaded {} alerts up to {} in {} ms", wheel.size(), loadedUntil,
+                (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * Applies the schedule changes committed since the last tick, reads the next stretch of calls
+     * once half the horizon has gone by and sends the alerts due by {@code now}.
+     *
+     * @return the alerts sent
+     */
+    synchronized List<CallAlertDTO> tick(LocalDateTime now) {
+        if (now.isBefore(wheelTime)) {
+            now = wheelTime;
+        }
+        refreshChanged();
+        if (loadedUntil.isBefore(now.plus(horizon.dividedBy(2)))) {
+            extend(now.plus(horizon));
+        }
+        List<CallAlertDTO> sent = new ArrayList<>();
+        wheel.advance(toMillis(now), alert -> {
+            Map<Long, TimingWheel.Timer<CallAlertDTO>> timers =
+                    alert.getType() == CallAlertType.CALL_DUE ? dueTimers : overdueTimers;
+            TimingWheel.Timer<CallAlertDTO> timer = timers.get(alert.getLeadId());
+            if (timer != null && timer.getPayload() == alert) {
+                timers.remove(alert.getLeadId());
+            }
+            if (alert.getType() == CallAlertType.CALL_OVERDUE) {
+                kamActivityWindows.onCallOverdue(alert.getLeadId(), alert.getKamId(), alert.getNextCallDate());
+            }
+            callAlertFeed.publish(alert);
+            sent.add(alert);
+        });
+        wheelTime = now;
+        return sent;
+    }
+
+    private void tickQuietly() {
+        try {
+            tick(LocalDateTime.now());
+        } catch (RuntimeException e) {
+            log.error("Call scheduler tick failed", e);
+        }
+    }
+
+    private void refreshChanged() {
+        if (changed.isEmpty()) {
+            return;
+        }
+        List<Long> leadIds = new ArrayList<>(changed);
+        changed.removeAll(leadIds);
+        for (int from = 0; from < leadIds.size(); from += REFRESH_BATCH_SIZE) {
+            List<Long> batch = leadIds.subList(from, Math.min(from + REFRESH_BATCH_SIZE, leadIds.size()));
+            List<Object[]> rows;
+            try {
+                rows = restaurantLeadRepository.findCallScheduleByIdIn(batch);
+            } catch (RuntimeException e) {
+                // Retried on the next tick
+                changed.addAll(leadIds.subList(from, leadIds.size()));
+                throw e;
+            }
+            batch.forEach(this::cancel);
+            for (Object[] row : rows) {
+                Long kamId = (Long) row[2];
+                LocalDateTime nextCallDate = (LocalDateTime) row[4];
+                if (kamId == null || nextCallDate == null
+                        || !CallPlanningService.ACTIVE_STATUSES.contains((LeadStatus) row[3])) {
+                    continue;
+                }
+                CallAlertDTO due = alert(CallAlertType.CALL_DUE, row[0], row[1], kamId, nextCallDate);
+                scheduleIfLoaded(dueTimers, due, nextCallDate);
+                CallAlertDTO overdue = alert(CallAlertType.CALL_OVERDUE, row[0], row[1], kamId, nextCallDate);
+                scheduleIfLoaded(overdueTimers, overdue, nextCallDate.plus(overdueAfter));
+            }
+        }
+    }
+
+    // Alerts past the loaded stretch are picked up by a later extend, those already past are dropped
+    private void scheduleIfLoaded(Map<Long, TimingWheel.Timer<CallAlertDTO>> timers, CallAlertDTO alert,
+                                  LocalDateTime at) {
+        if (!at.isBefore(wheelTime) && at.isBefore(loadedUntil)) {
+            timers.put(alert.getLeadId(), wheel.schedule(toMillis(at), alert));
+        }
+    }
+
+    private void extend(LocalDateTime until) {
+        for (Object[] row : restaurantLeadRepository.findCallsDueBetween(
+                loadedUntil, until, CallPlanningService.ACTIVE_STATUSES)) {
+            CallAlertDTO alert = alert(CallAlertType.CALL_DUE, row[0], row[1], (Long) row[2], (LocalDateTime) row[3]);
+            schedule(dueTimers, alert, alert.getNextCallDate());
+        }
+        for (Object[] row : restaurantLeadRepository.findCallsDueBetween(
+                loadedUntil.minus(overdueAfter), until.minus(overdueAfter), CallPlanningService.ACTIVE_STATUSES)) {
+            CallAlertDTO alert = alert(CallAlertType.CALL_OVERDUE, row[0], row[1], (Long) row[2], (LocalDateTime) row[3]);
+            schedule(overdueTimers, alert, alert.getNextCallDate().plus(overdueAfter));
+        }
+        loadedUntil = until;
+    }
+
+    private void schedule(Map<Long, TimingWheel.Timer<CallAlertDTO>> timers, CallAlertDTO alert, LocalDateTime at) {
+        TimingWheel.Timer<CallAlertDTO> previous = timers.put(alert.getLeadId(), wheel.schedule(toMillis(at), alert));
+        if (previous != null) {
+            wheel.cancel(previous);
+        }
+    }
+
+    private void cancel(Long leadId) {
+        TimingWheel.Timer<CallAlertDTO> due = dueTimers.remove(leadId);
+        if (due != null) {
+            wheel.cancel(due);
+        }
+        TimingWheel.Timer<CallAlertDTO> overdue = overdueTimers.remove(leadId);
+        if (overdue != null) {
+            wheel.cancel(overdue);
+        }
+    }
+
+    private static CallAlertDTO alert(CallAlertType type, Object leadId, Object name, Long kamId,
+                                      LocalDateTime nextCallDate) {
+        return new CallAlertDTO(type, (Long) leadId, (String) name, kamId, nextCallDate);
+    }
+
+    // Call dates are stored as server-local date-times
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,107 @@
+package com.udaan.leadmanagement.schedule;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Hashed timing wheel: a timer goes into one of a fixed number of buckets by its deadline tick,
+ * and advancing the clock only looks at the buckets of the ticks passed, so scheduling,
+ * cancelling and firing cost O(1) however many timers are pending. A timer more than one rotation
+ * ahead stays in its bucket until the rotation it is due in. Timers never fire before their
+ * deadline, and at most one tick after it when the wheel is advanced every tick.
+ * <p>
+ * Not thread-safe; {@link CallScheduler} only uses it from its own thread.
+ */
+final class TimingWheel<T> {
+    private final long tickMillis;
+    private final List<Timer<T>>[] buckets;
+    // The next tick to fire
+    private long currentTick;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    TimingWheel(long tickMillis, int slots, long startMillis) {
+        if (tickMillis <= 0 || slots <= 0) {
+            throw new IllegalArgumentException("Tick and slots must be positive");
+        }
+        this.tickMillis = tickMillis;
+        this.buckets = new List[slots];
+        for (int i = 0; i < slots; i++) {
+            buckets[i] = new ArrayList<>();
+        }
+        this.currentTick = Math.floorDiv(startMillis, tickMillis);
+    }
+
+    /**
+     * Schedules the payload to fire on the first advance to {@code deadlineMillis} or later; a
+     * deadline already passed fires with the next tick.
+     */
+    Timer<T> schedule(long deadlineMillis, T payload) {
+        long tick = Math.max(Math.ceilDiv(deadlineMillis, tickMillis), currentTick);
+        Timer<T> timer = new Timer<>(tick, payload);
+        buckets[(int) Math.floorMod(tick, buckets.length)].add(timer);
+        size++;
+        return timer;
+    }
+
+    // The bucket drops the timer the next time its tick comes round
+    void cancel(Timer<T> timer) {
+        if (!timer.done) {
+            timer.done = true;
+            size--;
+        }
+    }
+
+    /**
+     * Fires every timer due by {@code nowMillis}. After a pause longer than a rotation each bucket
+     * is swept once, so timers late by more than that fire out of deadline order.
+     *
+     * @return how many timers fired
+     */
+    int advance(long nowMillis, Consumer<T> expired) {
+        long nowTick = Math.floorDiv(nowMillis, tickMillis);
+        long lastTick = Math.min(nowTick, currentTick + buckets.length - 1);
+        List<T> fired = new ArrayList<>();
+        for (long tick = currentTick; tick <= lastTick; tick++) {
+            List<Timer<T>> bucket = buckets[(int) Math.floorMod(tick, buckets.length)];
+            int kept = 0;
+            for (Timer<T> timer : bucket) {
+                if (timer.done) {
+                    continue;
+                }
+                if (timer.deadlineTick <= nowTick) {
+                    timer.done = true;
+                    size--;
+                    fired.add(timer.payload);
+                } else {
+                    bucket.set(kept++, timer);
+                }
+            }
+            bucket.subList(kept, bucket.size()).clear();
+        }
+        currentTick = Math.max(currentTick, nowTick + 1);
+        // Outside the sweep, so that the consumer can schedule and cancel
+        fired.forEach(expired);
+        return fired.size();
+    }
+
+    int size() {
+        return size;
+    }
+
+    static final class Timer<T> {
+        private final long deadlineTick;
+        private final T payload;
+        private boolean done;
+
+        private Timer(long deadlineTick, T payload) {
+            this.deadlineTick = deadlineTick;
+            this.payload = payload;
+        }
+
+        T getPayload() {
+            return payload;
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package com.udaan.leadmanagement.schema;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.DatabaseMetaData;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Storage layout of the interaction table. On PostgreSQL the table is range-partitioned by month
+ * on {@code interaction_date}: it is created partitioned before Hibernate's schema update runs, and
+ * the partitions for the previous month, the current one and the next
+ * {@code leadmanagement.interactions.partitions-ahead} months are created at startup and then daily.
+ * Interactions are dated when they are recorded or received, so they always fall in one of those; an
+ * insert dated outside them fails, and the ingestion queue dead-letters it like any other failed row.
+ * There is no DEFAULT partition, as PostgreSQL does not detach concurrently while one exists; one
+ * left by an earlier version is dissolved into monthly partitions.
+ * <p>
+ * With {@code leadmanagement.interactions.archive-after-months} above 0, monthly partitions older
+ * than that are detached (concurrently on PostgreSQL 14+, so the current partitions stay writable)
+ * and left as standalone tables to be dumped and dropped. Interactions in them no longer show up
+ * in a lead's history; the lead's interaction counters keep counting them.
+ * <p>
+ * Every database gets the {@code (restaurant_lead_id, interaction_date DESC, id DESC)} index that
+ * serves a lead's paged history; on PostgreSQL it also includes the remaining columns, so a page
+ * is read from the index alone. An existing unpartitioned table keeps working unpartitioned; see
+ * the readme for the one-off migration.
+ */
+@Slf4j
+@Component
+public class InteractionPartitionManager {
+    static final String TABLE = "interaction";
+    static final String HISTORY_INDEX = "idx_interaction_lead_history";
+    static final String DEFAULT_PARTITION = TABLE + "_default";
+    private static final String PARTITIONS_QUERY = "SELECT c.relname FROM pg_inherits i " +
+            "JOIN pg_class c ON c.oid = i.inhrelid WHERE i.inhparent = to_regclass(?)";
+    private static final Pattern PARTITION_NAME = Pattern.compile(TABLE + "_y(\\d{4})m(\\d{2})");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int partitionsAhead;
+    private final int archiveAfterMonths;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "interaction-partitions");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private boolean postgres;
+    private int majorVersion;
+
+    public InteractionPartitionManager(JdbcTemplate jdbcTemplate,
+                                       @Value("${leadmanagement.interactions.partitions-ahead:3}") int partitionsAhead,
+                                       @Value("${leadmanagement.interactions.archive-after-months:0}") int archiveAfterMonths) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.partitionsAhead = partitionsAhead;
+        this.archiveAfterMonths = archiveAfterMonths;
+    }
+
+    /**
+     * Runs before the EntityManagerFactory (see {@link EntityManagerFactoryDependsOnPartitionManager}),
+     * so on a new PostgreSQL database Hibernate finds a partitioned table instead of creating a plain one.
+     */
+    @PostConstruct
+    public void createPartitionedTable() {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            postgres = "PostgreSQL".equals(metaData.getDatabaseProductName());
+            majorVersion = metaData.getDatabaseMajorVersion();
+            return null;
+        });
+        if (postgres && tableKind() == null) {
+            // Mirrors the Interaction entity; the primary key has to include the partition key
+            jdbcTemplate.execute("CREATE TABLE " + TABLE + " (" +
+                    "id bigint NOT NULL, " +
+                    "type varchar(255), " +
+                    "interaction_date timestamp(6) NOT NULL, " +
+                    "notes varchar(255), " +
+                    "restaurant_lead_id bigint, " +
+                    "PRIMARY KEY (id, interaction_date)) " +
+                    "PARTITION BY RANGE (interaction_date)");
+            log.info("Created partitioned table {}", TABLE);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        maintain();
+        scheduler.scheduleWithFixedDelay(this::maintainQuietly, 1, 1, TimeUnit.DAYS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    public void maintain() {
+        maintain(YearMonth.now());
+    }
+
+    void maintain(YearMonth currentMonth) {
+        boolean partitioned = postgres && "p".equals(tableKind());
+        createHistoryIndex(partitioned);
+        if (!partitioned) {
+            return;
+        }
+
+        List<String> existing = partitions();
+        if (existing.contains(DEFAULT_PARTITION)) {
+            jdbcTemplate.execute(dissolveDefaultPartitionStatement());
+            log.info("Moved the rows of {} into monthly partitions and dropped it", DEFAULT_PARTITION);
+            existing = partitions();
+        }
+        for (String statement : createPartitionStatements(currentMonth, partitionsAhead, Set.copyOf(existing))) {
+            jdbcTemplate.execute(statement);
+            log.info("Created interaction partition: {}", statement);
+        }
+        if (archiveAfterMonths > 0) {
+            Set<String> pending = majorVersion >= 14 ? Set.copyOf(jdbcTemplate.queryForList(PARTITIONS_QUERY +
+                    " AND i.inhdetachpending", String.class, TABLE)) : Set.of();
+            for (String partition : partitionsToArchive(existing, currentMonth.minusMonths(archiveAfterMonths))) {
+                // CONCURRENTLY only locks the detached partition, but needs PostgreSQL 14 and runs outside a
+                // transaction, as each JdbcTemplate statement here does; one that was interrupted is left
+                // pending and is completed with FINALIZE
+                jdbcTemplate.execute("ALTER TABLE " + TABLE + " DETACH PARTITION " + partition +
+                        (pending.contains(partition) ? " FINALIZE" : majorVersion >= 14 ? " CONCURRENTLY" : ""));
+                log.info("Detached interaction partition {} for archiving", partition);
+            }
+        }
+    }
+
+    private List<String> partitions() {
+        return jdbcTemplate.queryForList(PARTITIONS_QUERY, String.class, TABLE);
+    }
+
+    private void maintainQuietly() {
+        try {
+            maintain();
+        } catch (RuntimeException e) {
+            log.error("Interaction partition maintenance failed", e);
+        }
+    }
+
+    private void createHistoryIndex(boolean partitioned) {
+        String columns = "(restaurant_lead_id, interaction_date DESC, id DESC)";
+        if (!postgres) {
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS " + HISTORY_INDEX + " ON " + TABLE + " " + columns);
+            return;
+        }
+        // CREATE INDEX CONCURRENTLY that fails part way leaves an invalid index behind, which IF NOT EXISTS
+        // would then keep skipping
+        Boolean valid = jdbcTemplate.queryForObject("SELECT (SELECT indisvalid FROM pg_index WHERE indexrelid = to_regclass(?))",
+                Boolean.class, HISTORY_INDEX);
+        if (Boolean.FALSE.equals(valid)) {
+            log.warn("Rebuilding invalid index {}", HISTORY_INDEX);
+            jdbcTemplate.execute("DROP INDEX " + (partitioned ? "" : "CONCURRENTLY ") + "IF EXISTS " + HISTORY_INDEX);
+        }
+        // A partitioned table's index is created on every partition, including later ones; a plain
+        // table that already holds data is indexed without blocking writes
+        jdbcTemplate.execute("CREATE INDEX " + (partitioned ? "" : "CONCURRENTLY ") + "IF NOT EXISTS " +
+                HISTORY_INDEX + " ON " + TABLE + " " + columns + " INCLUDE (type, notes)");
+    }
+
+    /**
+     * {@code r} for a plain table, {@code p} for a partitioned one, {@code null} when there is none.
+     */
+    private String tableKind() {
+        return jdbcTemplate.queryForObject("SELECT (SELECT relkind FROM pg_class WHERE oid = to_regclass(?))::text",
+                String.class, TABLE);
+    }
+
+    static String partitionName(YearMonth month) {
+        return String.format("%s_y%04dm%02d", TABLE, month.getYear(), month.getMonthValue());
+    }
+
+    /**
+     * The missing months from the one before {@code currentMonth} to {@code monthsAhead} after it.
+     */
+    static List<String> createPartitionStatements(YearMonth currentMonth, int monthsAhead, Set<String> existing) {
+        List<String> statements = new ArrayList<>();
+        for (int i = -1; i <= monthsAhead; i++) {
+            YearMonth month = currentMonth.plusMonths(i);
+            String name = partitionName(month);
+            if (!existing.contains(name)) {
+                statements.add("CREATE TABLE IF NOT EXISTS " + name + " PARTITION OF " + TABLE +
+                        " FOR VALUES FROM ('" + month.atDay(1) + "') TO ('" + month.plusMonths(1).atDay(1) + "')");
+            }
+        }
+        return statements;
+    }
+
+    /**
+     * Detaches the DEFAULT partition, creates a partition for each month it holds rows for, moves
+     * its rows into them and drops it, in one transaction.
+     */
+    static String dissolveDefaultPartitionStatement() {
+        return "DO $$ DECLARE m date; BEGIN " +
+                "ALTER TABLE " + TABLE + " DETACH PARTITION " + DEFAULT_PARTITION + "; " +
+                "FOR m IN SELECT DISTINCT date_trunc('month', interaction_date)::date FROM " + DEFAULT_PARTITION + " LOOP " +
+                "EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF " + TABLE + " FOR VALUES FROM (%L) TO (%L)', " +
+                "'" + TABLE + "_' || to_char(m, '\"y\"YYYY\"m\"MM'), m, (m + interval '1 month')::date); " +
+                "END LOOP; " +
+                "INSERT INTO " + TABLE + " SELECT * FROM " + DEFAULT_PARTITION + "; " +
+                "DROP TABLE " + DEFAULT_PARTITION + "; " +
+                "END $$";
+    }
+
+    /**
+     * Monthly partitions that end before {@code oldestKept}; partitions not named by
+     * {@link #partitionName} (such as a migrated legacy table) are left alone.
+     */
+    static List<String> partitionsToArchive(List<String> partitions, YearMonth oldestKept) {
+        List<String> archive = new ArrayList<>();
+        for (String partition : partitions) {
+            Matcher matcher = PARTITION_NAME.matcher(partition);
+            if (matcher.matches()
+                    && YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2))).isBefore(oldestKept)) {
+                archive.add(partition);
+            }
+        }
+        archive.sort(null);
+        return archive;
+    }
+
+    /**
+     * Makes the EntityManagerFactory, and with it Hibernate's schema update, wait for
+     * {@link #createPartitionedTable()}.
+     */
+    @Component
+    static class EntityManagerFactoryDependsOnPartitionManager extends EntityManagerFactoryDependsOnPostProcessor {
+        EntityManagerFactoryDependsOnPartitionManager() {
+            super(InteractionPartitionManager.class);
+        }
+    }
+}
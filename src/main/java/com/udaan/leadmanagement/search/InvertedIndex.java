@@ -0,0 +1,636 @@
+package com.udaan.leadmanagement.search;
+
+import com.udaan.leadmanagement.DTO.LeadSearchResultDTO;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Inverted index over lead names and addresses and their contacts' names, phones and emails.
+ * Not thread-safe: {@link LeadSearchIndex} guards it.
+ * <p>
+ * Every distinct token is a term with a posting list of lead ids per field. A query term is first
+ * expanded to the indexed terms it matches, and only those terms' postings are read: exact and
+ * prefix matches come from a sorted dictionary, typos (up to one edit, two from eight characters
+ * on) and infix matches from a trigram index over the terms. The vocabulary is far smaller than
+ * the lead table, so expansion stays cheap however many leads there are. Terms stay in the
+ * dictionary once seen, possibly with no leads left.
+ * <p>
+ * Leads must match every query term. Each term scores its best match on the lead: the match
+ * quality (exact, prefix, typo, infix) times the weight of the field it matched in, name first.
+ * Scoring only looks at which posting lists hold a lead, never at the lead itself.
+ */
+final class InvertedIndex {
+    static final int NAME = 0;
+    static final int ADDRESS = 1;
+    static final int CONTACT_NAME = 2;
+    // phone or email
+    static final int CONTACT_HANDLE = 3;
+    private static final int FIELDS = 4;
+    private static final float[] FIELD_WEIGHTS = {4, 1, 2, 3};
+
+    static final int MAX_QUERY_TERMS = 8;
+    // Indexed terms one query term may expand to
+    static final int MAX_EXPANSIONS = 256;
+    private static final int[] NO_KEYS = {};
+
+    private final NavigableMap<String, Term> dictionary = new TreeMap<>();
+    private final List<Term> terms = new ArrayList<>();
+    // Ids of the terms having each trigram, ascending
+    private final Map<Long, IntList> trigrams = new HashMap<>();
+    private final Map<Long, LeadEntry> leads = new HashMap<>();
+    private final int maxCandidates;
+
+    /**
+     * @param maxCandidates leads scored at most per query; a broader query ranks only the first
+     *                      leads it reaches
+     */
+    InvertedIndex(int maxCandidates) {
+        this.maxCandidates = maxCandidates;
+    }
+
+    int size() {
+        return leads.size();
+    }
+
+    void putLead(long leadId, String name, String address) {
+        LeadEntry entry = entry(leadId);
+        entry.name = name;
+        entry.address = address;
+        IntList keys = new IntList();
+        addKeys(keys, name, NAME);
+        addKeys(keys, address, ADDRESS);
+        entry.ownKeys = keys.toSortedSet();
+        reindex(leadId, entry);
+    }
+
+    void putContact(long leadId, long contactId, String name, String email, String phone) {
+        LeadEntry entry = entry(leadId);
+        IntList keys = new IntList();
+        addKeys(keys, name, CONTACT_NAME);
+        addKeys(keys, email, CONTACT_HANDLE);
+        addKeys(keys, phone, CONTACT_HANDLE);
+        if (entry.contactKeys == null) {
+            entry.contactKeys = new HashMap<>(2);
+        }
+        entry.contactKeys.put(contactId, keys.toSortedSet());
+        reindex(leadId, entry);
+    }
+
+    void removeContact(long leadId, long contactId) {
+        LeadEntry entry = leads.get(leadId);
+        if (entry != null && entry.contactKeys != null && entry.contactKeys.remove(contactId) != null) {
+            reindex(leadId, entry);
+        }
+    }
+
+    /**
+     * @return up to {@code limit} leads matching every term of the query, best first
+     */
+    List<LeadSearchResultDTO> search(String query, int limit) {
+        List<String> queryTerms = SearchText.tokens(query);
+        if (queryTerms.size() > MAX_QUERY_TERMS) {
+            queryTerms = queryTerms.subList(0, MAX_QUERY_TERMS);
+        }
+        if (queryTerms.isEmpty()) {
+            return List.of();
+        }
+        List<List<WeightedPostings>> postingsByTerm = new ArrayList<>(queryTerms.size());
+        for (String queryTerm : queryTerms) {
+            List<WeightedPostings> postings = new ArrayList<>();
+            expand(queryTerm).forEach((term, quality) -> {
+                for (int field = 0; field < FIELDS; field++) {
+                    if (term.postings[field] != null && term.postings[field].size() > 0) {
+                        postings.add(new WeightedPostings(term.postings[field], quality * FIELD_WEIGHTS[field]));
+                    }
+                }
+            });
+            if (postings.isEmpty()) {
+                return List.of();
+            }
+            postingsByTerm.add(postings);
+        }
+
+        TopLeads top = new TopLeads(limit);
+        if (postingsByTerm.size() == 1) {
+            scanBestFirst(postingsByTerm.getFirst(), top);
+        } else {
+            intersect(postingsByTerm, top);
+        }
+        List<LeadSearchResultDTO> results = new ArrayList<>(limit);
+        for (ScoredLead lead : top.bestFirst()) {
+            LeadEntry entry = leads.get(lead.leadId);
+            results.add(new LeadSearchResultDTO(lead.leadId, entry.name, entry.address, lead.score));
+        }
+        return results;
+    }
+
+    /**
+     * One query term: a lead scores the worth of the best posting list holding it. Reading the
+     * lists best first, a lead scores the worth of the list it is first met in, and reading a list
+     * can stop as soon as that worth no longer makes the results.
+     */
+    private void scanBestFirst(List<WeightedPostings> postings, TopLeads top) {
+        postings.sort(Comparator.comparingDouble((WeightedPostings p) -> p.worth).reversed());
+        LongHashSet seen = new LongHashSet();
+        int scored = 0;
+        for (WeightedPostings list : postings) {
+            for (int i = 0; i < list.postings.size(); i++) {
+                long leadId = list.postings.get(i);
+                if (!top.wouldKeep(leadId, list.worth)) {
+                    // Ids ascend, so nothing later in this list makes it either
+                    break;
+                }
+                if (seen.add(leadId)) {
+                    top.offer(leadId, list.worth);
+                    if (++scored >= maxCandidates) {
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Several query terms: walks all their posting lists in lead id order at once, each skipping
+     * ahead to the next lead the others have, so the cost follows the rarest term rather than the
+     * commonest. A lead's score is the sum of each term's best list holding it.
+     */
+    private void intersect(List<List<WeightedPostings>> postingsByTerm, TopLeads top) {
+        TermCursor[] cursors = postingsByTerm.stream().map(TermCursor::new)
+                .sorted(Comparator.comparingLong(cursor -> cursor.leadCount))
+                .toArray(TermCursor[]::new);
+        int scored = 0;
+        long target = Long.MIN_VALUE;
+        while (true) {
+            long candidate = cursors[0].seek(target);
+            int agreed = 1;
+            for (int j = 1; agreed < cursors.length && candidate != TermCursor.EXHAUSTED; j = (j + 1) % cursors.length) {
+                long next = cursors[j].seek(candidate);
+                if (next == candidate) {
+                    agreed++;
+                } else {
+                    candidate = next;
+                    agreed = 1;
+                }
+            }
+            if (candidate == TermCursor.EXHAUSTED) {
+                return;
+            }
+            float score = 0;
+            for (TermCursor cursor : cursors) {
+                score += cursor.worthAt(candidate);
+            }
+            top.offer(candidate, score);
+            if (++scored >= maxCandidates) {
+                return;
+            }
+            target = candidate + 1;
+        }
+    }
+
+    /**
+     * The indexed terms the query term matches, with the quality of each match: 1 when equal,
+     * 0.5 to 0.8 for a prefix (more the more of the term it covers), 0.6 and 0.4 with one and two
+     * typos, 0.3 to 0.6 when found inside the term.
+     */
+    private Map<Term, Float> expand(String queryTerm) {
+        Map<Term, Float> matches = new LinkedHashMap<>();
+        Term exact = dictionary.get(queryTerm);
+        if (exact != null && exact.leadCount() > 0) {
+            matches.put(exact, 1f);
+        }
+        // A single character would expand to the first terms of the alphabet, not the best ones
+        if (queryTerm.length() >= 2) {
+            for (Term term : dictionary.subMap(queryTerm, false, queryTerm + Character.MAX_VALUE, false).values()) {
+                if (matches.size() >= MAX_EXPANSIONS) {
+                    return matches;
+                }
+                if (term.leadCount() > 0) {
+                    matches.put(term, 0.5f + 0.3f * queryTerm.length() / term.text.length());
+                }
+            }
+        }
+        if (queryTerm.length() >= 4 && !SearchText.isDigits(queryTerm)) {
+            addTypos(queryTerm, matches);
+        }
+        if (queryTerm.length() >= 3) {
+            addInfixes(queryTerm, matches);
+        }
+        return matches;
+    }
+
+    private void addTypos(String queryTerm, Map<Term, Float> matches) {
+        int maxEdits = queryTerm.length() >= 8 ? 2 : 1;
+        long[] grams = Arrays.stream(SearchText.boundedTrigrams(queryTerm)).distinct().toArray();
+        // An edit changes at most three trigrams, so a term within maxEdits shares at least this many
+        int required = grams.length - 3 * maxEdits;
+        if (required < 1) {
+            return;
+        }
+        // ...and so has one of any (grams - required + 1) of them: only the rarest need scanning
+        IntList[] lists = new IntList[grams.length];
+        for (int i = 0; i < grams.length; i++) {
+            lists[i] = trigrams.getOrDefault(grams[i], IntList.EMPTY);
+        }
+        Arrays.sort(lists, Comparator.comparingInt(IntList::size));
+        Set<Integer> seen = new HashSet<>();
+        for (int i = 0; i < grams.length - required + 1; i++) {
+            IntList termIds = lists[i];
+            for (int k = 0; k < termIds.size(); k++) {
+                if (matches.size() >= MAX_EXPANSIONS) {
+                    return;
+                }
+                Term term = terms.get(termIds.get(k));
+                if (Math.abs(term.text.length() - queryTerm.length()) > maxEdits
+                        || term.leadCount() == 0 || matches.containsKey(term) || !seen.add(term.id)) {
+                    continue;
+                }
+                int edits = SearchText.editDistance(queryTerm, term.text, maxEdits);
+                if (edits <= maxEdits) {
+                    matches.put(term, edits == 1 ? 0.6f : 0.4f);
+                }
+            }
+        }
+    }
+
+    private void addInfixes(String queryTerm, Map<Term, Float> matches) {
+        long[] grams = Arrays.stream(SearchText.innerTrigrams(queryTerm)).distinct().toArray();
+        IntList[] lists = new IntList[grams.length];
+        for (int i = 0; i < grams.length; i++) {
+            lists[i] = trigrams.get(grams[i]);
+            if (lists[i] == null) {
+                return;
+            }
+        }
+        // Only terms having every trigram of the query term can contain it: walk the rarest list
+        // and skip ahead in the others, which short digit runs make long
+        Arrays.sort(lists, Comparator.comparingInt(IntList::size));
+        int[] positions = new int[lists.length];
+        candidates:
+        for (int k = 0; k < lists[0].size(); k++) {
+            if (matches.size() >= MAX_EXPANSIONS) {
+                return;
+            }
+            int termId = lists[0].get(k);
+            for (int i = 1; i < lists.length; i++) {
+                positions[i] = lists[i].seek(positions[i], termId);
+                if (positions[i] == lists[i].size()) {
+                    return;
+                }
+                if (lists[i].get(positions[i]) != termId) {
+                    continue candidates;
+                }
+            }
+            Term term = terms.get(termId);
+            if (term.text.length() > queryTerm.length() && term.leadCount() > 0
+                    && !matches.containsKey(term) && term.text.contains(queryTerm)) {
+                matches.put(term, 0.3f + 0.3f * queryTerm.length() / term.text.length());
+            }
+        }
+    }
+
+    private LeadEntry entry(long leadId) {
+        return leads.computeIfAbsent(leadId, id -> new LeadEntry());
+    }
+
+    private void addKeys(IntList keys, String text, int field) {
+        for (String token : SearchText.tokens(text)) {
+            keys.add(term(token).id * FIELDS + field);
+        }
+    }
+
+    private Term term(String token) {
+        Term term = dictionary.get(token);
+        if (term == null) {
+            term = new Term(terms.size(), token);
+            dictionary.put(token, term);
+            terms.add(term);
+            for (long gram : Arrays.stream(SearchText.boundedTrigrams(token)).distinct().toArray()) {
+                trigrams.computeIfAbsent(gram, g -> new IntList()).add(term.id);
+            }
+        }
+        return term;
+    }
+
+    /**
+     * Brings the postings in line with the lead's current fields and contacts.
+     */
+    private void reindex(long leadId, LeadEntry entry) {
+        IntList all = new IntList();
+        all.addAll(entry.ownKeys);
+        if (entry.contactKeys != null) {
+            entry.contactKeys.values().forEach(all::addAll);
+        }
+        int[] keys = all.toSortedSet();
+        int[] old = entry.keys;
+        int i = 0;
+        int j = 0;
+        while (i < old.length || j < keys.length) {
+            if (j == keys.length || (i < old.length && old[i] < keys[j])) {
+                postings(old[i++]).remove(leadId);
+            } else if (i == old.length || keys[j] < old[i]) {
+                postings(keys[j++]).add(leadId);
+            } else {
+                i++;
+                j++;
+            }
+        }
+        entry.keys = keys;
+    }
+
+    private LongPostings postings(int key) {
+        Term term = terms.get(key / FIELDS);
+        LongPostings postings = term.postings[key % FIELDS];
+        if (postings == null) {
+            postings = new LongPostings();
+            term.postings[key % FIELDS] = postings;
+        }
+        return postings;
+    }
+
+    private static final class Term {
+        final int id;
+        final String text;
+        final LongPostings[] postings = new LongPostings[FIELDS];
+
+        Term(int id, String text) {
+            this.id = id;
+            this.text = text;
+        }
+
+        // Counts a lead once per field it has the term in
+        long leadCount() {
+            long count = 0;
+            for (LongPostings fieldPostings : postings) {
+                count += fieldPostings == null ? 0 : fieldPostings.size();
+            }
+            return count;
+        }
+    }
+
+    private static final class LeadEntry {
+        String name;
+        String address;
+        int[] ownKeys = NO_KEYS;
+        Map<Long, int[]> contactKeys;
+        // Keys (term id * FIELDS + field) of the lead and its contacts, sorted and distinct
+        int[] keys = NO_KEYS;
+    }
+
+    private static final class WeightedPostings {
+        final LongPostings postings;
+        // Score a lead gets from the query term for being in these postings
+        final float worth;
+
+        WeightedPostings(LongPostings postings, float worth) {
+            this.postings = postings;
+            this.worth = worth;
+        }
+    }
+
+    /**
+     * One query term's posting lists merged in lead id order: a binary heap of the lists by the
+     * lead each is at. Every step of an intersection goes through here, hence plain arrays.
+     */
+    private static final class TermCursor {
+        static final long EXHAUSTED = Long.MAX_VALUE;
+
+        final long leadCount;
+        private final WeightedPostings[] lists;
+        private final int[] positions;
+        private final long[] heads;
+        // Indexes into lists; heap[0] is at the lowest lead
+        private final int[] heap;
+        private int heapSize;
+
+        TermCursor(List<WeightedPostings> postings) {
+            lists = postings.toArray(WeightedPostings[]::new);
+            positions = new int[lists.length];
+            heads = new long[lists.length];
+            heap = new int[lists.length];
+            long count = 0;
+            for (int i = 0; i < lists.length; i++) {
+                heads[i] = lists[i].postings.get(0);
+                count += lists[i].postings.size();
+            }
+            leadCount = count;
+            heapSize = lists.length;
+            for (int i = 0; i < heapSize; i++) {
+                heap[i] = i;
+            }
+            for (int i = heapSize / 2 - 1; i >= 0; i--) {
+                siftDown(i);
+            }
+        }
+
+        /**
+         * Moves every list to its first lead at or after {@code target}.
+         *
+         * @return the lowest of those leads, or {@link #EXHAUSTED}
+         */
+        long seek(long target) {
+            while (heapSize > 0 && heads[heap[0]] < target) {
+                int list = heap[0];
+                LongPostings postings = lists[list].postings;
+                positions[list] = postings.seek(positions[list], target);
+                if (positions[list] < postings.size()) {
+                    heads[list] = postings.get(positions[list]);
+                } else {
+                    heap[0] = heap[--heapSize];
+                }
+                siftDown(0);
+            }
+            return heapSize == 0 ? EXHAUSTED : heads[heap[0]];
+        }
+
+        /**
+         * @return the worth of the best list at the lead {@link #seek} stopped at
+         */
+        float worthAt(long leadId) {
+            return worthAt(0, leadId);
+        }
+
+        // The lists at the lead are exactly the heap's top nodes having it
+        private float worthAt(int node, long leadId) {
+            if (node >= heapSize || heads[heap[node]] != leadId) {
+                return 0;
+            }
+            return Math.max(lists[heap[node]].worth,
+                    Math.max(worthAt(2 * node + 1, leadId), worthAt(2 * node + 2, leadId)));
+        }
+
+        private void siftDown(int node) {
+            int list = heap[node];
+            while (true) {
+                int child = 2 * node + 1;
+                if (child >= heapSize) {
+                    break;
+                }
+                if (child + 1 < heapSize && heads[heap[child + 1]] < heads[heap[child]]) {
+                    child++;
+                }
+                if (heads[heap[child]] >= heads[list]) {
+                    break;
+                }
+                heap[node] = heap[child];
+                node = child;
+            }
+            heap[node] = list;
+        }
+    }
+
+    /**
+     * The best {@code limit} leads offered so far.
+     */
+    private static final class TopLeads {
+        // Lower score first, then higher id, so ties go to the older lead
+        private static final Comparator<ScoredLead> WORST_FIRST = Comparator.<ScoredLead>comparingDouble(lead -> lead.score)
+                .thenComparing(Comparator.<ScoredLead>comparingLong(lead -> lead.leadId).reversed());
+
+        private final int limit;
+        private final PriorityQueue<ScoredLead> heap;
+
+        TopLeads(int limit) {
+            this.limit = limit;
+            this.heap = new PriorityQueue<>(limit + 1, WORST_FIRST);
+        }
+
+        boolean wouldKeep(long leadId, float score) {
+            if (heap.size() < limit) {
+                return true;
+            }
+            ScoredLead worst = heap.peek();
+            return score > worst.score || (score == worst.score && leadId < worst.leadId);
+        }
+
+        void offer(long leadId, float score) {
+            if (wouldKeep(leadId, score)) {
+                heap.add(new ScoredLead(leadId, score));
+                if (heap.size() > limit) {
+                    heap.poll();
+                }
+            }
+        }
+
+        List<ScoredLead> bestFirst() {
+            List<ScoredLead> leads = new ArrayList<>(heap.size());
+            while (!heap.isEmpty()) {
+                leads.add(heap.poll());
+            }
+            return leads.reversed();
+        }
+    }
+
+    private static final class ScoredLead {
+        final long leadId;
+        final float score;
+
+        ScoredLead(long leadId, float score) {
+            this.leadId = leadId;
+            this.score = score;
+        }
+    }
+
+    private static final class LongHashSet {
+        private static final long EMPTY = Long.MIN_VALUE;
+
+        private long[] values = new long[64];
+        private int size;
+
+        LongHashSet() {
+            Arrays.fill(values, EMPTY);
+        }
+
+        boolean add(long value) {
+            if (size + 1 > values.length / 2) {
+                grow();
+            }
+            int mask = values.length - 1;
+            int i = hash(value) & mask;
+            while (values[i] != EMPTY) {
+                if (values[i] == value) {
+                    return false;
+                }
+                i = (i + 1) & mask;
+            }
+            values[i] = value;
+            size++;
+            return true;
+        }
+
+        private void grow() {
+            long[] old = values;
+            values = new long[old.length * 2];
+            Arrays.fill(values, EMPTY);
+            size = 0;
+            for (long value : old) {
+                if (value != EMPTY) {
+                    add(value);
+                }
+            }
+        }
+
+        // Lead ids are sequential, so spread them before masking
+        private static int hash(long value) {
+            long h = value * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+
+    private static final class IntList {
+        static final IntList EMPTY = new IntList();
+
+        private int[] values = new int[4];
+        private int size;
+
+        int size() {
+            return size;
+        }
+
+        int get(int i) {
+            return values[i];
+        }
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        // Same galloping search as LongPostings.seek; the lists are ascending
+        int seek(int from, int target) {
+            int step = 1;
+            int low = from;
+            int high = from;
+            while (high < size && values[high] < target) {
+                low = high + 1;
+                high += step;
+                step <<= 1;
+            }
+            int at = Arrays.binarySearch(values, low, Math.min(high, size), target);
+            return at >= 0 ? at : -at - 1;
+        }
+
+        void addAll(int[] more) {
+            for (int value : more) {
+                add(value);
+            }
+        }
+
+        int[] toSortedSet() {
+            return Arrays.stream(values, 0, size).sorted().distinct().toArray();
+        }
+    }
+}
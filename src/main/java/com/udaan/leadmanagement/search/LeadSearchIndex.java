@@ -0,0 +1,185 @@
+package com.udaan.leadmanagement.search;
+
+import com.udaan.leadmanagement.DTO.LeadSearchResultDTO;
+import com.udaan.leadmanagement.model.Contact;
+import com.udaan.leadmanagement.model.RestaurantLead;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Type-ahead search over leads by name, address and contact name, phone or email, served from an
+ * in-memory {@link InvertedIndex}. The write paths report committed changes here, so the index
+ * never sees a rolled-back write; searches run concurrently under a read lock and updates take
+ * the write lock briefly.
+ * <p>
+ * {@link #rebuild} reads the lead and contact tables into a fresh index, at startup and whenever
+ * called again. Searches keep using the current index meanwhile; updates that commit during the
+ * rebuild are applied to both, and to the new index again once it is complete, since the tables
+ * may have been read before or after they committed. Each update carries the full new state of
+ * what it changes, so applying one twice does no harm.
+ */
+@Slf4j
+@Component
+public class LeadSearchIndex {
+    public static final int MAX_RESULTS = 100;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int fetchSize;
+    private final int maxCandidates;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Guarded by lock
+    private InvertedIndex index;
+    private List<Consumer<InvertedIndex>> pending;
+    private volatile boolean loaded;
+
+    public LeadSearchIndex(JdbcTemplate jdbcTemplate,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${leadmanagement.search.rebuild-fetch-size:5000}") int fetchSize,
+                           @Value("${leadmanagement.search.max-candidates:20000}") int maxCandidates) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.fetchSize = fetchSize;
+        this.maxCandidates = maxCandidates;
+        this.index = new InvertedIndex(maxCandidates);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        rebuild();
+    }
+
+    /**
+     * Builds a new index from the lead and contact tables, each read once through a forward-only
+     * cursor, and swaps it in.
+     */
+    public void rebuild() {
+        long started = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            if (pending != null) {
+                throw new IllegalStateException("The lead search index is already being rebuilt");
+            }
+            pending = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        InvertedIndex rebuilt = new InvertedIndex(maxCandidates);
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> {
+                stream("SELECT id, name, address FROM restaurant_lead",
+                        rs -> rebuilt.putLead(rs.getLong(1), rs.getString(2), rs.getString(3)));
+                stream("SELECT id, restaurant_lead_id, name, email, phone FROM contact",
+                        rs -> rebuilt.putContact(rs.getLong(2), rs.getLong(1), rs.getString(3), rs.getString(4), rs.getString(5)));
+            });
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pending = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            pending.forEach(update -> update.accept(rebuilt));
+            pending = null;
+            index = rebuilt;
+            loaded = true;
+            log.info("Lead search index built over {} leads in {} ms", rebuilt.size(),
+                    (System.nanoTime() - started) / 1_000_000);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void stream(String sql, RowCallbackHandler handler) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql);
+            ps.setFetchSize(fetchSize);
+            return ps;
+        }, handler);
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * @param limit at most {@value #MAX_RESULTS}
+     * @throws IllegalStateException until the index has been built
+     */
+    public List<LeadSearchResultDTO> search(String query, int limit) {
+        if (!loaded) {
+            throw new IllegalStateException("The lead search index is still being built");
+        }
+        lock.readLock().lock();
+        try {
+            return index.search(query, Math.min(Math.max(limit, 1), MAX_RESULTS));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Indexes a committed lead together with the contacts it was saved with.
+     */
+    public void leadSaved(RestaurantLead lead) {
+        // Copied now: the update may be applied again after a rebuild, and the entity may have changed by then
+        long leadId = lead.getId();
+        String name = lead.getName();
+        String address = lead.getAddress();
+        List<String[]> contacts = new ArrayList<>();
+        List<Long> contactIds = new ArrayList<>();
+        for (Contact contact : lead.getContacts() == null ? List.<Contact>of() : lead.getContacts()) {
+            contactIds.add(contact.getId());
+            contacts.add(new String[]{contact.getName(), contact.getEmail(), contact.getPhone()});
+        }
+        update(index -> {
+            index.putLead(leadId, name, address);
+            for (int i = 0; i < contacts.size(); i++) {
+                String[] contact = contacts.get(i);
+                index.putContact(leadId, contactIds.get(i), contact[0], contact[1], contact[2]);
+            }
+        });
+    }
+
+    public void contactSaved(long leadId, long contactId, String name, String email, String phone) {
+        update(index -> index.putContact(leadId, contactId, name, email, phone));
+    }
+
+    public void contactRemoved(long leadId, long contactId) {
+        update(index -> index.removeContact(leadId, contactId));
+    }
+
+    private void update(Consumer<InvertedIndex> update) {
+        lock.writeLock().lock();
+        try {
+            update.accept(index);
+            if (pending != null) {
+                pending.add(update);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
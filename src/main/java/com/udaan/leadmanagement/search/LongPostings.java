@@ -0,0 +1,69 @@
+package com.udaan.leadmanagement.search;
+
+import java.util.Arrays;
+
+/**
+ * Sorted set of lead ids in a growable array. Lead ids are handed out in increasing order, so
+ * adding a new lead is an append; removing one shifts the tail.
+ */
+final class LongPostings {
+    private long[] ids = new long[2];
+    private int size;
+
+    int size() {
+        return size;
+    }
+
+    long get(int i) {
+        return ids[i];
+    }
+
+    /**
+     * Gallops forward from {@code from}, so skipping ahead costs the log of the distance rather
+     * than of the whole list.
+     *
+     * @return the index of the first id at or after {@code from} that is not less than
+     * {@code target}, or {@link #size()} when there is none
+     */
+    int seek(int from, long target) {
+        int step = 1;
+        int low = from;
+        int high = from;
+        while (high < size && ids[high] < target) {
+            low = high + 1;
+            high += step;
+            step <<= 1;
+        }
+        int at = Arrays.binarySearch(ids, low, Math.min(high, size), target);
+        return at >= 0 ? at : -at - 1;
+    }
+
+    void add(long id) {
+        if (size > 0 && ids[size - 1] >= id) {
+            int at = Arrays.binarySearch(ids, 0, size, id);
+            if (at >= 0) {
+                return;
+            }
+            insert(-at - 1, id);
+            return;
+        }
+        insert(size, id);
+    }
+
+    void remove(long id) {
+        int at = Arrays.binarySearch(ids, 0, size, id);
+        if (at >= 0) {
+            System.arraycopy(ids, at + 1, ids, at, size - at - 1);
+            size--;
+        }
+    }
+
+    private void insert(int at, long id) {
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size + (size >> 1) + 1);
+        }
+        System.arraycopy(ids, at, ids, at + 1, size - at);
+        ids[at] = id;
+        size++;
+    }
+}
@@ -0,0 +1,127 @@
+package com.udaan.leadmanagement.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Text handling shared by indexing and querying: both sides must cut text into the same tokens.
+ */
+final class SearchText {
+    // Marks the start and end of a token in its trigrams, so "$pi" only matches tokens starting with "pi"
+    static final char BOUNDARY = '$';
+
+    private SearchText() {
+    }
+
+    /**
+     * Lower-cases the text, strips accents and splits it on everything that is not a letter or
+     * digit: "Café Müller, 12-B" becomes {@code [cafe, muller, 12, b]}. Phone numbers keep their
+     * digits and emails split into their parts.
+     */
+    static List<String> tokens(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+        String folded = fold(text);
+        int start = -1;
+        for (int i = 0; i <= folded.length(); i++) {
+            boolean wordChar = i < folded.length() && Character.isLetterOrDigit(folded.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(folded.substring(start, i));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    private static String fold(String text) {
+        String lower = text.toLowerCase(Locale.ROOT);
+        for (int i = 0; i < lower.length(); i++) {
+            if (lower.charAt(i) >= 0x80) {
+                return Normalizer.normalize(lower, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+            }
+        }
+        return lower;
+    }
+
+    static boolean isDigits(String token) {
+        for (int i = 0; i < token.length(); i++) {
+            if (!Character.isDigit(token.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Trigrams of the token framed by {@link #BOUNDARY}: a token of n characters has n of them.
+     */
+    static long[] boundedTrigrams(String token) {
+        long[] grams = new long[token.length()];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = trigram(charAt(token, i - 1), token.charAt(i), charAt(token, i + 1));
+        }
+        return grams;
+    }
+
+    /**
+     * Trigrams lying entirely inside the token, which any token containing it also has.
+     */
+    static long[] innerTrigrams(String token) {
+        long[] grams = new long[Math.max(0, token.length() - 2)];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = trigram(token.charAt(i), token.charAt(i + 1), token.charAt(i + 2));
+        }
+        return grams;
+    }
+
+    private static char charAt(String token, int i) {
+        return i < 0 || i >= token.length() ? BOUNDARY : token.charAt(i);
+    }
+
+    private static long trigram(char a, char b, char c) {
+        return (long) a << 32 | (long) b << 16 | c;
+    }
+
+    /**
+     * Optimal string alignment distance (insertions, deletions, substitutions and swaps of
+     * adjacent characters), or {@code max + 1} as soon as it is known to exceed {@code max}.
+     */
+    static int editDistance(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max) {
+            return max + 1;
+        }
+        int[] beforePrevious = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int distance = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    distance = Math.min(distance, beforePrevious[j - 2] + 1);
+                }
+                current[j] = distance;
+                rowMin = Math.min(rowMin, distance);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] recycled = beforePrevious;
+            beforePrevious = previous;
+            previous = current;
+            current = recycled;
+        }
+        return Math.min(previous[b.length()], max + 1);
+    }
+}
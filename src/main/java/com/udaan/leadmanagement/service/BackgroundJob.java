@@ -0,0 +1,91 @@
+package com.udaan.leadmanagement.service;
+
+import com.udaan.leadmanagement.DTO.JobStatusDTO;
+import com.udaan.leadmanagement.enums.JobStatus;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Progress of a long-running operation handed to {@link BackgroundJobService}. Tasks report
+ * progress and per-item errors through it while they run; clients poll it by id.
+ */
+public class BackgroundJob {
+    static final int MAX_REPORTED_ERRORS = 1000;
+
+    @Getter
+    private final String id;
+    @Getter
+    private final String type;
+    private final AtomicLong totalItems;
+    private final AtomicLong processedItems = new AtomicLong();
+    private final List<String> errors = new ArrayList<>();
+    private final LocalDateTime submittedAt = LocalDateTime.now();
+    private volatile JobStatus status = JobStatus.QUEUED;
+    private volatile String message;
+    private volatile LocalDateTime finishedAt;
+
+    BackgroundJob(String id, String type, long totalItems) {
+        this.id = id;
+        this.type = type;
+        this.totalItems = new AtomicLong(totalItems);
+    }
+
+    public void addProcessed(long count) {
+        processedItems.addAndGet(count);
+    }
+
+    // For tasks that only learn their size while running, e.g. streamed uploads
+    public void setTotalItems(long count) {
+        totalItems.set(count);
+    }
+
+    public synchronized void addError(String error) {
+        if (errors.size() < MAX_REPORTED_ERRORS) {
+            errors.add(error);
+        }
+    }
+
+    public JobStatus getStatus() {
+        return status;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    void markRunning() {
+        status = JobStatus.RUNNING;
+    }
+
+    void markCompleted() {
+        finish(JobStatus.COMPLETED, null);
+    }
+
+    void markFailed(String failureMessage) {
+        finish(JobStatus.FAILED, failureMessage);
+    }
+
+    public synchronized JobStatusDTO toDTO() {
+        JobStatusDTO dto = new JobStatusDTO();
+        dto.setJobId(id);
+        dto.setType(type);
+        dto.setStatus(status);
+        dto.setTotalItems(totalItems.get());
+        dto.setProcessedItems(processedItems.get());
+        dto.setMessage(message);
+        dto.setErrors(List.copyOf(errors));
+        dto.setSubmittedAt(submittedAt);
+        dto.setFinishedAt(finishedAt);
+        return dto;
+    }
+
+    private void finish(JobStatus finalStatus, String finalMessage) {
+        message = finalMessage;
+        finishedAt = LocalDateTime.now();
+        status = finalStatus;
+    }
+}
@@ -0,0 +1,61 @@
+package com.udaan.leadmanagement.service;
+
+import com.udaan.leadmanagement.exception.JobNotFoundException;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+public class BackgroundJobService {
+    private final TaskExecutor taskExecutor;
+    private final Duration retention;
+    private final Map<String, BackgroundJob> jobs = new ConcurrentHashMap<>();
+
+    public BackgroundJobService(@Qualifier("applicationTaskExecutor") TaskExecutor taskExecutor,
+                                @Value("${leadmanagement.jobs.retention:PT1H}") Duration retention) {
+        this.taskExecutor = taskExecutor;
+        this.retention = retention;
+    }
+
+    @FunctionalInterface
+    public interface JobTask {
+        void run(BackgroundJob job) throws Exception;
+    }
+
+    public BackgroundJob submit(String type, long totalItems, JobTask task) {
+        evictExpiredJobs();
+
+        BackgroundJob job = new BackgroundJob(UUID.randomUUID().toString(), type, totalItems);
+        jobs.put(job.getId(), job);
+        taskExecutor.execute(() -> {
+            job.markRunning();
+            try {
+                task.run(job);
+                job.markCompleted();
+            } catch (Exception e) {
+                job.markFailed(e.getMessage());
+            }
+        });
+        return job;
+    }
+
+    public BackgroundJob getJob(String jobId) {
+        BackgroundJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new JobNotFoundException("Job not found with id: " + jobId);
+        }
+        return job;
+    }
+
+    private void evictExpiredJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(retention);
+        jobs.values().removeIf(job -> job.getFinishedAt() != null && job.getFinishedAt().isBefore(cutoff));
+    }
+}
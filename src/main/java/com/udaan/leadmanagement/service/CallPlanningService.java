@@ -0,0 +1,116 @@
+package com.udaan.leadmanagement.service;
+
+import com.udaan.leadmanagement.DTO.CallQueueEntryDTO;
+import com.udaan.leadmanagement.DTO.VisitPlanDTO;
+import com.udaan.leadmanagement.DTO.VisitStopDTO;
+import com.udaan.leadmanagement.enums.LeadStatus;
+import com.udaan.leadmanagement.exception.KAMNotFoundException;
+import com.udaan.leadmanagement.geo.GeoPoint;
+import com.udaan.leadmanagement.geo.LeadGeoIndex;
+import com.udaan.leadmanagement.geo.VisitOrderOptimizer;
+import com.udaan.leadmanagement.repository.KAMRepository;
+import com.udaan.leadmanagement.repository.RestaurantLeadRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds a KAM's call queue for their own calendar day: everything due before the end of the
+ * KAM's "today" (overdue calls first), read as slim rows from the per-KAM call index. The same
+ * queue, put in visiting order, is the KAM's route for the day.
+ */
+@Service
+@RequiredArgsConstructor
+public class CallPlanningService {
+    public static final List<LeadStatus> ACTIVE_STATUSES = List.of(
+            LeadStatus.NEW,
+            LeadStatus.IN_PROGRESS,
+            LeadStatus.FOLLOW_UP);
+    static final int MAX_PAGE_SIZE = 500;
+
+    private final RestaurantLeadRepository restaurantLeadRepository;
+    private final KAMRepository kamRepository;
+    private final LeadGeoIndex leadGeoIndex;
+
+    public List<CallQueueEntryDTO> getCallQueue(long kamId, int page, int size) {
+        ZoneId kamZone = resolveZone(kamId);
+        LocalDate kamToday = LocalDate.now(kamZone);
+        LocalDateTime startOfDay = toServerTime(kamToday, kamZone);
+        LocalDateTime startOfTomorrow = toServerTime(kamToday.plusDays(1), kamZone);
+
+        List<CallQueueEntryDTO> queue = restaurantLeadRepository.findCallQueue(
+                kamId,
+                startOfTomorrow,
+                ACTIVE_STATUSES,
+                PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), MAX_PAGE_SIZE)));
+
+        queue.forEach(entry -> entry.setOverdue(entry.getNextCallDate().isBefore(startOfDay)));
+        return queue;
+    }
+
+    /**
+     * The first {@value #MAX_PAGE_SIZE} calls of the KAM's queue in the order that keeps the
+     * distance travelled short, starting from {@code start} if given and otherwise from the first
+     * call of the queue. Leads without a known position are left for the end, in queue order.
+     *
+     * @throws IllegalStateException until the lead geo index has been built
+     */
+    public VisitPlanDTO planVisits(long kamId, GeoPoint start) {
+        List<CallQueueEntryDTO> queue = getCallQueue(kamId, 0, MAX_PAGE_SIZE);
+        Map<Long, GeoPoint> positions = leadGeoIndex.positions(queue.stream().map(CallQueueEntryDTO::getLeadId).toList());
+
+        List<CallQueueEntryDTO> located = new ArrayList<>(positions.size());
+        List<GeoPoint> visits = new ArrayList<>(positions.size());
+        List<CallQueueEntryDTO> unlocated = new ArrayList<>();
+        for (CallQueueEntryDTO entry : queue) {
+            GeoPoint position = positions.get(entry.getLeadId());
+            if (position == null) {
+                unlocated.add(entry);
+            } else {
+                located.add(entry);
+                visits.add(position);
+            }
+        }
+
+        List<VisitStopDTO> stops = new ArrayList<>(queue.size());
+        double totalKm = 0;
+        GeoPoint previous = start;
+        for (int index : VisitOrderOptimizer.order(start, visits)) {
+            GeoPoint position = visits.get(index);
+            double legKm = previous == null ? 0 : previous.distanceKm(position);
+            totalKm += legKm;
+            stops.add(stop(located.get(index), position, legKm));
+            previous = position;
+        }
+        unlocated.forEach(entry -> stops.add(stop(entry, null, null)));
+        return new VisitPlanDTO(stops, totalKm);
+    }
+
+    private static VisitStopDTO stop(CallQueueEntryDTO entry, GeoPoint position, Double legKm) {
+        return new VisitStopDTO(entry.getLeadId(), entry.getName(), entry.getAddress(), entry.getStatus(),
+                entry.getNextCallDate(), entry.isOverdue(),
+                position == null ? null : position.getLatitude(),
+                position == null ? null : position.getLongitude(),
+                legKm);
+    }
+
+    ZoneId resolveZone(long kamId) {
+        String timezone = kamRepository.findTimezoneById(kamId)
+                .orElseThrow(() -> new KAMNotFoundException("KAM not found with id: " + kamId));
+        return timezone.isBlank() ? ZoneId.systemDefault() : ZoneId.of(timezone);
+    }
+
+    // Call dates are stored as server-local date-times
+    private LocalDateTime toServerTime(LocalDate kamDate, ZoneId kamZone) {
+        return kamDate.atStartOfDay(kamZone)
+                .withZoneSameInstant(ZoneId.systemDefault())
+                .toLocalDateTime();
+    }
+}
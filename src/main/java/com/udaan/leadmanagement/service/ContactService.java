@@ -1,16 +1,25 @@
 package com.udaan.leadmanagement.service;
 
+import com.udaan.leadmanagement.cache.LeadCaches;
+import com.udaan.leadmanagement.enums.LeadEventType;
+import com.udaan.leadmanagement.event.LeadEventLog;
 import com.udaan.leadmanagement.exception.ContactNotFoundException;
 import com.udaan.leadmanagement.exception.LeadNotFoundException;
 import com.udaan.leadmanagement.model.Contact;
+import com.udaan.leadmanagement.model.LeadEvent;
 import com.udaan.leadmanagement.model.RestaurantLead;
 import com.udaan.leadmanagement.repository.ContactRepository;
 import com.udaan.leadmanagement.repository.RestaurantLeadRepository;
+import com.udaan.leadmanagement.search.LeadSearchIndex;
+import com.udaan.leadmanagement.util.AfterCommit;
+import com.udaan.leadmanagement.validation.ContactValidator;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Service
@@ -19,32 +28,46 @@ public class ContactService {
 
     private final ContactRepository contactRepository;
     private final RestaurantLeadRepository leadRepository;
-
+    private final LeadCaches leadCaches;
+    private final ContactValidator contactValidator;
+    private final LeadEventLog leadEventLog;
+    private final LeadSearchIndex leadSearchIndex;
+
+    /**
+     * One INSERT and, in the common case, one UPDATE of the lead's counters; neither the lead nor its
+     * other contacts are loaded. The first contact of a lead becomes its primary contact.
+     */
     @Transactional
     public Contact addContact(Long leadId, Contact contact) {
-        RestaurantLead lead = leadRepository.findById(leadId)
-                .orElseThrow(() -> new LeadNotFoundException("Lead not found with id: " + leadId));
-
-        validateContactDetails(contact);
-        contact.setRestaurantLead(lead);
+        contactValidator.normalize(contact);
+        contact.setRestaurantLead(leadRepository.getReferenceById(leadId));
+        // Assigns the id; the INSERT itself is only flushed at commit
+        Contact savedContact = contactRepository.save(contact);
 
-        // If this is the first contact, make it primary
-        if (contactRepository.countByRestaurantLeadId(leadId) == 0) {
-            contact.setPrimaryContact(true);
+        savedContact.setPrimaryContact(false);
+        if (leadRepository.incrementContactCount(leadId) == 0) {
+            // No primary contact yet, or no such lead. If another request claims primary first, count again.
+            if (leadRepository.addFirstContact(leadId, savedContact.getId()) == 1) {
+                savedContact.setPrimaryContact(true);
+            } else if (leadRepository.incrementContactCount(leadId) == 0) {
+                throw new LeadNotFoundException("Lead not found with id: " + leadId);
+            }
         }
-
-        Contact savedContact = contactRepository.save(contact);
-        lead.getContacts().add(savedContact);
-        leadRepository.save(lead);
+        leadEventLog.append(LeadEvent.contactChanged(LeadEventType.CONTACT_ADDED, leadId, savedContact.getId(), LocalDateTime.now()));
+        leadCaches.evictContacts(leadId);
+        indexAfterCommit(leadId, savedContact);
 
         return savedContact;
     }
 
+    @Cacheable(cacheNames = LeadCaches.LEAD_CONTACTS, key = "#leadId", sync = true)
     public List<Contact> getContactsByLeadId(Long leadId) {
-        if (!leadRepository.existsById(leadId)) {
+        List<Contact> contacts = contactRepository.findByRestaurantLeadId(leadId);
+        // Only an empty result needs the existence check, so the common case stays a single query
+        if (contacts.isEmpty() && !leadRepository.existsById(leadId)) {
             throw new EntityNotFoundException("Lead not found with ID: " + leadId);
         }
-        return contactRepository.findByRestaurantLeadId(leadId);
+        return contacts;
     }
 
     @Transactional
@@ -52,86 +75,87 @@ public class ContactService {
         Contact existingContact = contactRepository.findById(contactId)
                 .orElseThrow(() -> new EntityNotFoundException("Contact not found with ID: " + contactId));
 
-        validateContactDetails(updatedContact);
+        contactValidator.normalize(updatedContact);
 
         existingContact.setName(updatedContact.getName());
         existingContact.setRole(updatedContact.getRole());
         existingContact.setEmail(updatedContact.getEmail());
         existingContact.setPhone(updatedContact.getPhone());
+        Long leadId = existingContact.getRestaurantLead().getId();
+        leadEventLog.append(LeadEvent.contactChanged(LeadEventType.CONTACT_UPDATED, leadId, contactId, LocalDateTime.now()));
+        leadCaches.evictContacts(leadId);
+        indexAfterCommit(leadId, existingContact);
 
         return contactRepository.save(existingContact);
     }
 
+    /**
+     * Deletes the contact and, in the same UPDATE that decrements the lead's contact count, hands
+     * the primary role to the lead's oldest remaining contact if the deleted one held it. The lead
+     * row is locked first, in a statement of its own: on PostgreSQL an UPDATE that waits for the row
+     * re-reads only the row, so its subquery would miss a contact added by the writer it waited for.
+     */
     @Transactional
     public void deleteContact(Long contactId) {
         Contact contact = contactRepository.findById(contactId)
                 .orElseThrow(() -> new EntityNotFoundException("Contact not found with ID: " + contactId));
+        Long leadId = contact.getRestaurantLead().getId();
 
-        // If this is a primary contact, assign primary to another contact if available
-        if (contact.isPrimaryContact()) {
-            List<Contact> otherContacts = contactRepository.findByRestaurantLeadIdAndIdNot(
-                    contact.getRestaurantLead().getId(),
-                    contactId);
-
-            if (!otherContacts.isEmpty()) {
-                Contact newPrimaryContact = otherContacts.getFirst();
-                newPrimaryContact.setPrimaryContact(true);
-                contactRepository.save(newPrimaryContact);
-            }
-        }
-
+        // Lead row first: a concurrent setPrimaryContact to this contact then either completes before
+        // we look at the pointer, or waits for our commit and finds the contact gone
+        leadRepository.lockById(leadId);
+        leadRepository.removeContact(leadId, contactId);
         contactRepository.delete(contact);
+        leadEventLog.append(LeadEvent.contactChanged(LeadEventType.CONTACT_REMOVED, leadId, contactId, LocalDateTime.now()));
+        leadCaches.evictContacts(leadId);
+        AfterCommit.run(() -> leadSearchIndex.contactRemoved(leadId, contactId));
     }
 
+    @Cacheable(cacheNames = LeadCaches.PRIMARY_CONTACT, key = "#leadId", sync = true)
     public Contact getPrimaryContact(Long leadId) {
-        return contactRepository.findByRestaurantLeadIdAndIsPrimaryContactTrue(leadId)
+        return contactRepository.findPrimaryContactByLeadId(leadId)
                 .orElseThrow(() -> new EntityNotFoundException(
                         "Primary contact not found for lead ID: " + leadId));
     }
 
+    /**
+     * Points the lead at its new primary contact with one conditional UPDATE that only matches when
+     * the contact belongs to the lead. Concurrent switches serialize on the lead row and the last
+     * one wins; the lead always has exactly one primary contact.
+     */
     @Transactional
     public Contact setPrimaryContact(Long leadId, Long contactId) {
-        if (!leadRepository.existsById(leadId)) {
-            throw new LeadNotFoundException("Lead not found with ID: " + leadId);
+        if (leadRepository.switchPrimaryContact(leadId, contactId) == 0) {
+            if (!leadRepository.existsById(leadId)) {
+                throw new LeadNotFoundException("Lead not found with ID: " + leadId);
+            }
+            contactRepository.findById(contactId)
+                    .orElseThrow(() -> new ContactNotFoundException("Contact not found with ID: " + contactId));
+            throw new IllegalArgumentException("Contact does not belong to the specified lead");
         }
-
+        // Read after the UPDATE holds the lead row, so a contact deleted concurrently is seen as gone
+        // here and the switch rolls back instead of leaving the lead pointing at it
         Contact newPrimaryContact = contactRepository.findById(contactId)
                 .orElseThrow(() -> new ContactNotFoundException("Contact not found with ID: " + contactId));
-
-        if (!newPrimaryContact.getRestaurantLead().getId().equals(leadId)) {
-            throw new IllegalArgumentException("Contact does not belong to the specified lead");
-        }
-
-        // Reset all primary contacts for this lead
-        contactRepository.resetPrimaryContactsForLead(leadId);
-
-        // Set new primary contact
         newPrimaryContact.setPrimaryContact(true);
-        return contactRepository.save(newPrimaryContact);
+        leadEventLog.append(LeadEvent.contactChanged(LeadEventType.PRIMARY_CONTACT_CHANGED, leadId, contactId, LocalDateTime.now()));
+        leadCaches.evictContacts(leadId);
+        return newPrimaryContact;
     }
 
     public List<Contact> getContactsByRole(Long leadId, String role) {
-        if (!leadRepository.existsById(leadId)) {
+        List<Contact> contacts = contactRepository.findByRestaurantLeadIdAndRole(leadId, role);
+        if (contacts.isEmpty() && !leadRepository.existsById(leadId)) {
             throw new EntityNotFoundException("Lead not found with ID: " + leadId);
         }
-        return contactRepository.findByRestaurantLeadIdAndRole(leadId, role);
+        return contacts;
     }
 
-    private void validateContactDetails(Contact contact) {
-        if (contact.getName() == null || contact.getName().trim().isEmpty()) {
-            throw new IllegalArgumentException("Contact name cannot be empty");
-        }
-
-        if (contact.getEmail() == null || !contact.getEmail().matches("^[A-Za-z0-9+_.-]+@(.+)$")) {
-            throw new IllegalArgumentException("Invalid email format");
-        }
-
-        if (contact.getPhone() == null || !contact.getPhone().matches("^\\+?[0-9]{10,15}$")) {
-            throw new IllegalArgumentException("Invalid phone number format");
-        }
-
-        if (contact.getRole() == null || contact.getRole().trim().isEmpty()) {
-            throw new IllegalArgumentException("Contact role cannot be empty");
-        }
+    private void indexAfterCommit(Long leadId, Contact contact) {
+        long contactId = contact.getId();
+        String name = contact.getName();
+        String email = contact.getEmail();
+        String phone = contact.getPhone();
+        AfterCommit.run(() -> leadSearchIndex.contactSaved(leadId, contactId, name, email, phone));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,374 @@
+package com.udaan.leadmanagement.service;
+
+import com.udaan.leadmanagement.DTO.ContactUpsertRequestDTO;
+import com.udaan.leadmanagement.DTO.ContactUpsertResponseDTO;
+import com.udaan.leadmanagement.DTO.ContactUpsertResultDTO;
+import com.udaan.leadmanagement.cache.LeadCaches;
+import com.udaan.leadmanagement.enums.ContactUpsertStatus;
+import com.udaan.leadmanagement.enums.ContactValidationError;
+import com.udaan.leadmanagement.enums.LeadEventType;
+import com.udaan.leadmanagement.event.LeadEventLog;
+import com.udaan.leadmanagement.model.LeadEvent;
+import com.udaan.leadmanagement.search.LeadSearchIndex;
+import com.udaan.leadmanagement.util.AfterCommit;
+import com.udaan.leadmanagement.util.SequenceIdBlock;
+import com.udaan.leadmanagement.validation.ContactValidator;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.IntStream;
+
+/**
+ * Bulk contact upsert for partner syncs. A submitted contact updates the lead's existing contact
+ * with the same normalized phone or, failing that, the same email, and is inserted otherwise;
+ * duplicates within one payload collapse into one contact the same way.
+ * <p>
+ * Contacts are written every {@code leadmanagement.contact-upsert.batch-size} items, in one
+ * transaction per batch: one locking read of the batch's leads, one read of their contacts, and
+ * JDBC batches for the inserts, the updates and the lead counters. The lead rows stay locked
+ * until the batch commits, so two syncs of the same lead cannot both insert the same contact. As in {@link ContactService#addContact}, a lead without a primary
+ * contact gets its first new contact as primary.
+ */
+@Slf4j
+@Service
+public class ContactUpsertService {
+    // allocationSize of the contact_seq generator
+    private static final long ID_BLOCK_SIZE = 100;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ContactValidator contactValidator;
+    private final LeadCaches leadCaches;
+    private final LeadEventLog leadEventLog;
+    private final LeadSearchIndex leadSearchIndex;
+    private final String contactSequenceSql;
+    private final int batchSize;
+
+    public ContactUpsertService(JdbcTemplate jdbcTemplate,
+                                PlatformTransactionManager transactionManager,
+                                EntityManagerFactory entityManagerFactory,
+                                ContactValidator contactValidator,
+                                LeadCaches leadCaches,
+                                LeadEventLog leadEventLog,
+                                LeadSearchIndex leadSearchIndex,
+                                @Value("${leadmanagement.contact-upsert.batch-size:1000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.contactSequenceSql = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices().getDialect().getSequenceSupport().getSequenceNextValString("contact_seq");
+        this.contactValidator = contactValidator;
+        this.leadCaches = leadCaches;
+        this.leadEventLog = leadEventLog;
+        this.leadSearchIndex = leadSearchIndex;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Upserts the contacts batch by batch. A database failure stops the upsert: the batches
+     * committed before it stay committed and keep their results, the contacts of the failed batch
+     * and of those after it are {@link ContactUpsertStatus#NOT_PROCESSED}, and the response carries
+     * the error.
+     */
+    public ContactUpsertResponseDTO upsertContacts(List<ContactUpsertRequestDTO> requests) {
+        List<ContactUpsertResultDTO> results = new ArrayList<>(Collections.nCopies(requests.size(), null));
+        // Items are processed grouped by lead, so a batch reads and locks as few leads as possible
+        // and a lead's duplicates usually meet in the same batch; results stay in request order
+        List<Integer> order = IntStream.range(0, requests.size()).boxed()
+                .sorted(Comparator.comparing(i -> requests.get(i).getLeadId(), Comparator.nullsFirst(Comparator.naturalOrder())))
+                .toList();
+        SequenceIdBlock contactIds = new SequenceIdBlock(jdbcTemplate, contactSequenceSql, ID_BLOCK_SIZE);
+        ContactUpsertResponseDTO response = new ContactUpsertResponseDTO();
+        for (int from = 0; from < order.size(); from += batchSize) {
+            List<Integer> batch = order.subList(from, Math.min(from + batchSize, order.size()));
+            try {
+                transactionTemplate.executeWithoutResult(status -> upsertBatch(requests, results, batch, contactIds));
+            } catch (RuntimeException e) {
+                log.error("Contact upsert stopped after {} of {} contacts", from, order.size(), e);
+                // The failed batch rolled back, so its results are void along with those never reached
+                ContactUpsertResultDTO notProcessed = new ContactUpsertResultDTO(ContactUpsertStatus.NOT_PROCESSED, null, null);
+                order.subList(from, order.size()).forEach(i -> results.set(i, notProcessed));
+                response.setError("Contact upsert stopped after " + from + " contacts: " + e.getMessage());
+                break;
+            }
+        }
+
+        for (ContactUpsertResultDTO result : results) {
+            switch (result.getStatus()) {
+                case CREATED -> response.setCreated(response.getCreated() + 1);
+                case UPDATED -> response.setUpdated(response.getUpdated() + 1);
+                case UNCHANGED -> response.setUnchanged(response.getUnchanged() + 1);
+                case NOT_PROCESSED -> response.setNotProcessed(response.getNotProcessed() + 1);
+                default -> response.setRejected(response.getRejected() + 1);
+            }
+        }
+        response.setResults(results);
+        return response;
+    }
+
+    private void upsertBatch(List<ContactUpsertRequestDTO> requests, List<ContactUpsertResultDTO> results,
+                             List<Integer> batch, SequenceIdBlock contactIds) {
+        List<Long> leadIds = new ArrayList<>();
+        for (int i : batch) {
+            ContactUpsertRequestDTO request = requests.get(i);
+            ContactValidationError error = contactValidator.validate(
+                    request.getName(), request.getRole(), request.getEmail(), request.getPhone());
+            if (error != null) {
+                results.set(i, new ContactUpsertResultDTO(ContactUpsertStatus.INVALID, null, error));
+            } else if (request.getLeadId() != null) {
+                leadIds.add(request.getLeadId());
+            }
+        }
+        Map<Long, LeadContacts> leads = loadLeads(leadIds);
+
+        for (int i : batch) {
+            if (results.get(i) != null) {
+                continue;
+            }
+            ContactUpsertRequestDTO request = requests.get(i);
+            LeadContacts lead = request.getLeadId() == null ? null : leads.get(request.getLeadId());
+            if (lead == null) {
+                results.set(i, new ContactUpsertResultDTO(ContactUpsertStatus.LEAD_NOT_FOUND, null, null));
+                continue;
+            }
+            results.set(i, lead.upsert(request, contactIds));
+        }
+
+        List<ContactRow> inserts = new ArrayList<>();
+        List<ContactRow> updates = new ArrayList<>();
+        List<LeadContacts> grownLeads = new ArrayList<>();
+        List<LeadEvent> events = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (LeadContacts lead : leads.values()) {
+            for (ContactRow row : lead.rows) {
+                if (row.inserted) {
+                    inserts.add(row);
+                    events.add(LeadEvent.contactChanged(LeadEventType.CONTACT_ADDED, row.leadId, row.id, now));
+                } else if (row.changed) {
+                    updates.add(row);
+                    events.add(LeadEvent.contactChanged(LeadEventType.CONTACT_UPDATED, row.leadId, row.id, now));
+                }
+            }
+            if (lead.added > 0) {
+                grownLeads.add(lead);
+            }
+            if (lead.added > 0 || lead.updated) {
+                leadCaches.evictContacts(lead.leadId);
+            }
+        }
+        if (!inserts.isEmpty()) {
+            insertContacts(inserts);
+        }
+        if (!updates.isEmpty()) {
+            updateContacts(updates);
+        }
+        if (!grownLeads.isEmpty()) {
+            updateLeadCounters(grownLeads);
+        }
+        leadEventLog.append(events);
+        if (!inserts.isEmpty() || !updates.isEmpty()) {
+            AfterCommit.run(() -> {
+                inserts.forEach(row -> leadSearchIndex.contactSaved(row.leadId, row.id, row.name, row.email, row.phone));
+                updates.forEach(row -> leadSearchIndex.contactSaved(row.leadId, row.id, row.name, row.email, row.phone));
+            });
+        }
+    }
+
+    /**
+     * Locks the leads that exist, in id order so that concurrent batches cannot deadlock, and
+     * reads their contacts.
+     */
+    private Map<Long, LeadContacts> loadLeads(List<Long> leadIds) {
+        Map<Long, LeadContacts> leads = new HashMap<>();
+        if (leadIds.isEmpty()) {
+            return leads;
+        }
+        // One array parameter instead of an IN list, so every batch reuses the same statement
+        Long[] distinctIds = leadIds.stream().distinct().sorted().toArray(Long[]::new);
+
+        jdbcTemplate.query("SELECT id FROM restaurant_lead WHERE id = ANY(?) ORDER BY id FOR UPDATE",
+                rs -> {
+                    long leadId = rs.getLong(1);
+                    leads.put(leadId, new LeadContacts(leadId));
+                }, (Object) distinctIds);
+        if (leads.isEmpty()) {
+            return leads;
+        }
+        jdbcTemplate.query("SELECT id, restaurant_lead_id, name, role, email, phone FROM contact " +
+                "WHERE restaurant_lead_id = ANY(?)", rs -> {
+            ContactRow row = new ContactRow(rs.getLong(1), rs.getLong(2), false);
+            row.name = rs.getString(3);
+            row.role = rs.getString(4);
+            row.email = rs.getString(5);
+            row.phone = rs.getString(6);
+            leads.get(row.leadId).add(row);
+        }, (Object) distinctIds);
+        return leads;
+    }
+
+    private void insertContacts(List<ContactRow> rows) {
+        jdbcTemplate.batchUpdate("INSERT INTO contact (id, name, role, email, phone, restaurant_lead_id) " +
+                "VALUES (?, ?, ?, ?, ?, ?)", new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ContactRow row = rows.get(i);
+                ps.setLong(1, row.id);
+                ps.setString(2, row.name);
+                ps.setString(3, row.role);
+                ps.setString(4, row.email);
+                ps.setString(5, row.phone);
+                ps.setLong(6, row.leadId);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return rows.size();
+            }
+        });
+    }
+
+    private void updateContacts(List<ContactRow> rows) {
+        jdbcTemplate.batchUpdate("UPDATE contact SET name = ?, role = ?, email = ?, phone = ? WHERE id = ?",
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        ContactRow row = rows.get(i);
+                        ps.setString(1, row.name);
+                        ps.setString(2, row.role);
+                        ps.setString(3, row.email);
+                        ps.setString(4, row.phone);
+                        ps.setLong(5, row.id);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return rows.size();
+                    }
+                });
+    }
+
+    private void updateLeadCounters(List<LeadContacts> leads) {
+        // Same rule as ContactService.addContact: the first contact of a lead becomes its primary contact
+        jdbcTemplate.batchUpdate("UPDATE restaurant_lead SET contact_count = contact_count + ?, " +
+                "primary_contact_id = COALESCE(primary_contact_id, ?) WHERE id = ?", new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                LeadContacts lead = leads.get(i);
+                ps.setInt(1, lead.added);
+                ps.setLong(2, lead.firstAddedId);
+                ps.setLong(3, lead.leadId);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return leads.size();
+            }
+        });
+    }
+
+    /**
+     * A locked lead's contacts, indexed by normalized phone and by normalized email.
+     */
+    private final class LeadContacts {
+        private final long leadId;
+        private final List<ContactRow> rows = new ArrayList<>();
+        private final Map<String, ContactRow> byPhone = new HashMap<>();
+        private final Map<String, ContactRow> byEmail = new HashMap<>();
+        private int added;
+        private long firstAddedId;
+        private boolean updated;
+
+        private LeadContacts(long leadId) {
+            this.leadId = leadId;
+        }
+
+        void add(ContactRow row) {
+            rows.add(row);
+            index(row);
+        }
+
+        // A contact whose phone or email changes stays reachable under its old keys too
+        void index(ContactRow row) {
+            if (row.phone != null) {
+                String phone = contactValidator.normalizePhone(row.phone);
+                byPhone.putIfAbsent(phone != null ? phone : row.phone, row);
+            }
+            if (row.email != null) {
+                byEmail.putIfAbsent(ContactValidator.normalizeEmail(row.email), row);
+            }
+        }
+
+        ContactUpsertResultDTO upsert(ContactUpsertRequestDTO request, SequenceIdBlock contactIds) {
+            String phone = contactValidator.normalizePhone(request.getPhone());
+            ContactRow row = byPhone.get(phone);
+            if (row == null) {
+                row = byEmail.get(ContactValidator.normalizeEmail(request.getEmail()));
+            }
+
+            if (row == null) {
+                row = new ContactRow(contactIds.next(), leadId, true);
+                row.set(request, phone);
+                add(row);
+                if (added++ == 0) {
+                    firstAddedId = row.id;
+                }
+                return new ContactUpsertResultDTO(ContactUpsertStatus.CREATED, row.id, null);
+            }
+            if (!row.set(request, phone)) {
+                return new ContactUpsertResultDTO(ContactUpsertStatus.UNCHANGED, row.id, null);
+            }
+            index(row);
+            updated = true;
+            return new ContactUpsertResultDTO(ContactUpsertStatus.UPDATED, row.id, null);
+        }
+    }
+
+    private static final class ContactRow {
+        private final long id;
+        private final long leadId;
+        private final boolean inserted;
+        private boolean changed;
+        private String name;
+        private String role;
+        private String email;
+        private String phone;
+
+        private ContactRow(long id, long leadId, boolean inserted) {
+            this.id = id;
+            this.leadId = leadId;
+            this.inserted = inserted;
+        }
+
+        /**
+         * Copies the request's fields; returns whether any of them changed.
+         */
+        boolean set(ContactUpsertRequestDTO request, String normalizedPhone) {
+            boolean differs = !Objects.equals(name, request.getName()) || !Objects.equals(role, request.getRole())
+                    || !Objects.equals(email, request.getEmail()) || !Objects.equals(phone, normalizedPhone);
+            if (differs) {
+                name = request.getName();
+                role = request.getRole();
+                email = request.getEmail();
+                phone = normalizedPhone;
+                changed = true;
+            }
+            return differs;
+        }
+    }
+}
@@ -0,0 +1,383 @@
+package com.udaan.leadmanagement.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.udaan.leadmanagement.DTO.IngestionAckDTO;
+import com.udaan.leadmanagement.DTO.InteractionRequestDTO;
+import com.udaan.leadmanagement.assignment.KAMLoadBalancer;
+import com.udaan.leadmanagement.assignment.LeadLoad;
+import com.udaan.leadmanagement.cache.LeadCaches;
+import com.udaan.leadmanagement.enums.LeadStatus;
+import com.udaan.leadmanagement.event.LeadEventLog;
+import com.udaan.leadmanagement.exception.IngestionQueueFullException;
+import com.udaan.leadmanagement.exception.LeadNotFoundException;
+import com.udaan.leadmanagement.model.Interaction;
+import com.udaan.leadmanagement.model.LeadEvent;
+import com.udaan.leadmanagement.model.RestaurantLead;
+import com.udaan.leadmanagement.repository.InteractionRepository;
+import com.udaan.leadmanagement.repository.RestaurantLeadRepository;
+import com.udaan.leadmanagement.util.AfterCommit;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * High-throughput path for recording interactions. Requests are acknowledged as soon as they are
+ * queued; a single flusher thread drains the queue, loads every affected lead with one IN query,
+ * applies each lead's interactions once and writes everything in JDBC batches.
+ * <p>
+ * The queue is bounded by {@code leadmanagement.ingestion.queue-capacity}; when it is full new
+ * interactions are rejected with {@link IngestionQueueFullException} instead of piling up.
+ * Interactions for leads that do not exist are rejected with {@link LeadNotFoundException} before
+ * anything is queued.
+ * Whatever is queued at shutdown is flushed before the application context closes, and submits
+ * are refused from the moment that final drain begins.
+ * <p>
+ * Queued interactions have already been acknowledged, so a failed batch is never just dropped.
+ * Transient database errors are retried {@code leadmanagement.ingestion.retry-attempts} times with
+ * exponential backoff; any other error splits the batch in halves until the rows that fail on
+ * their own are isolated. What still cannot be written is appended to the dead-letter file, one
+ * JSON object per line in the shape of the bulk interaction request, to be resubmitted from there.
+ * So are the interactions of a lead deleted between submit and flush.
+ */
+@Slf4j
+@Service
+public class InteractionIngestionService {
+    private final RestaurantLeadRepository restaurantLeadRepository;
+    private final InteractionRepository interactionRepository;
+    private final KAMScoreboard kamScoreboard;
+    private final KAMLoadBalancer kamLoadBalancer;
+    private final LeadCaches leadCaches;
+    private final LeadEventLog leadEventLog;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final int retryAttempts;
+    private final long retryBackoffMillis;
+    private final Path deadLetterFile;
+
+    private final BlockingQueue<PendingInteraction> queue = new LinkedBlockingQueue<>();
+    // Counts free queue slots; permits are returned once a batch has been written, not when it is taken
+    private final Semaphore capacity;
+    private final Thread flusher;
+    // Submits enqueue under the read lock, so once shutdown holds the write lock nothing more can arrive
+    private final ReadWriteLock acceptingLock = new ReentrantReadWriteLock();
+    private volatile boolean accepting = true;
+    private final AtomicLong deadLettered = new AtomicLong();
+
+    public InteractionIngestionService(RestaurantLeadRepository restaurantLeadRepository,
+                                       InteractionRepository interactionRepository,
+                                       KAMScoreboard kamScoreboard,
+                                       KAMLoadBalancer kamLoadBalancer,
+                                       LeadCaches leadCaches,
+                                       LeadEventLog leadEventLog,
+                                       JdbcTemplate jdbcTemplate,
+                                       PlatformTransactionManager transactionManager,
+                                       ObjectMapper objectMapper,
+                                       @Value("${leadmanagement.ingestion.queue-capacity:50000}") int queueCapacity,
+                                       @Value("${leadmanagement.ingestion.batch-size:500}") int batchSize,
+                                       @Value("${leadmanagement.ingestion.flush-interval-ms:200}") long flushIntervalMillis,
+                                       @Value("${leadmanagement.ingestion.retry-attempts:5}") int retryAttempts,
+                                       @Value("${leadmanagement.ingestion.retry-backoff-ms:200}") long retryBackoffMillis,
+                                       @Value("${leadmanagement.ingestion.dead-letter-file:data/interaction-dead-letters.ndjson}")
+                                       String deadLetterFile) {
+        this.restaurantLeadRepository = restaurantLeadRepository;
+        this.interactionRepository = interactionRepository;
+        this.kamScoreboard = kamScoreboard;
+        this.kamLoadBalancer = kamLoadBalancer;
+        this.leadCaches = leadCaches;
+        this.leadEventLog = leadEventLog;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.capacity = new Semaphore(queueCapacity);
+        this.batchSize = batchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.retryAttempts = Math.max(1, retryAttempts);
+        this.retryBackoffMillis = retryBackoffMillis;
+        this.deadLetterFile = Path.of(deadLetterFile);
+        this.flusher = new Thread(this::runFlusher, "interaction-ingestion");
+    }
+
+    @PostConstruct
+    public void start() {
+        flusher.start();
+    }
+
+    public IngestionAckDTO submit(Long leadId, Interaction interaction) {
+        return submitAll(List.of(new InteractionRequestDTO(leadId, interaction.getType(), interaction.getNotes())));
+    }
+
+    /**
+     * Queues all interactions or none of them.
+     *
+     * @throws LeadNotFoundException when any of the leads does not exist
+     */
+    public IngestionAckDTO submitAll(List<InteractionRequestDTO> requests) {
+        Set<Long> leadIds = new LinkedHashSet<>();
+        for (InteractionRequestDTO request : requests) {
+            if (request.getLeadId() == null || request.getType() == null) {
+                throw new IllegalArgumentException("Every interaction needs a leadId and a type");
+            }
+            leadIds.add(request.getLeadId());
+        }
+        // existsById is cached, so a busy lead costs no query here
+        leadIds.removeIf(restaurantLeadRepository::existsById);
+        if (!leadIds.isEmpty()) {
+            throw new LeadNotFoundException("Leads not found with ids: " + leadIds);
+        }
+        acceptingLock.readLock().lock();
+        try {
+            if (!accepting) {
+                throw new IngestionQueueFullException("Interaction ingestion is shutting down");
+            }
+            if (!capacity.tryAcquire(requests.size())) {
+                throw new IngestionQueueFullException("Interaction queue is full, retry later");
+            }
+
+            LocalDateTime receivedAt = LocalDateTime.now();
+            for (InteractionRequestDTO request : requests) {
+                queue.add(new PendingInteraction(request, receivedAt));
+            }
+            return new IngestionAckDTO(requests.size(), queue.size());
+        } finally {
+            acceptingLock.readLock().unlock();
+        }
+    }
+
+    public int getQueuedInteractions() {
+        return queue.size();
+    }
+
+    // Interactions written to the dead-letter file since startup
+    public long getDeadLetteredInteractions() {
+        return deadLettered.get();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        acceptingLock.writeLock().lock();
+        try {
+            accepting = false;
+        } finally {
+            acceptingLock.writeLock().unlock();
+        }
+        flusher.interrupt();
+        flusher.join();
+    }
+
+    private void runFlusher() {
+        List<PendingInteraction> batch = new ArrayList<>(batchSize);
+        while (accepting || !queue.isEmpty()) {
+            try {
+                PendingInteraction first = accepting
+                        ? queue.poll(flushIntervalMillis, TimeUnit.MILLISECONDS)
+                        : queue.poll();
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                // shutdown() interrupts us out of poll; keep looping until the queue is drained
+            } finally {
+                capacity.release(batch.size());
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Flushes the batch, retrying transient failures and splitting it around rows that fail on
+     * their own; whatever is left is dead-lettered.
+     */
+    void write(List<PendingInteraction> batch) {
+        RuntimeException failure = null;
+        for (int attempt = 1; attempt <= retryAttempts; attempt++) {
+            try {
+                List<PendingInteraction> unknown = flush(batch);
+                if (!unknown.isEmpty()) {
+                    deadLetter(unknown, new LeadNotFoundException("Leads not found with ids: "
+                            + unknown.stream().map(p -> p.getRequest().getLeadId()).distinct().toList()));
+                }
+                return;
+            } catch (RuntimeException e) {
+                failure = e;
+                if (!isTransient(e)) {
+                    break;
+                }
+                if (attempt < retryAttempts) {
+                    log.warn("Flushing {} interactions failed (attempt {} of {}), retrying: {}",
+                            batch.size(), attempt, retryAttempts, e.getMessage());
+                    backOff(attempt);
+                }
+            }
+        }
+        if (!isTransient(failure) && batch.size() > 1) {
+            int half = batch.size() / 2;
+            write(new ArrayList<>(batch.subList(0, half)));
+            write(new ArrayList<>(batch.subList(half, batch.size())));
+            return;
+        }
+        deadLetter(batch, failure);
+    }
+
+    private static boolean isTransient(RuntimeException e) {
+        return e instanceof TransientDataAccessException
+                || e instanceof RecoverableDataAccessException
+                || e instanceof DataAccessResourceFailureException
+                || e instanceof CannotCreateTransactionException;
+    }
+
+    private void backOff(int attempt) {
+        if (!accepting) {
+            // Shutting down: retry at once rather than hold up the context close
+            return;
+        }
+        try {
+            Thread.sleep(retryBackoffMillis << Math.min(attempt - 1, 10));
+        } catch (InterruptedException e) {
+            // shutdown() interrupted the wait; the remaining attempts go without one
+        }
+    }
+
+    private void deadLetter(List<PendingInteraction> batch, RuntimeException failure) {
+        log.error("Dead-lettering {} interactions to {}", batch.size(), deadLetterFile, failure);
+        try {
+            Path directory = deadLetterFile.toAbsolutePath().getParent();
+            if (directory != null) {
+                Files.createDirectories(directory);
+            }
+            try (BufferedWriter out = Files.newBufferedWriter(deadLetterFile, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                for (PendingInteraction pending : batch) {
+                    out.write(deadLetterLine(pending, failure));
+                    out.newLine();
+                }
+            }
+            deadLettered.addAndGet(batch.size());
+        } catch (IOException e) {
+            // Last resort: the interactions survive in the log
+            for (PendingInteraction pending : batch) {
+                log.error("Could not dead-letter interaction: {}", deadLetterLine(pending, failure));
+            }
+            log.error("Writing dead-letter file {} failed", deadLetterFile, e);
+        }
+    }
+
+    private String deadLetterLine(PendingInteraction pending, RuntimeException failure) {
+        Map<String, Object> line = new LinkedHashMap<>();
+        line.put("leadId", pending.getRequest().getLeadId());
+        line.put("type", pending.getRequest().getType());
+        line.put("notes", pending.getRequest().getNotes());
+        line.put("receivedAt", pending.getReceivedAt().toString());
+        line.put("error", String.valueOf(failure));
+        try {
+            return objectMapper.writeValueAsString(line);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize interaction", e);
+        }
+    }
+
+    /**
+     * Writes the batch in one transaction.
+     *
+     * @return the interactions whose lead no longer exists, which were not written
+     */
+    List<PendingInteraction> flush(List<PendingInteraction> batch) {
+        return transactionTemplate.execute(status -> {
+            Map<Long, List<PendingInteraction>> byLead = batch.stream()
+                    .collect(Collectors.groupingBy(p -> p.getRequest().getLeadId(), LinkedHashMap::new, Collectors.toList()));
+            Map<Long, RestaurantLead> leads = restaurantLeadRepository.findAllByIdForUpdate(byLead.keySet())
+                    .stream()
+                    .collect(Collectors.toMap(RestaurantLead::getId, Function.identity()));
+
+            List<Interaction> interactions = new ArrayList<>(batch.size());
+            List<Object[]> counterUpdates = new ArrayList<>(leads.size());
+            List<LeadEvent> events = new ArrayList<>(batch.size());
+            List<PendingInteraction> unknown = new ArrayList<>();
+            byLead.forEach((leadId, pending) -> {
+                RestaurantLead lead = leads.get(leadId);
+                if (lead == null) {
+                    // Deleted since it was submitted; dead-lettered once this transaction has committed
+                    unknown.addAll(pending);
+                    return;
+                }
+                LeadStatus oldStatus = lead.getStatus();
+                for (PendingInteraction p : pending) {
+                    Interaction interaction = new Interaction();
+                    interaction.setType(p.getRequest().getType());
+                    interaction.setNotes(p.getRequest().getNotes());
+                    interaction.setInteractionDate(p.getReceivedAt());
+                    interaction.setRestaurantLead(lead);
+                    interactions.add(interaction);
+                    events.addAll(RestaurantLeadManagementService.interactionEvents(lead, lead.getStatus(),
+                            lead.getNextCallDate(), p.getRequest().getType(), p.getReceivedAt()));
+                    RestaurantLeadManagementService.applyInteraction(lead, p.getRequest().getType(), p.getReceivedAt());
+                }
+                LocalDateTime latest = pending.getLast().getReceivedAt();
+                counterUpdates.add(new Object[]{pending.size(), latest, latest, leadId});
+                Long kamId = RestaurantLeadManagementService.assignedKamId(lead);
+                LeadLoad load = LeadLoad.of(lead);
+                AfterCommit.run(() -> {
+                    kamScoreboard.onLeadStatusChanged(kamId, oldStatus, LeadStatus.IN_PROGRESS);
+                    kamLoadBalancer.onLeadStatusChanged(kamId, oldStatus, LeadStatus.IN_PROGRESS, load);
+                });
+            });
+
+            // Same statement as RestaurantLeadRepository.recordInteractions, sent as one JDBC batch
+            jdbcTemplate.batchUpdate("UPDATE restaurant_lead SET interaction_count = interaction_count + ?, " +
+                    "last_interaction_at = CASE WHEN last_interaction_at IS NULL OR last_interaction_at < ? " +
+                    "THEN ? ELSE last_interaction_at END WHERE id = ?", counterUpdates);
+            // Dirty leads are flushed as batched UPDATEs alongside the batched INSERTs on commit
+            interactionRepository.saveAll(interactions);
+            leadEventLog.append(events);
+            leadCaches.evictInteractions(leads.keySet());
+            return unknown;
+        });
+    }
+
+    @Getter
+    @AllArgsConstructor
+    static final class PendingInteraction {
+        private final InteractionRequestDTO request;
+        private final LocalDateTime receivedAt;
+    }
+}
@@ -0,0 +1,26 @@
+package com.udaan.leadmanagement.service;
+
+import lombok.Value;
+import lombok.With;
+
+import java.time.LocalDateTime;
+
+/**
+ * Immutable snapshot of one KAM's lead counters, as held by {@link KAMScoreboard}.
+ */
+@Value
+@With
+public class KAMScore {
+    Long kamId;
+    String kamName;
+    String kamEmail;
+    String kamPhone;
+    int totalLeads;
+    int convertedLeads;
+    // When one of the KAM's leads last changed status or owner; null when that is not known
+    LocalDateTime lastUpdated;
+
+    public double getConversionRate() {
+        return totalLeads == 0 ? 0.0 : (double) convertedLeads / totalLeads * 100;
+    }
+}
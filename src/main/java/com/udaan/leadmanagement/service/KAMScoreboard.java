@@ -0,0 +1,250 @@
+package com.udaan.leadmanagement.service;
+
+import com.udaan.leadmanagement.enums.LeadStatus;
+import com.udaan.leadmanagement.event.LeadEventLog;
+import com.udaan.leadmanagement.model.KAM;
+import com.udaan.leadmanagement.repository.KAMRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory per-KAM lead counters, kept in step with lead status changes and reassignments so
+ * the performance endpoints never have to aggregate over the leads table. They are aggregated at
+ * startup and again every {@code reseed-minutes}, to correct whatever a write path got wrong;
+ * changes applied while that query runs are applied again on top of its result, as in
+ * {@code KAMLoadBalancer}.
+ * Single-KAM lookups are a hash lookup; top/bottom-N walk a rate-ordered tree from either end.
+ * The sum of the KAMs' rates is kept alongside, so the average they are split at costs nothing to
+ * read. It is summed afresh on every {@link #seed}, so the rounding of its running updates never
+ * builds up for long, and rates within {@link #AVERAGE_TOLERANCE} of the average count as on it.
+ */
+@Slf4j
+@Component
+public class KAMScoreboard {
+    private static final Comparator<KAMScore> BY_CONVERSION_RATE =
+            Comparator.comparingDouble(KAMScore::getConversionRate).thenComparing(KAMScore::getKamId);
+
+    // In percentage points: far below any gap between rates that matters, far above the running sum's rounding
+    static final double AVERAGE_TOLERANCE = 1e-9;
+
+    private final KAMRepository kamRepository;
+    private final LeadEventLog leadEventLog;
+    private final long reseedMinutes;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "kam-scoreboard-reseed");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Map<Long, KAMScore> scores = new ConcurrentHashMap<>();
+    // The state below is guarded by this
+    private final TreeSet<KAMScore> ranking = new TreeSet<>(BY_CONVERSION_RATE);
+    private double conversionRateSum;
+    // Changes applied since a reseed query started, to apply again on top of its result; null otherwise
+    private List<Runnable> journal;
+
+    public KAMScoreboard(KAMRepository kamRepository,
+                         LeadEventLog leadEventLog,
+                         @Value("${leadmanagement.scoreboard.reseed-minutes:15}") long reseedMinutes) {
+        this.kamRepository = kamRepository;
+        this.leadEventLog = leadEventLog;
+        this.reseedMinutes = reseedMinutes;
+    }
+
+    @PostConstruct
+    public void initialize() {
+        seed(kamRepository.findKAMsPerformanceMetrics(), leadEventLog.lastLeadChangeByKam());
+        if (reseedMinutes > 0) {
+            scheduler.scheduleWithFixedDelay(this::reseedQuietly, reseedMinutes, reseedMinutes, TimeUnit.MINUTES);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Aggregates the counters from the leads table again and replaces the ones kept up to date in
+     * memory, keeping the changes applied while the query ran. A KAM's last update time only moves forward.
+     */
+    public void reseed() {
+        synchronized (this) {
+            journal = new ArrayList<>();
+        }
+        List<Object[]> metrics;
+        Map<Long, LocalDateTime> lastChanges;
+        try {
+            metrics = kamRepository.findKAMsPerformanceMetrics();
+            lastChanges = new HashMap<>(leadEventLog.lastLeadChangeByKam());
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                journal = null;
+            }
+            throw e;
+        }
+        synchronized (this) {
+            List<Runnable> changes = journal;
+            journal = null;
+            for (KAMScore score : scores.values()) {
+                if (score.getLastUpdated() != null) {
+                    lastChanges.merge(score.getKamId(), score.getLastUpdated(), (a, b) -> a.isAfter(b) ? a : b);
+                }
+            }
+            seed(metrics, lastChanges);
+            changes.forEach(Runnable::run);
+        }
+    }
+
+    private void reseedQuietly() {
+        try {
+            reseed();
+        } catch (RuntimeException e) {
+            log.error("Reloading the KAM scoreboard failed; keeping the counters in memory", e);
+        }
+    }
+
+    /**
+     * Replaces the scoreboard with rows shaped like {@code KAMRepository.findKAMsPerformanceMetrics()}.
+     *
+     * @param lastChanges when each KAM's leads last changed, as far as the lead event log knows; the
+     *                    KAMs missing from it start without a last update time
+     */
+    public synchronized void seed(List<Object[]> metrics, Map<Long, LocalDateTime> lastChanges) {
+        scores.clear();
+        ranking.clear();
+        conversionRateSum = 0;
+        for (Object[] row : metrics) {
+            put(new KAMScore(
+                    (Long) row[0],
+                    (String) row[1],
+                    (String) row[2],
+                    (String) row[3],
+                    ((Number) row[4]).intValue(),
+                    ((Number) row[5]).intValue(),
+                    lastChanges.get((Long) row[0])));
+        }
+    }
+
+    public synchronized void addKAM(KAM kam) {
+        if (journal != null) {
+            journal.add(() -> addKAM(kam));
+        }
+        if (!scores.containsKey(kam.getId())) {
+            put(new KAMScore(kam.getId(), kam.getName(), kam.getEmail(), kam.getPhone(), 0, 0, LocalDateTime.now()));
+        }
+    }
+
+    /**
+     * Any status change counts as an update of the KAM's figures, even one that leaves the counters as they are.
+     */
+    public synchronized void onLeadStatusChanged(Long kamId, LeadStatus oldStatus, LeadStatus newStatus) {
+        if (kamId == null || oldStatus == newStatus) {
+            return;
+        }
+        if (journal != null) {
+            journal.add(() -> onLeadStatusChanged(kamId, oldStatus, newStatus));
+        }
+        adjust(kamId, 0, convertedDelta(oldStatus, newStatus));
+    }
+
+    public synchronized void onLeadAssigned(Long oldKamId, Long newKamId, LeadStatus status) {
+        if (oldKamId != null && oldKamId.equals(newKamId)) {
+            return;
+        }
+        if (journal != null) {
+            journal.add(() -> onLeadAssigned(oldKamId, newKamId, status));
+        }
+        int converted = status == LeadStatus.CONVERTED ? 1 : 0;
+        if (oldKamId != null) {
+            adjust(oldKamId, -1, -converted);
+        }
+        if (newKamId != null) {
+            adjust(newKamId, 1, converted);
+        }
+    }
+
+    public Optional<KAMScore> get(long kamId) {
+        return Optional.ofNullable(scores.get(kamId));
+    }
+
+    public boolean isEmpty() {
+        return scores.isEmpty();
+    }
+
+    /**
+     * Up to {@code count} KAMs whose conversion rate is above the average, best first.
+     */
+    public synchronized List<KAMScore> topPerformers(int count) {
+        return collect(ranking.descendingIterator(), count, 1);
+    }
+
+    /**
+     * Up to {@code count} KAMs whose conversion rate is below the average, worst first.
+     */
+    public synchronized List<KAMScore> underPerformers(int count) {
+        return collect(ranking.iterator(), count, -1);
+    }
+
+    private List<KAMScore> collect(Iterator<KAMScore> iterator, int count, int side) {
+        List<KAMScore> result = new ArrayList<>(Math.min(count, scores.size()));
+        if (scores.isEmpty()) {
+            return result;
+        }
+        double average = averageConversionRate();
+        while (iterator.hasNext() && result.size() < count) {
+            KAMScore score = iterator.next();
+            double distance = score.getConversionRate() - average;
+            if (Math.abs(distance) <= AVERAGE_TOLERANCE || Math.signum(distance) != side) {
+                break;
+            }
+            result.add(score);
+        }
+        return result;
+    }
+
+    private void adjust(long kamId, int totalDelta, int convertedDelta) {
+        KAMScore current = scores.get(kamId);
+        if (current == null) {
+            return;
+        }
+        ranking.remove(current);
+        conversionRateSum -= current.getConversionRate();
+        put(current.withTotalLeads(current.getTotalLeads() + totalDelta)
+                .withConvertedLeads(current.getConvertedLeads() + convertedDelta)
+                .withLastUpdated(LocalDateTime.now()));
+    }
+
+    private void put(KAMScore score) {
+        scores.put(score.getKamId(), score);
+        ranking.add(score);
+        conversionRateSum += score.getConversionRate();
+    }
+
+    private double averageConversionRate() {
+        return conversionRateSum / ranking.size();
+    }
+
+    private static int convertedDelta(LeadStatus oldStatus, LeadStatus newStatus) {
+        int before = oldStatus == LeadStatus.CONVERTED ? 1 : 0;
+        int after = newStatus == LeadStatus.CONVERTED ? 1 : 0;
+        return after - before;
+    }
+}
@@ -1,147 +1,317 @@
 package com.udaan.leadmanagement.service;
 
+import com.udaan.leadmanagement.DTO.KAMLoadDTO;
+import com.udaan.leadmanagement.DTO.KAMRecentPerformanceDTO;
+import com.udaan.leadmanagement.analytics.KAMActivity;
+import com.udaan.leadmanagement.analytics.KAMActivityWindows;
+import com.udaan.leadmanagement.assignment.KAMLoad;
+import com.udaan.leadmanagement.assignment.KAMLoadBalancer;
+import com.udaan.leadmanagement.assignment.LeadLoad;
+import com.udaan.leadmanagement.event.LeadEventLog;
 import com.udaan.leadmanagement.exception.InternalServerException;
+import com.udaan.leadmanagement.feed.LeadChangeFeed;
 import com.udaan.leadmanagement.exception.KAMNotFoundException;
 import com.udaan.leadmanagement.exception.KAMPerformanceException;
 import com.udaan.leadmanagement.exception.LeadNotFoundException;
 import com.udaan.leadmanagement.model.KAM;
+import com.udaan.leadmanagement.model.LeadEvent;
 import com.udaan.leadmanagement.DTO.KAMPerformanceDTO;
+import com.udaan.leadmanagement.DTO.LeadSummaryDTO;
+import com.udaan.leadmanagement.enums.LeadStatus;
+import com.udaan.leadmanagement.geo.GeoPoint;
 import com.udaan.leadmanagement.model.RestaurantLead;
 import com.udaan.leadmanagement.repository.KAMRepository;
 import com.udaan.leadmanagement.repository.RestaurantLeadRepository;
+import com.udaan.leadmanagement.util.AfterCommit;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.DateTimeException;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntConsumer;
 
 @Service
 @RequiredArgsConstructor
 public class KAMService {
+    public static final int DEFAULT_ASSIGNMENT_BATCH_SIZE = 1000;
+
     private final KAMRepository kamRepository;
     private final RestaurantLeadRepository restaurantLeadRepository;
+    private final KAMScoreboard kamScoreboard;
+    private final LeadEventLog leadEventLog;
+    private final KAMActivityWindows kamActivityWindows;
+    private final KAMLoadBalancer kamLoadBalancer;
+    private final LeadChangeFeed leadChangeFeed;
 
     public KAM addKAM(KAM kam) {
+        if (kam.getTimezone() != null && !kam.getTimezone().isBlank()) {
+            try {
+                ZoneId.of(kam.getTimezone());
+            } catch (DateTimeException e) {
+                throw new IllegalArgumentException("Invalid timezone: " + kam.getTimezone());
+            }
+        }
         KAM addedKAM = kamRepository.save(kam);
         if (addedKAM.getId() == null) {
             throw (new InternalServerException("Internal Server Error, not able to save kam"));
         }
+        AfterCommit.run(() -> {
+            kamScoreboard.addKAM(addedKAM);
+            kamLoadBalancer.addKAM(addedKAM.getId());
+            kamActivityWindows.addKAM(addedKAM.getId(), addedKAM.getTimezone());
+        });
         return addedKAM;
     }
 
     public List<KAM> getAllKAM() {
-        List<KAM> kamList = kamRepository.findAll();
+        List<KAM> kamList = kamRepository.findAllWithLeadsBy();
         if (kamList.isEmpty()) {
             throw (new KAMNotFoundException("KAM not found"));
         }
         return kamList;
     }
 
-    public KAM assignLeadsToKAM(long kamId, List<Long> restaurantLeadIds) {
-        KAM kam = kamRepository.findById(kamId)
-                .orElseThrow(() -> new KAMNotFoundException("KAM not found with id: " + kamId));
+    @Transactional
+    public int assignLeadsToKAM(long kamId, List<Long> restaurantLeadIds, int batchSize) {
+        return assignLeadsToKAM(kamId, restaurantLeadIds, batchSize, assigned -> { });
+    }
 
-        List<RestaurantLead> leads = restaurantLeadIds.stream()
-                .map(id -> restaurantLeadRepository.findById(id)
-                        .orElseThrow(() -> new LeadNotFoundException("Lead not found with id: " + id)))
-                .toList();
+    /**
+     * Points every given lead at the KAM using set-based UPDATEs of {@code batchSize} ids each.
+     * Existence is checked up front with IN queries, so either all leads are reassigned or none are
+     * and every missing id is reported at once. The KAM's own lead collection is never loaded.
+     *
+     * @param onBatchAssigned called with the number of leads updated after each batch
+     * @return number of leads assigned
+     */
+    @Transactional
+    public int assignLeadsToKAM(long kamId, List<Long> restaurantLeadIds, int batchSize, IntConsumer onBatchAssigned) {
+        if (!kamRepository.existsById(kamId)) {
+            throw new KAMNotFoundException("KAM not found with id: " + kamId);
+        }
 
-        leads.forEach(lead -> {
-            lead.setAssignedKam(kam);
-            restaurantLeadRepository.save(lead);
-        });
+        List<List<Long>> batches = partition(new ArrayList<>(new LinkedHashSet<>(restaurantLeadIds)), batchSize);
 
-        kam.getLeads().addAll(leads);
-        return kamRepository.save(kam);
-    }
+        List<Object[]> currentState = new ArrayList<>(restaurantLeadIds.size());
+        for (List<Long> batch : batches) {
+            currentState.addAll(restaurantLeadRepository.findAssignmentStateByIdIn(batch));
+        }
+        Set<Long> missingIds = new LinkedHashSet<>(restaurantLeadIds);
+        currentState.forEach(row -> missingIds.remove((Long) row[0]));
+        if (!missingIds.isEmpty()) {
+            throw new LeadNotFoundException("Leads not found with ids: " + missingIds);
+        }
 
+        KAM kam = kamRepository.getReferenceById(kamId);
+        int assigned = 0;
+        for (List<Long> batch : batches) {
+            int updated = restaurantLeadRepository.assignLeadsToKAM(kam, batch);
+            assigned += updated;
+            onBatchAssigned.accept(updated);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<LeadEvent> events = new ArrayList<>(currentState.size());
+        Map<Long, Long> previousKamIds = new HashMap<>();
+        for (Object[] row : currentState) {
+            if (!Long.valueOf(kamId).equals(row[1])) {
+                events.add(LeadEvent.kamAssigned((Long) row[0], kamId, (LeadStatus) row[2], now));
+                if (row[1] != null) {
+                    previousKamIds.put((Long) row[0], (Long) row[1]);
+                }
+            }
+        }
+        leadEventLog.append(events);
+
+        AfterCommit.run(() -> {
+            currentState.forEach(row -> {
+                kamScoreboard.onLeadAssigned((Long) row[1], kamId, (LeadStatus) row[2]);
+                kamLoadBalancer.onLeadAssigned((Long) row[1], kamId, (LeadStatus) row[2],
+                        new LeadLoad((Integer) row[3], (Double) row[4], (Double) row[5]));
+            });
+            leadChangeFeed.onLeadsReassigned(events, previousKamIds);
+        });
+        return assigned;
+    }
 
     public List<RestaurantLead> getLeadsByKAMId(long kamId) {
-        KAM kam = kamRepository.findById(kamId)
-                .orElseThrow(() -> new KAMNotFoundException("KAM not found with id: " + kamId));
-        List<RestaurantLead> leads = kam.getLeads();
-        if (leads == null ||leads.isEmpty()) {
-            throw (new LeadNotFoundException("Lead not found under KAM id " + kamId));
+        List<RestaurantLead> leads = restaurantLeadRepository.findByAssignedKamIdOrderById(kamId);
+        if (leads.isEmpty()) {
+            throw noLeadsFor(kamId);
         }
         return leads;
     }
 
-    public KAMPerformanceDTO getKAMPerformance(Long kamId) {
-        List<KAMPerformanceDTO> allPerformance = getAllKAMPerformance();
+    public List<LeadSummaryDTO> getLeadSummariesByKAMId(long kamId) {
+        List<LeadSummaryDTO> leads = restaurantLeadRepository.findLeadSummariesByKamId(kamId);
+        if (leads.isEmpty()) {
+            throw noLeadsFor(kamId);
+        }
+        return leads;
+    }
+
+    // Only consulted when the KAM has no leads, so the common case stays a single query
+    private RuntimeException noLeadsFor(long kamId) {
+        if (!kamRepository.existsById(kamId)) {
+            return new KAMNotFoundException("KAM not found with id: " + kamId);
+        }
+        return new LeadNotFoundException("Lead not found under KAM id " + kamId);
+    }
 
-        return allPerformance.stream()
-                .filter(kam -> kam.getKamId().equals(kamId))
-                .findFirst()
+    public KAMPerformanceDTO getKAMPerformance(Long kamId) {
+        return kamScoreboard.get(kamId)
+                .map(this::mapToKAMPerformanceDTO)
                 .orElseThrow(() -> new KAMNotFoundException("KAM not found with id: " + kamId));
     }
 
     public List<KAMPerformanceDTO> getTopPerformingKAMs(int count) {
-        List<KAMPerformanceDTO> allKAMs = getAllKAMPerformance();
-        if (allKAMs.isEmpty()) {
+        if (kamScoreboard.isEmpty()) {
             throw new KAMPerformanceException("No KAMs found");
         }
 
-        double avgConversionRate = calculateAverageConversionRate(allKAMs);
-
-        List<KAMPerformanceDTO> topPerformers = allKAMs.stream()
-                .filter(kam -> kam.getConversionRate() > avgConversionRate)
-                .sorted(Comparator.comparing(KAMPerformanceDTO::getConversionRate).reversed())
-                .collect(Collectors.toList());
+        List<KAMPerformanceDTO> topPerformers = kamScoreboard.topPerformers(count)
+                .stream()
+                .map(this::mapToKAMPerformanceDTO)
+                .toList();
 
         if (topPerformers.isEmpty()) {
             throw new KAMPerformanceException("No top-performing KAMs found above average conversion rate");
         }
 
-        return topPerformers.subList(0, Math.min(count, topPerformers.size()));
+        return topPerformers;
     }
 
     public List<KAMPerformanceDTO> getUnderPerformingKAMs(int count) {
-        List<KAMPerformanceDTO> allKAMs = getAllKAMPerformance();
-        if (allKAMs.isEmpty()) {
+        if (kamScoreboard.isEmpty()) {
             throw new KAMPerformanceException("No KAMs found");
         }
 
-        double avgConversionRate = calculateAverageConversionRate(allKAMs);
-
-        List<KAMPerformanceDTO> underPerformers = allKAMs.stream()
-                .filter(kam -> kam.getConversionRate() < avgConversionRate)
-                .sorted(Comparator.comparing(KAMPerformanceDTO::getConversionRate))
-                .collect(Collectors.toList());
+        List<KAMPerformanceDTO> underPerformers = kamScoreboard.underPerformers(count)
+                .stream()
+                .map(this::mapToKAMPerformanceDTO)
+                .toList();
 
         if (underPerformers.isEmpty()) {
             throw new KAMPerformanceException("No under-performing KAMs found below average conversion rate");
         }
 
-        return underPerformers.subList(0, Math.min(count, underPerformers.size()));
+        return underPerformers;
     }
 
-    private double calculateAverageConversionRate(List<KAMPerformanceDTO> kams) {
-        return kams.stream()
-                .mapToDouble(KAMPerformanceDTO::getConversionRate)
-                .average()
-                .orElse(0.0);
+    /**
+     * The KAM's activity over the last {@code days} days, in the KAM's timezone, from the in-memory
+     * activity windows.
+     *
+     * @throws IllegalStateException while the windows are still loading
+     */
+    public KAMRecentPerformanceDTO getRecentPerformance(long kamId, int days) {
+        KAMScore score = kamScoreboard.get(kamId)
+                .orElseThrow(() -> new KAMNotFoundException("KAM not found with id: " + kamId));
+        return mapToKAMRecentPerformanceDTO(score, kamActivityWindows.getActivity(kamId, days, LocalDateTime.now()));
     }
 
-    private List<KAMPerformanceDTO> getAllKAMPerformance() {
-        return kamRepository.findKAMsPerformanceMetrics()
-                .stream()
-                .map(this::mapToKAMPerformanceDTO)
-                .collect(Collectors.toList());
+    /**
+     * Up to {@code count} KAMs with the best conversion rate among the leads they closed in the
+     * last {@code days} days, best first; KAMs that closed none are left out.
+     */
+    public List<KAMRecentPerformanceDTO> getTopRecentPerformers(int count, int days) {
+        List<KAMRecentPerformanceDTO> performers = kamActivityWindows.getAllActivity(days, LocalDateTime.now()).stream()
+                .filter(activity -> activity.getConversions() + activity.getLosses() > 0)
+                .flatMap(activity -> kamScoreboard.get(activity.getKamId()).stream()
+                        .map(score -> mapToKAMRecentPerformanceDTO(score, activity)))
+                .sorted(Comparator.comparing(KAMRecentPerformanceDTO::getConversionRate).reversed()
+                        .thenComparing(KAMRecentPerformanceDTO::getConversions, Comparator.reverseOrder())
+                        .thenComparing(KAMRecentPerformanceDTO::getKamId))
+                .limit(count)
+                .toList();
+
+        if (performers.isEmpty()) {
+            throw new KAMPerformanceException("No KAMs closed leads in the last " + days + " days");
+        }
+        return performers;
     }
 
+    /**
+     * Every KAM's workload, the KAM the assignment policy would give the next new lead first.
+     */
+    public List<KAMLoadDTO> getKAMLoads() {
+        List<KAMLoad> loads = kamLoadBalancer.getLoads();
+        if (loads.isEmpty()) {
+            throw new KAMNotFoundException("KAM not found");
+        }
+        return loads.stream()
+                .map(this::mapToKAMLoadDTO)
+                .toList();
+    }
 
-    private KAMPerformanceDTO mapToKAMPerformanceDTO(Object[] result) {
+    private static List<List<Long>> partition(List<Long> ids, int batchSize) {
+        int size = Math.max(1, batchSize);
+        List<List<Long>> batches = new ArrayList<>((ids.size() + size - 1) / size);
+        for (int from = 0; from < ids.size(); from += size) {
+            batches.add(ids.subList(from, Math.min(from + size, ids.size())));
+        }
+        return batches;
+    }
+
+    private KAMPerformanceDTO mapToKAMPerformanceDTO(KAMScore score) {
         KAMPerformanceDTO dto = new KAMPerformanceDTO();
-        dto.setKamId((Long) result[0]);
-        dto.setKamName((String) result[1]);
-        dto.setKamEmail((String) result[2]);
-        dto.setKamPhone((String) result[3]);
-        dto.setTotalLeads(((Number) result[4]).intValue());
-        dto.setConvertedLeads(((Number) result[5]).intValue());
-        dto.setConversionRate(((Number) result[6]).doubleValue());
-        dto.setLastUpdated(LocalDateTime.now());
+        dto.setKamId(score.getKamId());
+        dto.setKamName(score.getKamName());
+        dto.setKamEmail(score.getKamEmail());
+        dto.setKamPhone(score.getKamPhone());
+        dto.setTotalLeads(score.getTotalLeads());
+        dto.setConvertedLeads(score.getConvertedLeads());
+        dto.setConversionRate(score.getConversionRate());
+        dto.setLastUpdated(score.getLastUpdated());
+        return dto;
+    }
+
+    private KAMLoadDTO mapToKAMLoadDTO(KAMLoad load) {
+        KAMLoadDTO dto = new KAMLoadDTO();
+        dto.setKamId(load.getKamId());
+        kamScoreboard.get(load.getKamId()).ifPresent(score -> dto.setKamName(score.getKamName()));
+        dto.setActiveLeads(load.getActiveLeads());
+        dto.setDailyCalls(load.getDailyCalls());
+        dto.setTotalLeads(load.getTotalLeads());
+        dto.setConversionRate(load.getConversionRate());
+        GeoPoint territory = load.getTerritory();
+        if (territory != null) {
+            dto.setTerritoryLatitude(territory.getLatitude());
+            dto.setTerritoryLongitude(territory.getLongitude());
+        }
+        return dto;
+    }
+
+    // Adherence is over the calls that came due: those made while due and those missed so far
+    private static KAMRecentPerformanceDTO mapToKAMRecentPerformanceDTO(KAMScore score, KAMActivity activity) {
+        int closed = activity.getConversions() + activity.getLosses();
+        KAMRecentPerformanceDTO dto = new KAMRecentPerformanceDTO();
+        dto.setKamId(score.getKamId());
+        dto.setKamName(score.getKamName());
+        dto.setDays(activity.getDays());
+        dto.setConversions(activity.getConversions());
+        dto.setLosses(activity.getLosses());
+        dto.setConversionRate(closed == 0 ? null : (double) activity.getConversions() / closed * 100);
+        dto.setInteractions(activity.getInteractions());
+        dto.setTotalLeads(score.getTotalLeads());
+        dto.setInteractionsPerLead(score.getTotalLeads() == 0 ? null
+                : (double) activity.getInteractions() / score.getTotalLeads());
+        int dueCalls = activity.getScheduledCalls() + activity.getMissedCalls();
+        dto.setScheduledCalls(dueCalls);
+        dto.setOnScheduleCalls(activity.getOnScheduleCalls());
+        dto.setMissedCalls(activity.getMissedCalls());
+        dto.setCallAdherence(dueCalls == 0 ? null : (double) activity.getOnScheduleCalls() / dueCalls * 100);
+        // The windows only reach back so far; beyond them the scoreboard still knows
+        dto.setLastUpdated(activity.getLastEventAt() != null ? activity.getLastEventAt() : score.getLastUpdated());
         return dto;
     }
-}
\ No newline at end of file
+}
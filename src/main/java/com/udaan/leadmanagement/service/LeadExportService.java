@@ -0,0 +1,52 @@
+package com.udaan.leadmanagement.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.udaan.leadmanagement.DTO.LeadSummaryDTO;
+import com.udaan.leadmanagement.repository.RestaurantLeadRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+@Service
+@RequiredArgsConstructor
+public class LeadExportService {
+    private final RestaurantLeadRepository restaurantLeadRepository;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Writes every lead as one JSON object per line (NDJSON) to the given stream.
+     * Rows come from a forward-only cursor over a scalar projection, so nothing is kept in the
+     * persistence context and heap use does not depend on the number of leads.
+     *
+     * @return number of leads written
+     */
+    @Transactional(readOnly = true)
+    public long exportLeads(OutputStream outputStream) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(LeadSummaryDTO.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        long written = 0;
+
+        try (Stream<LeadSummaryDTO> leads = restaurantLeadRepository.streamAllLeadSummaries();
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+
+            Iterator<LeadSummaryDTO> iterator = leads.iterator();
+            while (iterator.hasNext()) {
+                writer.writeValue(generator, iterator.next());
+                generator.writeRaw('\n');
+                written++;
+            }
+            generator.flush();
+        }
+        return written;
+    }
+}
@@ -0,0 +1,408 @@
+package com.udaan.leadmanagement.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.udaan.leadmanagement.DTO.LeadImportRowDTO;
+import com.udaan.leadmanagement.assignment.KAMLoadBalancer;
+import com.udaan.leadmanagement.assignment.LeadLoad;
+import com.udaan.leadmanagement.enums.ImportFormat;
+import com.udaan.leadmanagement.enums.LeadEventType;
+import com.udaan.leadmanagement.enums.LeadStatus;
+import com.udaan.leadmanagement.event.LeadEventLog;
+import com.udaan.leadmanagement.geo.GeoPoint;
+import com.udaan.leadmanagement.geo.Geocoder;
+import com.udaan.leadmanagement.geo.LeadGeoIndex;
+import com.udaan.leadmanagement.model.Contact;
+import com.udaan.leadmanagement.model.KAM;
+import com.udaan.leadmanagement.model.LeadEvent;
+import com.udaan.leadmanagement.model.RestaurantLead;
+import com.udaan.leadmanagement.search.LeadSearchIndex;
+import com.udaan.leadmanagement.util.AfterCommit;
+import com.udaan.leadmanagement.util.CsvReader;
+import com.udaan.leadmanagement.util.SequenceIdBlock;
+import com.udaan.leadmanagement.validation.ContactValidator;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.dialect.sequence.SequenceSupport;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Bulk lead import from CSV or NDJSON uploads. The upload is parsed as a stream and every
+ * {@code leadmanagement.import.batch-size} valid rows are written in one transaction as two plain
+ * JDBC batches, one for the leads and one for their contacts. Ids come from the entities' own
+ * sequences, so no per-row round trip is needed to learn them.
+ * <p>
+ * Rows that fail validation are skipped and reported on the job as {@code "Line n: reason"};
+ * every other row is imported. Batches committed before a database failure stay committed and
+ * the job's processed count says how many leads made it.
+ * <p>
+ * Each lead is given a KAM by the {@link KAMLoadBalancer} as its batch is written, unless
+ * automatic assignment is off.
+ */
+@Service
+public class LeadImportService {
+    // allocationSize of the restaurant_lead_seq and contact_seq generators
+    private static final long ID_BLOCK_SIZE = 100;
+    private static final List<String> COLUMNS = List.of("name", "address", "callFrequency",
+            "contactName", "contactRole", "contactEmail", "contactPhone");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final BackgroundJobService jobService;
+    private final ContactValidator contactValidator;
+    private final LeadEventLog leadEventLog;
+    private final LeadSearchIndex leadSearchIndex;
+    private final LeadGeoIndex leadGeoIndex;
+    private final Geocoder geocoder;
+    private final KAMScoreboard kamScoreboard;
+    private final KAMLoadBalancer kamLoadBalancer;
+    private final ObjectReader rowReader;
+    private final String leadSequenceSql;
+    private final String contactSequenceSql;
+    private final int batchSize;
+
+    public LeadImportService(JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager,
+                             EntityManagerFactory entityManagerFactory,
+                             BackgroundJobService jobService,
+                             ContactValidator contactValidator,
+                             LeadEventLog leadEventLog,
+                             LeadSearchIndex leadSearchIndex,
+                             LeadGeoIndex leadGeoIndex,
+                             Geocoder geocoder,
+                             KAMScoreboard kamScoreboard,
+                             KAMLoadBalancer kamLoadBalancer,
+                             ObjectMapper objectMapper,
+                             @Value("${leadmanagement.import.batch-size:1000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        SequenceSupport sequences = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices().getDialect().getSequenceSupport();
+        this.leadSequenceSql = sequences.getSequenceNextValString("restaurant_lead_seq");
+        this.contactSequenceSql = sequences.getSequenceNextValString("contact_seq");
+        this.jobService = jobService;
+        this.contactValidator = contactValidator;
+        this.leadEventLog = leadEventLog;
+        this.leadSearchIndex = leadSearchIndex;
+        this.leadGeoIndex = leadGeoIndex;
+        this.geocoder = geocoder;
+        this.kamScoreboard = kamScoreboard;
+        this.kamLoadBalancer = kamLoadBalancer;
+        this.rowReader = objectMapper.readerFor(LeadImportRowDTO.class);
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Copies the upload to a temporary file (the multipart file is gone once the request ends)
+     * and imports it as a background job.
+     */
+    public BackgroundJob startImport(MultipartFile file, ImportFormat format) throws IOException {
+        Path upload = Files.createTempFile("lead-import-", "." + format.name().toLowerCase(Locale.ROOT));
+        try {
+            file.transferTo(upload);
+        } catch (IOException e) {
+            Files.deleteIfExists(upload);
+            throw e;
+        }
+        return jobService.submit("LEAD_IMPORT", 0, job -> {
+            try (InputStream in = Files.newInputStream(upload)) {
+                importLeads(in, format, job);
+            } finally {
+                Files.deleteIfExists(upload);
+            }
+        });
+    }
+
+    /**
+     * @return number of leads imported
+     */
+    public long importLeads(InputStream in, ImportFormat format, BackgroundJob job) throws IOException {
+        Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8);
+        BatchWriter writer = new BatchWriter(job);
+        if (format == ImportFormat.CSV) {
+            readCsv(reader, writer, job);
+        } else {
+            readNdjson(reader, writer, job);
+        }
+        writer.flush();
+        return writer.imported;
+    }
+
+    private void readCsv(Reader reader, BatchWriter writer, BackgroundJob job) throws IOException {
+        CsvReader csv = new CsvReader(reader);
+        List<String> header = csv.readRecord();
+        if (header == null) {
+            return;
+        }
+        int[] columnIndex = mapColumns(header);
+
+        List<String> record;
+        while ((record = csv.readRecord()) != null) {
+            long line = csv.getRecordLine();
+            job.setTotalItems(++writer.rowsRead);
+            try {
+                writer.add(toRow(record, columnIndex));
+            } catch (IllegalArgumentException e) {
+                job.addError("Line " + line + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private void readNdjson(Reader reader, BatchWriter writer, BackgroundJob job) throws IOException {
+        BufferedReader lines = new BufferedReader(reader);
+        String text;
+        long line = 0;
+        while ((text = lines.readLine()) != null) {
+            line++;
+            if (text.isBlank()) {
+                continue;
+            }
+            job.setTotalItems(++writer.rowsRead);
+            try {
+                writer.add(rowReader.readValue(text));
+            } catch (JsonProcessingException e) {
+                job.addError("Line " + line + ": malformed JSON (" + e.getOriginalMessage() + ")");
+            } catch (IllegalArgumentException e) {
+                job.addError("Line " + line + ": " + e.getMessage());
+            }
+        }
+    }
+
+    // Position of each known column in the header, -1 when the file does not have it
+    private static int[] mapColumns(List<String> header) {
+        Map<String, Integer> positions = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            positions.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        if (!positions.containsKey("name")) {
+            throw new IllegalArgumentException("CSV header must contain a 'name' column");
+        }
+        int[] columnIndex = new int[COLUMNS.size()];
+        for (int i = 0; i < COLUMNS.size(); i++) {
+            columnIndex[i] = positions.getOrDefault(COLUMNS.get(i).toLowerCase(Locale.ROOT), -1);
+        }
+        return columnIndex;
+    }
+
+    private static LeadImportRowDTO toRow(List<String> record, int[] columnIndex) {
+        String frequency = column(record, columnIndex[2]);
+        Integer callFrequency = null;
+        if (frequency != null) {
+            try {
+                callFrequency = Integer.valueOf(frequency);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("callFrequency must be a whole number of days");
+            }
+        }
+        return new LeadImportRowDTO(column(record, columnIndex[0]), column(record, columnIndex[1]), callFrequency,
+                column(record, columnIndex[3]), column(record, columnIndex[4]),
+                column(record, columnIndex[5]), column(record, columnIndex[6]));
+    }
+
+    private static String column(List<String> record, int index) {
+        if (index < 0 || index >= record.size()) {
+            return null;
+        }
+        String value = record.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    /**
+     * Validates a row and turns it into a new lead, plus its primary contact when the row has one.
+     */
+    RestaurantLead toLead(LeadImportRowDTO row, LocalDateTime now) {
+        if (row.getName() == null || row.getName().isBlank()) {
+            throw new IllegalArgumentException("name is required");
+        }
+        if (row.getCallFrequency() == null || row.getCallFrequency() < 1) {
+            throw new IllegalArgumentException("callFrequency must be at least 1 day");
+        }
+
+        RestaurantLead lead = new RestaurantLead();
+        lead.setName(row.getName().trim());
+        lead.setAddress(row.getAddress());
+        lead.setCallFrequency(row.getCallFrequency());
+        // Same initial state as RestaurantLeadManagementService.createLead
+        lead.setStatus(LeadStatus.NEW);
+        lead.setNextCallDate(RestaurantLeadManagementService.calculateNextCallDate(row.getCallFrequency(), now));
+        lead.setContacts(new ArrayList<>(1));
+        RestaurantLeadManagementService.locate(lead, geocoder);
+
+        if (row.getContactName() != null || row.getContactRole() != null
+                || row.getContactEmail() != null || row.getContactPhone() != null) {
+            Contact contact = new Contact();
+            contact.setName(row.getContactName());
+            contact.setRole(row.getContactRole());
+            contact.setEmail(row.getContactEmail());
+            contact.setPhone(row.getContactPhone());
+            contactValidator.normalize(contact);
+            contact.setPrimaryContact(true);
+            contact.setRestaurantLead(lead);
+            lead.getContacts().add(contact);
+        }
+        return lead;
+    }
+
+    /**
+     * Collects valid rows and writes them in batches, one transaction per batch.
+     */
+    private final class BatchWriter {
+        private final BackgroundJob job;
+        private final SequenceIdBlock leadIds = new SequenceIdBlock(jdbcTemplate, leadSequenceSql, ID_BLOCK_SIZE);
+        private final SequenceIdBlock contactIds = new SequenceIdBlock(jdbcTemplate, contactSequenceSql, ID_BLOCK_SIZE);
+        private final List<RestaurantLead> leads = new ArrayList<>(batchSize);
+        private final List<Contact> contacts = new ArrayList<>(batchSize);
+        private LocalDateTime batchTime = LocalDateTime.now();
+        private long rowsRead;
+        private long imported;
+
+        private BatchWriter(BackgroundJob job) {
+            this.job = job;
+        }
+
+        void add(LeadImportRowDTO row) {
+            RestaurantLead lead = toLead(row, batchTime);
+            leads.add(lead);
+            contacts.addAll(lead.getContacts());
+            if (leads.size() == batchSize) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (leads.isEmpty()) {
+                return;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    for (RestaurantLead lead : leads) {
+                        lead.setId(leadIds.next());
+                        lead.setAssignedKam(kamReference(kamLoadBalancer.assign(LeadLoad.of(lead))));
+                    }
+                    for (Contact contact : contacts) {
+                        contact.setId(contactIds.next());
+                    }
+                    insertLeads(leads);
+                    if (!contacts.isEmpty()) {
+                        insertContacts(contacts);
+                    }
+                    leadEventLog.append(events());
+                    List<RestaurantLead> committed = List.copyOf(leads);
+                    AfterCommit.run(() -> committed.forEach(lead -> {
+                        leadSearchIndex.leadSaved(lead);
+                        if (lead.getLatitude() != null) {
+                            leadGeoIndex.leadLocated(lead.getId(), new GeoPoint(lead.getLatitude(), lead.getLongitude()));
+                        }
+                        kamScoreboard.onLeadAssigned(null, RestaurantLeadManagementService.assignedKamId(lead),
+                                LeadStatus.NEW);
+                    }));
+                });
+            } catch (RuntimeException e) {
+                throw new IllegalStateException("Import stopped after " + imported + " leads: " + e.getMessage(), e);
+            }
+            imported += leads.size();
+            job.addProcessed(leads.size());
+            leads.clear();
+            contacts.clear();
+            batchTime = LocalDateTime.now();
+        }
+
+        private List<LeadEvent> events() {
+            List<LeadEvent> events = new ArrayList<>(leads.size() + contacts.size());
+            for (RestaurantLead lead : leads) {
+                events.add(LeadEvent.leadCreated(lead.getId(), RestaurantLeadManagementService.assignedKamId(lead),
+                        lead.getStatus(), batchTime));
+            }
+            for (Contact contact : contacts) {
+                events.add(LeadEvent.contactChanged(LeadEventType.CONTACT_ADDED,
+                        contact.getRestaurantLead().getId(), contact.getId(), batchTime));
+            }
+            return events;
+        }
+    }
+
+    private void insertLeads(List<RestaurantLead> leads) {
+        jdbcTemplate.batchUpdate("INSERT INTO restaurant_lead (id, name, address, latitude, longitude, status, " +
+                "call_frequency, next_call_date, contact_count, primary_contact_id, kam_id, interaction_count) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0)", new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                RestaurantLead lead = leads.get(i);
+                ps.setLong(1, lead.getId());
+                ps.setString(2, lead.getName());
+                ps.setString(3, lead.getAddress());
+                ps.setObject(4, lead.getLatitude(), Types.DOUBLE);
+                ps.setObject(5, lead.getLongitude(), Types.DOUBLE);
+                ps.setString(6, lead.getStatus().name());
+                ps.setInt(7, lead.getCallFrequency());
+                ps.setTimestamp(8, Timestamp.valueOf(lead.getNextCallDate()));
+                // The row's contact, if any, is the lead's only and therefore primary contact
+                ps.setInt(9, lead.getContacts().size());
+                ps.setObject(10, lead.getContacts().isEmpty() ? null : lead.getContacts().getFirst().getId(), Types.BIGINT);
+                ps.setObject(11, RestaurantLeadManagementService.assignedKamId(lead), Types.BIGINT);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return leads.size();
+            }
+        });
+    }
+
+    // The leads are written with plain JDBC, which only needs the KAM's id
+    private static KAM kamReference(Long kamId) {
+        if (kamId == null) {
+            return null;
+        }
+        KAM kam = new KAM();
+        kam.setId(kamId);
+        return kam;
+    }
+
+    private void insertContacts(List<Contact> contacts) {
+        jdbcTemplate.batchUpdate("INSERT INTO contact (id, name, role, email, phone, restaurant_lead_id) " +
+                "VALUES (?, ?, ?, ?, ?, ?)", new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Contact contact = contacts.get(i);
+                ps.setLong(1, contact.getId());
+                ps.setString(2, contact.getName());
+                ps.setString(3, contact.getRole());
+                ps.setString(4, contact.getEmail());
+                ps.setString(5, contact.getPhone());
+                ps.setLong(6, contact.getRestaurantLead().getId());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return contacts.size();
+            }
+        });
+    }
+}
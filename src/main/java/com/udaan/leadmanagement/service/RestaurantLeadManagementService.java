@@ -1,31 +1,137 @@
 package com.udaan.leadmanagement.service;
 
+import com.udaan.leadmanagement.DTO.InteractionDTO;
+import com.udaan.leadmanagement.DTO.InteractionPageDTO;
+import com.udaan.leadmanagement.DTO.LeadPageDTO;
+import com.udaan.leadmanagement.DTO.LeadSummaryDTO;
+import com.udaan.leadmanagement.DTO.LeadsInAreaDTO;
+import com.udaan.leadmanagement.DTO.NearbyLeadDTO;
+import com.udaan.leadmanagement.assignment.KAMLoadBalancer;
+import com.udaan.leadmanagement.assignment.LeadLoad;
+import com.udaan.leadmanagement.cache.LeadCaches;
 import com.udaan.leadmanagement.enums.InteractionType;
 import com.udaan.leadmanagement.enums.LeadStatus;
-import com.udaan.leadmanagement.exception.InteractionNotFoundException;
+import com.udaan.leadmanagement.event.LeadEventLog;
 import com.udaan.leadmanagement.exception.LeadNotFoundException;
+import com.udaan.leadmanagement.geo.GeoArea;
+import com.udaan.leadmanagement.geo.GeoMatch;
+import com.udaan.leadmanagement.geo.GeoPoint;
+import com.udaan.leadmanagement.geo.Geocoder;
+import com.udaan.leadmanagement.geo.LeadGeoIndex;
 import com.udaan.leadmanagement.model.Interaction;
+import com.udaan.leadmanagement.model.LeadEvent;
 import com.udaan.leadmanagement.model.RestaurantLead;
 import com.udaan.leadmanagement.repository.InteractionRepository;
+import com.udaan.leadmanagement.repository.KAMRepository;
 import com.udaan.leadmanagement.repository.RestaurantLeadRepository;
+import com.udaan.leadmanagement.search.LeadSearchIndex;
+import com.udaan.leadmanagement.util.AfterCommit;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class RestaurantLeadManagementService {
+    static final int MAX_PAGE_SIZE = 500;
+    public static final int DEFAULT_INTERACTION_PAGE_SIZE = 50;
+    private static final String CURSOR_SEPARATOR = "_";
+
     private final RestaurantLeadRepository restaurantLeadRepository;
     private final InteractionRepository interactionRepository;
+    private final KAMRepository kamRepository;
+    private final KAMScoreboard kamScoreboard;
+    private final KAMLoadBalancer kamLoadBalancer;
+    private final LeadCaches leadCaches;
+    private final LeadEventLog leadEventLog;
+    private final LeadSearchIndex leadSearchIndex;
+    private final LeadGeoIndex leadGeoIndex;
+    private final Geocoder geocoder;
 
+    /**
+     * Saves a new lead. One that comes without a KAM is given one by the {@link KAMLoadBalancer},
+     * unless automatic assignment is off.
+     */
+    @Transactional
     public RestaurantLead createLead(RestaurantLead lead) {
+        LocalDateTime now = LocalDateTime.now();
         lead.setStatus(LeadStatus.NEW);
-        lead.setNextCallDate(calculateNextCallDate(lead.getCallFrequency(), LocalDateTime.now()));
-        return restaurantLeadRepository.save(lead);
+        lead.setNextCallDate(calculateNextCallDate(lead.getCallFrequency(), now));
+        GeoPoint position = locate(lead, geocoder);
+        Long balancedKamId = lead.getAssignedKam() == null ? kamLoadBalancer.assign(LeadLoad.of(lead)) : null;
+        if (balancedKamId != null) {
+            lead.setAssignedKam(kamRepository.getReferenceById(balancedKamId));
+        }
+        RestaurantLead savedLead = restaurantLeadRepository.save(lead);
+        Long kamId = assignedKamId(savedLead);
+        leadEventLog.append(LeadEvent.leadCreated(savedLead.getId(), kamId, LeadStatus.NEW, now));
+        AfterCommit.run(() -> {
+            leadSearchIndex.leadSaved(savedLead);
+            if (position != null) {
+                leadGeoIndex.leadLocated(savedLead.getId(), position);
+            }
+            kamScoreboard.onLeadAssigned(null, kamId, LeadStatus.NEW);
+            // The balancer has already counted the leads it assigned itself
+            if (balancedKamId == null) {
+                kamLoadBalancer.onLeadAssigned(null, kamId, LeadStatus.NEW, LeadLoad.of(savedLead));
+            }
+        });
+        return savedLead;
+    }
+
+    /**
+     * Leads within {@code radiusKm} of the point, closest first.
+     */
+    public LeadsInAreaDTO getLeadsNear(GeoPoint point, double radiusKm, int limit) {
+        GeoArea area = leadGeoIndex.near(point, radiusKm, limit);
+        return new LeadsInAreaDTO(area.getTotal(), withSummaries(area.getMatches()));
+    }
+
+    /**
+     * Leads inside the box, closest to its centre first.
+     */
+    public LeadsInAreaDTO getLeadsWithin(GeoPoint southWest, GeoPoint northEast, int limit) {
+        if (southWest.getLatitude() > northEast.getLatitude() || southWest.getLongitude() > northEast.getLongitude()) {
+            throw new IllegalArgumentException("The south-west corner must be south and west of the north-east corner");
+        }
+        GeoArea area = leadGeoIndex.within(southWest, northEast, limit);
+        return new LeadsInAreaDTO(area.getTotal(), withSummaries(area.getMatches()));
+    }
+
+    public List<NearbyLeadDTO> getNearestLeads(GeoPoint point, int n) {
+        return withSummaries(leadGeoIndex.nearest(point, n));
+    }
+
+    // One query for the page of leads the index found, kept in the index's order
+    private List<NearbyLeadDTO> withSummaries(List<GeoMatch> matches) {
+        if (matches.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, LeadSummaryDTO> summaries = restaurantLeadRepository
+                .findLeadSummariesByIdIn(matches.stream().map(GeoMatch::getLeadId).toList()).stream()
+                .collect(Collectors.toMap(LeadSummaryDTO::getId, Function.identity()));
+        List<NearbyLeadDTO> leads = new ArrayList<>(matches.size());
+        for (GeoMatch match : matches) {
+            LeadSummaryDTO summary = summaries.get(match.getLeadId());
+            if (summary != null) {
+                leads.add(new NearbyLeadDTO(summary.getId(), summary.getName(), summary.getAddress(),
+                        summary.getStatus(), summary.getKamId(), match.getLatitude(), match.getLongitude(),
+                        match.getDistanceKm()));
+            }
+        }
+        return leads;
     }
 
     public List<RestaurantLead> getAllLeads() {
@@ -36,6 +142,23 @@ public class RestaurantLeadManagementService {
         return leads;
     }
 
+    public LeadPageDTO getLeadsPage(Long after, int limit, LeadStatus status, Long kamId) {
+        int pageSize = Math.min(Math.max(limit, 1), MAX_PAGE_SIZE);
+
+        // Ask for one extra row so we know whether another page exists without a COUNT query
+        List<LeadSummaryDTO> rows = restaurantLeadRepository.findLeadSummariesAfter(
+                after == null ? 0L : after,
+                status,
+                kamId,
+                Limit.of(pageSize + 1));
+
+        if (rows.size() <= pageSize) {
+            return new LeadPageDTO(rows, null);
+        }
+        List<LeadSummaryDTO> page = rows.subList(0, pageSize);
+        return new LeadPageDTO(page, page.getLast().getId());
+    }
+
     public List<RestaurantLead> getTodayCalls() {
         LocalDateTime startOfDay = LocalDate.now().atStartOfDay();
         LocalDateTime endOfDay = startOfDay.plusDays(1).minusSeconds(1);
@@ -52,41 +175,142 @@ public class RestaurantLeadManagementService {
                 activeStatuses);
     }
 
+    @Transactional
     public RestaurantLead updateLeadStatus(Long leadId, LeadStatus newStatus) {
-        RestaurantLead lead = restaurantLeadRepository.findById(leadId)
+        RestaurantLead lead = restaurantLeadRepository.findByIdForUpdate(leadId)
                 .orElseThrow(() -> new LeadNotFoundException("Lead not found with id: " + leadId));
+        LeadStatus oldStatus = lead.getStatus();
         lead.setStatus(newStatus);
-        return restaurantLeadRepository.save(lead);
+        RestaurantLead savedLead = restaurantLeadRepository.save(lead);
+        if (oldStatus != newStatus) {
+            leadEventLog.append(LeadEvent.statusChanged(leadId, assignedKamId(lead), newStatus, LocalDateTime.now()));
+        }
+        AfterCommit.run(() -> {
+            kamScoreboard.onLeadStatusChanged(assignedKamId(lead), oldStatus, newStatus);
+            kamLoadBalancer.onLeadStatusChanged(assignedKamId(lead), oldStatus, newStatus, LeadLoad.of(lead));
+        });
+        return savedLead;
     }
 
+    @Transactional
     public Interaction recordInteraction(Long leadId, Interaction interaction) {
-        RestaurantLead lead = restaurantLeadRepository.findById(leadId)
+        RestaurantLead lead = restaurantLeadRepository.findByIdForUpdate(leadId)
                 .orElseThrow(() -> new LeadNotFoundException("Lead not found with id: " + leadId));
+        LocalDateTime now = LocalDateTime.now();
         interaction.setRestaurantLead(lead);
-        interaction.setInteractionDate(LocalDateTime.now());
-        lead.setStatus(LeadStatus.IN_PROGRESS);
+        interaction.setInteractionDate(now);
+        LeadStatus oldStatus = lead.getStatus();
+        LocalDateTime callDueAt = lead.getNextCallDate();
+
+        applyInteraction(lead, interaction.getType(), now);
+        restaurantLeadRepository.save(lead);
+        restaurantLeadRepository.recordInteractions(leadId, 1, now);
+        leadEventLog.append(interactionEvents(lead, oldStatus, callDueAt, interaction.getType(), now));
+        AfterCommit.run(() -> {
+            kamScoreboard.onLeadStatusChanged(assignedKamId(lead), oldStatus, LeadStatus.IN_PROGRESS);
+            kamLoadBalancer.onLeadStatusChanged(assignedKamId(lead), oldStatus, LeadStatus.IN_PROGRESS,
+                    LeadLoad.of(lead));
+        });
+        Interaction saved = interactionRepository.save(interaction);
+        // After the insert, and deferred to the commit: a reader can only re-cache the history with it
+        leadCaches.evictInteractions(List.of(leadId));
+        return saved;
+    }
 
-        if (interaction.getType() == InteractionType.CALL) {
-            lead.setLastCallDate(LocalDateTime.now());
-            lead.setNextCallDate(calculateNextCallDate(lead.getCallFrequency(), LocalDateTime.now()));
-            restaurantLeadRepository.save(lead);
+    /**
+     * One page of the lead's interactions, newest first. {@code before} is the previous page's
+     * nextCursor, or an ISO date-time to list the interactions before it. The newest page at the
+     * default size, which is what opening a lead shows, is served from the cache.
+     */
+    @Cacheable(cacheNames = LeadCaches.LEAD_INTERACTIONS, key = "#leadId",
+            condition = "#before == null && #limit == " + DEFAULT_INTERACTION_PAGE_SIZE, sync = true)
+    public InteractionPageDTO getInteractionHistory(Long leadId, String before, int limit) {
+        int pageSize = Math.min(Math.max(limit, 1), MAX_PAGE_SIZE);
+
+        // One extra row tells whether an older page exists
+        List<InteractionDTO> rows;
+        if (before == null) {
+            rows = interactionRepository.findLatestHistory(leadId, Limit.of(pageSize + 1));
+        } else {
+            int separator = before.lastIndexOf(CURSOR_SEPARATOR);
+            try {
+                LocalDateTime beforeDate = LocalDateTime.parse(separator < 0 ? before : before.substring(0, separator));
+                // A bare date-time excludes every interaction at that instant; ids are positive
+                long beforeId = separator < 0 ? 0L : Long.parseLong(before.substring(separator + 1));
+                rows = interactionRepository.findHistoryBefore(leadId, beforeDate, beforeId, Limit.of(pageSize + 1));
+            } catch (DateTimeParseException | NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid interaction cursor: " + before);
+            }
+        }
+        if (rows.isEmpty() && !restaurantLeadRepository.existsById(leadId)) {
+            throw new LeadNotFoundException("Lead not found with id: " + leadId);
         }
 
-        return interactionRepository.save(interaction);
+        if (rows.size() <= pageSize) {
+            return new InteractionPageDTO(rows, null);
+        }
+        // A copy, so a cached page does not keep the extra row's backing list alive
+        List<InteractionDTO> page = List.copyOf(rows.subList(0, pageSize));
+        InteractionDTO last = page.getLast();
+        return new InteractionPageDTO(page, last.getInteractionDate() + CURSOR_SEPARATOR + last.getId());
     }
 
-    public List<Interaction> getInteractionsByLeadId(Long leadId) {
-         restaurantLeadRepository.findById(leadId)
-                .orElseThrow(() -> new LeadNotFoundException("Lead not found with id: " + leadId));
+    /**
+     * Lead-side effects of an interaction: the lead moves to IN_PROGRESS and, for calls, the call
+     * dates are rolled forward by the lead's call frequency.
+     */
+    static void applyInteraction(RestaurantLead lead, InteractionType type, LocalDateTime interactionDate) {
+        lead.setStatus(LeadStatus.IN_PROGRESS);
+        if (type == InteractionType.CALL) {
+            lead.setLastCallDate(interactionDate);
+            lead.setNextCallDate(calculateNextCallDate(lead.getCallFrequency(), interactionDate));
+        }
+    }
 
-        List<Interaction> fetchedInteractions = interactionRepository.findAllByRestaurantLeadId(leadId);
-        if (fetchedInteractions == null || fetchedInteractions.isEmpty()) {
-            throw new InteractionNotFoundException("No Interactions found for LeadId: " + leadId);
+    /**
+     * The events of one interaction applied to the lead: the interaction itself and, when
+     * {@link #applyInteraction} moved the lead to IN_PROGRESS, that status change. A call counts as
+     * on schedule when it is made no later than the day of {@code callDueAt}, the lead's next call
+     * date before the call.
+     */
+    static List<LeadEvent> interactionEvents(RestaurantLead lead, LeadStatus oldStatus, LocalDateTime callDueAt,
+                                             InteractionType type, LocalDateTime interactionDate) {
+        Long kamId = assignedKamId(lead);
+        Boolean onSchedule = type != InteractionType.CALL || callDueAt == null ? null
+                : !interactionDate.toLocalDate().isAfter(callDueAt.toLocalDate());
+        LeadEvent interaction = LeadEvent.interactionRecorded(lead.getId(), kamId, type, onSchedule, interactionDate);
+        if (oldStatus == LeadStatus.IN_PROGRESS) {
+            return List.of(interaction);
         }
-        return fetchedInteractions;
+        return List.of(interaction, LeadEvent.statusChanged(lead.getId(), kamId, LeadStatus.IN_PROGRESS, interactionDate));
+    }
+
+    /**
+     * Gives a new lead the position it came with, or else the geocoded position of its address.
+     *
+     * @return the position, or null when the lead has none
+     * @throws IllegalArgumentException when the lead came with an invalid or half a position
+     */
+    static GeoPoint locate(RestaurantLead lead, Geocoder geocoder) {
+        if (lead.getLatitude() != null || lead.getLongitude() != null) {
+            if (lead.getLatitude() == null || lead.getLongitude() == null) {
+                throw new IllegalArgumentException("latitude and longitude must be given together");
+            }
+            return new GeoPoint(lead.getLatitude(), lead.getLongitude());
+        }
+        GeoPoint position = geocoder.geocode(lead.getAddress()).orElse(null);
+        if (position != null) {
+            lead.setLatitude(position.getLatitude());
+            lead.setLongitude(position.getLongitude());
+        }
+        return position;
+    }
+
+    static Long assignedKamId(RestaurantLead lead) {
+        return lead.getAssignedKam() == null ? null : lead.getAssignedKam().getId();
     }
 
-    private LocalDateTime calculateNextCallDate(Integer frequencyInDays, LocalDateTime lastCallDate) {
+    static LocalDateTime calculateNextCallDate(Integer frequencyInDays, LocalDateTime lastCallDate) {
         return lastCallDate.plusDays(frequencyInDays);
     }
 }
@@ -0,0 +1,39 @@
+package com.udaan.leadmanagement.util;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Hands out ids from one of the entity sequences the same way Hibernate's pooled optimizer
+ * does, so rows written with plain JDBC and rows saved through JPA never collide: each sequence
+ * value v reserves the ids v - blockSize + 1 to v. Not thread-safe; each writer uses its own.
+ */
+public class SequenceIdBlock {
+    private final JdbcTemplate jdbcTemplate;
+    private final String nextValueSql;
+    private final long blockSize;
+    private long next = 1;
+    private long last;
+
+    /**
+     * @param nextValueSql the dialect's next-value query for the sequence
+     * @param blockSize    the allocationSize of the entity's sequence generator
+     */
+    public SequenceIdBlock(JdbcTemplate jdbcTemplate, String nextValueSql, long blockSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.nextValueSql = nextValueSql;
+        this.blockSize = blockSize;
+    }
+
+    public long next() {
+        if (next > last) {
+            long value = jdbcTemplate.queryForObject(nextValueSql, Long.class);
+            // The very first value of a fresh sequence is its start value, not the end of a block
+            if (value < blockSize) {
+                value = jdbcTemplate.queryForObject(nextValueSql, Long.class);
+            }
+            last = value;
+            next = value - blockSize + 1;
+        }
+        return next++;
+    }
+}
@@ -0,0 +1,257 @@
+package com.udaan.leadmanagement.validation;
+
+import com.udaan.leadmanagement.enums.ContactValidationError;
+import com.udaan.leadmanagement.model.Contact;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+
+/**
+ * Contact validation and phone normalization with hand-written scanners: no regex, and no
+ * allocation on the validation path, so it can run over millions of contacts in a bulk sync.
+ * <p>
+ * Emails are accepted exactly as before ({@code ^[A-Za-z0-9+_.-]+@(.+)$}). Phones may contain
+ * spaces, dashes, dots and parentheses and are stored in E.164 form ({@code +} then 10 to 15 digits,
+ * the first one non-zero). A number without {@code +} or {@code 00} is taken as a national number:
+ * 10 digits, optionally after a {@code 0} trunk prefix, get {@code leadmanagement.contact.default-country-code}
+ * in front; 11 to 15 digits are taken to include their country code already.
+ */
+@Component
+public class ContactValidator {
+    private static final int NATIONAL_LENGTH = 10;
+    private static final int MIN_LENGTH = 10;
+    private static final int MAX_LENGTH = 15;
+
+    private final String defaultCountryCode;
+
+    public ContactValidator(@Value("${leadmanagement.contact.default-country-code:91}") String defaultCountryCode) {
+        if (!isCountryCode(defaultCountryCode)) {
+            throw new IllegalArgumentException("Invalid default country code: " + defaultCountryCode);
+        }
+        this.defaultCountryCode = defaultCountryCode;
+    }
+
+    /**
+     * Returns the first problem with the contact, in the order name, email, phone, role, or
+     * {@code null} when it is valid.
+     */
+    public ContactValidationError validate(Contact contact) {
+        return validate(contact.getName(), contact.getRole(), contact.getEmail(), contact.getPhone());
+    }
+
+    public ContactValidationError validate(String name, String role, String email, String phone) {
+        if (isBlank(name)) {
+            return ContactValidationError.NAME_REQUIRED;
+        }
+        if (email == null || !isValidEmail(email)) {
+            return ContactValidationError.INVALID_EMAIL;
+        }
+        if (phone == null || !isValidPhone(phone)) {
+            return ContactValidationError.INVALID_PHONE;
+        }
+        if (isBlank(role)) {
+            return ContactValidationError.ROLE_REQUIRED;
+        }
+        return null;
+    }
+
+    /**
+     * Validates the contact and replaces its phone with the canonical form.
+     *
+     * @throws IllegalArgumentException with the message of the first validation error
+     */
+    public void normalize(Contact contact) {
+        ContactValidationError error = validate(contact);
+        if (error != null) {
+            throw new IllegalArgumentException(error.getMessage());
+        }
+        contact.setPhone(normalizePhone(contact.getPhone()));
+    }
+
+    public boolean isValidPhone(CharSequence phone) {
+        return scanPhone(phone, null) > 0;
+    }
+
+    /**
+     * Returns the phone number in E.164 form, the same instance when it already is, or {@code null}
+     * when it is not a valid phone number.
+     */
+    public String normalizePhone(String phone) {
+        if (phone == null) {
+            return null;
+        }
+        int length = scanPhone(phone, null);
+        if (length < 0) {
+            return null;
+        }
+        if (phone.length() == length + 1 && phone.charAt(0) == '+' && isDigits(phone, 1)) {
+            return phone;
+        }
+        char[] canonical = new char[length + 1];
+        canonical[0] = '+';
+        scanPhone(phone, canonical);
+        return new String(canonical);
+    }
+
+    /**
+     * Checks the phone number and, when {@code out} is given, writes its E.164 digits from
+     * {@code out[1]}. Returns the number of E.164 digits, or -1 when the number is not valid.
+     */
+    private int scanPhone(CharSequence phone, char[] out) {
+        int length = phone.length();
+        int i = skipSeparators(phone, 0);
+        boolean international = i < length && phone.charAt(i) == '+';
+        if (international) {
+            i++;
+        }
+
+        // First pass: only digits and separators, and where the digits start
+        int digits = 0;
+        int firstDigit = -1;
+        for (int j = i; j < length; j++) {
+            char c = phone.charAt(j);
+            if (c >= '0' && c <= '9') {
+                if (firstDigit < 0) {
+                    firstDigit = j;
+                }
+                digits++;
+            } else if (!isSeparator(c)) {
+                return -1;
+            }
+        }
+        if (digits == 0) {
+            return -1;
+        }
+
+        // Leading digits to drop: the 00 international prefix or the 0 trunk prefix
+        int skip = 0;
+        boolean national = false;
+        if (!international) {
+            char first = phone.charAt(firstDigit);
+            char second = digits > 1 ? phone.charAt(skipSeparators(phone, firstDigit + 1)) : ' ';
+            if (first == '0' && second == '0') {
+                international = true;
+                skip = 2;
+            } else if (first == '0') {
+                national = true;
+                skip = 1;
+            } else {
+                national = digits == NATIONAL_LENGTH;
+            }
+        }
+
+        int significant = digits - skip;
+        int total;
+        if (national) {
+            if (significant != NATIONAL_LENGTH) {
+                return -1;
+            }
+            total = defaultCountryCode.length() + significant;
+        } else {
+            if (significant < MIN_LENGTH || significant > MAX_LENGTH) {
+                return -1;
+            }
+            total = significant;
+        }
+
+        int position = 1;
+        if (national && out != null) {
+            for (int k = 0; k < defaultCountryCode.length(); k++) {
+                out[position++] = defaultCountryCode.charAt(k);
+            }
+        }
+        // Second pass: the first significant digit must not be 0, then copy the digits out
+        int seen = 0;
+        for (int j = firstDigit; j < length; j++) {
+            char c = phone.charAt(j);
+            if (c < '0' || c > '9') {
+                continue;
+            }
+            if (seen++ < skip) {
+                continue;
+            }
+            if (seen == skip + 1 && c == '0') {
+                return -1;
+            }
+            if (out == null) {
+                break;
+            }
+            out[position++] = c;
+        }
+        return total;
+    }
+
+    /**
+     * Email as compared when matching contacts: lower-cased, the same instance when it already is.
+     */
+    public static String normalizeEmail(String email) {
+        return email == null ? null : email.toLowerCase(Locale.ROOT);
+    }
+
+    public static boolean isValidEmail(CharSequence email) {
+        int length = email.length();
+        int at = 0;
+        while (at < length && isLocalPartChar(email.charAt(at))) {
+            at++;
+        }
+        if (at == 0 || at >= length - 1 || email.charAt(at) != '@') {
+            return false;
+        }
+        // Anything but a line break after the @, like the regex's (.+)
+        for (int i = at + 1; i < length; i++) {
+            if (isLineTerminator(email.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * {@code true} for {@code null} and for strings that {@link String#trim()} would empty.
+     */
+    public static boolean isBlank(CharSequence value) {
+        if (value == null) {
+            return true;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isLocalPartChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                || c == '+' || c == '_' || c == '.' || c == '-';
+    }
+
+    private static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    private static boolean isSeparator(char c) {
+        return c == ' ' || c == '-' || c == '.' || c == '(' || c == ')';
+    }
+
+    private static int skipSeparators(CharSequence value, int from) {
+        while (from < value.length() && isSeparator(value.charAt(from))) {
+            from++;
+        }
+        return from;
+    }
+
+    private static boolean isDigits(CharSequence value, int from) {
+        for (int i = from; i < value.length(); i++) {
+            if (value.charAt(i) < '0' || value.charAt(i) > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isCountryCode(String code) {
+        return code != null && !code.isEmpty() && code.length() <= 3 && code.charAt(0) != '0' && isDigits(code, 0);
+    }
+}
@@ -0,0 +1,44 @@
+package com.udaan.leadmanagement.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ActivityRingTest {
+
+    private static final long TODAY = LocalDate.of(2024, 11, 4).toEpochDay();
+
+    @Test
+    void sum_ShouldCoverOnlyTheDaysOfTheWindow() {
+        ActivityRing ring = new ActivityRing();
+        ring.add(ActivityRing.CONVERSIONS, TODAY);
+        ring.add(ActivityRing.CONVERSIONS, TODAY - 6);
+        ring.add(ActivityRing.CONVERSIONS, TODAY - 7);
+        ring.add(ActivityRing.CONVERSIONS, TODAY - 89);
+        ring.add(ActivityRing.INTERACTIONS, TODAY);
+
+        assertEquals(1, ring.sum(ActivityRing.CONVERSIONS, TODAY, 1));
+        assertEquals(2, ring.sum(ActivityRing.CONVERSIONS, TODAY, 7));
+        assertEquals(3, ring.sum(ActivityRing.CONVERSIONS, TODAY, 30));
+        assertEquals(4, ring.sum(ActivityRing.CONVERSIONS, TODAY, 90));
+        assertEquals(1, ring.sum(ActivityRing.INTERACTIONS, TODAY, 90));
+        // Days ahead of the query are not in its window
+        assertEquals(3, ring.sum(ActivityRing.CONVERSIONS, TODAY - 1, 90));
+    }
+
+    @Test
+    void add_ShouldReuseSlotsOfDaysThatLeftTheRing() {
+        ActivityRing ring = new ActivityRing();
+        ring.add(ActivityRing.LOSSES, TODAY - 90);
+        ring.add(ActivityRing.INTERACTIONS, TODAY - 90);
+
+        ring.add(ActivityRing.LOSSES, TODAY);
+        // Maps onto today's slot but is older than anything the ring still holds
+        ring.add(ActivityRing.LOSSES, TODAY - 180);
+
+        assertEquals(1, ring.sum(ActivityRing.LOSSES, TODAY, 90));
+        assertEquals(0, ring.sum(ActivityRing.INTERACTIONS, TODAY, 90));
+    }
+}
@@ -0,0 +1,74 @@
+package com.udaan.leadmanagement.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DurationHistogramTest {
+
+    @Test
+    void quantile_ShouldBeExactForShortDurations() {
+        DurationHistogram histogram = new DurationHistogram();
+        for (long seconds = 0; seconds < 10; seconds++) {
+            histogram.record(seconds);
+        }
+
+        assertEquals(4L, histogram.quantile(0.5));
+        assertEquals(8L, histogram.quantile(0.9));
+        assertEquals(10, histogram.count());
+        assertNull(new DurationHistogram().quantile(0.5));
+    }
+
+    @Test
+    void quantile_ShouldStayWithinBucketPrecision() {
+        Random random = new Random(42);
+        long[] durations = new long[10_000];
+        DurationHistogram histogram = new DurationHistogram();
+        for (int i = 0; i < durations.length; i++) {
+            // Minutes to months, log-uniform
+            durations[i] = (long) Math.exp(4 + random.nextDouble() * 11);
+            histogram.record(durations[i]);
+        }
+        Arrays.sort(durations);
+
+        for (double q : new double[]{0.5, 0.9}) {
+            long exact = durations[(int) Math.ceil(q * durations.length) - 1];
+            assertEquals(exact, histogram.quantile(q), exact * 0.0625, "quantile " + q);
+        }
+    }
+
+    @Test
+    void bucket_ShouldBeContiguousAndCapped() {
+        for (int bucket = 1; bucket < DurationHistogram.BUCKETS; bucket++) {
+            long lower = DurationHistogram.lowerBound(bucket);
+            assertEquals(bucket, DurationHistogram.bucket(lower));
+            assertEquals(bucket - 1, DurationHistogram.bucket(lower - 1));
+        }
+        assertEquals(0, DurationHistogram.bucket(-5));
+        assertEquals(DurationHistogram.BUCKETS - 1, DurationHistogram.bucket(Long.MAX_VALUE));
+    }
+
+    @Test
+    void writeAndRead_ShouldRestoreCounts() throws IOException {
+        DurationHistogram histogram = new DurationHistogram();
+        histogram.record(3);
+        histogram.record(3_600);
+        histogram.record(86_400 * 30L);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        histogram.write(new DataOutputStream(bytes));
+
+        DurationHistogram read = DurationHistogram.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertEquals(3, read.count());
+        assertEquals(histogram.quantile(0.5), read.quantile(0.5));
+        assertEquals(histogram.quantile(1.0), read.quantile(1.0));
+    }
+}
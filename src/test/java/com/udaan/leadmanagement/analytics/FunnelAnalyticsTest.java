@@ -0,0 +1,238 @@
+package com.udaan.leadmanagement.analytics;
+
+import com.udaan.leadmanagement.DTO.FunnelReportDTO;
+import com.udaan.leadmanagement.DTO.FunnelStageDTO;
+import com.udaan.leadmanagement.enums.InteractionType;
+import com.udaan.leadmanagement.enums.LeadStatus;
+import com.udaan.leadmanagement.event.LeadEventLog;
+import com.udaan.leadmanagement.model.LeadEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class FunnelAnalyticsTest {
+
+    // A Monday
+    private static final LocalDateTime T0 = LocalDateTime.of(2024, 11, 4, 9, 0);
+
+    @Mock
+    private LeadEventLog leadEventLog;
+
+    @TempDir
+    private Path tempDir;
+
+    private long nextId = 1000;
+
+    @Test
+    void onLeadEvents_ShouldCountStagesConversionsAndTimeInStage() {
+        FunnelAnalytics analytics = started("", List.of());
+
+        analytics.onLeadEvents(salesWeek());
+
+        FunnelReportDTO funnel = analytics.getFunnel();
+        FunnelStageDTO created = stage(funnel, LeadStatus.NEW);
+        assertEquals(0L, created.getLeads());
+        assertEquals(3, created.getEntered());
+        assertEquals(3, created.getExited());
+        assertEquals(Map.of(LeadStatus.IN_PROGRESS, 100.0), created.getConversionRates());
+        assertEquals(3, created.getMeasuredStays());
+        assertEquals(3 * 3600, created.getMedianSecondsInStage(), 3 * 3600 * 0.0625);
+        assertEquals(5 * 3600, created.getP90SecondsInStage(), 5 * 3600 * 0.0625);
+
+        FunnelStageDTO working = stage(funnel, LeadStatus.IN_PROGRESS);
+        assertEquals(1L, working.getLeads());
+        assertEquals(3, working.getEntered());
+        assertEquals(Map.of(LeadStatus.CONVERTED, 1L, LeadStatus.LOST, 1L), working.getTransitions());
+        assertEquals(Map.of(LeadStatus.CONVERTED, 50.0, LeadStatus.LOST, 50.0), working.getConversionRates());
+        assertEquals(1L, stage(funnel, LeadStatus.CONVERTED).getLeads());
+        assertNull(stage(funnel, LeadStatus.CONVERTED).getMedianSecondsInStage());
+        assertEquals(nextId - 1, funnel.getLastEventId());
+    }
+
+    @Test
+    void getKamFunnel_ShouldCountMovesTowardTheKamOfTheLeadAtTheTime() {
+        FunnelAnalytics analytics = started("", List.of());
+        analytics.onLeadEvents(salesWeek());
+
+        analytics.onLeadEvents(List.of(event(LeadEvent.kamAssigned(3L, 10L, LeadStatus.IN_PROGRESS, T0.plusDays(3)))));
+
+        FunnelReportDTO first = analytics.getKamFunnel(10L);
+        assertEquals(10L, first.getKamId());
+        assertEquals(1L, stage(first, LeadStatus.IN_PROGRESS).getLeads());
+        assertEquals(1L, stage(first, LeadStatus.CONVERTED).getLeads());
+        assertEquals(1L, stage(first, LeadStatus.LOST).getLeads());
+        // Both of its leads were assigned after creation
+        assertEquals(0, stage(first, LeadStatus.NEW).getEntered());
+        assertEquals(2, stage(first, LeadStatus.NEW).getExited());
+        FunnelReportDTO second = analytics.getKamFunnel(20L);
+        assertEquals(0L, stage(second, LeadStatus.IN_PROGRESS).getLeads());
+        assertEquals(1, stage(second, LeadStatus.NEW).getExited());
+        assertEquals(0L, stage(analytics.getKamFunnel(99L), LeadStatus.NEW).getLeads());
+    }
+
+    @Test
+    void getWeeklyFunnels_ShouldCountMovesInTheWeekTheyHappened() {
+        FunnelAnalytics analytics = started("", List.of());
+        analytics.onLeadEvents(salesWeek());
+        analytics.onLeadEvents(List.of(event(LeadEvent.statusChanged(3L, 20L, LeadStatus.FOLLOW_UP, T0.plusDays(8)))));
+
+        List<FunnelReportDTO> weeks = analytics.getWeeklyFunnels(3, T0.toLocalDate().plusDays(9));
+
+        assertEquals(List.of(LocalDate.of(2024, 10, 28), LocalDate.of(2024, 11, 4), LocalDate.of(2024, 11, 11)),
+                weeks.stream().map(FunnelReportDTO::getWeekStart).toList());
+        assertEquals(0, stage(weeks.get(0), LeadStatus.NEW).getEntered());
+        assertEquals(3, stage(weeks.get(1), LeadStatus.NEW).getEntered());
+        assertEquals(3, stage(weeks.get(1), LeadStatus.IN_PROGRESS).getEntered());
+        assertNull(stage(weeks.get(1), LeadStatus.NEW).getLeads());
+        assertEquals(Map.of(LeadStatus.FOLLOW_UP, 1L), stage(weeks.get(2), LeadStatus.IN_PROGRESS).getTransitions());
+    }
+
+    @Test
+    void onLeadEvents_LeadOlderThanLogOrEventSeenTwice_ShouldNotCountMoveOrStay() {
+        FunnelAnalytics analytics = started("", List.of());
+        LeadEvent joined = event(LeadEvent.statusChanged(9L, 10L, LeadStatus.FOLLOW_UP, T0));
+        LeadEvent converted = event(LeadEvent.statusChanged(9L, 10L, LeadStatus.CONVERTED, T0.plusDays(1)));
+
+        analytics.onLeadEvents(List.of(joined, event(LeadEvent.interactionRecorded(9L, 10L, InteractionType.CALL, T0))));
+        analytics.onLeadEvents(List.of(converted));
+        analytics.onLeadEvents(List.of(joined, converted));
+
+        FunnelReportDTO funnel = analytics.getFunnel();
+        assertEquals(0, stage(funnel, LeadStatus.FOLLOW_UP).getEntered());
+        assertEquals(1, stage(funnel, LeadStatus.FOLLOW_UP).getExited());
+        assertEquals(0, stage(funnel, LeadStatus.FOLLOW_UP).getMeasuredStays());
+        assertEquals(1L, stage(funnel, LeadStatus.CONVERTED).getLeads());
+        assertEquals(0L, stage(funnel, LeadStatus.FOLLOW_UP).getLeads());
+    }
+
+    @Test
+    void onLeadEvents_EventsCommittedOutOfIdOrder_ShouldEachCountOnce() {
+        FunnelAnalytics analytics = started("", List.of());
+        LeadEvent created = event(LeadEvent.leadCreated(7L, null, LeadStatus.NEW, T0));
+        // The first change takes its id first but commits second
+        LeadEvent working = event(LeadEvent.statusChanged(7L, null, LeadStatus.IN_PROGRESS, T0.plusHours(1)));
+        LeadEvent waiting = event(LeadEvent.statusChanged(7L, null, LeadStatus.FOLLOW_UP, T0.plusHours(1)));
+
+        analytics.onLeadEvents(List.of(created, waiting));
+        analytics.onLeadEvents(List.of(working));
+        analytics.onLeadEvents(List.of(created, working, waiting));
+
+        FunnelReportDTO funnel = analytics.getFunnel();
+        assertEquals(Map.of(LeadStatus.FOLLOW_UP, 1L), stage(funnel, LeadStatus.NEW).getTransitions());
+        assertEquals(Map.of(LeadStatus.IN_PROGRESS, 1L), stage(funnel, LeadStatus.FOLLOW_UP).getTransitions());
+        assertEquals(1L, stage(funnel, LeadStatus.IN_PROGRESS).getLeads());
+        assertEquals(waiting.getId(), funnel.getLastEventId());
+    }
+
+    @Test
+    void start_ShouldApplyEventsThatArrivedDuringTheReplay() {
+        LeadEvent replayed = event(LeadEvent.leadCreated(1L, null, LeadStatus.NEW, T0));
+        LeadEvent live = event(LeadEvent.statusChanged(1L, null, LeadStatus.IN_PROGRESS, T0.plusHours(1)));
+        FunnelAnalytics analytics = new FunnelAnalytics(leadEventLog, "", 10, 100, 104);
+        givenLog(List.of(replayed, live));
+
+        analytics.onLeadEvents(List.of(live));
+        assertFalse(analytics.isLoaded());
+        analytics.start();
+
+        assertTrue(analytics.isLoaded());
+        assertEquals(1, stage(analytics.getFunnel(), LeadStatus.NEW).getExited());
+        assertEquals(1L, stage(analytics.getFunnel(), LeadStatus.IN_PROGRESS).getLeads());
+    }
+
+    @Test
+    void checkpoint_ShouldRestoreStateAndReplayOnlyTheOverlap() throws IOException {
+        Path file = tempDir.resolve("funnel.ckpt");
+        List<LeadEvent> week = salesWeek();
+        FunnelAnalytics original = started(file.toString(), List.of());
+        original.onLeadEvents(week);
+        original.checkpoint();
+        original.stop();
+        LeadEvent later = event(LeadEvent.statusChanged(3L, 20L, LeadStatus.CONVERTED, T0.plusDays(4)));
+        original.onLeadEvents(List.of(later));
+
+        // The overlap hands back the last two events again, plus the one written after the checkpoint
+        FunnelAnalytics restored = started(file.toString(), List.of(week.get(week.size() - 2), week.getLast(), later));
+
+        verify(leadEventLog).replay(eq(week.getLast().getId() - 100), any());
+        assertEquals(original.getFunnel(), restored.getFunnel());
+        assertEquals(original.getKamFunnel(10L), restored.getKamFunnel(10L));
+        assertEquals(original.getWeeklyFunnels(2, T0.toLocalDate()), restored.getWeeklyFunnels(2, T0.toLocalDate()));
+        restored.stop();
+    }
+
+    @Test
+    void start_WithUnreadableCheckpoint_ShouldReplayTheWholeLog() throws IOException {
+        Path file = tempDir.resolve("funnel.ckpt");
+        Files.writeString(file, "not a checkpoint");
+
+        FunnelAnalytics analytics = started(file.toString(), salesWeek());
+
+        verify(leadEventLog).replay(eq(0L), any());
+        assertEquals(3, stage(analytics.getFunnel(), LeadStatus.NEW).getEntered());
+        analytics.stop();
+    }
+
+    /**
+     * Three leads go from NEW to IN_PROGRESS after 1, 3 and 5 hours; the first converts and the
+     * second is lost. KAM 10 has the first two, KAM 20 the third.
+     */
+    private List<LeadEvent> salesWeek() {
+        List<LeadEvent> events = new ArrayList<>();
+        for (long lead = 1; lead <= 3; lead++) {
+            events.add(event(LeadEvent.leadCreated(lead, null, LeadStatus.NEW, T0)));
+            events.add(event(LeadEvent.kamAssigned(lead, lead < 3 ? 10L : 20L, LeadStatus.NEW, T0)));
+        }
+        for (long lead = 1; lead <= 3; lead++) {
+            events.add(event(LeadEvent.statusChanged(lead, lead < 3 ? 10L : 20L, LeadStatus.IN_PROGRESS,
+                    T0.plusHours(2 * lead - 1))));
+        }
+        events.add(event(LeadEvent.statusChanged(1L, 10L, LeadStatus.CONVERTED, T0.plusDays(2))));
+        events.add(event(LeadEvent.statusChanged(2L, 10L, LeadStatus.LOST, T0.plusDays(1))));
+        return events;
+    }
+
+    private LeadEvent event(LeadEvent event) {
+        event.setId(nextId++);
+        return event;
+    }
+
+    private FunnelAnalytics started(String checkpointFile, List<LeadEvent> log) {
+        FunnelAnalytics analytics = new FunnelAnalytics(leadEventLog, checkpointFile, 10, 100, 104);
+        givenLog(log);
+        analytics.start();
+        return analytics;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void givenLog(List<LeadEvent> log) {
+        doAnswer(invocation -> {
+            log.forEach(invocation.getArgument(1, Consumer.class));
+            return log.isEmpty() ? invocation.getArgument(0, Long.class) : log.getLast().getId();
+        }).when(leadEventLog).replay(anyLong(), any());
+    }
+
+    private static FunnelStageDTO stage(FunnelReportDTO report, LeadStatus status) {
+        return report.getStages().get(status.ordinal());
+    }
+}
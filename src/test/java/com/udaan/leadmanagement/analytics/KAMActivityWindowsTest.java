@@ -0,0 +1,159 @@
+package com.udaan.leadmanagement.analytics;
+
+import com.udaan.leadmanagement.enums.InteractionType;
+import com.udaan.leadmanagement.enums.LeadStatus;
+import com.udaan.leadmanagement.event.LeadEventLog;
+import com.udaan.leadmanagement.model.LeadEvent;
+import com.udaan.leadmanagement.repository.KAMRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class KAMActivityWindowsTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 11, 4);
+    private static final LocalDateTime NOW = TODAY.atTime(11, 0);
+
+    @Mock
+    private LeadEventLog leadEventLog;
+
+    @Mock
+    private KAMRepository kamRepository;
+
+    private long nextId = 1;
+
+    @Test
+    void getActivity_ShouldCountEventsOfTheWindowTowardTheirKam() {
+        KAMActivityWindows windows = started(List.of());
+
+        windows.onLeadEvents(List.of(
+                event(LeadEvent.statusChanged(1L, 10L, LeadStatus.CONVERTED, NOW)),
+                event(LeadEvent.statusChanged(2L, 10L, LeadStatus.LOST, NOW.minusDays(10))),
+                event(LeadEvent.statusChanged(3L, 10L, LeadStatus.FOLLOW_UP, NOW)),
+                event(LeadEvent.interactionRecorded(1L, 10L, InteractionType.CALL, true, NOW.minusDays(1))),
+                event(LeadEvent.interactionRecorded(2L, 10L, InteractionType.CALL, false, NOW.minusDays(2))),
+                event(LeadEvent.interactionRecorded(3L, 10L, InteractionType.EMAIL, NOW.minusDays(40))),
+                event(LeadEvent.statusChanged(4L, 20L, LeadStatus.CONVERTED, NOW)),
+                event(LeadEvent.statusChanged(5L, null, LeadStatus.CONVERTED, NOW))));
+
+        KAMActivity week = windows.getActivity(10L, 7, NOW);
+        assertEquals(1, week.getConversions());
+        assertEquals(0, week.getLosses());
+        assertEquals(2, week.getInteractions());
+        assertEquals(2, week.getScheduledCalls());
+        assertEquals(1, week.getOnScheduleCalls());
+        assertEquals(NOW, week.getLastEventAt());
+        KAMActivity quarter = windows.getActivity(10L, 90, NOW);
+        assertEquals(1, quarter.getLosses());
+        assertEquals(3, quarter.getInteractions());
+        assertEquals(0, windows.getActivity(30L, 90, NOW).getConversions());
+        assertEquals(2, windows.getAllActivity(7, NOW).size());
+    }
+
+    @Test
+    void start_ShouldCountEventsSeenByReplayAndLiveOnce() {
+        LeadEvent replayedOnly = event(LeadEvent.statusChanged(1L, 10L, LeadStatus.CONVERTED, LocalDateTime.now().minusDays(3)));
+        LeadEvent both = event(LeadEvent.statusChanged(2L, 10L, LeadStatus.CONVERTED, LocalDateTime.now()));
+        LeadEvent liveOnly = event(LeadEvent.statusChanged(3L, 10L, LeadStatus.CONVERTED, LocalDateTime.now()));
+        KAMActivityWindows windows = new KAMActivityWindows(leadEventLog, kamRepository);
+        givenLog(List.of(replayedOnly, both));
+
+        windows.onLeadEvents(List.of(both, liveOnly));
+        assertThrows(IllegalStateException.class, () -> windows.getActivity(10L, 7, NOW));
+        windows.start();
+
+        assertTrue(windows.isLoaded());
+        assertEquals(3, windows.getActivity(10L, 90, LocalDateTime.now()).getConversions());
+    }
+
+    @Test
+    void onCallOverdue_ShouldCountUntilACallIsMadeAfterTheDueTime() {
+        KAMActivityWindows windows = started(List.of());
+        LocalDateTime due = NOW.minusDays(3);
+
+        windows.onCallOverdue(1L, 10L, due);
+        windows.onCallOverdue(2L, 10L, due);
+        // Reported again, e.g. at startup: still one missed call
+        windows.onCallOverdue(2L, 10L, due);
+        // A call from before the due time, as a replay would bring
+        windows.onLeadEvents(List.of(event(LeadEvent.interactionRecorded(1L, 10L, InteractionType.CALL, null, due.minusDays(1)))));
+        assertEquals(2, windows.getActivity(10L, 7, NOW).getMissedCalls());
+        assertEquals(0, windows.getActivity(10L, 2, NOW).getMissedCalls());
+
+        windows.onLeadEvents(List.of(
+                event(LeadEvent.interactionRecorded(1L, 10L, InteractionType.CALL, false, NOW)),
+                event(LeadEvent.statusChanged(2L, 10L, LeadStatus.FOLLOW_UP, NOW))));
+        assertEquals(1, windows.getActivity(10L, 7, NOW).getMissedCalls());
+
+        windows.onLeadEvents(List.of(event(LeadEvent.statusChanged(2L, 10L, LeadStatus.LOST, NOW))));
+        assertEquals(0, windows.getActivity(10L, 7, NOW).getMissedCalls());
+    }
+
+    @Test
+    void onLeadEvents_WhenLeadIsReassigned_ShouldMoveItsMissedCall() {
+        KAMActivityWindows windows = started(List.of());
+        windows.onCallOverdue(1L, 10L, NOW.minusDays(2));
+
+        windows.onLeadEvents(List.of(event(LeadEvent.kamAssigned(1L, 20L, LeadStatus.IN_PROGRESS, NOW))));
+
+        assertEquals(0, windows.getActivity(10L, 7, NOW).getMissedCalls());
+        assertEquals(1, windows.getActivity(20L, 7, NOW).getMissedCalls());
+    }
+
+    @Test
+    void getActivity_ShouldCountDaysInTheKamsTimezone() {
+        // A KAM far enough ahead of (or behind) the server that an event late (or early) in the
+        // server's day falls on another day of theirs
+        int serverOffset = ZoneId.systemDefault().getRules().getOffset(NOW).getTotalSeconds();
+        boolean ahead = serverOffset <= 5 * 3600;
+        ZoneOffset kamOffset = ZoneOffset.ofTotalSeconds(serverOffset + (ahead ? 9 : -15) * 3600);
+        when(kamRepository.findTimezones()).thenReturn(List.<Object[]>of(new Object[]{10L, kamOffset.getId()}));
+        KAMActivityWindows windows = new KAMActivityWindows(leadEventLog, kamRepository);
+        windows.loadTimezones();
+        LocalDateTime at = TODAY.atTime(ahead ? 23 : 1, 0);
+        LocalDateTime sameServerDay = TODAY.atTime(ahead ? 1 : 23, 0);
+        windows = started(windows, List.of());
+
+        windows.onLeadEvents(List.of(event(LeadEvent.statusChanged(1L, 10L, LeadStatus.CONVERTED, at))));
+
+        assertEquals(1, windows.getActivity(10L, 1, at).getConversions());
+        assertEquals(0, windows.getActivity(10L, 1, sameServerDay).getConversions());
+    }
+
+    private LeadEvent event(LeadEvent event) {
+        event.setId(nextId++);
+        return event;
+    }
+
+    private KAMActivityWindows started(List<LeadEvent> log) {
+        return started(new KAMActivityWindows(leadEventLog, kamRepository), log);
+    }
+
+    private KAMActivityWindows started(KAMActivityWindows windows, List<LeadEvent> log) {
+        givenLog(log);
+        windows.start();
+        return windows;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void givenLog(List<LeadEvent> log) {
+        doAnswer(invocation -> {
+            log.forEach(invocation.getArgument(1, Consumer.class));
+            return log.isEmpty() ? 0L : log.getLast().getId();
+        }).when(leadEventLog).replaySince(any(), any());
+    }
+}
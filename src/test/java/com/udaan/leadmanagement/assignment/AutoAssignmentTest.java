@@ -0,0 +1,95 @@
+package com.udaan.leadmanagement.assignment;
+
+import com.udaan.leadmanagement.enums.InteractionType;
+import com.udaan.leadmanagement.enums.LeadStatus;
+import com.udaan.leadmanagement.model.Interaction;
+import com.udaan.leadmanagement.model.KAM;
+import com.udaan.leadmanagement.model.RestaurantLead;
+import com.udaan.leadmanagement.service.KAMService;
+import com.udaan.leadmanagement.service.RestaurantLeadManagementService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:leadmanagement-test;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+class AutoAssignmentTest {
+
+    @Autowired
+    private KAMLoadBalancer kamLoadBalancer;
+
+    @Autowired
+    private KAMService kamService;
+
+    @Autowired
+    private RestaurantLeadManagementService leadService;
+
+    @Test
+    void writePaths_ShouldKeepTheLoadsEqualToTheLeadTable() {
+        KAM first = kamService.addKAM(kam("Load One"));
+        KAM second = kamService.addKAM(kam("Load Two"));
+        RestaurantLead withKam = lead(7, 18.52, 73.86);
+        withKam.setAssignedKam(first);
+        withKam = leadService.createLead(withKam);
+        RestaurantLead converted = leadService.createLead(lead(2, null, null));
+        RestaurantLead called = leadService.createLead(lead(3, 28.61, 77.21));
+        leadService.updateLeadStatus(converted.getId(), LeadStatus.CONVERTED);
+        Interaction call = new Interaction();
+        call.setType(InteractionType.CALL);
+        leadService.recordInteraction(called.getId(), call);
+        kamService.assignLeadsToKAM(second.getId(), List.of(withKam.getId(), called.getId()), 10);
+
+        assertNotNull(converted.getAssignedKam());
+        assertNotNull(called.getAssignedKam());
+        Map<Long, KAMLoad> incremental = byKam(kamLoadBalancer.getLoads());
+        kamLoadBalancer.initialize();
+        Map<Long, KAMLoad> seeded = byKam(kamLoadBalancer.getLoads());
+
+        assertEquals(seeded.keySet(), incremental.keySet());
+        seeded.forEach((kamId, expected) -> {
+            KAMLoad actual = incremental.get(kamId);
+            assertEquals(expected.getTotalLeads(), actual.getTotalLeads(), "leads of KAM " + kamId);
+            assertEquals(expected.getConvertedLeads(), actual.getConvertedLeads(), "converted of KAM " + kamId);
+            assertEquals(expected.getActiveLeads(), actual.getActiveLeads(), "active of KAM " + kamId);
+            assertEquals(expected.getDailyCalls(), actual.getDailyCalls(), 1e-9, "calls of KAM " + kamId);
+            assertEquals(expected.getLocatedLeads(), actual.getLocatedLeads(), "located of KAM " + kamId);
+            assertEquals(expected.getLatitudeSum(), actual.getLatitudeSum(), 1e-6, "latitudes of KAM " + kamId);
+            assertEquals(expected.getLongitudeSum(), actual.getLongitudeSum(), 1e-6, "longitudes of KAM " + kamId);
+        });
+        // Both leads still being worked ended up with the second KAM
+        KAMLoad secondLoad = seeded.get(second.getId());
+        assertEquals(2, secondLoad.getActiveLeads());
+        assertEquals(1.0 / 7 + 1.0 / 3, secondLoad.getDailyCalls(), 1e-9);
+    }
+
+    private static RestaurantLead lead(int callFrequency, Double latitude, Double longitude) {
+        RestaurantLead lead = new RestaurantLead();
+        lead.setName("Assigned Lead");
+        lead.setAddress("Nowhere");
+        lead.setLatitude(latitude);
+        lead.setLongitude(longitude);
+        lead.setCallFrequency(callFrequency);
+        return lead;
+    }
+
+    private static KAM kam(String name) {
+        KAM kam = new KAM();
+        kam.setName(name);
+        return kam;
+    }
+
+    private static Map<Long, KAMLoad> byKam(List<KAMLoad> loads) {
+        return loads.stream().collect(Collectors.toMap(KAMLoad::getKamId, Function.identity()));
+    }
+}
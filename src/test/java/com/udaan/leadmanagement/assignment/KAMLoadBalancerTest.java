@@ -0,0 +1,186 @@
+package com.udaan.leadmanagement.assignment;
+
+import com.udaan.leadmanagement.enums.LeadStatus;
+import com.udaan.leadmanagement.repository.KAMRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class KAMLoadBalancerTest {
+    private static final LeadLoad WEEKLY = new LeadLoad(7, null, null);
+    private static final LeadLoad IN_PUNE = new LeadLoad(7, 18.52, 73.86);
+    private static final LeadLoad IN_DELHI = new LeadLoad(7, 28.61, 77.21);
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void assign_LeastLoaded_ShouldGiveEachLeadToTheKAMWithTheFewestCallsPerDay() {
+        KAMLoadBalancer balancer = balancer(LeastLoadedPolicy.NAME, true);
+        // KAM 1 makes a call a day, KAM 2 half of one
+        balancer.seed(List.of(row(1L, 1, 0, 1, 1.0), row(2L, 1, 0, 1, 0.5)));
+
+        List<Long> assigned = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            assigned.add(balancer.assign(new LeadLoad(2, null, null)));
+        }
+
+        // 2 catches up at 1.0, the tie goes to 1, then they alternate
+        assertEquals(List.of(2L, 1L, 2L, 1L), assigned);
+        assertEquals(3, balancer.get(1L).orElseThrow().getActiveLeads());
+        assertEquals(2.0, balancer.get(1L).orElseThrow().getDailyCalls(), 1e-9);
+        assertEquals(1.5, balancer.get(2L).orElseThrow().getDailyCalls(), 1e-9);
+    }
+
+    @Test
+    void assign_PerformanceWeighted_ShouldGiveBetterConvertersMoreCalls() {
+        KAMLoadBalancer balancer = balancer(PerformanceWeightedPolicy.NAME, true);
+        // Same calls per day; KAM 2 has converted half their leads
+        balancer.seed(List.of(row(1L, 4, 0, 4, 1.0), row(2L, 4, 2, 2, 1.0)));
+
+        assertEquals(2L, balancer.assign(new LeadLoad(1, null, null)));
+        // Two calls a day at 40% conversion now weigh more than KAM 1's one call
+        assertEquals(1L, balancer.assign(new LeadLoad(1, null, null)));
+    }
+
+    @Test
+    void assign_Territory_ShouldPreferANearbyKAMOverALessLoadedOne() {
+        KAMLoadBalancer balancer = balancer(TerritoryPolicy.NAME, true);
+        balancer.addKAM(1L);
+        balancer.addKAM(2L);
+        balancer.onLeadAssigned(null, 1L, LeadStatus.NEW, IN_PUNE);
+        balancer.onLeadAssigned(null, 1L, LeadStatus.NEW, IN_PUNE);
+        balancer.onLeadAssigned(null, 2L, LeadStatus.NEW, IN_DELHI);
+
+        assertEquals(1L, balancer.assign(new LeadLoad(7, 18.55, 73.80)));
+        assertEquals(2L, balancer.assign(new LeadLoad(7, 28.70, 77.10)));
+        // Nobody works near Chennai or on leads without a position: least loaded overall
+        assertEquals(2L, balancer.assign(new LeadLoad(7, 13.08, 80.27)));
+        assertEquals(1L, balancer.assign(WEEKLY));
+    }
+
+    @Test
+    void onLeadStatusChanged_ShouldTakeClosedLeadsOffTheLoad() {
+        KAMLoadBalancer balancer = balancer(LeastLoadedPolicy.NAME, true);
+        balancer.addKAM(1L);
+        balancer.onLeadAssigned(null, 1L, LeadStatus.NEW, IN_PUNE);
+        balancer.onLeadAssigned(null, 1L, LeadStatus.NEW, IN_DELHI);
+
+        balancer.onLeadStatusChanged(1L, LeadStatus.NEW, LeadStatus.CONVERTED, IN_DELHI);
+
+        KAMLoad load = balancer.get(1L).orElseThrow();
+        assertEquals(2, load.getTotalLeads());
+        assertEquals(1, load.getConvertedLeads());
+        assertEquals(1, load.getActiveLeads());
+        assertEquals(1.0 / 7, load.getDailyCalls(), 1e-9);
+        assertEquals(50.0, load.getConversionRate(), 1e-9);
+        assertEquals(18.52, load.getTerritory().getLatitude(), 1e-9);
+    }
+
+    @Test
+    void onLeadAssigned_ShouldMoveTheLeadBetweenKAMs() {
+        KAMLoadBalancer balancer = balancer(LeastLoadedPolicy.NAME, true);
+        balancer.addKAM(1L);
+        balancer.addKAM(2L);
+        balancer.onLeadAssigned(null, 1L, LeadStatus.FOLLOW_UP, IN_PUNE);
+
+        balancer.onLeadAssigned(1L, 2L, LeadStatus.FOLLOW_UP, IN_PUNE);
+
+        assertEquals(0, balancer.get(1L).orElseThrow().getTotalLeads());
+        assertNull(balancer.get(1L).orElseThrow().getTerritory());
+        assertEquals(1, balancer.get(2L).orElseThrow().getActiveLeads());
+        assertEquals(List.of(1L, 2L), balancer.getLoads().stream().map(KAMLoad::getKamId).toList());
+    }
+
+    @Test
+    void assign_WhenTheTransactionRollsBack_ShouldTakeTheLeadOffAgain() {
+        KAMLoadBalancer balancer = balancer(LeastLoadedPolicy.NAME, true);
+        balancer.addKAM(1L);
+        TransactionSynchronizationManager.initSynchronization();
+
+        assertEquals(1L, balancer.assign(WEEKLY));
+        assertEquals(1, balancer.get(1L).orElseThrow().getActiveLeads());
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        assertEquals(0, balancer.get(1L).orElseThrow().getActiveLeads());
+        assertEquals(0.0, balancer.get(1L).orElseThrow().getDailyCalls(), 1e-12);
+    }
+
+    @Test
+    void assign_WithoutKAMsOrWhenTurnedOff_ShouldLeaveTheLeadUnassigned() {
+        assertNull(balancer(LeastLoadedPolicy.NAME, true).assign(WEEKLY));
+
+        KAMLoadBalancer off = balancer(LeastLoadedPolicy.NAME, false);
+        off.addKAM(1L);
+        assertNull(off.assign(WEEKLY));
+        assertEquals(0, off.get(1L).orElseThrow().getTotalLeads());
+    }
+
+    @Test
+    void seed_ShouldReadKAMsWithoutLeads() {
+        KAMLoadBalancer balancer = balancer(LeastLoadedPolicy.NAME, true);
+
+        balancer.seed(List.<Object[]>of(new Object[]{3L, 0L, null, null, null, null, null, null}));
+
+        KAMLoad load = balancer.get(3L).orElseThrow();
+        assertEquals(0, load.getTotalLeads());
+        assertEquals(0.0, load.getDailyCalls());
+        assertNull(load.getTerritory());
+    }
+
+    @Test
+    void reseed_ShouldReplaceDriftedLoadsAndKeepChangesMadeMeanwhile() {
+        KAMRepository kamRepository = mock(KAMRepository.class);
+        KAMLoadBalancer balancer = balancer(kamRepository, LeastLoadedPolicy.NAME, true);
+        balancer.addKAM(1L);
+        // The same close seen by two concurrent updates is taken off twice
+        balancer.onLeadAssigned(null, 1L, LeadStatus.NEW, IN_PUNE);
+        balancer.onLeadStatusChanged(1L, LeadStatus.NEW, LeadStatus.LOST, IN_PUNE);
+        balancer.onLeadStatusChanged(1L, LeadStatus.NEW, LeadStatus.LOST, IN_PUNE);
+        assertEquals(-1, balancer.get(1L).orElseThrow().getActiveLeads());
+        when(kamRepository.findKAMLoads()).thenAnswer(invocation -> {
+            // Committed while the aggregate runs, after its snapshot
+            balancer.onLeadAssigned(null, 1L, LeadStatus.NEW, IN_DELHI);
+            return List.<Object[]>of(new Object[]{1L, 1L, 0L, 0L, 0.0, 0L, 0.0, 0.0});
+        });
+
+        balancer.reseed();
+
+        KAMLoad load = balancer.get(1L).orElseThrow();
+        assertEquals(2, load.getTotalLeads());
+        assertEquals(1, load.getActiveLeads());
+        assertEquals(28.61, load.getTerritory().getLatitude(), 1e-9);
+    }
+
+    @Test
+    void constructor_UnknownPolicy_ThrowsException() {
+        assertThrows(IllegalArgumentException.class, () -> balancer("round-robin", true));
+    }
+
+    private static KAMLoadBalancer balancer(String policy, boolean autoAssign) {
+        return balancer(mock(KAMRepository.class), policy, autoAssign);
+    }
+
+    private static KAMLoadBalancer balancer(KAMRepository kamRepository, String policy, boolean autoAssign) {
+        return new KAMLoadBalancer(kamRepository,
+                List.of(new LeastLoadedPolicy(), new PerformanceWeightedPolicy(), new TerritoryPolicy()),
+                policy, autoAssign, 25, 0);
+    }
+
+    private static Object[] row(Long kamId, long total, long converted, long active, double dailyCalls) {
+        return new Object[]{kamId, total, converted, active, dailyCalls, 0L, 0.0, 0.0};
+    }
+}
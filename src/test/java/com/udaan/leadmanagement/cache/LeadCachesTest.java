@@ -0,0 +1,81 @@
+package com.udaan.leadmanagement.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.CacheManager;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LeadCachesTest {
+
+    private CacheManager cacheManager;
+    private LeadCaches leadCaches;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager = new CacheConfig().cacheManager(new StandardEnvironment());
+        leadCaches = new LeadCaches(cacheManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void evictContacts_ShouldEvictOnlyThatLeadsEntries() {
+        cache(LeadCaches.LEAD_CONTACTS).put(1L, List.of("a"));
+        cache(LeadCaches.PRIMARY_CONTACT).put(1L, "a");
+        cache(LeadCaches.LEAD_CONTACTS).put(2L, List.of("b"));
+
+        leadCaches.evictContacts(1L);
+
+        assertNull(cache(LeadCaches.LEAD_CONTACTS).get(1L));
+        assertNull(cache(LeadCaches.PRIMARY_CONTACT).get(1L));
+        assertNotNull(cache(LeadCaches.LEAD_CONTACTS).get(2L));
+    }
+
+    @Test
+    void evictInteractions_InTransaction_ShouldWaitForCommit() {
+        cache(LeadCaches.LEAD_INTERACTIONS).put(1L, List.of("call"));
+        TransactionSynchronizationManager.initSynchronization();
+
+        leadCaches.evictInteractions(List.of(1L));
+        assertNotNull(cache(LeadCaches.LEAD_INTERACTIONS).get(1L));
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertNull(cache(LeadCaches.LEAD_INTERACTIONS).get(1L));
+    }
+
+    @Test
+    void cacheManager_ShouldOnlyKnowRegisteredCaches() {
+        assertEquals(LeadCaches.NAMES.size(), cacheManager.getCacheNames().size());
+        assertNull(cacheManager.getCache("unknown"));
+    }
+
+    @Test
+    void builder_WithMaximumWeight_ShouldWeighCollectionsBySize() {
+        Cache<Object, Object> cache = CacheConfig.builder("maximumWeight=10,expireAfterWrite=1m").build();
+
+        cache.put(1L, List.of(1, 2, 3, 4));
+        cache.put(2L, "single");
+
+        var eviction = cache.policy().eviction().orElseThrow();
+        assertEquals(4, eviction.weightOf(1L).orElseThrow());
+        assertEquals(1, eviction.weightOf(2L).orElseThrow());
+        assertTrue(cache.policy().expireAfterWrite().isPresent());
+    }
+
+    private org.springframework.cache.Cache cache(String name) {
+        return cacheManager.getCache(name);
+    }
+}
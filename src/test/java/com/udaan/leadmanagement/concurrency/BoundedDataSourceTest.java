@@ -0,0 +1,84 @@
+package com.udaan.leadmanagement.concurrency;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BoundedDataSourceTest {
+
+    @Mock
+    private DataSource target;
+
+    @Mock
+    private Connection connection;
+
+    private BoundedDataSource dataSource;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new BoundedDataSource(target, 2, 50);
+    }
+
+    @Test
+    void getConnection_ShouldHoldPermitUntilClosed() throws SQLException {
+        when(target.getConnection()).thenReturn(connection);
+
+        Connection bounded = dataSource.getConnection();
+        assertEquals(1, dataSource.getAvailablePermits());
+
+        bounded.close();
+        assertEquals(2, dataSource.getAvailablePermits());
+        verify(connection).close();
+    }
+
+    @Test
+    void close_Twice_ShouldReleaseOnce() throws SQLException {
+        when(target.getConnection()).thenReturn(connection);
+
+        Connection bounded = dataSource.getConnection();
+        bounded.close();
+        bounded.close();
+
+        assertEquals(2, dataSource.getAvailablePermits());
+    }
+
+    @Test
+    void getConnection_WhenNoPermitFreed_ShouldTimeOut() throws SQLException {
+        when(target.getConnection()).thenReturn(connection);
+        dataSource.getConnection();
+        dataSource.getConnection();
+
+        assertThrows(SQLTransientConnectionException.class, () -> dataSource.getConnection());
+        verify(target, times(2)).getConnection();
+    }
+
+    @Test
+    void getConnection_WhenPoolFails_ShouldReturnPermit() throws SQLException {
+        when(target.getConnection()).thenThrow(new SQLException("pool exhausted"));
+
+        assertThrows(SQLException.class, () -> dataSource.getConnection());
+        assertEquals(2, dataSource.getAvailablePermits());
+    }
+
+    @Test
+    void otherCalls_ShouldBeDelegated() throws SQLException {
+        when(target.getConnection()).thenReturn(connection);
+        when(connection.getAutoCommit()).thenReturn(true);
+
+        Connection bounded = dataSource.getConnection();
+
+        assertTrue(bounded.getAutoCommit());
+        assertEquals(bounded, bounded);
+    }
+}
@@ -0,0 +1,51 @@
+package com.udaan.leadmanagement.event;
+
+import com.udaan.leadmanagement.DTO.LeadFunnelDTO;
+import com.udaan.leadmanagement.enums.InteractionType;
+import com.udaan.leadmanagement.enums.LeadStatus;
+import com.udaan.leadmanagement.model.LeadEvent;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FunnelProjectionTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 11, 3, 10, 0);
+
+    @Test
+    void apply_ShouldTrackCurrentStatusAndMoves() {
+        FunnelProjection funnel = new FunnelProjection();
+
+        funnel.apply(LeadEvent.leadCreated(1L, null, LeadStatus.NEW, NOW));
+        funnel.apply(LeadEvent.leadCreated(2L, null, LeadStatus.NEW, NOW));
+        funnel.apply(LeadEvent.interactionRecorded(1L, null, InteractionType.CALL, NOW));
+        funnel.apply(LeadEvent.statusChanged(1L, null, LeadStatus.IN_PROGRESS, NOW));
+        funnel.apply(LeadEvent.statusChanged(1L, null, LeadStatus.CONVERTED, NOW));
+        funnel.apply(LeadEvent.statusChanged(2L, null, LeadStatus.IN_PROGRESS, NOW));
+
+        assertEquals(0, funnel.getLeads(LeadStatus.NEW));
+        assertEquals(1, funnel.getLeads(LeadStatus.IN_PROGRESS));
+        assertEquals(1, funnel.getLeads(LeadStatus.CONVERTED));
+        assertEquals(2, funnel.getTransitions(LeadStatus.NEW, LeadStatus.IN_PROGRESS));
+        assertEquals(1, funnel.getTransitions(LeadStatus.IN_PROGRESS, LeadStatus.CONVERTED));
+    }
+
+    @Test
+    void apply_LeadOlderThanLog_ShouldEnterAtFirstSeenStatusWithoutMove() {
+        FunnelProjection funnel = new FunnelProjection();
+
+        funnel.apply(LeadEvent.kamAssigned(9L, 4L, LeadStatus.FOLLOW_UP, NOW));
+        funnel.apply(LeadEvent.kamAssigned(9L, 5L, LeadStatus.FOLLOW_UP, NOW));
+        funnel.apply(LeadEvent.statusChanged(10L, 4L, LeadStatus.LOST, NOW));
+
+        assertEquals(1, funnel.getLeads(LeadStatus.FOLLOW_UP));
+        assertEquals(1, funnel.getLeads(LeadStatus.LOST));
+        LeadFunnelDTO dto = funnel.toDTO(42L);
+        assertEquals(42L, dto.getLastEventId());
+        assertEquals(Map.of(), dto.getTransitions());
+        assertEquals(0L, dto.getLeadsByStatus().get(LeadStatus.NEW));
+    }
+}
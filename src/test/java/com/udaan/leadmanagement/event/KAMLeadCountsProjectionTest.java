@@ -0,0 +1,42 @@
+package com.udaan.leadmanagement.event;
+
+import com.udaan.leadmanagement.DTO.KAMLeadCountsDTO;
+import com.udaan.leadmanagement.enums.LeadStatus;
+import com.udaan.leadmanagement.model.LeadEvent;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KAMLeadCountsProjectionTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 11, 3, 10, 0);
+
+    @Test
+    void apply_ShouldMoveCountsWithReassignmentsAndConversions() {
+        KAMLeadCountsProjection counts = new KAMLeadCountsProjection();
+
+        counts.apply(LeadEvent.leadCreated(1L, null, LeadStatus.NEW, NOW));
+        counts.apply(LeadEvent.leadCreated(2L, null, LeadStatus.NEW, NOW));
+        counts.apply(LeadEvent.kamAssigned(1L, 10L, LeadStatus.NEW, NOW));
+        counts.apply(LeadEvent.kamAssigned(2L, 10L, LeadStatus.NEW, NOW));
+        counts.apply(LeadEvent.statusChanged(1L, 10L, LeadStatus.CONVERTED, NOW));
+        counts.apply(LeadEvent.kamAssigned(1L, 20L, LeadStatus.CONVERTED, NOW));
+
+        assertEquals(List.of(
+                new KAMLeadCountsDTO(10L, 1, 0, 0.0),
+                new KAMLeadCountsDTO(20L, 1, 1, 100.0)), counts.toDTOs());
+    }
+
+    @Test
+    void apply_LeadOlderThanLog_ShouldCountUnderKamOfFirstEvent() {
+        KAMLeadCountsProjection counts = new KAMLeadCountsProjection();
+
+        counts.apply(LeadEvent.statusChanged(5L, 30L, LeadStatus.CONVERTED, NOW));
+        counts.apply(LeadEvent.statusChanged(6L, 30L, LeadStatus.IN_PROGRESS, NOW));
+
+        assertEquals(List.of(new KAMLeadCountsDTO(30L, 2, 1, 50.0)), counts.toDTOs());
+    }
+}
@@ -0,0 +1,95 @@
+package com.udaan.leadmanagement.event;
+
+import com.udaan.leadmanagement.enums.InteractionType;
+import com.udaan.leadmanagement.enums.LeadEventType;
+import com.udaan.leadmanagement.enums.LeadStatus;
+import com.udaan.leadmanagement.model.LeadEvent;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LeadEventCodecTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2024, 11, 3, 10, 15, 30, 123_456_000);
+
+    @Test
+    void roundTrip_ShouldRestoreEveryField() throws IOException {
+        List<LeadEvent> events = List.of(
+                withId(1, LeadEvent.leadCreated(7L, null, LeadStatus.NEW, T0)),
+                withId(2, LeadEvent.kamAssigned(7L, 3L, LeadStatus.NEW, T0.plusSeconds(1))),
+                withId(5, LeadEvent.interactionRecorded(7L, 3L, InteractionType.MEETING, T0.plusMinutes(2))),
+                withId(8, LeadEvent.interactionRecorded(7L, 3L, InteractionType.CALL, true, T0.plusMinutes(3))),
+                withId(9, LeadEvent.interactionRecorded(7L, 3L, InteractionType.CALL, false, T0.plusMinutes(4))),
+                // Ids are handed out before commit, so a later id can carry an earlier time
+                withId(10, LeadEvent.statusChanged(7L, 3L, LeadStatus.CONVERTED, T0.minusDays(1))),
+                withId(300, LeadEvent.contactChanged(LeadEventType.CONTACT_REMOVED, Long.MAX_VALUE, 123_456_789L, T0)),
+                withId(Long.MAX_VALUE, LeadEvent.contactChanged(LeadEventType.PRIMARY_CONTACT_CHANGED, 1L, 0L,
+                        LocalDateTime.of(1969, 12, 31, 23, 59, 59, 999_999_000))));
+
+        assertEquals(events, decode(encode(events)));
+    }
+
+    @Test
+    void encode_ShouldFitTypicalEventsInSixteenBytes() throws IOException {
+        List<LeadEvent> events = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            events.add(withId(10_000_000L + i, LeadEvent.statusChanged(2_000_000L + i * 37L, 150L,
+                    LeadStatus.FOLLOW_UP, T0.plusSeconds(i * 3L))));
+        }
+
+        byte[] encoded = encode(events);
+
+        assertTrue(encoded.length < 16 * events.size(), "Encoded " + encoded.length + " bytes");
+        assertEquals(events, decode(encoded));
+    }
+
+    @Test
+    void encode_WithoutEvents_ShouldStillWriteHeader() throws IOException {
+        byte[] encoded = encode(List.of());
+
+        assertArrayEquals(LeadEventCodec.MAGIC, encoded);
+        assertEquals(List.of(), decode(encoded));
+    }
+
+    @Test
+    void decode_ForeignOrTruncatedStream_ShouldFail() throws IOException {
+        assertThrows(IOException.class, () -> decode("LEV0".getBytes()));
+
+        byte[] encoded = encode(List.of(withId(1, LeadEvent.leadCreated(7L, 3L, LeadStatus.NEW, T0))));
+        assertThrows(EOFException.class, () -> decode(Arrays.copyOf(encoded, encoded.length - 1)));
+    }
+
+    private static LeadEvent withId(long id, LeadEvent event) {
+        event.setId(id);
+        return event;
+    }
+
+    private static byte[] encode(List<LeadEvent> events) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        LeadEventCodec.Encoder encoder = new LeadEventCodec.Encoder(out);
+        for (LeadEvent event : events) {
+            encoder.write(event);
+        }
+        encoder.flush();
+        return out.toByteArray();
+    }
+
+    private static List<LeadEvent> decode(byte[] bytes) throws IOException {
+        LeadEventCodec.Decoder decoder = new LeadEventCodec.Decoder(new ByteArrayInputStream(bytes));
+        List<LeadEvent> events = new ArrayList<>();
+        LeadEvent event;
+        while ((event = decoder.read()) != null) {
+            events.add(event);
+        }
+        return events;
+    }
+}
@@ -0,0 +1,182 @@
+package com.udaan.leadmanagement.event;
+
+import com.udaan.leadmanagement.DTO.KAMLeadCountsDTO;
+import com.udaan.leadmanagement.analytics.FunnelAnalytics;
+import com.udaan.leadmanagement.analytics.KAMActivity;
+import com.udaan.leadmanagement.analytics.KAMActivityWindows;
+import com.udaan.leadmanagement.enums.InteractionType;
+import com.udaan.leadmanagement.enums.LeadEventType;
+import com.udaan.leadmanagement.enums.LeadStatus;
+import com.udaan.leadmanagement.model.Interaction;
+import com.udaan.leadmanagement.model.KAM;
+import com.udaan.leadmanagement.model.LeadEvent;
+import com.udaan.leadmanagement.model.RestaurantLead;
+import com.udaan.leadmanagement.service.KAMService;
+import com.udaan.leadmanagement.service.RestaurantLeadManagementService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:leadmanagement-test;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        // Leads stay unassigned until the test assigns them
+        "leadmanagement.assignment.auto-assign=false",
+        // A checkpoint left by an earlier run would not match this fresh database
+        "leadmanagement.analytics.checkpoint-file="
+})
+class LeadEventLogTest {
+
+    @Autowired
+    private LeadEventLog leadEventLog;
+
+    @Autowired
+    private RestaurantLeadManagementService leadService;
+
+    @Autowired
+    private KAMService kamService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private FunnelAnalytics funnelAnalytics;
+
+    @Autowired
+    private KAMActivityWindows kamActivityWindows;
+
+    @Test
+    void writePaths_ShouldAppendEventsThatReplayIntoProjections() {
+        long start = leadEventLog.replay(0, event -> { });
+        KAM kam = new KAM();
+        kam.setName("Event KAM");
+        Long kamId = kamService.addKAM(kam).getId();
+        Long first = createLead();
+        Long second = createLead();
+
+        kamService.assignLeadsToKAM(kamId, List.of(first, second), 1000);
+        Interaction call = new Interaction();
+        call.setType(InteractionType.CALL);
+        leadService.recordInteraction(first, call);
+        leadService.updateLeadStatus(first, LeadStatus.CONVERTED);
+
+        List<LeadEvent> events = eventsAfter(start);
+        assertEquals(List.of(LeadEventType.LEAD_CREATED, LeadEventType.LEAD_CREATED,
+                        LeadEventType.KAM_ASSIGNED, LeadEventType.KAM_ASSIGNED,
+                        LeadEventType.INTERACTION_RECORDED, LeadEventType.STATUS_CHANGED, LeadEventType.STATUS_CHANGED),
+                events.stream().map(LeadEvent::getType).toList());
+        assertEquals(kamId, events.getLast().getKamId());
+        // The call came well before the first one was due
+        assertEquals(Boolean.TRUE, events.get(4).getOnSchedule());
+
+        KAMLeadCountsProjection counts = new KAMLeadCountsProjection();
+        leadEventLog.replay(start, counts::apply);
+        assertEquals(List.of(new KAMLeadCountsDTO(kamId, 2, 1, 50.0)), counts.toDTOs());
+        FunnelProjection funnel = new FunnelProjection();
+        leadEventLog.replay(start, funnel::apply);
+        assertEquals(1, funnel.getLeads(LeadStatus.NEW));
+        assertEquals(1, funnel.getLeads(LeadStatus.CONVERTED));
+        assertEquals(1, funnel.getTransitions(LeadStatus.IN_PROGRESS, LeadStatus.CONVERTED));
+
+        KAMActivity today = kamActivityWindows.getActivity(kamId, 1, LocalDateTime.now());
+        assertEquals(1, today.getConversions());
+        assertEquals(1, today.getOnScheduleCalls());
+        // Live events keep the clock's precision, the stored ones are rounded to microseconds
+        assertTrue(Duration.between(events.getLast().getOccurredAt(), today.getLastEventAt()).abs().toMillis() < 1);
+        assertEquals(events.getLast().getOccurredAt(), leadEventLog.lastLeadChangeByKam().get(kamId));
+    }
+
+    @Test
+    void replaySince_ShouldSkipEventsBeforeTheWindow() {
+        LocalDateTime before = LocalDateTime.now().minusSeconds(1);
+        Long leadId = createLead();
+
+        List<LeadEvent> recent = new ArrayList<>();
+        leadEventLog.replaySince(before, recent::add);
+        List<LeadEvent> none = new ArrayList<>();
+        long lastId = leadEventLog.replaySince(LocalDateTime.now().plusDays(1), none::add);
+
+        assertEquals(leadId, recent.getLast().getLeadId());
+        assertTrue(recent.stream().noneMatch(event -> event.getOccurredAt().isBefore(before)));
+        assertEquals(List.of(), none);
+        assertEquals(0, lastId);
+    }
+
+    @Test
+    void append_ShouldRollBackWithTheChange() {
+        long start = leadEventLog.replay(0, event -> { });
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        assertThrows(IllegalStateException.class, () -> transaction.executeWithoutResult(status -> {
+            leadEventLog.append(LeadEvent.leadCreated(-1L, null, LeadStatus.NEW, LocalDateTime.now()));
+            throw new IllegalStateException("change failed");
+        }));
+
+        assertEquals(List.of(), eventsAfter(start));
+    }
+
+    @Test
+    void append_ShouldReachListenersOnlyOnCommit() {
+        long entered = funnelAnalytics.getFunnel().getStages().get(LeadStatus.NEW.ordinal()).getEntered();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        assertThrows(IllegalStateException.class, () -> transaction.executeWithoutResult(status -> {
+            leadEventLog.append(LeadEvent.leadCreated(-2L, null, LeadStatus.NEW, LocalDateTime.now()));
+            throw new IllegalStateException("change failed");
+        }));
+        createLead();
+
+        assertEquals(entered + 1, funnelAnalytics.getFunnel().getStages().get(LeadStatus.NEW.ordinal()).getEntered());
+    }
+
+    @Test
+    void append_OutsideTransaction_ShouldBeRejected() {
+        assertThrows(IllegalStateException.class,
+                () -> leadEventLog.append(LeadEvent.leadCreated(-1L, null, LeadStatus.NEW, LocalDateTime.now())));
+    }
+
+    @Test
+    void export_ShouldDecodeToTheReplayedEvents() throws Exception {
+        long start = leadEventLog.replay(0, event -> { });
+        createLead();
+        createLead();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long written = leadEventLog.export(start, out);
+
+        LeadEventCodec.Decoder decoder = new LeadEventCodec.Decoder(new ByteArrayInputStream(out.toByteArray()));
+        List<LeadEvent> decoded = new ArrayList<>();
+        LeadEvent event;
+        while ((event = decoder.read()) != null) {
+            decoded.add(event);
+        }
+        assertEquals(2, written);
+        assertEquals(eventsAfter(start), decoded);
+    }
+
+    private List<LeadEvent> eventsAfter(long afterId) {
+        List<LeadEvent> events = new ArrayList<>();
+        leadEventLog.replay(afterId, events::add);
+        return events;
+    }
+
+    private Long createLead() {
+        RestaurantLead lead = new RestaurantLead();
+        lead.setName("Logged Restaurant");
+        lead.setCallFrequency(7);
+        return leadService.createLead(lead).getId();
+    }
+}
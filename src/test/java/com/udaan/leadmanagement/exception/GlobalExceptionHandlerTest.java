@@ -0,0 +1,40 @@
+package com.udaan.leadmanagement.exception;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:leadmanagement-test;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@AutoConfigureMockMvc
+class GlobalExceptionHandlerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void parameterOutOfRange_ShouldBeBadRequest() throws Exception {
+        mockMvc.perform(get("/api/leads").param("limit", "501"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", containsString("limit must be less than or equal to 500")));
+    }
+
+    @Test
+    void parametersOutOfRange_ShouldAllBeReported() throws Exception {
+        mockMvc.perform(get("/api/kams/top-performing/recent").param("count", "0").param("days", "91"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", containsString("count must be greater than or equal to 1")))
+                .andExpect(jsonPath("$.message", containsString("days must be less than or equal to 90")));
+    }
+}
@@ -0,0 +1,151 @@
+package com.udaan.leadmanagement.feed;
+
+import com.udaan.leadmanagement.enums.LeadStatus;
+import com.udaan.leadmanagement.model.Contact;
+import com.udaan.leadmanagement.model.KAM;
+import com.udaan.leadmanagement.model.RestaurantLead;
+import com.udaan.leadmanagement.service.ContactService;
+import com.udaan.leadmanagement.service.KAMService;
+import com.udaan.leadmanagement.service.RestaurantLeadManagementService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:leadmanagement-test;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+class LeadChangeFeedTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private LeadChangeFeed leadChangeFeed;
+
+    @Autowired
+    private KAMService kamService;
+
+    @Autowired
+    private RestaurantLeadManagementService leadService;
+
+    @Autowired
+    private ContactService contactService;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final List<Thread> readers = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        readers.forEach(Thread::interrupt);
+        client.shutdownNow();
+    }
+
+    @Test
+    void feeds_ShouldStreamEachCommittedChangeToItsKAMsAndTheGlobalFeed() throws Exception {
+        Long first = kamService.addKAM(kam("Feed One")).getId();
+        Long second = kamService.addKAM(kam("Feed Two")).getId();
+        BlockingQueue<String> firstFeed = open("/api/kams/" + first + "/feed");
+        BlockingQueue<String> secondFeed = open("/api/kams/" + second + "/feed");
+        BlockingQueue<String> globalFeed = open("/api/events/feed");
+
+        RestaurantLead lead = new RestaurantLead();
+        lead.setName("Feed Lead");
+        lead.setAddress("Nowhere");
+        lead.setCallFrequency(7);
+        lead.setAssignedKam(kamReference(first));
+        Long leadId = leadService.createLead(lead).getId();
+        contactService.addContact(leadId, contact());
+        kamService.assignLeadsToKAM(second, List.of(leadId), 1000);
+        leadService.updateLeadStatus(leadId, LeadStatus.FOLLOW_UP);
+
+        assertEquals(List.of("LEAD_CREATED", "CONTACT_ADDED", "KAM_ASSIGNED"), take(firstFeed, 3));
+        assertEquals(List.of("KAM_ASSIGNED", "STATUS_CHANGED"), take(secondFeed, 2));
+        assertEquals(List.of("LEAD_CREATED", "CONTACT_ADDED", "KAM_ASSIGNED", "STATUS_CHANGED"), take(globalFeed, 4));
+        String rest;
+        while ((rest = firstFeed.poll(200, TimeUnit.MILLISECONDS)) != null) {
+            assertFalse(rest.startsWith("event:"), rest);
+        }
+    }
+
+    @Test
+    void kamFeed_UnknownKAM_ShouldBeNotFound() throws Exception {
+        HttpResponse<Void> response = client.send(request("/api/kams/999999/feed"), HttpResponse.BodyHandlers.discarding());
+
+        assertEquals(404, response.statusCode());
+    }
+
+    // The events' names, each checked to carry a data line with the lead change
+    private static List<String> take(BlockingQueue<String> feed, int count) throws InterruptedException {
+        List<String> names = new ArrayList<>();
+        String name = null;
+        while (names.size() < count) {
+            String line = feed.poll(5, TimeUnit.SECONDS);
+            assertNotNull(line, "Feed ended after " + names);
+            if (line.startsWith("event:")) {
+                name = line.substring("event:".length());
+            } else if (line.startsWith("data:")) {
+                assertTrue(line.contains("\"leadId\""), line);
+                names.add(name);
+            }
+        }
+        return names;
+    }
+
+    private BlockingQueue<String> open(String path) throws Exception {
+        HttpResponse<java.util.stream.Stream<String>> response =
+                client.send(request(path), HttpResponse.BodyHandlers.ofLines());
+        assertEquals(200, response.statusCode());
+        BlockingQueue<String> lines = new LinkedBlockingQueue<>();
+        Thread reader = Thread.ofVirtual().start(() -> response.body().forEach(lines::add));
+        readers.add(reader);
+        // The response is committed once the subscription is registered
+        assertTrue(leadChangeFeed.getSubscriberCount() >= readers.size());
+        return lines;
+    }
+
+    private HttpRequest request(String path) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Accept", "text/event-stream")
+                .timeout(Duration.ofSeconds(10))
+                .build();
+    }
+
+    private static KAM kam(String name) {
+        KAM kam = new KAM();
+        kam.setName(name);
+        return kam;
+    }
+
+    private static KAM kamReference(Long id) {
+        KAM kam = new KAM();
+        kam.setId(id);
+        return kam;
+    }
+
+    private static Contact contact() {
+        Contact contact = new Contact();
+        contact.setName("Feed Owner");
+        contact.setRole("Owner");
+        contact.setEmail("feed.owner@example.com");
+        contact.setPhone("9876500000");
+        return contact;
+    }
+}
@@ -0,0 +1,179 @@
+package com.udaan.leadmanagement.feed;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SseFanOutTest {
+
+    private SseFanOut fanOut;
+
+    @AfterEach
+    void tearDown() {
+        fanOut.close();
+    }
+
+    @Test
+    void publish_ShouldReachTheKeysSubscribersAndThoseFollowingAll() throws InterruptedException {
+        List<RecordingEmitter> created = new ArrayList<>();
+        fanOut = new SseFanOut("test", 8, Duration.ZERO, recording(created, null));
+        fanOut.subscribe(1L);
+        fanOut.subscribe(2L);
+        fanOut.subscribe(null);
+
+        fanOut.publish(1L, "CHANGE", "7", "{\"leadId\":3}");
+
+        assertEquals("event:CHANGE id:7 data:{\"leadId\":3}", created.get(0).next());
+        assertEquals("event:CHANGE id:7 data:{\"leadId\":3}", created.get(2).next());
+        assertEquals("retry:3000", created.get(1).sent.poll(1, TimeUnit.SECONDS));
+        assertNull(created.get(1).sent.poll(100, TimeUnit.MILLISECONDS));
+        assertEquals(3, fanOut.getSubscriberCount());
+    }
+
+    @Test
+    void publishToKey_ShouldSkipThoseFollowingAll() throws InterruptedException {
+        List<RecordingEmitter> created = new ArrayList<>();
+        fanOut = new SseFanOut("test", 8, Duration.ZERO, recording(created, null));
+        fanOut.subscribe(1L);
+        fanOut.subscribe(null);
+
+        fanOut.publishToKey(1L, "CHANGE", null, "x");
+
+        assertEquals("event:CHANGE data:x", created.get(0).next());
+        assertEquals("retry:3000", created.get(1).sent.poll(1, TimeUnit.SECONDS));
+        assertNull(created.get(1).sent.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void publish_ToASlowSubscriber_ShouldDropItsOldestMessagesOnly() throws InterruptedException {
+        CountDownLatch released = new CountDownLatch(1);
+        List<RecordingEmitter> created = new ArrayList<>();
+        fanOut = new SseFanOut("test", 3, Duration.ZERO, recording(created, released));
+        fanOut.subscribe(1L);
+        RecordingEmitter slow = created.getFirst();
+
+        // The first message is taken by the sender, which then blocks until released
+        fanOut.publish(1L, "CHANGE", null, "0");
+        slow.awaitSending();
+        for (int i = 1; i <= 6; i++) {
+            fanOut.publish(1L, "CHANGE", null, Integer.toString(i));
+        }
+        released.countDown();
+
+        assertEquals("event:CHANGE data:0", slow.next());
+        assertEquals("event:DROPPED data:3", slow.next());
+        assertEquals("event:CHANGE data:4", slow.next());
+        assertEquals("event:CHANGE data:5", slow.next());
+        assertEquals("event:CHANGE data:6", slow.next());
+        assertEquals(3, fanOut.getDroppedCount());
+    }
+
+    @Test
+    void publish_WhenTheClientIsGone_ShouldUnsubscribeIt() throws InterruptedException {
+        fanOut = new SseFanOut("test", 8, Duration.ZERO, () -> new RecordingEmitter(null, true));
+        fanOut.subscribe(1L);
+        assertTrue(fanOut.hasSubscribers());
+
+        fanOut.publish(1L, "CHANGE", null, "x");
+
+        for (int i = 0; i < 50 && fanOut.hasSubscribers(); i++) {
+            Thread.sleep(20);
+        }
+        assertFalse(fanOut.hasSubscribers());
+    }
+
+    @Test
+    void heartbeat_ShouldCommentToIdleClientsAndDropThoseThatAreGone() throws InterruptedException {
+        List<RecordingEmitter> created = new ArrayList<>();
+        fanOut = new SseFanOut("test", 8, Duration.ofMillis(50), () -> {
+            RecordingEmitter emitter = new RecordingEmitter(null, created.size() == 1);
+            created.add(emitter);
+            return emitter;
+        });
+        fanOut.subscribe(1L);
+        fanOut.subscribe(1L);
+
+        assertEquals(":", created.getFirst().next());
+        for (int i = 0; i < 50 && fanOut.getSubscriberCount() > 1; i++) {
+            Thread.sleep(20);
+        }
+        assertEquals(1, fanOut.getSubscriberCount());
+    }
+
+    @Test
+    void subscribe_AfterClose_ShouldEndTheStreamAtOnce() {
+        fanOut = new SseFanOut("test", 8, Duration.ZERO, recording(new ArrayList<>(), null));
+        fanOut.close();
+
+        fanOut.subscribe(1L);
+
+        assertFalse(fanOut.hasSubscribers());
+    }
+
+    private static Supplier<SseEmitter> recording(List<RecordingEmitter> created, CountDownLatch released) {
+        return () -> {
+            RecordingEmitter emitter = new RecordingEmitter(released, false);
+            created.add(emitter);
+            return emitter;
+        };
+    }
+
+    private static final class RecordingEmitter extends SseEmitter {
+        private final BlockingQueue<String> sent = new LinkedBlockingQueue<>();
+        private final CountDownLatch sending = new CountDownLatch(1);
+        private final CountDownLatch released;
+        private final boolean broken;
+
+        // Messages block until released, if given, or fail if broken; the reconnect time always goes through
+        private RecordingEmitter(CountDownLatch released, boolean broken) {
+            this.released = released;
+            this.broken = broken;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            StringBuilder text = new StringBuilder();
+            for (ResponseBodyEmitter.DataWithMediaType part : builder.build()) {
+                text.append(part.getData());
+            }
+            String event = text.toString().strip().replace('\n', ' ');
+            if (!event.startsWith("retry:")) {
+                sending.countDown();
+                if (broken) {
+                    throw new IOException("Broken pipe");
+                }
+                if (released != null) {
+                    try {
+                        released.await();
+                    } catch (InterruptedException e) {
+                        throw new IOException(e);
+                    }
+                }
+            }
+            sent.add(event);
+        }
+
+        void awaitSending() throws InterruptedException {
+            assertTrue(sending.await(5, TimeUnit.SECONDS));
+        }
+
+        // Skips the reconnect time sent on subscribing
+        String next() throws InterruptedException {
+            String event = sent.poll(5, TimeUnit.SECONDS);
+            return event != null && event.startsWith("retry:") ? next() : event;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.udaan.leadmanagement.geo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GazetteerGeocoderTest {
+
+    private final GazetteerGeocoder geocoder = new GazetteerGeocoder();
+
+    @Test
+    void geocode_ShouldPlaceTheAddressNearItsCity() {
+        GeoPoint pune = new GeoPoint(18.5204, 73.8567);
+
+        GeoPoint position = geocoder.geocode("12 MG Road, Camp, Pune 411001").orElseThrow();
+
+        assertTrue(position.distanceKm(pune) <= GazetteerGeocoder.SPREAD_KM + 0.001);
+    }
+
+    @Test
+    void geocode_ShouldBeStableAndSpreadDifferentAddresses() {
+        GeoPoint first = geocoder.geocode("12 MG Road, Pune").orElseThrow();
+
+        assertEquals(first, geocoder.geocode("12 mg road,  PUNE").orElseThrow());
+        assertNotEquals(first, geocoder.geocode("14 MG Road, Pune").orElseThrow());
+    }
+
+    @Test
+    void geocode_ShouldPreferTheLastAndLongestCityName() {
+        GeoPoint naviMumbai = new GeoPoint(19.0330, 73.0297);
+
+        GeoPoint position = geocoder.geocode("Mumbai Masala, Sector 17, Vashi, Navi Mumbai").orElseThrow();
+
+        assertTrue(position.distanceKm(naviMumbai) <= GazetteerGeocoder.SPREAD_KM + 0.001);
+    }
+
+    @Test
+    void geocode_UnknownOrMissingAddress_ShouldBeEmpty() {
+        assertEquals(Optional.empty(), geocoder.geocode("Somewhere Else"));
+        assertEquals(Optional.empty(), geocoder.geocode(" "));
+        assertEquals(Optional.empty(), geocoder.geocode(null));
+    }
+}
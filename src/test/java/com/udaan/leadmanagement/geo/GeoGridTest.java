@@ -0,0 +1,136 @@
+package com.udaan.leadmanagement.geo;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GeoGridTest {
+
+    private GeoGrid grid;
+
+    @BeforeEach
+    void setUp() {
+        grid = new GeoGrid(0.01);
+        // Along the equator 0.01 degrees is about 1.11 km
+        grid.put(1L, new GeoPoint(0, 0.00));
+        grid.put(2L, new GeoPoint(0, 0.02));
+        grid.put(3L, new GeoPoint(0, -0.01));
+        grid.put(4L, new GeoPoint(0.05, 0.05));
+        grid.put(5L, new GeoPoint(0, 0.30));
+    }
+
+    @Test
+    void near_ShouldReturnLeadsInsideTheRadiusClosestFirst() {
+        GeoArea area = grid.near(0, 0.001, 3, 10);
+
+        assertEquals(3, area.getTotal());
+        assertEquals(List.of(1L, 3L, 2L), ids(area.getMatches()));
+        assertEquals(0.111, area.getMatches().getFirst().getDistanceKm(), 0.001);
+    }
+
+    @Test
+    void near_ShouldCountEveryLeadInTheRadiusButReturnOnlyTheLimit() {
+        GeoArea area = grid.near(0, 0, 10, 2);
+
+        assertEquals(4, area.getTotal());
+        assertEquals(List.of(1L, 3L), ids(area.getMatches()));
+    }
+
+    @Test
+    void within_ShouldIncludeTheEdgesAndRankByDistanceFromTheCentre() {
+        GeoArea area = grid.within(0, 0, 0.06, 0.05, 10);
+
+        assertEquals(3, area.getTotal());
+        assertEquals(List.of(2L, 4L, 1L), ids(area.getMatches()));
+    }
+
+    @Test
+    void within_LargeBox_ShouldReadOccupiedCellsOnly() {
+        GeoArea area = grid.within(-80, -170, 80, 170, 10);
+
+        assertEquals(5, area.getTotal());
+    }
+
+    @Test
+    void put_ShouldMoveALeadThatIsAlreadyIndexed() {
+        grid.put(5L, new GeoPoint(0, 0.005));
+
+        assertEquals(5, grid.size());
+        assertEquals(List.of(1L, 5L), ids(grid.nearest(0, 0.002, 2)));
+        assertEquals(0, grid.near(0, 0.30, 1, 10).getTotal());
+    }
+
+    @Test
+    void nearest_ShouldBreakTiesByLeadId() {
+        grid.put(6L, new GeoPoint(0, 0.01));
+
+        // 3 and 6 are equally far from 1's position
+        assertEquals(List.of(1L, 3L), ids(grid.nearest(0, 0, 2)));
+    }
+
+    @Test
+    void nearest_ShouldMatchAFullScan() {
+        Random random = new Random(7);
+        GeoGrid clustered = new GeoGrid(0.01);
+        List<GeoMatch> all = new ArrayList<>();
+        for (long id = 1; id <= 2000; id++) {
+            // Two dense cities far apart
+            double lat = (id % 2 == 0 ? 18.5 : 28.6) + random.nextGaussian() * 0.05;
+            double lng = (id % 2 == 0 ? 73.8 : 77.2) + random.nextGaussian() * 0.05;
+            clustered.put(id, new GeoPoint(lat, lng));
+            all.add(new GeoMatch(id, lat, lng, 0));
+        }
+
+        for (GeoPoint query : List.of(new GeoPoint(18.5, 73.8), new GeoPoint(18.62, 73.7), new GeoPoint(23, 75))) {
+            List<Long> expected = all.stream()
+                    .sorted(Comparator.comparingDouble((GeoMatch m) -> GeoPoint.distanceKm(
+                                    query.getLatitude(), query.getLongitude(), m.getLatitude(), m.getLongitude()))
+                            .thenComparingLong(GeoMatch::getLeadId))
+                    .limit(25)
+                    .map(GeoMatch::getLeadId)
+                    .toList();
+            assertEquals(expected, ids(clustered.nearest(query.getLatitude(), query.getLongitude(), 25)));
+        }
+    }
+
+    @Test
+    void near_ShouldMatchAFullScan() {
+        Random random = new Random(11);
+        GeoGrid dense = new GeoGrid(0.01);
+        List<GeoMatch> all = new ArrayList<>();
+        for (long id = 1; id <= 5000; id++) {
+            double lat = 18.5 + random.nextGaussian() * 0.05;
+            double lng = 73.8 + random.nextGaussian() * 0.05;
+            dense.put(id, new GeoPoint(lat, lng));
+            all.add(new GeoMatch(id, lat, lng, 0));
+        }
+
+        for (double radiusKm : new double[]{0.5, 3, 8}) {
+            List<GeoMatch> inside = all.stream()
+                    .filter(m -> GeoPoint.distanceKm(18.51, 73.79, m.getLatitude(), m.getLongitude()) <= radiusKm)
+                    .sorted(Comparator.comparingDouble((GeoMatch m) -> GeoPoint.distanceKm(
+                                    18.51, 73.79, m.getLatitude(), m.getLongitude()))
+                            .thenComparingLong(GeoMatch::getLeadId))
+                    .toList();
+            GeoArea area = dense.near(18.51, 73.79, radiusKm, 40);
+            assertEquals(inside.size(), area.getTotal());
+            assertEquals(ids(inside.subList(0, Math.min(40, inside.size()))), ids(area.getMatches()));
+        }
+    }
+
+    @Test
+    void nearest_WhenFewerLeadsThanAsked_ShouldReturnAll() {
+        assertEquals(5, grid.nearest(40, 40, 50).size());
+        assertEquals(List.of(), new GeoGrid(0.01).nearest(0, 0, 5));
+    }
+
+    private static List<Long> ids(List<GeoMatch> matches) {
+        return matches.stream().map(GeoMatch::getLeadId).toList();
+    }
+}
@@ -0,0 +1,70 @@
+package com.udaan.leadmanagement.geo;
+
+import com.udaan.leadmanagement.model.RestaurantLead;
+import com.udaan.leadmanagement.service.RestaurantLeadManagementService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:leadmanagement-test;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+class LeadGeoIndexTest {
+
+    @Autowired
+    private LeadGeoIndex leadGeoIndex;
+
+    @Autowired
+    private RestaurantLeadManagementService leadService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void createLead_ShouldIndexTheGivenOrGeocodedPositionAfterCommit() {
+        // Middle of the Atlantic, away from any other test's leads
+        Long given = createLead("Nowhere", 10.0, -30.0);
+        Long geocoded = createLead("5 Park Street, Kolkata", null, null);
+        Long unplaced = createLead("Somewhere Else", null, null);
+
+        Map<Long, GeoPoint> positions = leadGeoIndex.positions(List.of(given, geocoded, unplaced));
+
+        assertEquals(new GeoPoint(10.0, -30.0), positions.get(given));
+        assertTrue(positions.get(geocoded).distanceKm(new GeoPoint(22.5726, 88.3639)) <= GazetteerGeocoder.SPREAD_KM + 0.001);
+        assertFalse(positions.containsKey(unplaced));
+        assertEquals(List.of(given), leadGeoIndex.nearest(new GeoPoint(10.001, -30.0), 1).stream()
+                .map(GeoMatch::getLeadId).toList());
+    }
+
+    @Test
+    void rebuild_ShouldGeocodeLeadsStoredWithoutPosition() {
+        Long leadId = createLead("Nowhere", 11.0, -31.0);
+        jdbcTemplate.update("UPDATE restaurant_lead SET latitude = NULL, longitude = NULL, address = ? WHERE id = ?",
+                "7 Lake Road, Bhopal", leadId);
+
+        leadGeoIndex.rebuild();
+
+        GeoPoint position = leadGeoIndex.positions(List.of(leadId)).get(leadId);
+        assertTrue(position.distanceKm(new GeoPoint(23.2599, 77.4126)) <= GazetteerGeocoder.SPREAD_KM + 0.001);
+        assertEquals(0, leadGeoIndex.near(new GeoPoint(11.0, -31.0), 1, 10).getTotal());
+    }
+
+    private Long createLead(String address, Double latitude, Double longitude) {
+        RestaurantLead lead = new RestaurantLead();
+        lead.setName("Geo Lead");
+        lead.setAddress(address);
+        lead.setLatitude(latitude);
+        lead.setLongitude(longitude);
+        lead.setCallFrequency(7);
+        return leadService.createLead(lead).getId();
+    }
+}
@@ -0,0 +1,91 @@
+package com.udaan.leadmanagement.geo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VisitOrderOptimizerTest {
+
+    @Test
+    void order_ShouldVisitPointsOnALineInOrderFromTheStart() {
+        List<GeoPoint> visits = List.of(
+                new GeoPoint(18.5, 73.84), new GeoPoint(18.5, 73.81), new GeoPoint(18.5, 73.83), new GeoPoint(18.5, 73.82));
+
+        assertEquals(List.of(1, 3, 2, 0), VisitOrderOptimizer.order(new GeoPoint(18.5, 73.80), visits));
+        assertEquals(List.of(0, 2, 3, 1), VisitOrderOptimizer.order(new GeoPoint(18.5, 73.85), visits));
+    }
+
+    @Test
+    void order_WithoutStart_ShouldStartAtTheFirstVisit() {
+        List<GeoPoint> visits = List.of(
+                new GeoPoint(18.5, 73.82), new GeoPoint(18.5, 73.84), new GeoPoint(18.5, 73.79), new GeoPoint(18.5, 73.83));
+
+        List<Integer> order = VisitOrderOptimizer.order(null, visits);
+
+        assertEquals(0, order.getFirst());
+        // Out and back along the shorter side first
+        assertEquals(List.of(0, 3, 1, 2), order);
+    }
+
+    @Test
+    void order_ShouldUntangleACrossingRoute() {
+        Random random = new Random(3);
+        GeoPoint start = new GeoPoint(18.5, 73.8);
+        List<GeoPoint> visits = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            visits.add(new GeoPoint(18.5 + random.nextDouble() * 0.2, 73.8 + random.nextDouble() * 0.2));
+        }
+
+        List<Integer> order = VisitOrderOptimizer.order(start, visits);
+
+        assertEquals(200, order.stream().distinct().count());
+        double inQueueOrder = length(start, visits, IntStream.range(0, 200).boxed().toList());
+        assertTrue(length(start, visits, order) < inQueueOrder / 5);
+        // 2-opt leaves no two legs of the route crossing
+        assertFalse(hasCrossing(start, visits, order));
+    }
+
+    @Test
+    void order_NoVisits_ShouldReturnEmpty() {
+        assertEquals(List.of(), VisitOrderOptimizer.order(new GeoPoint(0, 0), List.of()));
+    }
+
+    private static double length(GeoPoint start, List<GeoPoint> visits, List<Integer> order) {
+        double km = 0;
+        GeoPoint previous = start;
+        for (int index : order) {
+            km += previous.distanceKm(visits.get(index));
+            previous = visits.get(index);
+        }
+        return km;
+    }
+
+    // Planar check; fine at city scale
+    private static boolean hasCrossing(GeoPoint start, List<GeoPoint> visits, List<Integer> order) {
+        List<GeoPoint> route = new ArrayList<>();
+        route.add(start);
+        order.forEach(index -> route.add(visits.get(index)));
+        for (int i = 0; i + 1 < route.size(); i++) {
+            for (int j = i + 2; j + 1 < route.size(); j++) {
+                if (crosses(route.get(i), route.get(i + 1), route.get(j), route.get(j + 1))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean crosses(GeoPoint a, GeoPoint b, GeoPoint c, GeoPoint d) {
+        return side(a, b, c) * side(a, b, d) < 0 && side(c, d, a) * side(c, d, b) < 0;
+    }
+
+    private static double side(GeoPoint a, GeoPoint b, GeoPoint p) {
+        return Math.signum((b.getLongitude() - a.getLongitude()) * (p.getLatitude() - a.getLatitude())
+                - (b.getLatitude() - a.getLatitude()) * (p.getLongitude() - a.getLongitude()));
+    }
+}
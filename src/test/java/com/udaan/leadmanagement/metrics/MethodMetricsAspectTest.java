@@ -0,0 +1,78 @@
+package com.udaan.leadmanagement.metrics;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.stereotype.Service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MethodMetricsAspectTest {
+
+    private SimpleMeterRegistry registry;
+    private SampleService service;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        AspectJProxyFactory factory = new AspectJProxyFactory(new SampleService());
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new MethodMetricsAspect(registry));
+        service = factory.getProxy();
+    }
+
+    @Test
+    void serviceMethod_ShouldBeTimedPerOutcome() {
+        service.succeed();
+        service.succeed();
+        assertThrows(IllegalStateException.class, service::fail);
+
+        assertEquals(2, timer("succeed", "success").count());
+        assertEquals(0, timer("succeed", "error").count());
+        assertEquals(1, timer("fail", "error").count());
+    }
+
+    @Test
+    void serviceMethod_ShouldReuseMetersAcrossCalls() {
+        service.succeed();
+        int meters = registry.getMeters().size();
+
+        service.succeed();
+
+        assertEquals(meters, registry.getMeters().size());
+    }
+
+    @Test
+    void statementCounter_ShouldCountPerThreadUntilReset() {
+        StatementCounter counter = new StatementCounter();
+        StatementCounter.reset();
+
+        assertEquals("select 1", counter.inspect("select 1"));
+        counter.inspect("select 2");
+        assertEquals(2, StatementCounter.current());
+
+        StatementCounter.reset();
+        assertEquals(0, StatementCounter.current());
+    }
+
+    private Timer timer(String method, String outcome) {
+        return registry.get("leadmanagement.service.method")
+                .tag("class", "SampleService")
+                .tag("method", method)
+                .tag("outcome", outcome)
+                .timer();
+    }
+
+    @Service
+    static class SampleService {
+        public String succeed() {
+            return "ok";
+        }
+
+        public void fail() {
+            throw new IllegalStateException("boom");
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.udaan.leadmanagement.schedule;
+
+import com.udaan.leadmanagement.DTO.CallAlertDTO;
+import com.udaan.leadmanagement.analytics.KAMActivityWindows;
+import com.udaan.leadmanagement.enums.CallAlertType;
+import com.udaan.leadmanagement.enums.InteractionType;
+import com.udaan.leadmanagement.enums.LeadStatus;
+import com.udaan.leadmanagement.model.Interaction;
+import com.udaan.leadmanagement.model.KAM;
+import com.udaan.leadmanagement.model.RestaurantLead;
+import com.udaan.leadmanagement.service.KAMService;
+import com.udaan.leadmanagement.service.RestaurantLeadManagementService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:leadmanagement-test;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+class CallSchedulerTest {
+
+    @Autowired
+    private CallScheduler callScheduler;
+
+    @Autowired
+    private RestaurantLeadManagementService leadService;
+
+    @Autowired
+    private KAMService kamService;
+
+    @Autowired
+    private KAMActivityWindows kamActivityWindows;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private KAM kam;
+
+    @BeforeEach
+    void setUp() {
+        kam = new KAM();
+        kam.setName("Scheduled KAM");
+        kam = kamService.addKAM(kam);
+    }
+
+    @Test
+    void tick_ShouldSendDueThenOverdueAlertsOfActiveLeads() {
+        LocalDateTime start = LocalDateTime.now();
+        Long open = createLead();
+        Long lost = createLead();
+        leadService.updateLeadStatus(lost, LeadStatus.LOST);
+        callScheduler.load(start);
+
+        List<CallAlertDTO> due = alertsOf(callScheduler.tick(start.plusDays(2).plusMinutes(1)), open, lost);
+        List<CallAlertDTO> overdue = alertsOf(callScheduler.tick(start.plusDays(3).plusMinutes(1)), open, lost);
+
+        assertEquals(1, due.size());
+        assertEquals(CallAlertType.CALL_DUE, due.getFirst().getType());
+        assertEquals(open, due.getFirst().getLeadId());
+        assertEquals(kam.getId(), due.getFirst().getKamId());
+        assertEquals(1, overdue.size());
+        assertEquals(CallAlertType.CALL_OVERDUE, overdue.getFirst().getType());
+        assertEquals(open, overdue.getFirst().getLeadId());
+        assertEquals(1, kamActivityWindows.getActivity(kam.getId(), 7, start.plusDays(3)).getMissedCalls());
+    }
+
+    @Test
+    void tick_AfterACall_ShouldDropTheAlertsOfTheOldCallDate() {
+        LocalDateTime start = LocalDateTime.now();
+        Long called = createLead();
+        Long waiting = createLead();
+        setNextCallDate(called, start.plusMinutes(10));
+        setNextCallDate(waiting, start.plusMinutes(10));
+        callScheduler.load(start);
+
+        Interaction call = new Interaction();
+        call.setType(InteractionType.CALL);
+        leadService.recordInteraction(called, call);
+        List<CallAlertDTO> sent = alertsOf(callScheduler.tick(start.plusMinutes(20)), called, waiting);
+
+        assertEquals(List.of(waiting), sent.stream().map(CallAlertDTO::getLeadId).toList());
+    }
+
+    @Test
+    void load_ShouldRecoverTheAlertsOfCallsDueWhileDown() {
+        LocalDateTime start = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        Long leadId = createLead();
+        Long longOverdue = createLead();
+        setNextCallDate(leadId, start.minusHours(2));
+        setNextCallDate(longOverdue, start.minusDays(2));
+        // Takes in the creations first, as the scheduler had before going down
+        callScheduler.tick(start);
+
+        callScheduler.load(start);
+        List<CallAlertDTO> missed = alertsOf(callScheduler.tick(start.plusSeconds(1)), leadId, longOverdue);
+        List<CallAlertDTO> early = alertsOf(callScheduler.tick(start.plusHours(1)), leadId, longOverdue);
+        List<CallAlertDTO> late = alertsOf(callScheduler.tick(start.plusHours(22).plusMinutes(1)), leadId, longOverdue);
+
+        assertEquals(1, missed.size());
+        assertEquals(CallAlertType.CALL_DUE, missed.getFirst().getType());
+        assertEquals(leadId, missed.getFirst().getLeadId());
+        assertEquals(start.minusHours(2), missed.getFirst().getNextCallDate());
+        assertEquals(List.of(), early);
+        assertEquals(1, late.size());
+        assertEquals(CallAlertType.CALL_OVERDUE, late.getFirst().getType());
+    }
+
+    private Long createLead() {
+        RestaurantLead lead = new RestaurantLead();
+        lead.setName("Scheduled Lead");
+        lead.setAddress("Nowhere");
+        lead.setCallFrequency(2);
+        lead.setAssignedKam(kam);
+        return leadService.createLead(lead).getId();
+    }
+
+    private void setNextCallDate(Long leadId, LocalDateTime nextCallDate) {
+        jdbcTemplate.update("UPDATE restaurant_lead SET next_call_date = ? WHERE id = ?", nextCallDate, leadId);
+    }
+
+    private static List<CallAlertDTO> alertsOf(List<CallAlertDTO> alerts, Long... leadIds) {
+        Set<Long> ids = Set.of(leadIds);
+        return alerts.stream().filter(alert -> ids.contains(alert.getLeadId())).toList();
+    }
+}
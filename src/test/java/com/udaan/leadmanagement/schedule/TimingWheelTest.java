@@ -0,0 +1,98 @@
+package com.udaan.leadmanagement.schedule;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimingWheelTest {
+
+    @Test
+    void advance_ShouldFireTimersOnceTheirDeadlineIsReached() {
+        TimingWheel<String> wheel = new TimingWheel<>(100, 8, 0);
+        wheel.schedule(250, "a");
+        wheel.schedule(300, "b");
+        List<String> fired = new ArrayList<>();
+
+        assertEquals(0, wheel.advance(299, fired::add));
+        assertEquals(2, wheel.advance(300, fired::add));
+
+        assertEquals(List.of("a", "b"), fired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void advance_ShouldKeepTimersOfLaterRotationsInTheirBucket() {
+        TimingWheel<String> wheel = new TimingWheel<>(100, 4, 0);
+        // Same bucket as tick 1, two rotations later
+        wheel.schedule(900, "late");
+        List<String> fired = new ArrayList<>();
+
+        wheel.advance(500, fired::add);
+        assertEquals(List.of(), fired);
+        assertEquals(1, wheel.size());
+
+        wheel.advance(900, fired::add);
+        assertEquals(List.of("late"), fired);
+    }
+
+    @Test
+    void advance_AfterAPauseLongerThanARotation_ShouldFireEverythingDue() {
+        TimingWheel<Integer> wheel = new TimingWheel<>(10, 4, 0);
+        for (int i = 1; i <= 20; i++) {
+            wheel.schedule(i * 10L, i);
+        }
+        List<Integer> fired = new ArrayList<>();
+
+        assertEquals(15, wheel.advance(150, fired::add));
+        assertEquals(15, fired.stream().distinct().count());
+        assertTrue(fired.stream().allMatch(i -> i <= 15));
+        assertEquals(5, wheel.size());
+    }
+
+    @Test
+    void cancel_ShouldStopTheTimerFromFiring() {
+        TimingWheel<String> wheel = new TimingWheel<>(100, 8, 0);
+        TimingWheel.Timer<String> timer = wheel.schedule(200, "a");
+        wheel.schedule(200, "b");
+
+        wheel.cancel(timer);
+        wheel.cancel(timer);
+        List<String> fired = new ArrayList<>();
+        wheel.advance(1000, fired::add);
+
+        assertEquals(List.of("b"), fired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void schedule_PastDeadline_ShouldFireOnTheNextTick() {
+        TimingWheel<String> wheel = new TimingWheel<>(100, 8, 1000);
+        wheel.advance(1500, s -> { });
+        wheel.schedule(200, "past");
+        List<String> fired = new ArrayList<>();
+
+        wheel.advance(1599, fired::add);
+        assertEquals(List.of(), fired);
+        wheel.advance(1600, fired::add);
+
+        assertEquals(List.of("past"), fired);
+    }
+
+    @Test
+    void advance_ShouldLetTheConsumerScheduleMoreTimers() {
+        TimingWheel<String> wheel = new TimingWheel<>(100, 8, 0);
+        wheel.schedule(100, "first");
+        List<String> fired = new ArrayList<>();
+
+        wheel.advance(100, name -> {
+            fired.add(name);
+            wheel.schedule(100, "again");
+        });
+        wheel.advance(200, fired::add);
+
+        assertEquals(List.of("first", "again"), fired);
+    }
+}
@@ -0,0 +1,76 @@
+package com.udaan.leadmanagement.schema;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Partition maintenance against PostgreSQL, in a scratch schema of the database {@code POSTGRES_TEST_URL}
+ * points at (see {@link com.udaan.leadmanagement.service.ContactServicePostgresConcurrencyTest}).
+ */
+@EnabledIfEnvironmentVariable(named = "POSTGRES_TEST_URL", matches = ".+")
+class InteractionPartitionManagerPostgresTest {
+    private static final String SCHEMA = "interaction_partition_test";
+
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new SingleConnectionDataSource(System.getenv("POSTGRES_TEST_URL"),
+                System.getenv().getOrDefault("POSTGRES_TEST_USERNAME", "postgres"),
+                System.getenv().getOrDefault("POSTGRES_TEST_PASSWORD", ""), true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+        jdbcTemplate.execute("CREATE SCHEMA " + SCHEMA);
+        jdbcTemplate.execute("SET search_path TO " + SCHEMA);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+        dataSource.destroy();
+    }
+
+    @Test
+    void maintain_ShouldDissolveDefaultPartitionAndDetachOldMonthsConcurrently() {
+        InteractionPartitionManager manager = new InteractionPartitionManager(jdbcTemplate, 1, 2);
+        manager.createPartitionedTable();
+        jdbcTemplate.execute("CREATE TABLE interaction_default PARTITION OF interaction DEFAULT");
+        jdbcTemplate.update("INSERT INTO interaction (id, type, interaction_date, restaurant_lead_id) VALUES " +
+                "(1, 'CALL', '2024-01-15 10:00', 7), (2, 'CALL', '2024-07-10 10:00', 7)");
+
+        manager.maintain(YearMonth.of(2024, 7));
+
+        assertEquals(List.of("interaction_y2024m06", "interaction_y2024m07", "interaction_y2024m08"),
+                jdbcTemplate.queryForList("SELECT c.relname::text FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                        "WHERE i.inhparent = to_regclass('interaction') ORDER BY 1", String.class));
+        assertNull(jdbcTemplate.queryForObject("SELECT to_regclass('interaction_default')::text", String.class));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT count(*) FROM interaction", Integer.class));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT count(*) FROM interaction_y2024m01", Integer.class));
+    }
+
+    @Test
+    void maintain_WithInvalidHistoryIndex_ShouldRebuildIt() {
+        jdbcTemplate.execute("CREATE TABLE interaction (id bigint PRIMARY KEY, type varchar(255), " +
+                "interaction_date timestamp(6) NOT NULL, notes varchar(255), restaurant_lead_id bigint)");
+        InteractionPartitionManager manager = new InteractionPartitionManager(jdbcTemplate, 1, 0);
+        manager.createPartitionedTable();
+        manager.maintain(YearMonth.of(2024, 7));
+        // What a CREATE INDEX CONCURRENTLY that failed part way leaves behind
+        jdbcTemplate.update("UPDATE pg_index SET indisvalid = false WHERE indexrelid = to_regclass('idx_interaction_lead_history')");
+
+        manager.maintain(YearMonth.of(2024, 7));
+
+        assertTrue(jdbcTemplate.queryForObject("SELECT indisvalid FROM pg_index " +
+                "WHERE indexrelid = to_regclass('idx_interaction_lead_history')", Boolean.class));
+    }
+}
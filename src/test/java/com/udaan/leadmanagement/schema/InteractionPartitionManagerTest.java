@@ -0,0 +1,159 @@
+package com.udaan.leadmanagement.schema;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class InteractionPartitionManagerTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void createPartitionStatements_ShouldCoverPreviousCurrentAndUpcomingMonthsNotYetCreated() {
+        List<String> statements = InteractionPartitionManager.createPartitionStatements(
+                YearMonth.of(2024, 11), 2, Set.of("interaction_y2024m11", "interaction_y2024m12"));
+
+        assertEquals(List.of(
+                "CREATE TABLE IF NOT EXISTS interaction_y2024m10 PARTITION OF interaction " +
+                        "FOR VALUES FROM ('2024-10-01') TO ('2024-11-01')",
+                "CREATE TABLE IF NOT EXISTS interaction_y2025m01 PARTITION OF interaction " +
+                        "FOR VALUES FROM ('2025-01-01') TO ('2025-02-01')"), statements);
+    }
+
+    @Test
+    void partitionsToArchive_ShouldOnlyPickMonthlyPartitionsBeforeCutoff() {
+        List<String> archive = InteractionPartitionManager.partitionsToArchive(
+                List.of("interaction_y2024m03", "interaction_legacy", "interaction_y2024m01", "interaction_y2024m04"),
+                YearMonth.of(2024, 4));
+
+        assertEquals(List.of("interaction_y2024m01", "interaction_y2024m03"), archive);
+    }
+
+    @Test
+    void createPartitionedTable_OnNewPostgresDatabase_ShouldCreatePartitionedTable() throws Exception {
+        InteractionPartitionManager manager = postgres(0);
+        when(jdbcTemplate.queryForObject(anyString(), eq(String.class), eq("interaction"))).thenReturn(null);
+
+        manager.createPartitionedTable();
+
+        verify(jdbcTemplate).execute(startsWith("CREATE TABLE interaction ("));
+        verify(jdbcTemplate).execute(contains("PARTITION BY RANGE (interaction_date)"));
+    }
+
+    @Test
+    void maintain_OnPartitionedTable_ShouldCreateMissingPartitionsAndDetachOldOnesConcurrently() throws Exception {
+        InteractionPartitionManager manager = postgres(6);
+        when(jdbcTemplate.queryForObject(anyString(), eq(String.class), eq("interaction"))).thenReturn("p");
+        manager.createPartitionedTable();
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), eq("interaction"))).thenAnswer(invocation ->
+                invocation.<String>getArgument(0).contains("inhdetachpending")
+                        ? List.of("interaction_y2023m11")
+                        : List.of("interaction_y2023m11", "interaction_y2023m12", "interaction_y2024m01", "interaction_y2024m07"));
+
+        manager.maintain(YearMonth.of(2024, 7));
+
+        verify(jdbcTemplate).execute("CREATE INDEX IF NOT EXISTS idx_interaction_lead_history ON interaction " +
+                "(restaurant_lead_id, interaction_date DESC, id DESC) INCLUDE (type, notes)");
+        verify(jdbcTemplate).execute(contains("PARTITION OF interaction FOR VALUES FROM ('2024-06-01') TO ('2024-07-01')"));
+        verify(jdbcTemplate).execute(contains("PARTITION OF interaction FOR VALUES FROM ('2024-08-01') TO ('2024-09-01')"));
+        verify(jdbcTemplate, never()).execute(contains("interaction_y2024m07 PARTITION OF"));
+        verify(jdbcTemplate, never()).execute(contains("DEFAULT"));
+        verify(jdbcTemplate).execute("ALTER TABLE interaction DETACH PARTITION interaction_y2023m11 FINALIZE");
+        verify(jdbcTemplate).execute("ALTER TABLE interaction DETACH PARTITION interaction_y2023m12 CONCURRENTLY");
+        verify(jdbcTemplate, never()).execute(contains("DETACH PARTITION interaction_y2024m01"));
+    }
+
+    @Test
+    void maintain_WithDefaultPartition_ShouldDissolveItBeforeCreatingMonths() throws Exception {
+        InteractionPartitionManager manager = postgres(0);
+        when(jdbcTemplate.queryForObject(anyString(), eq(String.class), eq("interaction"))).thenReturn("p");
+        manager.createPartitionedTable();
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), eq("interaction")))
+                .thenReturn(List.of("interaction_default", "interaction_y2024m07"))
+                .thenReturn(List.of("interaction_y2024m06", "interaction_y2024m07"));
+
+        manager.maintain(YearMonth.of(2024, 7));
+
+        InOrder inOrder = inOrder(jdbcTemplate);
+        inOrder.verify(jdbcTemplate).execute(InteractionPartitionManager.dissolveDefaultPartitionStatement());
+        inOrder.verify(jdbcTemplate).execute(contains("interaction_y2024m08 PARTITION OF"));
+        verify(jdbcTemplate, never()).execute(contains("interaction_y2024m06 PARTITION OF"));
+    }
+
+    @Test
+    void maintain_WithInvalidHistoryIndex_ShouldDropAndRebuildIt() throws Exception {
+        InteractionPartitionManager manager = postgres(0);
+        when(jdbcTemplate.queryForObject(anyString(), eq(String.class), eq("interaction"))).thenReturn("r");
+        when(jdbcTemplate.queryForObject(anyString(), eq(Boolean.class), eq("idx_interaction_lead_history"))).thenReturn(false);
+        manager.createPartitionedTable();
+
+        manager.maintain(YearMonth.of(2024, 7));
+
+        InOrder inOrder = inOrder(jdbcTemplate);
+        inOrder.verify(jdbcTemplate).execute("DROP INDEX CONCURRENTLY IF EXISTS idx_interaction_lead_history");
+        inOrder.verify(jdbcTemplate).execute(startsWith("CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_interaction_lead_history"));
+    }
+
+    @Test
+    void maintain_OnUnpartitionedPostgresTable_ShouldOnlyIndexConcurrently() throws Exception {
+        InteractionPartitionManager manager = postgres(6);
+        when(jdbcTemplate.queryForObject(anyString(), eq(String.class), eq("interaction"))).thenReturn("r");
+        manager.createPartitionedTable();
+
+        manager.maintain(YearMonth.of(2024, 7));
+
+        verify(jdbcTemplate).execute(startsWith("CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_interaction_lead_history"));
+        verify(jdbcTemplate, never()).queryForList(anyString(), eq(String.class), any());
+    }
+
+    @Test
+    void maintain_OnOtherDatabases_ShouldOnlyCreatePlainIndex() throws Exception {
+        InteractionPartitionManager manager = database("H2", 6);
+        manager.createPartitionedTable();
+
+        manager.maintain(YearMonth.of(2024, 7));
+
+        verify(jdbcTemplate).execute("CREATE INDEX IF NOT EXISTS idx_interaction_lead_history ON interaction " +
+                "(restaurant_lead_id, interaction_date DESC, id DESC)");
+        verify(jdbcTemplate, never()).queryForObject(anyString(), eq(String.class), any());
+    }
+
+    private InteractionPartitionManager postgres(int archiveAfterMonths) throws Exception {
+        return database("PostgreSQL", archiveAfterMonths);
+    }
+
+    @SuppressWarnings("unchecked")
+    private InteractionPartitionManager database(String product, int archiveAfterMonths) throws Exception {
+        Connection connection = mock(Connection.class);
+        DatabaseMetaData metaData = mock(DatabaseMetaData.class);
+        when(connection.getMetaData()).thenReturn(metaData);
+        when(metaData.getDatabaseProductName()).thenReturn(product);
+        when(metaData.getDatabaseMajorVersion()).thenReturn(16);
+        when(jdbcTemplate.execute(any(ConnectionCallback.class)))
+                .thenAnswer(invocation -> invocation.<ConnectionCallback<Object>>getArgument(0).doInConnection(connection));
+        return new InteractionPartitionManager(jdbcTemplate, 1, archiveAfterMonths);
+    }
+
+    private static String contains(String text) {
+        return org.mockito.ArgumentMatchers.contains(text);
+    }
+}
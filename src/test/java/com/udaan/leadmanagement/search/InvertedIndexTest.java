@@ -0,0 +1,103 @@
+package com.udaan.leadmanagement.search;
+
+import com.udaan.leadmanagement.DTO.LeadSearchResultDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InvertedIndexTest {
+
+    private InvertedIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new InvertedIndex(1000);
+        index.putLead(1L, "Pizza Palace", "12 MG Road, Pune");
+        index.putLead(2L, "Pizzeria Napoli", "4 Park Street, Kolkata");
+        index.putLead(3L, "Café Müller", "Pizza Lane, Bengaluru");
+        index.putLead(4L, "Spice Hub", "Koregaon Park, Pune");
+        index.putContact(4L, 40L, "Asha Rao", "asha.rao@spicehub.in", "+919876543210");
+    }
+
+    @Test
+    void search_ShouldRankExactBeforePrefixAndNameBeforeAddress() {
+        assertEquals(List.of(1L, 3L), ids(index.search("pizza", 10)));
+        assertEquals(List.of(1L, 2L, 3L), ids(index.search("piz", 10)));
+    }
+
+    @Test
+    void search_ShouldRequireEveryTermAndTreatTheLastAsAPrefix() {
+        assertEquals(List.of(1L, 4L), ids(index.search("pune", 10)));
+        assertEquals(List.of(1L), ids(index.search("pizza pu", 10)));
+        assertEquals(List.of(), ids(index.search("pizza kolkata", 10)));
+    }
+
+    @Test
+    void search_ShouldTolerateTyposAndFoldAccents() {
+        assertEquals(List.of(2L), ids(index.search("pizeria", 10)));
+        assertEquals(List.of(2L), ids(index.search("pizzreia napoli", 10)));
+        assertEquals(List.of(3L), ids(index.search("cafe muller", 10)));
+        assertEquals(List.of(3L), ids(index.search("MÜLLER", 10)));
+    }
+
+    @Test
+    void search_ShouldFindContactsByNamePhoneAndEmail() {
+        assertEquals(List.of(4L), ids(index.search("asha", 10)));
+        assertEquals(List.of(4L), ids(index.search("9876543210", 10)));
+        assertEquals(List.of(4L), ids(index.search("+91 98765", 10)));
+        assertEquals(List.of(4L), ids(index.search("asha.rao@spicehub.in", 10)));
+        // Found inside the phone number
+        assertEquals(List.of(4L), ids(index.search("3210", 10)));
+    }
+
+    @Test
+    void putContactAndRemoveContact_ShouldReplaceTheContactsTerms() {
+        index.putContact(4L, 40L, "Asha Rao", "asha@example.com", "+919999900000");
+        assertEquals(List.of(), ids(index.search("spicehub", 10)));
+        assertEquals(List.of(4L), ids(index.search("example", 10)));
+
+        index.putContact(1L, 10L, "Asha Iyer", null, null);
+        assertEquals(List.of(4L, 1L), ids(index.search("asha", 10)));
+
+        index.removeContact(4L, 40L);
+        assertEquals(List.of(1L), ids(index.search("asha", 10)));
+        assertEquals(List.of(), ids(index.search("example", 10)));
+        // The lead's own terms are untouched
+        assertEquals(List.of(4L), ids(index.search("spice", 10)));
+    }
+
+    @Test
+    void putLead_ShouldReplaceNameAndAddressButKeepContacts() {
+        index.putLead(4L, "Spice Garden", "Baner, Pune");
+
+        assertEquals(List.of(), ids(index.search("koregaon", 10)));
+        assertEquals(List.of(4L), ids(index.search("garden", 10)));
+        assertEquals(List.of(4L), ids(index.search("asha", 10)));
+        LeadSearchResultDTO result = index.search("baner", 10).getFirst();
+        assertEquals("Spice Garden", result.getName());
+        assertEquals("Baner, Pune", result.getAddress());
+    }
+
+    @Test
+    void search_ShouldApplyLimitAndBreakTiesByLeadId() {
+        InvertedIndex tied = new InvertedIndex(1000);
+        for (long leadId = 10; leadId > 0; leadId--) {
+            tied.putLead(leadId, "Dosa Corner", null);
+        }
+
+        assertEquals(List.of(1L, 2L, 3L), ids(tied.search("dosa", 3)));
+    }
+
+    @Test
+    void search_EmptyOrUnknownQuery_ShouldFindNothing() {
+        assertEquals(List.of(), index.search(" ,. ", 10));
+        assertEquals(List.of(), index.search("sushi", 10));
+    }
+
+    private static List<Long> ids(List<LeadSearchResultDTO> results) {
+        return results.stream().map(LeadSearchResultDTO::getId).toList();
+    }
+}
@@ -0,0 +1,111 @@
+package com.udaan.leadmanagement.search;
+
+import com.udaan.leadmanagement.DTO.ContactUpsertRequestDTO;
+import com.udaan.leadmanagement.DTO.LeadSearchResultDTO;
+import com.udaan.leadmanagement.model.Contact;
+import com.udaan.leadmanagement.model.RestaurantLead;
+import com.udaan.leadmanagement.service.ContactService;
+import com.udaan.leadmanagement.service.ContactUpsertService;
+import com.udaan.leadmanagement.service.RestaurantLeadManagementService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:leadmanagement-test;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+class LeadSearchIndexTest {
+
+    @Autowired
+    private LeadSearchIndex leadSearchIndex;
+
+    @Autowired
+    private RestaurantLeadManagementService leadService;
+
+    @Autowired
+    private ContactService contactService;
+
+    @Autowired
+    private ContactUpsertService contactUpsertService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void writePaths_ShouldKeepTheIndexCurrentAfterCommit() {
+        String name = uniqueWord();
+        Long leadId = createLead(name + " Kitchen");
+        assertEquals(List.of(leadId), search(name));
+
+        String owner = uniqueWord();
+        Contact contact = contactService.addContact(leadId, contact(owner, "9876543210"));
+        assertEquals(List.of(leadId), search(owner));
+
+        String renamed = uniqueWord();
+        contactService.updateContact(contact.getId(), contact(renamed, "9876543210"));
+        assertEquals(List.of(), search(owner));
+        assertEquals(List.of(leadId), search(renamed));
+
+        contactService.deleteContact(contact.getId());
+        assertEquals(List.of(), search(renamed));
+
+        String synced = uniqueWord();
+        contactUpsertService.upsertContacts(List.of(
+                new ContactUpsertRequestDTO(leadId, synced, "Manager", synced + "@example.com", "9876500000")));
+        assertEquals(List.of(leadId), search(synced + " kitch"));
+    }
+
+    @Test
+    void rebuild_ShouldIndexRowsWrittenAroundTheWritePaths() {
+        String name = uniqueWord();
+        Long leadId = createLead("Old Name");
+        jdbcTemplate.update("UPDATE restaurant_lead SET name = ? WHERE id = ?", name, leadId);
+        assertEquals(List.of(), search(name));
+
+        leadSearchIndex.rebuild();
+
+        assertTrue(leadSearchIndex.isLoaded());
+        List<LeadSearchResultDTO> results = leadSearchIndex.search(name, 10);
+        assertEquals(List.of(leadId), results.stream().map(LeadSearchResultDTO::getId).toList());
+        assertEquals(name, results.getFirst().getName());
+    }
+
+    private List<Long> search(String query) {
+        return leadSearchIndex.search(query, 10).stream().map(LeadSearchResultDTO::getId).toList();
+    }
+
+    private Long createLead(String name) {
+        RestaurantLead lead = new RestaurantLead();
+        lead.setName(name);
+        lead.setAddress("MG Road, Pune");
+        lead.setCallFrequency(7);
+        return leadService.createLead(lead).getId();
+    }
+
+    private static Contact contact(String name, String phone) {
+        Contact contact = new Contact();
+        contact.setName(name);
+        contact.setRole("Owner");
+        contact.setEmail(name.toLowerCase() + "@example.com");
+        contact.setPhone(phone);
+        return contact;
+    }
+
+    // Letters only, and unlike any other test's words, so fuzzy matching cannot reach other leads
+    private static String uniqueWord() {
+        StringBuilder word = new StringBuilder("Q");
+        for (int i = 0; i < 11; i++) {
+            word.append((char) ('a' + ThreadLocalRandom.current().nextInt(26)));
+        }
+        return word.toString();
+    }
+}
@@ -0,0 +1,53 @@
+package com.udaan.leadmanagement.service;
+
+import com.udaan.leadmanagement.DTO.JobStatusDTO;
+import com.udaan.leadmanagement.enums.JobStatus;
+import com.udaan.leadmanagement.exception.JobNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SyncTaskExecutor;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BackgroundJobServiceTest {
+
+    private BackgroundJobService jobService;
+
+    @BeforeEach
+    void setUp() {
+        jobService = new BackgroundJobService(new SyncTaskExecutor(), Duration.ofHours(1));
+    }
+
+    @Test
+    void submit_ShouldTrackProgressAndCompletion() {
+        BackgroundJob job = jobService.submit("TEST", 3, progress -> {
+            progress.addProcessed(2);
+            progress.addError("row 3: invalid");
+            progress.addProcessed(1);
+        });
+
+        JobStatusDTO status = jobService.getJob(job.getId()).toDTO();
+        assertEquals(JobStatus.COMPLETED, status.getStatus());
+        assertEquals(3, status.getProcessedItems());
+        assertEquals(1, status.getErrors().size());
+        assertNotNull(status.getFinishedAt());
+    }
+
+    @Test
+    void submit_WhenTaskThrows_ShouldMarkJobFailed() {
+        BackgroundJob job = jobService.submit("TEST", 1, progress -> {
+            throw new IllegalStateException("boom");
+        });
+
+        JobStatusDTO status = job.toDTO();
+        assertEquals(JobStatus.FAILED, status.getStatus());
+        assertEquals("boom", status.getMessage());
+    }
+
+    @Test
+    void getJob_UnknownId_ThrowsException() {
+        assertThrows(JobNotFoundException.class, () -> jobService.getJob("missing"));
+    }
+}
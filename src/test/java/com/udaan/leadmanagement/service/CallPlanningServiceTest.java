@@ -0,0 +1,117 @@
+package com.udaan.leadmanagement.service;
+
+import com.udaan.leadmanagement.DTO.CallQueueEntryDTO;
+import com.udaan.leadmanagement.DTO.VisitPlanDTO;
+import com.udaan.leadmanagement.DTO.VisitStopDTO;
+import com.udaan.leadmanagement.enums.LeadStatus;
+import com.udaan.leadmanagement.exception.KAMNotFoundException;
+import com.udaan.leadmanagement.geo.GeoPoint;
+import com.udaan.leadmanagement.geo.LeadGeoIndex;
+import com.udaan.leadmanagement.repository.KAMRepository;
+import com.udaan.leadmanagement.repository.RestaurantLeadRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CallPlanningServiceTest {
+
+    @Mock
+    private RestaurantLeadRepository restaurantLeadRepository;
+
+    @Mock
+    private KAMRepository kamRepository;
+
+    @Mock
+    private LeadGeoIndex leadGeoIndex;
+
+    @InjectMocks
+    private CallPlanningService callPlanningService;
+
+    @Test
+    void getCallQueue_ShouldFlagOverdueCalls() {
+        LocalDateTime startOfToday = LocalDate.now().atStartOfDay();
+        CallQueueEntryDTO overdue = new CallQueueEntryDTO(1L, "Lead 1", null, LeadStatus.FOLLOW_UP,
+                startOfToday.minusDays(2), null);
+        CallQueueEntryDTO dueToday = new CallQueueEntryDTO(2L, "Lead 2", null, LeadStatus.NEW,
+                startOfToday.plusHours(10), null);
+        when(kamRepository.findTimezoneById(1L)).thenReturn(Optional.of(""));
+        when(restaurantLeadRepository.findCallQueue(eq(1L), any(), any(), any()))
+                .thenReturn(Arrays.asList(overdue, dueToday));
+
+        List<CallQueueEntryDTO> queue = callPlanningService.getCallQueue(1L, 0, 50);
+
+        assertEquals(2, queue.size());
+        assertTrue(queue.get(0).isOverdue());
+        assertFalse(queue.get(1).isOverdue());
+    }
+
+    @Test
+    void getCallQueue_ShouldUseKAMTimezoneForEndOfDay() {
+        ZoneId kamZone = ZoneId.of("Pacific/Kiritimati");
+        LocalDateTime expectedDueBefore = LocalDate.now(kamZone).plusDays(1).atStartOfDay(kamZone)
+                .withZoneSameInstant(ZoneId.systemDefault())
+                .toLocalDateTime();
+        when(kamRepository.findTimezoneById(1L)).thenReturn(Optional.of("Pacific/Kiritimati"));
+        ArgumentCaptor<LocalDateTime> dueBefore = ArgumentCaptor.forClass(LocalDateTime.class);
+        ArgumentCaptor<Pageable> pageable = ArgumentCaptor.forClass(Pageable.class);
+        when(restaurantLeadRepository.findCallQueue(eq(1L), dueBefore.capture(), any(), pageable.capture()))
+                .thenReturn(List.of());
+
+        callPlanningService.getCallQueue(1L, 2, 10000);
+
+        assertEquals(expectedDueBefore, dueBefore.getValue());
+        assertEquals(PageRequest.of(2, CallPlanningService.MAX_PAGE_SIZE), pageable.getValue());
+    }
+
+    @Test
+    void getCallQueue_KAMNotFound_ThrowsException() {
+        when(kamRepository.findTimezoneById(1L)).thenReturn(Optional.empty());
+
+        assertThrows(KAMNotFoundException.class, () -> callPlanningService.getCallQueue(1L, 0, 50));
+        verify(restaurantLeadRepository, never()).findCallQueue(any(), any(), any(), any());
+    }
+
+    @Test
+    void planVisits_ShouldOrderLocatedCallsByRouteAndLeaveUnlocatedOnesLast() {
+        LocalDateTime dueToday = LocalDate.now().atStartOfDay().plusHours(10);
+        List<CallQueueEntryDTO> queue = List.of(
+                new CallQueueEntryDTO(1L, "Far", null, LeadStatus.NEW, dueToday, null),
+                new CallQueueEntryDTO(2L, "Unknown", null, LeadStatus.NEW, dueToday, null),
+                new CallQueueEntryDTO(3L, "Near", null, LeadStatus.NEW, dueToday, null),
+                new CallQueueEntryDTO(4L, "Middle", null, LeadStatus.NEW, dueToday, null));
+        GeoPoint start = new GeoPoint(18.5, 73.79);
+        GeoPoint far = new GeoPoint(18.5, 73.83);
+        when(kamRepository.findTimezoneById(1L)).thenReturn(Optional.of(""));
+        when(restaurantLeadRepository.findCallQueue(eq(1L), any(), any(), any())).thenReturn(queue);
+        when(leadGeoIndex.positions(List.of(1L, 2L, 3L, 4L))).thenReturn(Map.of(
+                1L, far, 3L, new GeoPoint(18.5, 73.80), 4L, new GeoPoint(18.5, 73.81)));
+
+        VisitPlanDTO plan = callPlanningService.planVisits(1L, start);
+
+        assertEquals(List.of(3L, 4L, 1L, 2L), plan.getStops().stream().map(VisitStopDTO::getLeadId).toList());
+        assertEquals(start.distanceKm(far), plan.getTotalKm(), 1e-6);
+        assertEquals(start.distanceKm(new GeoPoint(18.5, 73.80)), plan.getStops().getFirst().getLegKm(), 1e-9);
+        VisitStopDTO unlocated = plan.getStops().getLast();
+        assertNull(unlocated.getLatitude());
+        assertNull(unlocated.getLegKm());
+    }
+}
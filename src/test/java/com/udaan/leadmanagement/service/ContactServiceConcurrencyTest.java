@@ -0,0 +1,153 @@
+package com.udaan.leadmanagement.service;
+
+import com.udaan.leadmanagement.model.Contact;
+import com.udaan.leadmanagement.model.RestaurantLead;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:leadmanagement-test;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+class ContactServiceConcurrencyTest {
+
+    private static final int THREADS = 8;
+
+    @Autowired
+    private ContactService contactService;
+
+    @Autowired
+    private RestaurantLeadManagementService leadService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void concurrentFirstContacts_ShouldElectExactlyOnePrimary() throws Exception {
+        Long leadId = createLead();
+
+        runConcurrently(THREADS, i -> contactService.addContact(leadId, contact("First " + i)));
+
+        assertConsistent(leadId, THREADS);
+    }
+
+    @Test
+    void concurrentSwitchesAndDeletes_ShouldKeepExactlyOnePrimary() throws Exception {
+        Long leadId = createLead();
+        List<Long> contactIds = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            contactIds.add(contactService.addContact(leadId, contact("Contact " + i)).getId());
+        }
+        // Even threads delete one contact each, odd threads keep switching the primary role around,
+        // including onto contacts that are being deleted
+        List<Long> deleted = contactIds.subList(0, THREADS / 2);
+
+        runConcurrently(THREADS, i -> {
+            if (i % 2 == 0) {
+                contactService.deleteContact(deleted.get(i / 2));
+                return;
+            }
+            for (int k = 0; k < 25; k++) {
+                Long target = contactIds.get(ThreadLocalRandom.current().nextInt(contactIds.size()));
+                try {
+                    contactService.setPrimaryContact(leadId, target);
+                } catch (RuntimeException e) {
+                    // The target was deleted meanwhile; the switch is rejected and rolled back
+                    assertTrue(deleted.contains(target), "Unexpected failure: " + e);
+                }
+            }
+        });
+
+        assertConsistent(leadId, contactIds.size() - deleted.size());
+    }
+
+    @Test
+    void addWhileDeletingThePrimary_ShouldHandThePrimaryRoleToTheNewContact() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            Long leadId = createLead();
+            Long primaryId = contactService.addContact(leadId, contact("Primary " + round)).getId();
+
+            runConcurrently(2, i -> {
+                if (i == 0) {
+                    contactService.addContact(leadId, contact("Added " + i));
+                } else {
+                    contactService.deleteContact(primaryId);
+                }
+            });
+
+            assertConsistent(leadId, 1);
+        }
+    }
+
+    private void assertConsistent(Long leadId, int expectedContacts) {
+        Map<String, Object> lead = jdbcTemplate.queryForMap(
+                "SELECT contact_count, primary_contact_id FROM restaurant_lead WHERE id = ?", leadId);
+        List<Contact> contacts = contactService.getContactsByLeadId(leadId);
+        List<Contact> primaries = contacts.stream().filter(Contact::isPrimaryContact).toList();
+
+        assertEquals(expectedContacts, contacts.size());
+        assertEquals(expectedContacts, ((Number) lead.get("contact_count")).intValue());
+        assertEquals(1, primaries.size());
+        assertEquals(primaries.get(0).getId(), ((Number) lead.get("primary_contact_id")).longValue());
+        assertEquals(primaries.get(0).getId(), contactService.getPrimaryContact(leadId).getId());
+    }
+
+    private Long createLead() {
+        RestaurantLead lead = new RestaurantLead();
+        lead.setName("Concurrent Restaurant");
+        lead.setCallFrequency(7);
+        return leadService.createLead(lead).getId();
+    }
+
+    private static Contact contact(String name) {
+        Contact contact = new Contact();
+        contact.setName(name);
+        contact.setRole("Manager");
+        contact.setEmail("contact" + Math.abs(name.hashCode()) + "@restaurant.com");
+        contact.setPhone("9876543210");
+        return contact;
+    }
+
+    private static void runConcurrently(int threads, ThrowingTask task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                int index = i;
+                futures.add(executor.submit((Callable<Void>) () -> {
+                    start.await();
+                    task.run(index);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @FunctionalInterface
+    private interface ThrowingTask {
+        void run(int index) throws Exception;
+    }
+}
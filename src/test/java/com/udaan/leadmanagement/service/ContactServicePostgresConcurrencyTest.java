@@ -0,0 +1,23 @@
+package com.udaan.leadmanagement.service;
+
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+/**
+ * The races of {@link ContactServiceConcurrencyTest} on PostgreSQL, where a statement that waited
+ * for a row lock re-checks only that row and keeps its old snapshot for everything else, which H2
+ * does not reproduce. Runs when {@code POSTGRES_TEST_URL} points at a scratch database, with
+ * {@code POSTGRES_TEST_USERNAME} and {@code POSTGRES_TEST_PASSWORD}; its tables are dropped and
+ * created again.
+ */
+@EnabledIfEnvironmentVariable(named = "POSTGRES_TEST_URL", matches = ".+")
+class ContactServicePostgresConcurrencyTest extends ContactServiceConcurrencyTest {
+
+    @DynamicPropertySource
+    static void postgres(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> System.getenv("POSTGRES_TEST_URL"));
+        registry.add("spring.datasource.username", () -> System.getenv().getOrDefault("POSTGRES_TEST_USERNAME", "postgres"));
+        registry.add("spring.datasource.password", () -> System.getenv().getOrDefault("POSTGRES_TEST_PASSWORD", ""));
+    }
+}
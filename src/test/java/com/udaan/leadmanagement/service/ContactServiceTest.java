@@ -1,16 +1,24 @@
 package com.udaan.leadmanagement.service;
 
+import com.udaan.leadmanagement.cache.LeadCaches;
+import com.udaan.leadmanagement.enums.LeadEventType;
+import com.udaan.leadmanagement.event.LeadEventLog;
+import com.udaan.leadmanagement.exception.ContactNotFoundException;
 import com.udaan.leadmanagement.exception.LeadNotFoundException;
 import com.udaan.leadmanagement.model.Contact;
+import com.udaan.leadmanagement.model.LeadEvent;
 import com.udaan.leadmanagement.model.RestaurantLead;
 import com.udaan.leadmanagement.repository.ContactRepository;
 import com.udaan.leadmanagement.repository.RestaurantLeadRepository;
+import com.udaan.leadmanagement.search.LeadSearchIndex;
+import com.udaan.leadmanagement.validation.ContactValidator;
 import jakarta.persistence.EntityNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.Arrays;
@@ -30,6 +38,18 @@ class ContactServiceTest {
     @Mock
     private RestaurantLeadRepository leadRepository;
 
+    @Mock
+    private LeadCaches leadCaches;
+
+    @Spy
+    private ContactValidator contactValidator = new ContactValidator("91");
+
+    @Mock
+    private LeadEventLog leadEventLog;
+
+    @Mock
+    private LeadSearchIndex leadSearchIndex;
+
     @InjectMocks
     private ContactService contactService;
 
@@ -52,48 +72,61 @@ class ContactServiceTest {
 
     @Test
     void addContact_FirstContact_SetAsPrimary() {
-        when(leadRepository.findById(1L)).thenReturn(Optional.of(testLead));
-        when(contactRepository.countByRestaurantLeadId(1L)).thenReturn(0);
         when(contactRepository.save(any(Contact.class))).thenReturn(testContact);
-        when(leadRepository.save(any(RestaurantLead.class))).thenReturn(testLead);
+        when(leadRepository.incrementContactCount(1L)).thenReturn(0);
+        when(leadRepository.addFirstContact(1L, 1L)).thenReturn(1);
 
         Contact result = contactService.addContact(1L, testContact);
 
         assertTrue(result.isPrimaryContact());
         verify(contactRepository).save(testContact);
-        verify(leadRepository).save(testLead);
+        verify(leadRepository, never()).findById(any());
+        verify(leadCaches).evictContacts(1L);
+        verify(leadEventLog).append(argThat((LeadEvent event) -> event.getType() == LeadEventType.CONTACT_ADDED
+                && event.getLeadId().equals(1L)));
     }
 
     @Test
     void addContact_NotFirstContact_NotPrimary() {
-        when(leadRepository.findById(1L)).thenReturn(Optional.of(testLead));
-        when(contactRepository.countByRestaurantLeadId(1L)).thenReturn(1);
         when(contactRepository.save(any(Contact.class))).thenReturn(testContact);
-        when(leadRepository.save(any(RestaurantLead.class))).thenReturn(testLead);
+        when(leadRepository.incrementContactCount(1L)).thenReturn(1);
 
         Contact result = contactService.addContact(1L, testContact);
 
         assertFalse(result.isPrimaryContact());
+        verify(leadRepository, never()).addFirstContact(any(), any());
+    }
+
+    @Test
+    void addContact_PrimaryClaimedConcurrently_CountsAsSecondContact() {
+        when(contactRepository.save(any(Contact.class))).thenReturn(testContact);
+        when(leadRepository.incrementContactCount(1L)).thenReturn(0, 1);
+        when(leadRepository.addFirstContact(1L, 1L)).thenReturn(0);
+
+        Contact result = contactService.addContact(1L, testContact);
+
+        assertFalse(result.isPrimaryContact());
+        verify(leadRepository, times(2)).incrementContactCount(1L);
     }
 
     @Test
     void addContact_LeadNotFound_ThrowsException() {
-        when(leadRepository.findById(1L)).thenReturn(Optional.empty());
+        when(contactRepository.save(any(Contact.class))).thenReturn(testContact);
 
         assertThrows(LeadNotFoundException.class, () -> contactService.addContact(1L, testContact));
+        verify(leadCaches, never()).evictContacts(any());
     }
 
     @Test
     void addContact_InvalidContactDetails_ThrowsException() {
         testContact.setEmail("invalid-email");
-        when(leadRepository.findById(1L)).thenReturn(Optional.of(testLead));
 
         assertThrows(IllegalArgumentException.class, () -> contactService.addContact(1L, testContact));
+        verify(contactRepository, never()).save(any(Contact.class));
     }
 
     @Test
     void getContactsByLeadId_Success() {
-        when(leadRepository.existsById(1L)).thenReturn(true);
         when(contactRepository.findByRestaurantLeadId(1L)).thenReturn(Arrays.asList(testContact));
 
         List<Contact> results = contactService.getContactsByLeadId(1L);
@@ -101,6 +134,7 @@ class ContactServiceTest {
         assertFalse(results.isEmpty());
         assertEquals(1, results.size());
         assertEquals(testContact, results.getFirst());
+        verify(leadRepository, never()).existsById(any());
     }
 
     @Test
@@ -126,6 +160,7 @@ class ContactServiceTest {
         assertEquals(updatedContact.getName(), result.getName());
         assertEquals(updatedContact.getEmail(), result.getEmail());
         verify(contactRepository).save(any(Contact.class));
+        verify(leadCaches).evictContacts(1L);
     }
 
     @Test
@@ -137,35 +172,22 @@ class ContactServiceTest {
     }
 
     @Test
-    void deleteContact_PrimaryContact_AssignsNewPrimary() {
-        testContact.setPrimaryContact(true);
-        Contact secondContact = new Contact();
-        secondContact.setId(2L);
-
-        when(contactRepository.findById(1L)).thenReturn(Optional.of(testContact));
-        when(contactRepository.findByRestaurantLeadIdAndIdNot(1L, 1L))
-                .thenReturn(Arrays.asList(secondContact));
-
-        contactService.deleteContact(1L);
-
-        verify(contactRepository).save(secondContact);
-        verify(contactRepository).delete(testContact);
-        assertTrue(secondContact.isPrimaryContact());
-    }
-
-    @Test
-    void deleteContact_NotPrimaryContact_JustDeletes() {
+    void deleteContact_ShouldUpdateLeadInOneStatement() {
         when(contactRepository.findById(1L)).thenReturn(Optional.of(testContact));
 
         contactService.deleteContact(1L);
 
         verify(contactRepository).delete(testContact);
+        verify(leadRepository).removeContact(1L, 1L);
         verify(contactRepository, never()).save(any(Contact.class));
+        verify(leadCaches).evictContacts(1L);
+        verify(leadEventLog).append(argThat((LeadEvent event) -> event.getType() == LeadEventType.CONTACT_REMOVED
+                && event.getContactId().equals(1L)));
     }
 
     @Test
     void getPrimaryContact_Success() {
-        when(contactRepository.findByRestaurantLeadIdAndIsPrimaryContactTrue(1L))
+        when(contactRepository.findPrimaryContactByLeadId(1L))
                 .thenReturn(Optional.of(testContact));
 
         Contact result = contactService.getPrimaryContact(1L);
@@ -176,7 +198,7 @@ class ContactServiceTest {
 
     @Test
     void getPrimaryContact_NotFound_ThrowsException() {
-        when(contactRepository.findByRestaurantLeadIdAndIsPrimaryContactTrue(1L))
+        when(contactRepository.findPrimaryContactByLeadId(1L))
                 .thenReturn(Optional.empty());
 
         assertThrows(EntityNotFoundException.class, () -> contactService.getPrimaryContact(1L));
@@ -184,14 +206,16 @@ class ContactServiceTest {
 
     @Test
     void setPrimaryContact_Success() {
-        when(leadRepository.existsById(1L)).thenReturn(true);
+        when(leadRepository.switchPrimaryContact(1L, 1L)).thenReturn(1);
         when(contactRepository.findById(1L)).thenReturn(Optional.of(testContact));
-        when(contactRepository.save(any(Contact.class))).thenReturn(testContact);
 
         Contact result = contactService.setPrimaryContact(1L, 1L);
 
         assertTrue(result.isPrimaryContact());
-        verify(contactRepository).resetPrimaryContactsForLead(1L);
+        verify(leadRepository, never()).existsById(any());
+        verify(contactRepository, never()).save(any(Contact.class));
+        verify(leadCaches).evictContacts(1L);
+        verify(leadEventLog).append(argThat((LeadEvent event) -> event.getType() == LeadEventType.PRIMARY_CONTACT_CHANGED));
     }
 
     @Test
@@ -204,11 +228,26 @@ class ContactServiceTest {
 
         assertThrows(IllegalArgumentException.class,
                 () -> contactService.setPrimaryContact(1L, 1L));
+        verify(leadCaches, never()).evictContacts(any());
     }
 
     @Test
-    void getContactsByRole_Success() {
+    void setPrimaryContact_LeadNotFound_ThrowsException() {
+        when(leadRepository.existsById(1L)).thenReturn(false);
+
+        assertThrows(LeadNotFoundException.class, () -> contactService.setPrimaryContact(1L, 1L));
+    }
+
+    @Test
+    void setPrimaryContact_ContactNotFound_ThrowsException() {
         when(leadRepository.existsById(1L)).thenReturn(true);
+        when(contactRepository.findById(1L)).thenReturn(Optional.empty());
+
+        assertThrows(ContactNotFoundException.class, () -> contactService.setPrimaryContact(1L, 1L));
+    }
+
+    @Test
+    void getContactsByRole_Success() {
         when(contactRepository.findByRestaurantLeadIdAndRole(1L, "Manager"))
                 .thenReturn(Arrays.asList(testContact));
 
@@ -248,6 +287,17 @@ class ContactServiceTest {
                 () -> contactService.addContact(1L, testContact));
     }
 
+    @Test
+    void addContact_ShouldStorePhoneInE164Form() {
+        testContact.setPhone("98765 43210");
+        when(contactRepository.save(any(Contact.class))).thenReturn(testContact);
+        when(leadRepository.incrementContactCount(1L)).thenReturn(1);
+
+        Contact result = contactService.addContact(1L, testContact);
+
+        assertEquals("+919876543210", result.getPhone());
+    }
+
     @Test
     void validateContactDetails_InvalidRole_ThrowsException() {
         testContact.setRole("");
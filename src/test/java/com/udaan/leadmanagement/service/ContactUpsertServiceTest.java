@@ -0,0 +1,175 @@
+package com.udaan.leadmanagement.service;
+
+import com.udaan.leadmanagement.DTO.ContactUpsertRequestDTO;
+import com.udaan.leadmanagement.DTO.ContactUpsertResponseDTO;
+import com.udaan.leadmanagement.DTO.ContactUpsertResultDTO;
+import com.udaan.leadmanagement.cache.LeadCaches;
+import com.udaan.leadmanagement.enums.ContactUpsertStatus;
+import com.udaan.leadmanagement.enums.ContactValidationError;
+import com.udaan.leadmanagement.event.LeadEventLog;
+import com.udaan.leadmanagement.model.Contact;
+import com.udaan.leadmanagement.model.RestaurantLead;
+import com.udaan.leadmanagement.search.LeadSearchIndex;
+import com.udaan.leadmanagement.validation.ContactValidator;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.mock;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:leadmanagement-test;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+class ContactUpsertServiceTest {
+
+    @Autowired
+    private ContactUpsertService contactUpsertService;
+
+    @Autowired
+    private ContactService contactService;
+
+    @Autowired
+    private RestaurantLeadManagementService leadService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ContactValidator contactValidator;
+
+    @Autowired
+    private LeadCaches leadCaches;
+
+    @Autowired
+    private LeadSearchIndex leadSearchIndex;
+
+    @Test
+    void upsertContacts_NewContacts_ShouldInsertAndElectFirstAsPrimary() {
+        Long leadId = createLead();
+
+        ContactUpsertResponseDTO response = contactUpsertService.upsertContacts(List.of(
+                request(leadId, "Asha", "asha@example.com", "98765 43210"),
+                request(leadId, "Ravi", "ravi@example.com", "9876500000"),
+                request(leadId, "Bad", "not-an-email", "9876511111"),
+                request(-1L, "Nobody", "nobody@example.com", "9876522222")));
+
+        List<ContactUpsertResultDTO> results = response.getResults();
+        assertEquals(2, response.getCreated());
+        assertEquals(2, response.getRejected());
+        assertEquals(ContactUpsertStatus.CREATED, results.get(0).getStatus());
+        assertEquals(ContactUpsertStatus.CREATED, results.get(1).getStatus());
+        assertEquals(new ContactUpsertResultDTO(ContactUpsertStatus.INVALID, null, ContactValidationError.INVALID_EMAIL),
+                results.get(2));
+        assertEquals(ContactUpsertStatus.LEAD_NOT_FOUND, results.get(3).getStatus());
+
+        assertEquals(results.get(0).getContactId(), contactService.getPrimaryContact(leadId).getId());
+        assertEquals("+919876543210", contactService.getPrimaryContact(leadId).getPhone());
+        assertEquals(2, leadRow(leadId).get("contact_count"));
+    }
+
+    @Test
+    void upsertContacts_ExistingContacts_ShouldMatchByNormalizedPhoneThenEmail() {
+        Long leadId = createLead();
+        Contact owner = contactService.addContact(leadId, contact("Asha", "asha@example.com", "9876543210"));
+        Contact manager = contactService.addContact(leadId, contact("Ravi", "ravi@example.com", "9876500000"));
+
+        ContactUpsertResponseDTO response = contactUpsertService.upsertContacts(List.of(
+                request(leadId, "Asha", "asha@example.com", "+91 98765-43210"),
+                request(leadId, "Ravi Kumar", "RAVI@example.com", "9876599999")));
+
+        assertEquals(new ContactUpsertResultDTO(ContactUpsertStatus.UNCHANGED, owner.getId(), null),
+                response.getResults().get(0));
+        assertEquals(new ContactUpsertResultDTO(ContactUpsertStatus.UPDATED, manager.getId(), null),
+                response.getResults().get(1));
+        Contact updated = contactService.getContactsByLeadId(leadId).stream()
+                .filter(c -> c.getId().equals(manager.getId())).findFirst().orElseThrow();
+        assertEquals("Ravi Kumar", updated.getName());
+        assertEquals("+919876599999", updated.getPhone());
+        assertEquals(2, leadRow(leadId).get("contact_count"));
+        assertEquals(owner.getId(), contactService.getPrimaryContact(leadId).getId());
+    }
+
+    @Test
+    void upsertContacts_DuplicatesInPayload_ShouldCollapseIntoOneContact() {
+        Long leadId = createLead();
+
+        ContactUpsertResponseDTO response = contactUpsertService.upsertContacts(List.of(
+                request(leadId, "Asha", "asha@example.com", "9876543210"),
+                request(leadId, "Asha Rao", "asha@example.com", "09876543210")));
+
+        assertEquals(ContactUpsertStatus.CREATED, response.getResults().get(0).getStatus());
+        assertEquals(ContactUpsertStatus.UPDATED, response.getResults().get(1).getStatus());
+        assertEquals(response.getResults().get(0).getContactId(), response.getResults().get(1).getContactId());
+        List<Contact> contacts = contactService.getContactsByLeadId(leadId);
+        assertEquals(1, contacts.size());
+        assertEquals("Asha Rao", contacts.getFirst().getName());
+        assertEquals(1, leadRow(leadId).get("contact_count"));
+    }
+
+    @Test
+    void upsertContacts_FailingPartway_ShouldKeepTheCommittedResults() {
+        Long first = createLead();
+        Long second = createLead();
+        // One contact per batch; the event log fails on the second batch
+        LeadEventLog failingLog = mock(LeadEventLog.class);
+        doNothing().doThrow(new DataAccessResourceFailureException("Connection lost")).when(failingLog).append(anyList());
+        ContactUpsertService oneByOne = new ContactUpsertService(jdbcTemplate, transactionManager, entityManagerFactory,
+                contactValidator, leadCaches, failingLog, leadSearchIndex, 1);
+
+        ContactUpsertResponseDTO response = oneByOne.upsertContacts(List.of(
+                request(second, "Ravi", "ravi@example.com", "9876500001"),
+                request(first, "Asha", "asha@example.com", "9876500002")));
+
+        assertEquals(1, response.getCreated());
+        assertEquals(1, response.getNotProcessed());
+        assertTrue(response.getError().contains("stopped after 1 contacts"), response.getError());
+        assertEquals(ContactUpsertStatus.NOT_PROCESSED, response.getResults().get(0).getStatus());
+        ContactUpsertResultDTO written = response.getResults().get(1);
+        assertEquals(ContactUpsertStatus.CREATED, written.getStatus());
+        assertEquals(written.getContactId(), contactService.getPrimaryContact(first).getId());
+        assertEquals(0, leadRow(second).get("contact_count"));
+    }
+
+    private Map<String, Object> leadRow(Long leadId) {
+        return jdbcTemplate.queryForMap("SELECT contact_count, primary_contact_id FROM restaurant_lead WHERE id = ?", leadId);
+    }
+
+    private Long createLead() {
+        RestaurantLead lead = new RestaurantLead();
+        lead.setName("Synced Restaurant");
+        lead.setCallFrequency(7);
+        return leadService.createLead(lead).getId();
+    }
+
+    private static ContactUpsertRequestDTO request(Long leadId, String name, String email, String phone) {
+        return new ContactUpsertRequestDTO(leadId, name, "Manager", email, phone);
+    }
+
+    private static Contact contact(String name, String email, String phone) {
+        Contact contact = new Contact();
+        contact.setName(name);
+        contact.setRole("Manager");
+        contact.setEmail(email);
+        contact.setPhone(phone);
+        return contact;
+    }
+}
@@ -0,0 +1,266 @@
+package com.udaan.leadmanagement.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.udaan.leadmanagement.DTO.InteractionRequestDTO;
+import com.udaan.leadmanagement.assignment.KAMLoadBalancer;
+import com.udaan.leadmanagement.cache.LeadCaches;
+import com.udaan.leadmanagement.enums.InteractionType;
+import com.udaan.leadmanagement.enums.LeadEventType;
+import com.udaan.leadmanagement.enums.LeadStatus;
+import com.udaan.leadmanagement.event.LeadEventLog;
+import com.udaan.leadmanagement.exception.IngestionQueueFullException;
+import com.udaan.leadmanagement.exception.LeadNotFoundException;
+import com.udaan.leadmanagement.model.Interaction;
+import com.udaan.leadmanagement.model.LeadEvent;
+import com.udaan.leadmanagement.model.RestaurantLead;
+import com.udaan.leadmanagement.repository.InteractionRepository;
+import com.udaan.leadmanagement.repository.RestaurantLeadRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class InteractionIngestionServiceTest {
+
+    @Mock
+    private RestaurantLeadRepository restaurantLeadRepository;
+
+    @Mock
+    private InteractionRepository interactionRepository;
+
+    @Mock
+    private KAMScoreboard kamScoreboard;
+
+    @Mock
+    private KAMLoadBalancer kamLoadBalancer;
+
+    @Mock
+    private LeadCaches leadCaches;
+
+    @Mock
+    private LeadEventLog leadEventLog;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    private Path tempDir;
+
+    private Path deadLetterFile;
+    private InteractionIngestionService ingestionService;
+    private RestaurantLead testLead;
+
+    @BeforeEach
+    void setUp() {
+        deadLetterFile = tempDir.resolve("dead-letters.ndjson");
+        ingestionService = new InteractionIngestionService(restaurantLeadRepository, interactionRepository,
+                kamScoreboard, kamLoadBalancer, leadCaches, leadEventLog, jdbcTemplate, transactionManager,
+                new ObjectMapper(), 3, 100, 10, 3, 1, deadLetterFile.toString());
+
+        testLead = new RestaurantLead();
+        testLead.setId(1L);
+        testLead.setCallFrequency(7);
+        testLead.setStatus(LeadStatus.NEW);
+    }
+
+    @Test
+    void submitAll_WhenQueueWouldOverflow_RejectsWholeBatch() {
+        when(restaurantLeadRepository.existsById(1L)).thenReturn(true);
+        ingestionService.submitAll(List.of(request(1L, InteractionType.CALL)));
+
+        assertThrows(IngestionQueueFullException.class, () -> ingestionService.submitAll(List.of(
+                request(1L, InteractionType.CALL),
+                request(1L, InteractionType.EMAIL),
+                request(1L, InteractionType.MEETING))));
+        assertEquals(1, ingestionService.getQueuedInteractions());
+    }
+
+    @Test
+    void submitAll_WithoutLeadId_ThrowsException() {
+        assertThrows(IllegalArgumentException.class,
+                () -> ingestionService.submitAll(List.of(request(null, InteractionType.CALL))));
+    }
+
+    @Test
+    void submitAll_WithUnknownLead_RejectsWholeBatch() {
+        when(restaurantLeadRepository.existsById(1L)).thenReturn(true);
+        when(restaurantLeadRepository.existsById(2L)).thenReturn(false);
+
+        LeadNotFoundException e = assertThrows(LeadNotFoundException.class, () -> ingestionService.submitAll(List.of(
+                request(1L, InteractionType.CALL),
+                request(2L, InteractionType.CALL),
+                request(2L, InteractionType.EMAIL))));
+        assertEquals("Leads not found with ids: [2]", e.getMessage());
+        assertEquals(0, ingestionService.getQueuedInteractions());
+    }
+
+    @Test
+    void flush_ShouldLoadLeadsOnceAndSaveInteractionsTogether() {
+        when(restaurantLeadRepository.findAllByIdForUpdate(any())).thenReturn(List.of(testLead));
+        LocalDateTime callTime = LocalDateTime.now().minusMinutes(5);
+        List<InteractionIngestionService.PendingInteraction> batch = new ArrayList<>(Arrays.asList(
+                new InteractionIngestionService.PendingInteraction(request(1L, InteractionType.CALL), callTime),
+                new InteractionIngestionService.PendingInteraction(request(1L, InteractionType.EMAIL), callTime.plusMinutes(1)),
+                new InteractionIngestionService.PendingInteraction(request(2L, InteractionType.CALL), callTime)));
+
+        ingestionService.flush(batch);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Interaction>> saved = ArgumentCaptor.forClass(List.class);
+        verify(restaurantLeadRepository, times(1)).findAllByIdForUpdate(any());
+        verify(interactionRepository).saveAll(saved.capture());
+        assertEquals(2, saved.getValue().size());
+        assertEquals(LeadStatus.IN_PROGRESS, testLead.getStatus());
+        assertEquals(callTime, testLead.getLastCallDate());
+        assertEquals(callTime.plusDays(7), testLead.getNextCallDate());
+        verify(kamScoreboard).onLeadStatusChanged(null, LeadStatus.NEW, LeadStatus.IN_PROGRESS);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Object[]>> counters = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), counters.capture());
+        assertArrayEquals(new Object[]{2, callTime.plusMinutes(1), callTime.plusMinutes(1), 1L}, counters.getValue().getFirst());
+        assertEquals(1, counters.getValue().size());
+        verify(leadCaches).evictInteractions(Set.of(1L));
+        // Only the first interaction moves the lead out of NEW
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<LeadEvent>> events = ArgumentCaptor.forClass(List.class);
+        verify(leadEventLog).append(events.capture());
+        assertEquals(List.of(LeadEventType.INTERACTION_RECORDED, LeadEventType.STATUS_CHANGED, LeadEventType.INTERACTION_RECORDED),
+                events.getValue().stream().map(LeadEvent::getType).toList());
+        assertEquals(InteractionType.EMAIL, events.getValue().get(2).getInteractionType());
+    }
+
+    @Test
+    void shutdown_ShouldFlushQueuedInteractions() throws Exception {
+        when(restaurantLeadRepository.existsById(1L)).thenReturn(true);
+        when(restaurantLeadRepository.findAllByIdForUpdate(any())).thenReturn(List.of(testLead));
+        ingestionService.submitAll(List.of(request(1L, InteractionType.EMAIL)));
+
+        ingestionService.start();
+        ingestionService.shutdown();
+
+        verify(interactionRepository).saveAll(any());
+        assertEquals(0, ingestionService.getQueuedInteractions());
+    }
+
+    @Test
+    void submitAll_AfterShutdown_ShouldBeRefused() throws Exception {
+        when(restaurantLeadRepository.existsById(1L)).thenReturn(true);
+        ingestionService.start();
+        ingestionService.shutdown();
+
+        assertThrows(IngestionQueueFullException.class,
+                () -> ingestionService.submitAll(List.of(request(1L, InteractionType.CALL))));
+        assertEquals(0, ingestionService.getQueuedInteractions());
+    }
+
+    @Test
+    void write_TransientFailure_ShouldRetryTheBatch() {
+        when(restaurantLeadRepository.findAllByIdForUpdate(any())).thenReturn(List.of(testLead));
+        when(interactionRepository.saveAll(any()))
+                .thenThrow(new TransientDataAccessResourceException("Connection reset"))
+                .thenReturn(List.of());
+
+        ingestionService.write(new ArrayList<>(List.of(pending(1L))));
+
+        verify(interactionRepository, times(2)).saveAll(any());
+        assertEquals(0, ingestionService.getDeadLetteredInteractions());
+        assertFalse(Files.exists(deadLetterFile));
+    }
+
+    @Test
+    void write_RowThatCannotBeWritten_ShouldBeIsolatedAndDeadLettered() throws Exception {
+        when(restaurantLeadRepository.findAllByIdForUpdate(any())).thenAnswer(invocation -> {
+            List<RestaurantLead> leads = new ArrayList<>();
+            for (Long id : invocation.<Iterable<Long>>getArgument(0)) {
+                leads.add(lead(id));
+            }
+            return leads;
+        });
+        List<Long> written = new ArrayList<>();
+        when(interactionRepository.saveAll(any())).thenAnswer(invocation -> {
+            List<Interaction> interactions = invocation.getArgument(0);
+            if (interactions.stream().anyMatch(i -> i.getRestaurantLead().getId() == 3L)) {
+                throw new DataIntegrityViolationException("value too long");
+            }
+            interactions.forEach(i -> written.add(i.getRestaurantLead().getId()));
+            return interactions;
+        });
+
+        ingestionService.write(new ArrayList<>(List.of(pending(1L), pending(2L), pending(3L), pending(4L))));
+
+        assertEquals(List.of(1L, 2L, 4L), written);
+        assertEquals(1, ingestionService.getDeadLetteredInteractions());
+        List<String> lines = Files.readAllLines(deadLetterFile);
+        assertEquals(1, lines.size());
+        assertTrue(lines.getFirst().startsWith("{\"leadId\":3,\"type\":\"CALL\",\"notes\":\"notes\""), lines.getFirst());
+    }
+
+    @Test
+    void write_LeadDeletedSinceSubmit_ShouldDeadLetterItsInteractions() throws Exception {
+        when(restaurantLeadRepository.findAllByIdForUpdate(any())).thenReturn(List.of(testLead));
+
+        ingestionService.write(new ArrayList<>(List.of(pending(1L), pending(2L), pending(2L))));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Interaction>> saved = ArgumentCaptor.forClass(List.class);
+        verify(interactionRepository).saveAll(saved.capture());
+        assertEquals(1, saved.getValue().size());
+        assertEquals(2, ingestionService.getDeadLetteredInteractions());
+        List<String> lines = Files.readAllLines(deadLetterFile);
+        assertEquals(2, lines.size());
+        assertTrue(lines.getFirst().startsWith("{\"leadId\":2,"), lines.getFirst());
+        assertTrue(lines.getFirst().contains("Leads not found with ids: [2]"), lines.getFirst());
+    }
+
+    @Test
+    void write_TransientFailureThatPersists_ShouldDeadLetterTheWholeBatch() throws Exception {
+        when(restaurantLeadRepository.findAllByIdForUpdate(any())).thenReturn(List.of(testLead));
+        when(interactionRepository.saveAll(any())).thenThrow(new TransientDataAccessResourceException("Connection refused"));
+
+        ingestionService.write(new ArrayList<>(List.of(pending(1L), pending(1L))));
+
+        // Retried as a whole, never split: every row would fail the same way
+        verify(interactionRepository, times(3)).saveAll(any());
+        assertEquals(2, Files.readAllLines(deadLetterFile).size());
+    }
+
+    private InteractionIngestionService.PendingInteraction pending(Long leadId) {
+        return new InteractionIngestionService.PendingInteraction(request(leadId, InteractionType.CALL), LocalDateTime.now());
+    }
+
+    private RestaurantLead lead(Long id) {
+        RestaurantLead lead = new RestaurantLead();
+        lead.setId(id);
+        lead.setCallFrequency(7);
+        lead.setStatus(LeadStatus.NEW);
+        return lead;
+    }
+
+    private InteractionRequestDTO request(Long leadId, InteractionType type) {
+        return new InteractionRequestDTO(leadId, type, "notes");
+    }
+}
@@ -0,0 +1,173 @@
+package com.udaan.leadmanagement.service;
+
+import com.udaan.leadmanagement.enums.LeadStatus;
+import com.udaan.leadmanagement.event.LeadEventLog;
+import com.udaan.leadmanagement.model.KAM;
+import com.udaan.leadmanagement.repository.KAMRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class KAMScoreboardTest {
+
+    private static final LocalDateTime LAST_CHANGE = LocalDateTime.of(2024, 5, 10, 9, 30);
+
+    private final KAMRepository kamRepository = mock(KAMRepository.class);
+    private final LeadEventLog leadEventLog = mock(LeadEventLog.class);
+    private KAMScoreboard scoreboard;
+
+    @BeforeEach
+    void setUp() {
+        scoreboard = new KAMScoreboard(kamRepository, leadEventLog, 0);
+        scoreboard.seed(Arrays.asList(
+                new Object[]{1L, "KAM 1", "kam1@example.com", "1111111111", 10L, 4L, 40.0},
+                new Object[]{2L, "KAM 2", "kam2@example.com", "2222222222", 10L, 2L, 20.0},
+                new Object[]{3L, "KAM 3", "kam3@example.com", "3333333333", 10L, 8L, 80.0}
+        ), Map.of(1L, LAST_CHANGE));
+    }
+
+    @Test
+    void seed_ShouldExposeCountersPerKAM() {
+        KAMScore score = scoreboard.get(1L).orElseThrow();
+
+        assertEquals(10, score.getTotalLeads());
+        assertEquals(4, score.getConvertedLeads());
+        assertEquals(40.0, score.getConversionRate());
+        assertTrue(scoreboard.get(4L).isEmpty());
+    }
+
+    @Test
+    void seed_ShouldTakeLastUpdatedFromTheLastChange() {
+        assertEquals(LAST_CHANGE, scoreboard.get(1L).orElseThrow().getLastUpdated());
+        assertNull(scoreboard.get(2L).orElseThrow().getLastUpdated());
+    }
+
+    @Test
+    void onLeadStatusChanged_WithoutConversionChange_ShouldOnlyStampLastUpdated() {
+        scoreboard.onLeadStatusChanged(2L, LeadStatus.NEW, LeadStatus.FOLLOW_UP);
+        scoreboard.onLeadStatusChanged(1L, LeadStatus.FOLLOW_UP, LeadStatus.FOLLOW_UP);
+
+        KAMScore changed = scoreboard.get(2L).orElseThrow();
+        assertEquals(2, changed.getConvertedLeads());
+        assertNotNull(changed.getLastUpdated());
+        assertEquals(LAST_CHANGE, scoreboard.get(1L).orElseThrow().getLastUpdated());
+    }
+
+    @Test
+    void topPerformers_ShouldReturnAboveAverageBestFirst() {
+        List<KAMScore> top = scoreboard.topPerformers(5);
+
+        assertEquals(1, top.size());
+        assertEquals(3L, top.getFirst().getKamId());
+    }
+
+    @Test
+    void underPerformers_ShouldReturnBelowAverageWorstFirst() {
+        List<KAMScore> under = scoreboard.underPerformers(5);
+
+        assertEquals(2, under.size());
+        assertEquals(2L, under.get(0).getKamId());
+        assertEquals(1L, under.get(1).getKamId());
+    }
+
+    @Test
+    void onLeadStatusChanged_ToConverted_ShouldReorderRanking() {
+        for (int i = 0; i < 5; i++) {
+            scoreboard.onLeadStatusChanged(2L, LeadStatus.IN_PROGRESS, LeadStatus.CONVERTED);
+        }
+
+        assertEquals(7, scoreboard.get(2L).orElseThrow().getConvertedLeads());
+        assertEquals(3L, scoreboard.topPerformers(1).getFirst().getKamId());
+        assertEquals(1L, scoreboard.underPerformers(1).getFirst().getKamId());
+    }
+
+    @Test
+    void onLeadStatusChanged_WithoutKAM_ShouldBeIgnored() {
+        scoreboard.onLeadStatusChanged(null, LeadStatus.NEW, LeadStatus.CONVERTED);
+
+        assertEquals(4, scoreboard.get(1L).orElseThrow().getConvertedLeads());
+    }
+
+    @Test
+    void onLeadAssigned_ShouldMoveCountersBetweenKAMs() {
+        scoreboard.onLeadAssigned(1L, 2L, LeadStatus.CONVERTED);
+
+        assertEquals(9, scoreboard.get(1L).orElseThrow().getTotalLeads());
+        assertEquals(3, scoreboard.get(1L).orElseThrow().getConvertedLeads());
+        assertEquals(11, scoreboard.get(2L).orElseThrow().getTotalLeads());
+        assertEquals(3, scoreboard.get(2L).orElseThrow().getConvertedLeads());
+    }
+
+    @Test
+    void rankings_AfterManyUpdates_ShouldNotDriftFromTheCounters() {
+        scoreboard.seed(Arrays.asList(
+                new Object[]{1L, "KAM 1", "kam1@example.com", "1111111111", 30L, 10L, 33.3},
+                new Object[]{2L, "KAM 2", "kam2@example.com", "2222222222", 30L, 10L, 33.3},
+                new Object[]{3L, "KAM 3", "kam3@example.com", "3333333333", 30L, 10L, 33.3}
+        ), Map.of());
+
+        // Random moves between the KAMs, then the same moves undone in reverse order
+        Random random = new Random(42);
+        List<long[]> moves = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            long from = 1 + random.nextInt(3);
+            long to = 1 + (from + random.nextInt(2)) % 3;
+            long converted = random.nextInt(3) == 0 ? 1 : 0;
+            moves.add(new long[]{from, to, converted});
+            scoreboard.onLeadAssigned(from, to, converted == 1 ? LeadStatus.CONVERTED : LeadStatus.NEW);
+        }
+        for (int i = moves.size() - 1; i >= 0; i--) {
+            long[] move = moves.get(i);
+            scoreboard.onLeadAssigned(move[1], move[0], move[2] == 1 ? LeadStatus.CONVERTED : LeadStatus.NEW);
+        }
+
+        // Back where they started: every rate equals the average again
+        assertEquals(List.of(), scoreboard.topPerformers(5));
+        assertEquals(List.of(), scoreboard.underPerformers(5));
+    }
+
+    @Test
+    void reseed_ShouldReplaceCountersAndKeepChangesMadeWhileQuerying() {
+        // Counted twice in memory, say by two racing writers
+        scoreboard.onLeadStatusChanged(1L, LeadStatus.IN_PROGRESS, LeadStatus.CONVERTED);
+        scoreboard.onLeadStatusChanged(1L, LeadStatus.IN_PROGRESS, LeadStatus.CONVERTED);
+        when(leadEventLog.lastLeadChangeByKam()).thenReturn(Map.of());
+        when(kamRepository.findKAMsPerformanceMetrics()).thenAnswer(invocation -> {
+            scoreboard.onLeadStatusChanged(2L, LeadStatus.IN_PROGRESS, LeadStatus.CONVERTED);
+            return Arrays.asList(
+                    new Object[]{1L, "KAM 1", "kam1@example.com", "1111111111", 10L, 5L, 50.0},
+                    new Object[]{2L, "KAM 2", "kam2@example.com", "2222222222", 10L, 2L, 20.0});
+        });
+
+        scoreboard.reseed();
+
+        assertEquals(5, scoreboard.get(1L).orElseThrow().getConvertedLeads());
+        assertEquals(3, scoreboard.get(2L).orElseThrow().getConvertedLeads());
+        assertTrue(scoreboard.get(3L).isEmpty());
+        // The last update time is not lost because the event log does not know it
+        assertTrue(scoreboard.get(1L).orElseThrow().getLastUpdated().isAfter(LAST_CHANGE));
+        assertEquals(1L, scoreboard.topPerformers(1).getFirst().getKamId());
+    }
+
+    @Test
+    void addKAM_ShouldStartWithEmptyCounters() {
+        KAM kam = new KAM();
+        kam.setId(4L);
+        kam.setName("KAM 4");
+
+        scoreboard.addKAM(kam);
+
+        KAMScore score = scoreboard.get(4L).orElseThrow();
+        assertEquals(0, score.getTotalLeads());
+        assertEquals(0.0, score.getConversionRate());
+    }
+}
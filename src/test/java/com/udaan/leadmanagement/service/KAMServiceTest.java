@@ -1,25 +1,38 @@
 package com.udaan.leadmanagement.service;
 
+import com.udaan.leadmanagement.DTO.KAMLoadDTO;
 import com.udaan.leadmanagement.DTO.KAMPerformanceDTO;
+import com.udaan.leadmanagement.DTO.KAMRecentPerformanceDTO;
+import com.udaan.leadmanagement.analytics.KAMActivity;
+import com.udaan.leadmanagement.analytics.KAMActivityWindows;
+import com.udaan.leadmanagement.assignment.KAMLoad;
+import com.udaan.leadmanagement.assignment.KAMLoadBalancer;
+import com.udaan.leadmanagement.DTO.LeadSummaryDTO;
+import com.udaan.leadmanagement.enums.LeadStatus;
+import com.udaan.leadmanagement.event.LeadEventLog;
 import com.udaan.leadmanagement.exception.InternalServerException;
 import com.udaan.leadmanagement.exception.KAMNotFoundException;
 import com.udaan.leadmanagement.exception.KAMPerformanceException;
 import com.udaan.leadmanagement.exception.LeadNotFoundException;
+import com.udaan.leadmanagement.feed.LeadChangeFeed;
 import com.udaan.leadmanagement.model.KAM;
+import com.udaan.leadmanagement.model.LeadEvent;
 import com.udaan.leadmanagement.model.RestaurantLead;
 import com.udaan.leadmanagement.repository.KAMRepository;
 import com.udaan.leadmanagement.repository.RestaurantLeadRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -35,7 +48,20 @@ class KAMServiceTest {
     @Mock
     private RestaurantLeadRepository restaurantLeadRepository;
 
-    @InjectMocks
+    private KAMScoreboard kamScoreboard;
+
+    @Mock
+    private LeadEventLog leadEventLog;
+
+    @Mock
+    private KAMActivityWindows kamActivityWindows;
+
+    @Mock
+    private KAMLoadBalancer kamLoadBalancer;
+
+    @Mock
+    private LeadChangeFeed leadChangeFeed;
+
     private KAMService kamService;
 
     private KAM testKAM;
@@ -45,6 +71,10 @@ class KAMServiceTest {
 
     @BeforeEach
     void setUp() {
+        kamScoreboard = new KAMScoreboard(kamRepository, leadEventLog, 0);
+        kamService = new KAMService(kamRepository, restaurantLeadRepository, kamScoreboard, leadEventLog,
+                kamActivityWindows, kamLoadBalancer, leadChangeFeed);
+
         testKAM = new KAM();
         testKAM.setId(1L);
         testKAM.setName("Test KAM");
@@ -84,9 +114,18 @@ class KAMServiceTest {
         assertThrows(InternalServerException.class, () -> kamService.addKAM(kamWithNullId));
     }
 
+    @Test
+    void addKAM_UnknownTimezone_ShouldBeRejectedBeforeSaving() {
+        KAM kam = new KAM();
+        kam.setTimezone("Asia/Atlantis");
+
+        assertThrows(IllegalArgumentException.class, () -> kamService.addKAM(kam));
+        verify(kamRepository, never()).save(any(KAM.class));
+    }
+
     @Test
     void getAllKAM_Success() {
-        when(kamRepository.findAll()).thenReturn(Arrays.asList(testKAM));
+        when(kamRepository.findAllWithLeadsBy()).thenReturn(Arrays.asList(testKAM));
 
         List<KAM> result = kamService.getAllKAM();
 
@@ -97,72 +136,134 @@ class KAMServiceTest {
 
     @Test
     void getAllKAM_EmptyList_ThrowsException() {
-        when(kamRepository.findAll()).thenReturn(Collections.emptyList());
+        when(kamRepository.findAllWithLeadsBy()).thenReturn(Collections.emptyList());
 
         assertThrows(KAMNotFoundException.class, () -> kamService.getAllKAM());
     }
 
     @Test
     void assignLeadsToKAM_Success() {
-        when(kamRepository.findById(1L)).thenReturn(Optional.of(testKAM));
-        when(restaurantLeadRepository.findById(1L)).thenReturn(Optional.of(testLead));
-        when(kamRepository.save(any(KAM.class))).thenReturn(testKAM);
-        when(restaurantLeadRepository.save(any(RestaurantLead.class))).thenReturn(testLead);
+        when(kamRepository.existsById(1L)).thenReturn(true);
+        when(kamRepository.getReferenceById(1L)).thenReturn(testKAM);
+        when(restaurantLeadRepository.findAssignmentStateByIdIn(List.of(1L, 2L)))
+                .thenReturn(Arrays.asList(new Object[]{1L, null, null, 7, null, null},
+                        new Object[]{2L, 2L, null, 7, null, null}));
+        when(restaurantLeadRepository.assignLeadsToKAM(testKAM, List.of(1L, 2L))).thenReturn(2);
+
+        int result = kamService.assignLeadsToKAM(1L, List.of(1L, 2L), 1000);
+
+        assertEquals(2, result);
+        verify(restaurantLeadRepository, never()).save(any(RestaurantLead.class));
+        verify(kamRepository, never()).save(any(KAM.class));
+    }
 
-        KAM result = kamService.assignLeadsToKAM(1L, List.of(1L));
+    @Test
+    void assignLeadsToKAM_ShouldLogOnlyActualReassignments() {
+        when(kamRepository.existsById(1L)).thenReturn(true);
+        when(kamRepository.getReferenceById(1L)).thenReturn(testKAM);
+        when(restaurantLeadRepository.findAssignmentStateByIdIn(List.of(1L, 2L)))
+                .thenReturn(Arrays.asList(new Object[]{1L, 2L, LeadStatus.CONVERTED, 7, null, null},
+                        new Object[]{2L, 1L, LeadStatus.NEW, 7, null, null}));
+        when(restaurantLeadRepository.assignLeadsToKAM(testKAM, List.of(1L, 2L))).thenReturn(2);
+
+        kamService.assignLeadsToKAM(1L, List.of(1L, 2L), 1000);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<LeadEvent>> events = ArgumentCaptor.forClass(List.class);
+        verify(leadEventLog).append(events.capture());
+        assertEquals(1, events.getValue().size());
+        LeadEvent event = events.getValue().getFirst();
+        assertEquals(1L, event.getLeadId());
+        assertEquals(1L, event.getKamId());
+        assertEquals(LeadStatus.CONVERTED, event.getStatus());
+        // No transaction here, so the feed hears of it right away
+        verify(leadChangeFeed).onLeadsReassigned(events.getValue(), Map.of(1L, 2L));
+    }
 
-        assertNotNull(result);
-        verify(kamRepository).save(any(KAM.class));
-        verify(restaurantLeadRepository).save(any(RestaurantLead.class));
+    @Test
+    void assignLeadsToKAM_ShouldUpdateInBatches() {
+        when(kamRepository.existsById(1L)).thenReturn(true);
+        when(kamRepository.getReferenceById(1L)).thenReturn(testKAM);
+        when(restaurantLeadRepository.findAssignmentStateByIdIn(List.of(1L, 2L)))
+                .thenReturn(Arrays.asList(new Object[]{1L, null, null, 7, null, null},
+                        new Object[]{2L, null, null, 7, null, null}));
+        when(restaurantLeadRepository.findAssignmentStateByIdIn(List.of(3L)))
+                .thenReturn(Collections.singletonList(new Object[]{3L, null, null, 7, null, null}));
+        when(restaurantLeadRepository.assignLeadsToKAM(testKAM, List.of(1L, 2L))).thenReturn(2);
+        when(restaurantLeadRepository.assignLeadsToKAM(testKAM, List.of(3L))).thenReturn(1);
+        List<Integer> progress = new ArrayList<>();
+
+        int result = kamService.assignLeadsToKAM(1L, List.of(1L, 2L, 3L), 2, progress::add);
+
+        assertEquals(3, result);
+        assertEquals(List.of(2, 1), progress);
     }
 
     @Test
     void assignLeadsToKAM_KAMNotFound_ThrowsException() {
-        when(kamRepository.findById(1L)).thenReturn(Optional.empty());
+        when(kamRepository.existsById(1L)).thenReturn(false);
 
         assertThrows(KAMNotFoundException.class,
-                () -> kamService.assignLeadsToKAM(1L, List.of(1L)));
+                () -> kamService.assignLeadsToKAM(1L, List.of(1L), 1000));
     }
 
     @Test
-    void assignLeadsToKAM_LeadNotFound_ThrowsException() {
-        when(kamRepository.findById(1L)).thenReturn(Optional.of(testKAM));
-        when(restaurantLeadRepository.findById(1L)).thenReturn(Optional.empty());
+    void assignLeadsToKAM_LeadNotFound_ReportsAllMissingIds() {
+        when(kamRepository.existsById(1L)).thenReturn(true);
+        when(restaurantLeadRepository.findAssignmentStateByIdIn(List.of(1L, 2L, 3L)))
+                .thenReturn(Collections.singletonList(new Object[]{2L, null, null, 7, null, null}));
 
-        assertThrows(LeadNotFoundException.class,
-                () -> kamService.assignLeadsToKAM(1L, List.of(1L)));
+        LeadNotFoundException exception = assertThrows(LeadNotFoundException.class,
+                () -> kamService.assignLeadsToKAM(1L, List.of(1L, 2L, 3L), 1000));
+
+        assertTrue(exception.getMessage().contains("[1, 3]"));
+        verify(restaurantLeadRepository, never()).assignLeadsToKAM(any(), any());
     }
 
     @Test
     void getLeadsByKAMId_Success() {
-        testKAM.getLeads().add(testLead);
-        when(kamRepository.findById(1L)).thenReturn(Optional.of(testKAM));
+        when(restaurantLeadRepository.findByAssignedKamIdOrderById(1L)).thenReturn(List.of(testLead));
 
         List<RestaurantLead> result = kamService.getLeadsByKAMId(1L);
 
         assertFalse(result.isEmpty());
         assertEquals(1, result.size());
         assertEquals(testLead, result.getFirst());
+        verify(kamRepository, never()).existsById(any());
     }
 
     @Test
     void getLeadsByKAMId_KAMNotFound_ThrowsException() {
-        when(kamRepository.findById(1L)).thenReturn(Optional.empty());
+        when(restaurantLeadRepository.findByAssignedKamIdOrderById(1L)).thenReturn(Collections.emptyList());
+        when(kamRepository.existsById(1L)).thenReturn(false);
 
         assertThrows(KAMNotFoundException.class, () -> kamService.getLeadsByKAMId(1L));
     }
 
     @Test
     void getLeadsByKAMId_NoLeads_ThrowsException() {
-        when(kamRepository.findById(1L)).thenReturn(Optional.of(testKAM));
+        when(restaurantLeadRepository.findByAssignedKamIdOrderById(1L)).thenReturn(Collections.emptyList());
+        when(kamRepository.existsById(1L)).thenReturn(true);
 
         assertThrows(LeadNotFoundException.class, () -> kamService.getLeadsByKAMId(1L));
     }
 
+    @Test
+    void getLeadSummariesByKAMId_Success() {
+        LeadSummaryDTO summary = new LeadSummaryDTO();
+        summary.setId(1L);
+        when(restaurantLeadRepository.findLeadSummariesByKamId(1L)).thenReturn(List.of(summary));
+
+        List<LeadSummaryDTO> result = kamService.getLeadSummariesByKAMId(1L);
+
+        assertEquals(List.of(summary), result);
+    }
+
     @Test
     void getKAMPerformance_Success() {
         when(kamRepository.findKAMsPerformanceMetrics())
                 .thenReturn(Collections.singletonList(performanceMetrics));
+        kamScoreboard.initialize();
 
         KAMPerformanceDTO result = kamService.getKAMPerformance(1L);
 
@@ -175,6 +276,7 @@ class KAMServiceTest {
     void getKAMPerformance_KAMNotFound_ThrowsException() {
         when(kamRepository.findKAMsPerformanceMetrics())
                 .thenReturn(Collections.emptyList());
+        kamScoreboard.initialize();
 
         assertThrows(KAMNotFoundException.class, () -> kamService.getKAMPerformance(1L));
     }
@@ -186,6 +288,7 @@ class KAMServiceTest {
                         performanceMetrics,
                         new Object[]{2L, "Test KAM 2", "test2@example.com", "0987654321", 8, 3, 30.0}
                 ));
+        kamScoreboard.initialize();
 
         List<KAMPerformanceDTO> result = kamService.getTopPerformingKAMs(1);
 
@@ -197,6 +300,7 @@ class KAMServiceTest {
     @Test
     void getTopPerformingKAMs_NoKAMs_ThrowsException() {
         when(kamRepository.findKAMsPerformanceMetrics()).thenReturn(Collections.emptyList());
+        kamScoreboard.initialize();
 
         assertThrows(KAMPerformanceException.class, () -> kamService.getTopPerformingKAMs(1));
     }
@@ -208,6 +312,7 @@ class KAMServiceTest {
                         performanceMetrics,
                         new Object[]{2L, "Test KAM 2", "test2@example.com", "0987654321", 8, 3, 30.0}
                 ));
+        kamScoreboard.initialize();
 
         List<KAMPerformanceDTO> result = kamService.getUnderPerformingKAMs(1);
 
@@ -219,6 +324,7 @@ class KAMServiceTest {
     @Test
     void getUnderPerformingKAMs_NoKAMs_ThrowsException() {
         when(kamRepository.findKAMsPerformanceMetrics()).thenReturn(Collections.emptyList());
+        kamScoreboard.initialize();
 
         assertThrows(KAMPerformanceException.class, () -> kamService.getUnderPerformingKAMs(1));
     }
@@ -227,7 +333,86 @@ class KAMServiceTest {
     void getUnderPerformingKAMs_NoUnderperformers_ThrowsException() {
         when(kamRepository.findKAMsPerformanceMetrics())
                 .thenReturn(Collections.singletonList(performanceMetrics));
+        kamScoreboard.initialize();
 
         assertThrows(KAMPerformanceException.class, () -> kamService.getUnderPerformingKAMs(1));
     }
-}
\ No newline at end of file
+
+    @Test
+    void getRecentPerformance_ShouldCombineWindowWithLeadCounts() {
+        when(kamRepository.findKAMsPerformanceMetrics()).thenReturn(Collections.singletonList(performanceMetrics));
+        kamScoreboard.initialize();
+        LocalDateTime lastEvent = LocalDateTime.of(2024, 5, 10, 9, 30);
+        // Two more calls came due and were skipped
+        when(kamActivityWindows.getActivity(eq(1L), eq(7), any(LocalDateTime.class)))
+                .thenReturn(new KAMActivity(1L, 7, 3, 1, 25, 8, 6, 2, lastEvent));
+
+        KAMRecentPerformanceDTO result = kamService.getRecentPerformance(1L, 7);
+
+        assertEquals(7, result.getDays());
+        assertEquals(75.0, result.getConversionRate());
+        assertEquals(10, result.getTotalLeads());
+        assertEquals(2.5, result.getInteractionsPerLead());
+        assertEquals(10, result.getScheduledCalls());
+        assertEquals(2, result.getMissedCalls());
+        assertEquals(60.0, result.getCallAdherence());
+        assertEquals(lastEvent, result.getLastUpdated());
+    }
+
+    @Test
+    void getRecentPerformance_KAMNotFound_ThrowsException() {
+        when(kamRepository.findKAMsPerformanceMetrics()).thenReturn(Collections.emptyList());
+        kamScoreboard.initialize();
+
+        assertThrows(KAMNotFoundException.class, () -> kamService.getRecentPerformance(1L, 7));
+        verifyNoInteractions(kamActivityWindows);
+    }
+
+    @Test
+    void getTopRecentPerformers_ShouldRankKAMsThatClosedLeadsByConversionRate() {
+        when(kamRepository.findKAMsPerformanceMetrics()).thenReturn(Arrays.asList(
+                performanceMetrics,
+                new Object[]{2L, "Test KAM 2", "test2@example.com", "0987654321", 8, 3, 30.0},
+                new Object[]{3L, "Test KAM 3", "test3@example.com", "0987654322", 8, 3, 30.0}));
+        kamScoreboard.initialize();
+        when(kamActivityWindows.getAllActivity(eq(30), any(LocalDateTime.class))).thenReturn(List.of(
+                new KAMActivity(1L, 30, 1, 3, 10, 0, 0, 0, null),
+                new KAMActivity(2L, 30, 2, 0, 10, 0, 0, 3, null),
+                new KAMActivity(3L, 30, 0, 0, 40, 0, 0, 0, null)));
+
+        List<KAMRecentPerformanceDTO> result = kamService.getTopRecentPerformers(5, 30);
+
+        assertEquals(List.of(2L, 1L), result.stream().map(KAMRecentPerformanceDTO::getKamId).toList());
+        assertEquals(0.0, result.get(0).getCallAdherence());
+        assertNull(result.get(1).getCallAdherence());
+    }
+
+    @Test
+    void getKAMLoads_ShouldListTheBalancersLoadsWithKAMNames() {
+        when(kamRepository.findKAMsPerformanceMetrics()).thenReturn(Collections.singletonList(performanceMetrics));
+        kamScoreboard.initialize();
+        when(kamLoadBalancer.getLoads()).thenReturn(List.of(
+                new KAMLoad(1L, 10, 2, 8, 1.5, 2, 37.0, 147.0),
+                new KAMLoad(9L, 0, 0, 0, 0, 0, 0, 0)));
+
+        List<KAMLoadDTO> loads = kamService.getKAMLoads();
+
+        assertEquals(2, loads.size());
+        KAMLoadDTO first = loads.getFirst();
+        assertEquals("Test KAM", first.getKamName());
+        assertEquals(8, first.getActiveLeads());
+        assertEquals(1.5, first.getDailyCalls());
+        assertEquals(20.0, first.getConversionRate());
+        assertEquals(18.5, first.getTerritoryLatitude());
+        assertEquals(73.5, first.getTerritoryLongitude());
+        assertNull(loads.get(1).getKamName());
+        assertNull(loads.get(1).getTerritoryLatitude());
+    }
+
+    @Test
+    void getKAMLoads_NoKAMs_ThrowsException() {
+        when(kamLoadBalancer.getLoads()).thenReturn(List.of());
+
+        assertThrows(KAMNotFoundException.class, () -> kamService.getKAMLoads());
+    }
+}
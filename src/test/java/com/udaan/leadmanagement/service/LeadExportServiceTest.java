@@ -0,0 +1,57 @@
+package com.udaan.leadmanagement.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.udaan.leadmanagement.DTO.LeadSummaryDTO;
+import com.udaan.leadmanagement.enums.LeadStatus;
+import com.udaan.leadmanagement.repository.RestaurantLeadRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LeadExportServiceTest {
+
+    @Mock
+    private RestaurantLeadRepository restaurantLeadRepository;
+
+    private LeadExportService exportService;
+
+    @BeforeEach
+    void setUp() {
+        exportService = new LeadExportService(restaurantLeadRepository, new ObjectMapper().findAndRegisterModules());
+    }
+
+    @Test
+    void exportLeads_ShouldWriteOneJsonObjectPerLine() throws Exception {
+        LeadSummaryDTO first = new LeadSummaryDTO(1L, "Lead 1", "Address 1", LeadStatus.NEW, null, null, 7, null);
+        LeadSummaryDTO second = new LeadSummaryDTO(2L, "Lead 2", "Address 2", LeadStatus.CONVERTED, 3L, null, 7, null);
+        when(restaurantLeadRepository.streamAllLeadSummaries()).thenReturn(Stream.of(first, second));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long written = exportService.exportLeads(out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, written);
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("{\"id\":1,"));
+        assertTrue(lines[1].contains("\"kamId\":3"));
+    }
+
+    @Test
+    void exportLeads_WhenNoLeads_ShouldWriteNothing() throws Exception {
+        when(restaurantLeadRepository.streamAllLeadSummaries()).thenReturn(Stream.empty());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertEquals(0, exportService.exportLeads(out));
+        assertEquals(0, out.size());
+    }
+}
@@ -0,0 +1,238 @@
+package com.udaan.leadmanagement.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.udaan.leadmanagement.DTO.JobStatusDTO;
+import com.udaan.leadmanagement.DTO.LeadImportRowDTO;
+import com.udaan.leadmanagement.assignment.KAMLoadBalancer;
+import com.udaan.leadmanagement.assignment.LeadLoad;
+import com.udaan.leadmanagement.enums.ImportFormat;
+import com.udaan.leadmanagement.enums.LeadEventType;
+import com.udaan.leadmanagement.enums.LeadStatus;
+import com.udaan.leadmanagement.event.LeadEventLog;
+import com.udaan.leadmanagement.geo.GazetteerGeocoder;
+import com.udaan.leadmanagement.geo.LeadGeoIndex;
+import com.udaan.leadmanagement.model.Contact;
+import com.udaan.leadmanagement.model.LeadEvent;
+import com.udaan.leadmanagement.model.RestaurantLead;
+import com.udaan.leadmanagement.search.LeadSearchIndex;
+import com.udaan.leadmanagement.validation.ContactValidator;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LeadImportServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private EntityManagerFactory entityManagerFactory;
+
+    @Mock
+    private LeadEventLog leadEventLog;
+
+    @Mock
+    private LeadSearchIndex leadSearchIndex;
+
+    @Mock
+    private LeadGeoIndex leadGeoIndex;
+
+    @Mock
+    private KAMScoreboard kamScoreboard;
+
+    @Mock
+    private KAMLoadBalancer kamLoadBalancer;
+
+    private final List<String> batches = new ArrayList<>();
+    private BackgroundJobService jobService;
+    private LeadImportService importService;
+
+    @BeforeEach
+    void setUp() {
+        SessionFactoryImplementor sessionFactory = mock(SessionFactoryImplementor.class, RETURNS_DEEP_STUBS);
+        when(entityManagerFactory.unwrap(SessionFactoryImplementor.class)).thenReturn(sessionFactory);
+        when(sessionFactory.getJdbcServices().getDialect().getSequenceSupport().getSequenceNextValString(anyString()))
+                .thenAnswer(invocation -> "next " + invocation.getArgument(0));
+
+        jobService = new BackgroundJobService(new SyncTaskExecutor(), Duration.ofHours(1));
+        importService = new LeadImportService(jdbcTemplate, transactionManager, entityManagerFactory,
+                jobService, new ContactValidator("91"), leadEventLog, leadSearchIndex, leadGeoIndex,
+                new GazetteerGeocoder(), kamScoreboard, kamLoadBalancer, new ObjectMapper(), 2);
+    }
+
+    @Test
+    void importLeads_Csv_ShouldWriteValidRowsInBatchesAndReportInvalidOnes() throws Exception {
+        stubInserts();
+        String csv = """
+                name,address,callFrequency,contactName,contactRole,contactEmail,contactPhone
+                Spice Hub,"1 Main St, Pune",7,Asha,Owner,asha@example.com,9876543210
+                ,No Name,7,,,,
+                Curry House,,3,,,,
+                Dosa Point,,x,,,,
+                Tandoor Co,,14,,,,
+                """;
+        BackgroundJob job = jobService.submit("TEST", 0, j -> { });
+
+        long imported = importService.importLeads(stream(csv), ImportFormat.CSV, job);
+
+        assertEquals(3, imported);
+        assertEquals(List.of("restaurant_lead:2", "contact:1", "restaurant_lead:1"), batches);
+        JobStatusDTO status = job.toDTO();
+        assertEquals(5, status.getTotalItems());
+        assertEquals(3, status.getProcessedItems());
+        assertEquals(List.of("Line 3: name is required", "Line 5: callFrequency must be a whole number of days"),
+                status.getErrors());
+        // One append per batch: the first batch's two leads and its one contact
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<LeadEvent>> events = ArgumentCaptor.forClass(List.class);
+        verify(leadEventLog, times(2)).append(events.capture());
+        assertEquals(List.of(LeadEventType.LEAD_CREATED, LeadEventType.LEAD_CREATED, LeadEventType.CONTACT_ADDED),
+                events.getAllValues().getFirst().stream().map(LeadEvent::getType).toList());
+    }
+
+    @Test
+    void importLeads_Ndjson_ShouldReportMalformedLines() throws Exception {
+        stubInserts();
+        String ndjson = """
+                {"name":"Spice Hub","callFrequency":7}
+                {"name":"Broken",
+                {"name":"Curry House","callFrequency":0}
+                """;
+        BackgroundJob job = jobService.submit("TEST", 0, j -> { });
+
+        long imported = importService.importLeads(stream(ndjson), ImportFormat.NDJSON, job);
+
+        assertEquals(1, imported);
+        List<String> errors = job.toDTO().getErrors();
+        assertEquals(2, errors.size());
+        assertTrue(errors.get(0).startsWith("Line 2: malformed JSON"));
+        assertEquals("Line 3: callFrequency must be at least 1 day", errors.get(1));
+    }
+
+    @Test
+    void importLeads_ShouldGiveEachLeadTheKAMTheBalancerPicks() throws Exception {
+        stubInserts();
+        when(kamLoadBalancer.assign(any(LeadLoad.class))).thenReturn(4L, 5L);
+        BackgroundJob job = jobService.submit("TEST", 0, j -> { });
+
+        importService.importLeads(stream("name,callFrequency\nA,1\nB,1\n"), ImportFormat.CSV, job);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<LeadEvent>> events = ArgumentCaptor.forClass(List.class);
+        verify(leadEventLog).append(events.capture());
+        assertEquals(List.of(4L, 5L), events.getValue().stream().map(LeadEvent::getKamId).toList());
+        verify(kamScoreboard).onLeadAssigned(null, 4L, LeadStatus.NEW);
+        verify(kamScoreboard).onLeadAssigned(null, 5L, LeadStatus.NEW);
+    }
+
+    @Test
+    void importLeads_ShouldTakeIdsFromSequenceBlocks() throws Exception {
+        AtomicLong sequence = new AtomicLong(1);
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class)))
+                .thenAnswer(invocation -> sequence.getAndAdd(100));
+        List<Long> ids = new ArrayList<>();
+        when(jdbcTemplate.batchUpdate(anyString(), any(BatchPreparedStatementSetter.class))).thenAnswer(invocation -> {
+            BatchPreparedStatementSetter setter = invocation.getArgument(1);
+            java.sql.PreparedStatement statement = mock(java.sql.PreparedStatement.class);
+            for (int i = 0; i < setter.getBatchSize(); i++) {
+                setter.setValues(statement, i);
+            }
+            var captor = org.mockito.ArgumentCaptor.forClass(Long.class);
+            verify(statement, atLeastOnce()).setLong(eq(1), captor.capture());
+            ids.addAll(captor.getAllValues());
+            return new int[setter.getBatchSize()];
+        });
+        BackgroundJob job = jobService.submit("TEST", 0, j -> { });
+
+        importService.importLeads(stream("name,callFrequency\nA,1\nB,1\nC,1\n"), ImportFormat.CSV, job);
+
+        // The fresh sequence's start value 1 is skipped; 101 reserves ids 2..101
+        assertEquals(List.of(2L, 3L, 4L), ids);
+    }
+
+    @Test
+    void importLeads_WhenBatchFails_ShouldStopWithImportedCount() {
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class))).thenReturn(100L, 200L);
+        when(jdbcTemplate.batchUpdate(anyString(), any(BatchPreparedStatementSetter.class)))
+                .thenReturn(new int[2])
+                .thenThrow(new DataIntegrityViolationException("duplicate key"));
+        BackgroundJob job = jobService.submit("TEST", 0, j -> { });
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, () ->
+                importService.importLeads(stream("name,callFrequency\nA,1\nB,1\nC,1\nD,1\n"), ImportFormat.CSV, job));
+
+        assertTrue(e.getMessage().startsWith("Import stopped after 2 leads"));
+        assertEquals(2, job.toDTO().getProcessedItems());
+    }
+
+    @Test
+    void toLead_ShouldMatchCreateLeadInitialState() {
+        LocalDateTime now = LocalDateTime.of(2024, 1, 1, 10, 0);
+
+        RestaurantLead lead = importService.toLead(
+                new LeadImportRowDTO(" Spice Hub ", "Pune", 7, "Asha", "Owner", "asha@example.com", "9876543210"), now);
+
+        assertEquals("Spice Hub", lead.getName());
+        assertEquals(LeadStatus.NEW, lead.getStatus());
+        assertEquals(now.plusDays(7), lead.getNextCallDate());
+        // Placed by geocoding the address
+        assertEquals(18.52, lead.getLatitude(), 0.1);
+        assertEquals(73.86, lead.getLongitude(), 0.1);
+        Contact contact = lead.getContacts().getFirst();
+        assertTrue(contact.isPrimaryContact());
+        assertEquals("+919876543210", contact.getPhone());
+        assertSame(lead, contact.getRestaurantLead());
+    }
+
+    @Test
+    void toLead_InvalidContact_ThrowsException() {
+        LeadImportRowDTO row = new LeadImportRowDTO("Spice Hub", null, 7, "Asha", "Owner", "not-an-email", "9876543210");
+
+        assertThrows(IllegalArgumentException.class, () -> importService.toLead(row, LocalDateTime.now()));
+    }
+
+    private void stubInserts() {
+        AtomicLong sequence = new AtomicLong(100);
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class)))
+                .thenAnswer(invocation -> sequence.getAndAdd(100));
+        when(jdbcTemplate.batchUpdate(anyString(), any(BatchPreparedStatementSetter.class))).thenAnswer(invocation -> {
+            String sql = invocation.getArgument(0);
+            BatchPreparedStatementSetter setter = invocation.getArgument(1);
+            batches.add(sql.split(" ")[2] + ":" + setter.getBatchSize());
+            return new int[setter.getBatchSize()];
+        });
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
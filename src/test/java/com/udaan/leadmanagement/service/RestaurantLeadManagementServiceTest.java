@@ -1,19 +1,39 @@
 package com.udaan.leadmanagement.service;
 
+import com.udaan.leadmanagement.DTO.InteractionDTO;
+import com.udaan.leadmanagement.DTO.InteractionPageDTO;
+import com.udaan.leadmanagement.DTO.LeadPageDTO;
+import com.udaan.leadmanagement.DTO.LeadSummaryDTO;
+import com.udaan.leadmanagement.DTO.NearbyLeadDTO;
+import com.udaan.leadmanagement.assignment.KAMLoadBalancer;
+import com.udaan.leadmanagement.assignment.LeadLoad;
+import com.udaan.leadmanagement.cache.LeadCaches;
 import com.udaan.leadmanagement.enums.InteractionType;
+import com.udaan.leadmanagement.enums.LeadEventType;
 import com.udaan.leadmanagement.enums.LeadStatus;
-import com.udaan.leadmanagement.exception.InteractionNotFoundException;
+import com.udaan.leadmanagement.event.LeadEventLog;
 import com.udaan.leadmanagement.exception.LeadNotFoundException;
+import com.udaan.leadmanagement.geo.GeoMatch;
+import com.udaan.leadmanagement.geo.GeoPoint;
+import com.udaan.leadmanagement.geo.Geocoder;
+import com.udaan.leadmanagement.geo.LeadGeoIndex;
 import com.udaan.leadmanagement.model.Interaction;
+import com.udaan.leadmanagement.model.KAM;
+import com.udaan.leadmanagement.model.LeadEvent;
 import com.udaan.leadmanagement.model.RestaurantLead;
 import com.udaan.leadmanagement.repository.InteractionRepository;
+import com.udaan.leadmanagement.repository.KAMRepository;
 import com.udaan.leadmanagement.repository.RestaurantLeadRepository;
+import com.udaan.leadmanagement.search.LeadSearchIndex;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
@@ -23,6 +43,7 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -34,6 +55,30 @@ class RestaurantLeadManagementServiceTest {
     @Mock
     private InteractionRepository interactionRepository;
 
+    @Mock
+    private KAMScoreboard kamScoreboard;
+
+    @Mock
+    private KAMRepository kamRepository;
+
+    @Mock
+    private KAMLoadBalancer kamLoadBalancer;
+
+    @Mock
+    private LeadCaches leadCaches;
+
+    @Mock
+    private LeadEventLog leadEventLog;
+
+    @Mock
+    private LeadSearchIndex leadSearchIndex;
+
+    @Mock
+    private LeadGeoIndex leadGeoIndex;
+
+    @Mock
+    private Geocoder geocoder;
+
     @InjectMocks
     private RestaurantLeadManagementService service;
 
@@ -62,6 +107,83 @@ class RestaurantLeadManagementServiceTest {
         assertEquals(LeadStatus.NEW, result.getStatus());
         assertNotNull(result.getNextCallDate());
         verify(restaurantLeadRepository).save(testLead);
+        verify(leadEventLog).append(argThat((LeadEvent event) -> event.getType() == LeadEventType.LEAD_CREATED
+                && event.getLeadId().equals(1L) && event.getStatus() == LeadStatus.NEW));
+    }
+
+    @Test
+    void createLead_WithoutPosition_ShouldGeocodeAddress() {
+        when(geocoder.geocode(testLead.getAddress())).thenReturn(Optional.of(new GeoPoint(18.5, 73.8)));
+        when(restaurantLeadRepository.save(any(RestaurantLead.class))).thenReturn(testLead);
+
+        RestaurantLead result = service.createLead(testLead);
+
+        assertEquals(18.5, result.getLatitude());
+        assertEquals(73.8, result.getLongitude());
+    }
+
+    @Test
+    void createLead_WithoutKAM_ShouldAssignTheOneTheBalancerPicks() {
+        KAM kam = new KAM();
+        kam.setId(4L);
+        when(kamLoadBalancer.assign(any(LeadLoad.class))).thenReturn(4L);
+        when(kamRepository.getReferenceById(4L)).thenReturn(kam);
+        when(restaurantLeadRepository.save(any(RestaurantLead.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        RestaurantLead result = service.createLead(testLead);
+
+        assertSame(kam, result.getAssignedKam());
+        verify(leadEventLog).append(argThat((LeadEvent event) -> Long.valueOf(4L).equals(event.getKamId())));
+        verify(kamScoreboard).onLeadAssigned(null, 4L, LeadStatus.NEW);
+        // The balancer counted the lead when it picked the KAM
+        verify(kamLoadBalancer, never()).onLeadAssigned(any(), any(), any(), any());
+    }
+
+    @Test
+    void createLead_WithKAM_ShouldKeepItAndCountTheLead() {
+        KAM kam = new KAM();
+        kam.setId(6L);
+        testLead.setAssignedKam(kam);
+        when(restaurantLeadRepository.save(any(RestaurantLead.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        RestaurantLead result = service.createLead(testLead);
+
+        assertSame(kam, result.getAssignedKam());
+        verify(kamLoadBalancer, never()).assign(any());
+        verify(kamLoadBalancer).onLeadAssigned(eq(null), eq(6L), eq(LeadStatus.NEW), any(LeadLoad.class));
+    }
+
+    @Test
+    void createLead_WithHalfAPosition_ShouldThrowException() {
+        testLead.setLatitude(18.5);
+
+        assertThrows(IllegalArgumentException.class, () -> service.createLead(testLead));
+        verify(restaurantLeadRepository, never()).save(any());
+        verifyNoInteractions(geocoder);
+    }
+
+    @Test
+    void getNearestLeads_ShouldKeepIndexOrderAndSkipLeadsNoLongerFound() {
+        GeoPoint point = new GeoPoint(18.5, 73.8);
+        when(leadGeoIndex.nearest(point, 3)).thenReturn(List.of(
+                new GeoMatch(7L, 18.51, 73.8, 1.1), new GeoMatch(9L, 18.52, 73.8, 2.2), new GeoMatch(3L, 18.53, 73.8, 3.3)));
+        when(restaurantLeadRepository.findLeadSummariesByIdIn(List.of(7L, 9L, 3L))).thenReturn(List.of(
+                new LeadSummaryDTO(3L, "Three", null, LeadStatus.NEW, null, null, 7, null),
+                new LeadSummaryDTO(7L, "Seven", null, LeadStatus.NEW, 2L, null, 7, null)));
+
+        List<NearbyLeadDTO> result = service.getNearestLeads(point, 3);
+
+        assertEquals(List.of(7L, 3L), result.stream().map(NearbyLeadDTO::getId).toList());
+        assertEquals("Seven", result.getFirst().getName());
+        assertEquals(2L, result.getFirst().getKamId());
+        assertEquals(1.1, result.getFirst().getDistanceKm());
+    }
+
+    @Test
+    void getLeadsWithin_WhenCornersAreSwapped_ShouldThrowException() {
+        assertThrows(IllegalArgumentException.class,
+                () -> service.getLeadsWithin(new GeoPoint(19, 73), new GeoPoint(18, 74), 10));
+        verifyNoInteractions(leadGeoIndex);
     }
 
     @Test
@@ -82,6 +204,29 @@ class RestaurantLeadManagementServiceTest {
         assertThrows(LeadNotFoundException.class, () -> service.getAllLeads());
     }
 
+    @Test
+    void getLeadsPage_WhenMoreRowsExist_ShouldReturnNextCursor() {
+        List<LeadSummaryDTO> rows = Arrays.asList(summary(11L), summary(12L), summary(13L));
+        when(restaurantLeadRepository.findLeadSummariesAfter(10L, LeadStatus.NEW, null, Limit.of(3)))
+                .thenReturn(rows);
+
+        LeadPageDTO result = service.getLeadsPage(10L, 2, LeadStatus.NEW, null);
+
+        assertEquals(2, result.getLeads().size());
+        assertEquals(12L, result.getNextCursor());
+    }
+
+    @Test
+    void getLeadsPage_OnLastPage_ShouldReturnNullCursor() {
+        when(restaurantLeadRepository.findLeadSummariesAfter(eq(0L), any(), eq(5L), any(Limit.class)))
+                .thenReturn(Collections.singletonList(summary(1L)));
+
+        LeadPageDTO result = service.getLeadsPage(null, 50, null, 5L);
+
+        assertEquals(1, result.getLeads().size());
+        assertNull(result.getNextCursor());
+    }
+
     @Test
     void getTodayCalls_ShouldReturnLeadsForToday() {
         List<RestaurantLead> expectedLeads = Arrays.asList(testLead);
@@ -99,25 +244,37 @@ class RestaurantLeadManagementServiceTest {
 
     @Test
     void updateLeadStatus_ShouldUpdateStatus() {
-        when(restaurantLeadRepository.findById(1L)).thenReturn(Optional.of(testLead));
+        when(restaurantLeadRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(testLead));
         when(restaurantLeadRepository.save(any(RestaurantLead.class))).thenReturn(testLead);
 
         RestaurantLead result = service.updateLeadStatus(1L, LeadStatus.IN_PROGRESS);
 
         assertEquals(LeadStatus.IN_PROGRESS, result.getStatus());
         verify(restaurantLeadRepository).save(testLead);
+        verify(leadEventLog).append(argThat((LeadEvent event) -> event.getType() == LeadEventType.STATUS_CHANGED
+                && event.getStatus() == LeadStatus.IN_PROGRESS));
+    }
+
+    @Test
+    void updateLeadStatus_ToSameStatus_ShouldNotLogEvent() {
+        when(restaurantLeadRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(testLead));
+        when(restaurantLeadRepository.save(any(RestaurantLead.class))).thenReturn(testLead);
+
+        service.updateLeadStatus(1L, LeadStatus.NEW);
+
+        verifyNoInteractions(leadEventLog);
     }
 
     @Test
     void updateLeadStatus_WhenLeadNotFound_ShouldThrowException() {
-        when(restaurantLeadRepository.findById(1L)).thenReturn(Optional.empty());
+        when(restaurantLeadRepository.findByIdForUpdate(1L)).thenReturn(Optional.empty());
 
         assertThrows(LeadNotFoundException.class, () -> service.updateLeadStatus(1L, LeadStatus.IN_PROGRESS));
     }
 
     @Test
     void recordInteraction_ForCallType_ShouldUpdateLeadAndSaveInteraction() {
-        when(restaurantLeadRepository.findById(1L)).thenReturn(Optional.of(testLead));
+        when(restaurantLeadRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(testLead));
         when(restaurantLeadRepository.save(any(RestaurantLead.class))).thenReturn(testLead);
         when(interactionRepository.save(any(Interaction.class))).thenReturn(testInteraction);
 
@@ -128,12 +285,39 @@ class RestaurantLeadManagementServiceTest {
         assertNotNull(testLead.getLastCallDate());
         assertNotNull(testLead.getNextCallDate());
         verify(restaurantLeadRepository).save(testLead);
-        verify(interactionRepository).save(testInteraction);
+        verify(restaurantLeadRepository).recordInteractions(eq(1L), eq(1), any(LocalDateTime.class));
+        InOrder writeThenEvict = inOrder(interactionRepository, leadCaches);
+        writeThenEvict.verify(interactionRepository).save(testInteraction);
+        writeThenEvict.verify(leadCaches).evictInteractions(List.of(1L));
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<LeadEvent>> events = ArgumentCaptor.forClass(List.class);
+        verify(leadEventLog).append(events.capture());
+        assertEquals(List.of(LeadEventType.INTERACTION_RECORDED, LeadEventType.STATUS_CHANGED),
+                events.getValue().stream().map(LeadEvent::getType).toList());
+        assertEquals(InteractionType.CALL, events.getValue().getFirst().getInteractionType());
+        // No call was due yet
+        assertNull(events.getValue().getFirst().getOnSchedule());
+    }
+
+    @Test
+    void interactionEvents_ShouldMarkCallsMadeByTheDueDayAsOnSchedule() {
+        LocalDateTime due = LocalDateTime.of(2024, 5, 10, 9, 0);
+
+        LeadEvent sameDay = RestaurantLeadManagementService.interactionEvents(testLead, LeadStatus.IN_PROGRESS, due,
+                InteractionType.CALL, due.plusHours(8)).getFirst();
+        LeadEvent dayLate = RestaurantLeadManagementService.interactionEvents(testLead, LeadStatus.IN_PROGRESS, due,
+                InteractionType.CALL, due.plusDays(1)).getFirst();
+        LeadEvent email = RestaurantLeadManagementService.interactionEvents(testLead, LeadStatus.IN_PROGRESS, due,
+                InteractionType.EMAIL, due.plusDays(1)).getFirst();
+
+        assertEquals(Boolean.TRUE, sameDay.getOnSchedule());
+        assertEquals(Boolean.FALSE, dayLate.getOnSchedule());
+        assertNull(email.getOnSchedule());
     }
 
     @Test
     void recordInteraction_WhenLeadNotFound_ShouldThrowException() {
-        when(restaurantLeadRepository.findById(1L)).thenReturn(Optional.empty());
+        when(restaurantLeadRepository.findByIdForUpdate(1L)).thenReturn(Optional.empty());
 
         assertThrows(LeadNotFoundException.class, () -> service.recordInteraction(1L, testInteraction));
     }
@@ -141,7 +325,7 @@ class RestaurantLeadManagementServiceTest {
     @Test
     void recordInteraction_ForNonCallType_ShouldNotUpdateCallDates() {
         testInteraction.setType(InteractionType.EMAIL);
-        when(restaurantLeadRepository.findById(1L)).thenReturn(Optional.of(testLead));
+        when(restaurantLeadRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(testLead));
         when(restaurantLeadRepository.save(any(RestaurantLead.class))).thenReturn(testLead);
         when(interactionRepository.save(any(Interaction.class))).thenReturn(testInteraction);
 
@@ -152,29 +336,71 @@ class RestaurantLeadManagementServiceTest {
     }
 
     @Test
-    void getInteractionsByLeadId_ShouldReturnInteractions() {
-        List<Interaction> interactions = Arrays.asList(testInteraction);
-        when(restaurantLeadRepository.findById(1L)).thenReturn(Optional.of(testLead));
-        when(interactionRepository.findAllByRestaurantLeadId(1L)).thenReturn(interactions);
+    void getInteractionHistory_WhenOlderRowsExist_ShouldReturnNewestFirstWithCursor() {
+        LocalDateTime now = LocalDateTime.of(2024, 5, 10, 9, 30);
+        List<InteractionDTO> rows = Arrays.asList(history(3L, now), history(2L, now.minusDays(1)), history(1L, now.minusDays(2)));
+        when(interactionRepository.findLatestHistory(1L, Limit.of(3))).thenReturn(rows);
 
-        List<Interaction> result = service.getInteractionsByLeadId(1L);
+        InteractionPageDTO result = service.getInteractionHistory(1L, null, 2);
 
-        assertEquals(1, result.size());
-        assertEquals(testInteraction, result.get(0));
+        assertEquals(List.of(3L, 2L), result.getInteractions().stream().map(InteractionDTO::getId).toList());
+        assertEquals("2024-05-09T09:30_2", result.getNextCursor());
     }
 
     @Test
-    void getInteractionsByLeadId_WhenLeadNotFound_ShouldThrowException() {
-        when(restaurantLeadRepository.findById(1L)).thenReturn(Optional.empty());
+    void getInteractionHistory_WithCursor_ShouldContinueBeforeIt() {
+        LocalDateTime cursorDate = LocalDateTime.of(2024, 5, 9, 9, 30);
+        when(interactionRepository.findHistoryBefore(1L, cursorDate, 2L, Limit.of(3)))
+                .thenReturn(List.of(history(1L, cursorDate.minusDays(1))));
 
-        assertThrows(LeadNotFoundException.class, () -> service.getInteractionsByLeadId(1L));
+        InteractionPageDTO result = service.getInteractionHistory(1L, "2024-05-09T09:30_2", 2);
+
+        assertEquals(1, result.getInteractions().size());
+        assertNull(result.getNextCursor());
     }
 
     @Test
-    void getInteractionsByLeadId_WhenNoInteractions_ShouldThrowException() {
-        when(restaurantLeadRepository.findById(1L)).thenReturn(Optional.of(testLead));
-        when(interactionRepository.findAllByRestaurantLeadId(1L)).thenReturn(Collections.emptyList());
+    void getInteractionHistory_WithDateOnlyCursor_ShouldExcludeThatInstant() {
+        LocalDateTime before = LocalDateTime.of(2024, 5, 1, 0, 0);
+        when(interactionRepository.findHistoryBefore(eq(1L), eq(before), eq(0L), any(Limit.class))).thenReturn(List.of(history(1L, before.minusHours(1))));
+
+        InteractionPageDTO result = service.getInteractionHistory(1L, "2024-05-01T00:00", 50);
+
+        assertEquals(1, result.getInteractions().size());
+    }
+
+    @Test
+    void getInteractionHistory_WithMalformedCursor_ShouldThrowIllegalArgument() {
+        assertThrows(IllegalArgumentException.class, () -> service.getInteractionHistory(1L, "yesterday_1", 50));
+        assertThrows(IllegalArgumentException.class, () -> service.getInteractionHistory(1L, "2024-05-01T00:00_x", 50));
+    }
+
+    @Test
+    void getInteractionHistory_WhenLeadNotFound_ShouldThrowException() {
+        when(interactionRepository.findLatestHistory(eq(1L), any(Limit.class))).thenReturn(List.of());
+        when(restaurantLeadRepository.existsById(1L)).thenReturn(false);
+
+        assertThrows(LeadNotFoundException.class, () -> service.getInteractionHistory(1L, null, 50));
+    }
+
+    @Test
+    void getInteractionHistory_WhenNoInteractions_ShouldReturnEmptyPage() {
+        when(interactionRepository.findLatestHistory(eq(1L), any(Limit.class))).thenReturn(List.of());
+        when(restaurantLeadRepository.existsById(1L)).thenReturn(true);
+
+        InteractionPageDTO result = service.getInteractionHistory(1L, null, 50);
+
+        assertTrue(result.getInteractions().isEmpty());
+        assertNull(result.getNextCursor());
+    }
+
+    private InteractionDTO history(Long id, LocalDateTime date) {
+        return new InteractionDTO(id, InteractionType.CALL, date, null);
+    }
 
-        assertThrows(InteractionNotFoundException.class, () -> service.getInteractionsByLeadId(1L));
+    private LeadSummaryDTO summary(Long id) {
+        LeadSummaryDTO dto = new LeadSummaryDTO();
+        dto.setId(id);
+        return dto;
     }
-}
\ No newline at end of file
+}
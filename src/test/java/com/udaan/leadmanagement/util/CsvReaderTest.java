@@ -0,0 +1,49 @@
+package com.udaan.leadmanagement.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvReaderTest {
+
+    @Test
+    void readRecord_ShouldSplitPlainFields() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader("a,b,c\n1,,3\n"));
+
+        assertEquals(List.of("a", "b", "c"), reader.readRecord());
+        assertEquals(List.of("1", "", "3"), reader.readRecord());
+        assertNull(reader.readRecord());
+    }
+
+    @Test
+    void readRecord_ShouldHandleQuotedFields() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader("\"Tasty, Inc\",\"say \"\"hi\"\"\",\"two\nlines\"\r\nnext,row\r\n"));
+
+        assertEquals(List.of("Tasty, Inc", "say \"hi\"", "two\nlines"), reader.readRecord());
+        assertEquals(1, reader.getRecordLine());
+        assertEquals(List.of("next", "row"), reader.readRecord());
+        assertEquals(3, reader.getRecordLine());
+    }
+
+    @Test
+    void readRecord_ShouldSkipBlankLinesAndReadLastRecordWithoutNewline() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader("a\n\n\nb"));
+
+        assertEquals(List.of("a"), reader.readRecord());
+        assertEquals(List.of("b"), reader.readRecord());
+        assertEquals(4, reader.getRecordLine());
+        assertNull(reader.readRecord());
+    }
+
+    @Test
+    void readRecord_UnterminatedQuote_ThrowsException() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader("ok\n\"never closed,\n"));
+
+        assertEquals(List.of("ok"), reader.readRecord());
+        assertThrows(IllegalArgumentException.class, reader::readRecord);
+    }
+}
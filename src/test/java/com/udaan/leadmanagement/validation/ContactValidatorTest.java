@@ -0,0 +1,103 @@
+package com.udaan.leadmanagement.validation;
+
+import com.udaan.leadmanagement.enums.ContactValidationError;
+import com.udaan.leadmanagement.model.Contact;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContactValidatorTest {
+
+    private final ContactValidator validator = new ContactValidator("91");
+
+    @Test
+    void validate_ValidContact_ReturnsNull() {
+        assertNull(validator.validate("Asha", "Owner", "asha@example.com", "+91 98765-43210"));
+    }
+
+    @Test
+    void validate_ShouldReportFirstErrorInFieldOrder() {
+        assertEquals(ContactValidationError.NAME_REQUIRED, validator.validate(" \t", "", "bad", "123"));
+        assertEquals(ContactValidationError.INVALID_EMAIL, validator.validate("Asha", "", "bad", "123"));
+        assertEquals(ContactValidationError.INVALID_PHONE, validator.validate("Asha", "", "a@b", "123"));
+        assertEquals(ContactValidationError.ROLE_REQUIRED, validator.validate("Asha", null, "a@b", "9876543210"));
+    }
+
+    @Test
+    void normalize_InvalidContact_ThrowsWithErrorMessage() {
+        Contact contact = new Contact();
+        contact.setName("Asha");
+        contact.setRole("Owner");
+        contact.setEmail("asha@example.com");
+        contact.setPhone("12345");
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> validator.normalize(contact));
+
+        assertEquals("Invalid phone number format", e.getMessage());
+    }
+
+    @Test
+    void normalizePhone_ShouldProduceE164() {
+        assertEquals("+919876543210", validator.normalizePhone("9876543210"));
+        assertEquals("+919876543210", validator.normalizePhone("09876543210"));
+        assertEquals("+919876543210", validator.normalizePhone("(+91) 98765.43210"));
+        assertEquals("+919876543210", validator.normalizePhone("0091 98765 43210"));
+        assertEquals("+919876543210", validator.normalizePhone("919876543210"));
+        assertEquals("+14155550123", validator.normalizePhone("+1 (415) 555-0123"));
+    }
+
+    @Test
+    void normalizePhone_CanonicalInput_ReturnsSameInstance() {
+        String phone = "+919876543210";
+
+        assertSame(phone, validator.normalizePhone(phone));
+    }
+
+    @Test
+    void normalizePhone_InvalidNumbers_ReturnNull() {
+        assertNull(validator.normalizePhone("123"));
+        assertNull(validator.normalizePhone("+0123456789"));
+        assertNull(validator.normalizePhone("+1234567890123456"));
+        assertNull(validator.normalizePhone("012345678901"));
+        assertNull(validator.normalizePhone("98765x43210"));
+        assertNull(validator.normalizePhone("98765+43210"));
+        assertNull(validator.normalizePhone(" - "));
+        assertNull(validator.normalizePhone(""));
+    }
+
+    @Test
+    void isValidEmail_ShouldAgreeWithPreviousRegex() {
+        String[] samples = {"john@example.com", "a@b", "@b", "a@", "a@@", "a b@c", "a@b\n", "a@b c", "J.o+h_n-1@x.y",
+                "john.example.com", "", "é@b", "a@ ", "a@b\r\n"};
+        for (String sample : samples) {
+            assertEquals(sample.matches("^[A-Za-z0-9+_.-]+@(.+)$"), ContactValidator.isValidEmail(sample), sample);
+        }
+
+        Random random = new Random(42);
+        char[] alphabet = {'a', 'Z', '7', '+', '_', '.', '-', '@', ' ', '\n', '\r', '\u0085', '!', 'é'};
+        for (int i = 0; i < 20_000; i++) {
+            char[] chars = new char[random.nextInt(8)];
+            for (int k = 0; k < chars.length; k++) {
+                chars[k] = alphabet[random.nextInt(alphabet.length)];
+            }
+            String sample = new String(chars);
+            assertEquals(sample.matches("^[A-Za-z0-9+_.-]+@(.+)$"), ContactValidator.isValidEmail(sample), sample);
+        }
+    }
+
+    @Test
+    void isBlank_ShouldMatchTrimIsEmpty() {
+        assertTrue(ContactValidator.isBlank(null));
+        assertTrue(ContactValidator.isBlank(" \t\n"));
+        assertFalse(ContactValidator.isBlank(" a "));
+    }
+
+    @Test
+    void constructor_InvalidCountryCode_ThrowsException() {
+        assertThrows(IllegalArgumentException.class, () -> new ContactValidator("+91"));
+        assertThrows(IllegalArgumentException.class, () -> new ContactValidator("0"));
+        assertThrows(IllegalArgumentException.class, () -> new ContactValidator("1234"));
+    }
+}